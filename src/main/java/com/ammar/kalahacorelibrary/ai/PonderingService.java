@@ -0,0 +1,347 @@
+package com.ammar.kalahacorelibrary.ai;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.engine.KalahaSearch;
+import com.ammar.kalahacorelibrary.engine.RuleSet;
+import com.ammar.kalahacorelibrary.engine.SearchResult;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.Observer;
+import com.ammar.kalahacorelibrary.pubsub.Subscription;
+import com.ammar.kalahacorelibrary.pubsub.SubscriptionFilter;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pondering: while the human player thinks about his move, the AI reply for every possible human move is searched in the background.
+ * <p>
+ * An attached game starts pondering by itself as soon as the player turn passes to the human (CHANGE_TURN, MOVES_APPLIED,
+ * UNDO_MOVE or REDO_MOVE for the human player), and stops once the game is decided. Games that aren't attached call
+ * startPondering(..) themselves.
+ * <p>
+ * The reply to every candidate human move is searched to depth 1 right away (by the thread playing the game, a handful of moves),
+ * then all candidates are deepened breadth-first in the background (depth 2 for all candidates, then depth 3, etc), until the
+ * wall-clock budget of the game is used, the maximum depth is reached or the game is cancelled. So whenever the human move
+ * arrives, replyTo(..) instantly returns a reply for it, the deepest one found so far.
+ */
+public class PonderingService implements Closeable {
+    private final Logger logger = Logger.getLogger(PonderingService.class);
+
+    private final ExecutorService executorService;
+    private final ThreadLocal<KalahaSearch> searches;
+    private final long budgetNanosPerGame;
+    private final int maxDepth;
+    private final Map<Long, Pondering> ponderings;
+    private final Map<Long, Subscription> subscriptions;
+
+    /**
+     * @param numberOfThreads number of background threads shared by all games
+     * @param budgetPerGame   wall-clock time one game may ponder, each time the human is thinking
+     * @param maxDepth        maximum search depth of the AI reply
+     */
+    public PonderingService(final int numberOfThreads, final long budgetPerGame, final TimeUnit timeUnit, final int maxDepth) {
+        if (numberOfThreads <= 0 || maxDepth <= 0) {
+            throw new IllegalArgumentException("number of threads and max depth should be bigger than 0");
+        }
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "kalaha-pondering-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.searches = ThreadLocal.withInitial(KalahaSearch::new);
+        this.budgetNanosPerGame = timeUnit.toNanos(budgetPerGame);
+        this.maxDepth = maxDepth;
+        this.ponderings = new ConcurrentHashMap<>();
+        this.subscriptions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Follow a game: pondering starts each time the player turn passes to the human, and stops when the game is decided.
+     * When it is the turn of the human already, pondering starts right away.
+     *
+     * @param aiPlayer player played by the AI, the human is the other player
+     */
+    public void attach(final long gameId, final KalahaBoard kalahaBoard, final PlayerType aiPlayer) {
+        final GameFollower gameFollower = new GameFollower(gameId, kalahaBoard, aiPlayer.changeTurn());
+        final Subscription subscription = kalahaBoard.getReplayableEventPublisher().subscribe(
+                SubscriptionFilter.ALL.eventTypes(EventType.CHANGE_TURN, EventType.MOVES_APPLIED, EventType.UNDO_MOVE, EventType.REDO_MOVE,
+                        EventType.WINS, EventType.TIE_GAME),
+                gameFollower);
+        if (Objects.nonNull(subscriptions.putIfAbsent(gameId, subscription))) {
+            subscription.cancel();
+            throw new IllegalStateException("Game is already attached: " + gameId);
+        }
+
+        if (kalahaBoard.getReferee().getCurrentPlayerTurn() == gameFollower.humanPlayer && Objects.isNull(kalahaBoard.getReferee().getWinner())) {
+            startPondering(gameId, kalahaBoard, aiPlayer);
+        }
+    }
+
+    /**
+     * Stop following a game (e.g. game is finished or abandoned), its pondering is cancelled.
+     */
+    public void detach(final long gameId) {
+        final Subscription subscription = subscriptions.remove(gameId);
+        if (Objects.nonNull(subscription)) {
+            subscription.cancel();
+        }
+        cancel(gameId);
+    }
+
+    /**
+     * Start pondering on the current position of the board (any previous pondering of the game is cancelled), the replies are
+     * searched with the rule set of the board.
+     * Must be called from the thread playing the game, since the position of the board is copied.
+     *
+     * @param aiPlayer player played by the AI, the human is the other player
+     */
+    public void startPondering(final long gameId, final KalahaBoard kalahaBoard, final PlayerType aiPlayer) {
+        final int[] position = KalahaRules.copyOf(kalahaBoard, new int[KalahaRules.POSITION_SIZE]);
+        final PlayerType humanPlayer = aiPlayer.changeTurn();
+        if (position[KalahaRules.TURN] != KalahaRules.NONE && position[KalahaRules.TURN] != humanPlayer.ordinal()) {
+            throw new IllegalStateException("Pondering should start when it is the turn of the human player: " + humanPlayer);
+        }
+
+        startPondering(gameId, position, humanPlayer.ordinal(), kalahaBoard.getRuleSet());
+    }
+
+    private void startPondering(final long gameId, final int[] position, final int humanPlayer, final RuleSet ruleSet) {
+        final Pondering pondering = new Pondering(position, humanPlayer, ruleSet);
+        searchFirstReplies(pondering);
+
+        final Pondering previousPondering = ponderings.put(gameId, pondering);
+        if (Objects.nonNull(previousPondering)) {
+            previousPondering.cancel();
+        }
+        if (!pondering.candidates.isEmpty()) {
+            pondering.future = executorService.submit(() -> ponder(gameId, pondering));
+        }
+    }
+
+    /**
+     * Stop pondering and take the AI reply to the human move.
+     *
+     * @param humanPitIndex pit index of the human move
+     * @return best AI reply found so far, NO_MOVE when the human move doesn't give the turn to the AI (extra turn or finished game),
+     * or null when the game isn't pondering or the human can't move the pit
+     */
+    public SearchResult replyTo(final long gameId, final int humanPitIndex) {
+        final Pondering pondering = ponderings.remove(gameId);
+        if (Objects.isNull(pondering)) {
+            return null;
+        }
+
+        pondering.cancel();
+        return pondering.replies.get(humanPitIndex);
+    }
+
+    /**
+     * Stop pondering for the game (e.g. game is finished or abandoned).
+     */
+    public void cancel(final long gameId) {
+        final Pondering pondering = ponderings.remove(gameId);
+        if (Objects.nonNull(pondering)) {
+            pondering.cancel();
+        }
+    }
+
+    /**
+     * Wait until the pondering of the game is finished (e.g. in tests).
+     *
+     * @return false when the game isn't pondering, or the pondering didn't finish in time
+     */
+    boolean awaitPondering(final long gameId, final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        final Pondering pondering = ponderings.get(gameId);
+        if (Objects.isNull(pondering)) {
+            return false;
+        }
+        final Future<?> future = pondering.future;
+        if (Objects.isNull(future)) {
+            // nothing to search in the background
+            return true;
+        }
+        try {
+            future.get(timeout, timeUnit);
+            return true;
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        subscriptions.values().forEach(Subscription::cancel);
+        subscriptions.clear();
+        ponderings.values().forEach(Pondering::cancel);
+        ponderings.clear();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Play every candidate human move and search the AI reply to depth 1, on the calling thread.
+     */
+    private void searchFirstReplies(final Pondering pondering) {
+        final KalahaSearch search = searchOf(pondering.ruleSet);
+        final int aiPlayer = 1 - pondering.humanPlayer;
+        final int firstPit = pondering.humanPlayer == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+        for (int pitIndex = firstPit; pitIndex < firstPit + 6; pitIndex++) {
+            final int[] position = pondering.position.clone();
+            final int flags = pondering.ruleSet.move(position, pitIndex);
+            if (flags == 0) {
+                continue;
+            }
+            if ((flags & (KalahaRules.EXTRA_TURN | KalahaRules.GAME_OVER)) != 0) {
+                pondering.replies.put(pitIndex, new SearchResult(KalahaSearch.NO_MOVE, 0, 0));
+                continue;
+            }
+
+            final SearchResult searchResult = search.searchDepth(position, aiPlayer, 1, () -> false);
+            pondering.replies.put(pitIndex, searchResult);
+            if (!KalahaSearch.isDecided(searchResult)) {
+                pondering.candidates.put(pitIndex, position);
+            }
+        }
+    }
+
+    /**
+     * Deepen the replies breadth-first: every candidate is searched one ply deeper before any candidate goes deeper again,
+     * a candidate with a decided reply (forced or won/lost) is left out.
+     */
+    private void ponder(final long gameId, final Pondering pondering) {
+        final KalahaSearch search = searchOf(pondering.ruleSet);
+        final long deadline = System.nanoTime() + budgetNanosPerGame;
+        final int aiPlayer = 1 - pondering.humanPlayer;
+
+        final Map<Integer, int[]> candidates = new LinkedHashMap<>(pondering.candidates);
+        for (int depth = 2; depth <= maxDepth && !candidates.isEmpty(); depth++) {
+            final Iterator<Map.Entry<Integer, int[]>> iterator = candidates.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Integer, int[]> candidate = iterator.next();
+                final SearchResult searchResult = search.searchDepth(candidate.getValue(), aiPlayer, depth, () -> pondering.isStopped(deadline));
+                if (Objects.isNull(searchResult)) {
+                    // cancelled or out of budget, the reply of the previous depth is kept
+                    return;
+                }
+                pondering.replies.put(candidate.getKey(), searchResult);
+                if (KalahaSearch.isDecided(searchResult)) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Pondering of game " + gameId + " finished: " + pondering.replies);
+        }
+    }
+
+    /**
+     * @return search of the current thread, re-created when the previous game of the thread was played with other rules
+     */
+    private KalahaSearch searchOf(final RuleSet ruleSet) {
+        KalahaSearch search = searches.get();
+        if (search.getRuleSet() != ruleSet) {
+            search = new KalahaSearch(ruleSet);
+            searches.set(search);
+        }
+        return search;
+    }
+
+    private static final class Pondering {
+        private final int[] position;
+        private final int humanPlayer;
+        private final RuleSet ruleSet;
+        // position after each candidate human move whose reply can still change with a deeper search
+        private final Map<Integer, int[]> candidates;
+        private final Map<Integer, SearchResult> replies;
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        private Pondering(final int[] position, final int humanPlayer, final RuleSet ruleSet) {
+            this.position = position;
+            this.humanPlayer = humanPlayer;
+            this.ruleSet = ruleSet;
+            this.candidates = new LinkedHashMap<>();
+            this.replies = new ConcurrentHashMap<>();
+        }
+
+        private boolean isStopped(final long deadline) {
+            return cancelled || System.nanoTime() >= deadline;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            final Future<?> pendingFuture = future;
+            if (Objects.nonNull(pendingFuture)) {
+                // not started yet: don't start at all
+                pendingFuture.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Starts pondering when the player turn passes to the human, and stops it when the game is decided.
+     * <p>
+     * Note: the board publishes CHANGE_TURN before the referee takes it over (and before WINS/TIE_GAME), so the new player turn
+     * is taken from the event, and a finished game (one side without seeds) isn't pondered at all.
+     */
+    private final class GameFollower implements Observer {
+        private final long gameId;
+        private final KalahaBoard kalahaBoard;
+        private final PlayerType humanPlayer;
+
+        GameFollower(final long gameId, final KalahaBoard kalahaBoard, final PlayerType humanPlayer) {
+            this.gameId = gameId;
+            this.kalahaBoard = kalahaBoard;
+            this.humanPlayer = humanPlayer;
+        }
+
+        @Override
+        public void update(final Observable observable, final Event event) {
+            switch (event.getEventType()) {
+                case CHANGE_TURN:
+                    // the AI replies to the human move with replyTo(..), which takes the pondering
+                    if (event.getPlayerType() == humanPlayer) {
+                        startPonderingIfNotFinished();
+                    }
+                    break;
+                case MOVES_APPLIED:
+                case UNDO_MOVE:
+                case REDO_MOVE:
+                    // the position jumped, the current pondering (if any) is useless
+                    if (event.getPlayerType() == humanPlayer) {
+                        startPonderingIfNotFinished();
+                    } else {
+                        cancel(gameId);
+                    }
+                    break;
+                case WINS:
+                case TIE_GAME:
+                    cancel(gameId);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void startPonderingIfNotFinished() {
+            final int[] position = KalahaRules.copyOf(kalahaBoard, new int[KalahaRules.POSITION_SIZE]);
+            position[KalahaRules.TURN] = humanPlayer.ordinal();
+            if (KalahaRules.sumOfSide(position, 0) == position[KalahaRules.KALAHA_PIT_1]
+                    || KalahaRules.sumOfSide(position, 1) == position[KalahaRules.KALAHA_PIT_2]) {
+                cancel(gameId);
+            } else {
+                startPondering(gameId, position, humanPlayer.ordinal(), kalahaBoard.getRuleSet());
+            }
+        }
+    }
+}
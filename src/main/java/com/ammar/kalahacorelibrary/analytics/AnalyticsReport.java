@@ -0,0 +1,101 @@
+package com.ammar.kalahacorelibrary.analytics;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+/**
+ * Statistics over archived game logs (see GameLogAnalytics).
+ * <p>
+ * Only finished games (with a WINS or TIE_GAME event) count for the opening moves and the game lengths. Moves that are taken back
+ * (UNDO_MOVE, unless re-applied with REDO_MOVE) don't count, neither do their captures nor the result they decided.
+ */
+public final class AnalyticsReport {
+    /**
+     * Games with more moves are counted in the last bucket of the game length distribution
+     */
+    public static final int MAX_GAME_LENGTH = 256;
+
+    private final long[] openingMoveGames = new long[KalahaRules.NUMBER_OF_PITS];
+    private final long[] openingMoveWins = new long[KalahaRules.NUMBER_OF_PITS];
+    private final long[] openingMoveTies = new long[KalahaRules.NUMBER_OF_PITS];
+    private final long[] capturesPerPit = new long[KalahaRules.NUMBER_OF_PITS];
+    private final long[] gameLengths = new long[MAX_GAME_LENGTH + 1];
+    private final long numberOfEvents;
+    private final long numberOfBytes;
+    private long numberOfGames;
+    private long numberOfFinishedGames;
+
+    AnalyticsReport(final PartialAggregate aggregate) {
+        this.numberOfEvents = aggregate.numberOfEvents;
+        this.numberOfBytes = aggregate.numberOfBytes;
+        aggregate.games.forEach(this::add);
+    }
+
+    private void add(final GameSummary game) {
+        game.replay(capturesPerPit);
+        numberOfGames++;
+        if (game.result == GameSummary.NO_RESULT) {
+            return;
+        }
+
+        numberOfFinishedGames++;
+        gameLengths[Math.min(game.numberOfMoves, MAX_GAME_LENGTH)]++;
+        if (game.openingPitIndex >= 0) {
+            openingMoveGames[game.openingPitIndex]++;
+            if (game.result == game.openingPlayer) {
+                openingMoveWins[game.openingPitIndex]++;
+            } else if (game.result == GameSummary.TIE) {
+                openingMoveTies[game.openingPitIndex]++;
+            }
+        }
+    }
+
+    /**
+     * @return number of finished games opened with the given pit
+     */
+    public long getOpeningMoveGames(final PitId pitId) {
+        return openingMoveGames[pitId.getIndex()];
+    }
+
+    /**
+     * @return fraction of the finished games opened with the given pit, that are won by the player who opened (0 when there are none)
+     */
+    public double getOpeningMoveWinRate(final PitId pitId) {
+        final long games = openingMoveGames[pitId.getIndex()];
+        return games == 0 ? 0 : (double) openingMoveWins[pitId.getIndex()] / games;
+    }
+
+    public long getOpeningMoveTies(final PitId pitId) {
+        return openingMoveTies[pitId.getIndex()];
+    }
+
+    /**
+     * @return number of captures made by landing in the given pit
+     */
+    public long getCaptures(final PitId pitId) {
+        return capturesPerPit[pitId.getIndex()];
+    }
+
+    /**
+     * @return number of finished games with the given number of moves (MAX_GAME_LENGTH includes all longer games)
+     */
+    public long getNumberOfGamesWithLength(final int numberOfMoves) {
+        return gameLengths[Math.min(numberOfMoves, MAX_GAME_LENGTH)];
+    }
+
+    public long getNumberOfGames() {
+        return numberOfGames;
+    }
+
+    public long getNumberOfFinishedGames() {
+        return numberOfFinishedGames;
+    }
+
+    public long getNumberOfEvents() {
+        return numberOfEvents;
+    }
+
+    public long getNumberOfBytes() {
+        return numberOfBytes;
+    }
+}
@@ -0,0 +1,233 @@
+package com.ammar.kalahacorelibrary.analytics;
+
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.journal.JournalReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel analytics over archived game logs (journal files written by the SharedEventJournal, see JournalReader for the format).
+ * <p>
+ * Every file is split into segments of whole batches. The segments are streamed with NIO by the tasks of a fork-join pool, events
+ * are decoded in place from the buffer (no Event or KalahaBoard is ever created), and folded into mergeable aggregates that are
+ * merged while joining the tasks. The direct buffers are reused by the tasks of one analysis (at most one per thread of the pool)
+ * and released with it.
+ */
+public final class GameLogAnalytics {
+    public static final int DEFAULT_SEGMENT_SIZE = 8 << 20;
+
+    private static final int INITIAL_MOVE = EventType.INITIAL_MOVE.ordinal();
+    private static final int MOVES_APPLIED = EventType.MOVES_APPLIED.ordinal();
+    private static final int CAPTURE_SEEDS = EventType.CAPTURE_SEEDS.ordinal();
+    private static final int WINS = EventType.WINS.ordinal();
+    private static final int TIE_GAME = EventType.TIE_GAME.ordinal();
+    private static final int UNDO_MOVE = EventType.UNDO_MOVE.ordinal();
+    private static final int REDO_MOVE = EventType.REDO_MOVE.ordinal();
+    // bits for the file index in a position, the other bits are the offset in the file
+    private static final int OFFSET_BITS = 48;
+
+    private GameLogAnalytics() {
+    }
+
+    public static AnalyticsReport analyze(final List<Path> gameLogFiles) throws IOException {
+        return analyze(gameLogFiles, ForkJoinPool.commonPool(), DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize preferred size of the segment one task reads (a segment always contains whole batches)
+     */
+    public static AnalyticsReport analyze(final List<Path> gameLogFiles, final ForkJoinPool forkJoinPool, final int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segment size should be bigger than 0");
+        }
+
+        final List<Segment> segments = new ArrayList<>();
+        for (int fileIndex = 0; fileIndex < gameLogFiles.size(); fileIndex++) {
+            split(fileIndex, gameLogFiles.get(fileIndex), segmentSize, segments);
+        }
+
+        try {
+            final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+            return new AnalyticsReport(forkJoinPool.invoke(new SegmentsTask(segments, 0, segments.size(), segmentSize, buffers)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Split a file into segments of whole batches, only the batch headers are read.
+     */
+    private static void split(final int fileIndex, final Path gameLogFile, final int segmentSize, final List<Segment> segments) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(gameLogFile, StandardOpenOption.READ)) {
+            final long fileSize = fileChannel.size();
+            final ByteBuffer header = ByteBuffer.allocate(JournalReader.BATCH_HEADER_SIZE);
+            long segmentStart = 0;
+            long offset = 0;
+            while (offset + JournalReader.BATCH_HEADER_SIZE <= fileSize) {
+                header.clear();
+                readFully(fileChannel, header, offset);
+                final int batchLength = header.getInt(0);
+                if (batchLength <= 0 || offset + JournalReader.BATCH_HEADER_SIZE + batchLength > fileSize) {
+                    // incomplete batch at the end of the log
+                    break;
+                }
+
+                final long nextOffset = offset + JournalReader.BATCH_HEADER_SIZE + batchLength;
+                if (nextOffset - segmentStart > segmentSize && offset > segmentStart) {
+                    segments.add(new Segment(gameLogFile, fileIndex, segmentStart, offset));
+                    segmentStart = offset;
+                }
+                offset = nextOffset;
+            }
+            if (offset > segmentStart) {
+                segments.add(new Segment(gameLogFile, fileIndex, segmentStart, offset));
+            }
+        }
+    }
+
+    /**
+     * @param buffers free buffers of this analysis, the buffer used for the segment is given back when done
+     */
+    private static PartialAggregate analyze(final Segment segment, final int segmentSize, final Queue<ByteBuffer> buffers) throws IOException {
+        final int length = (int) (segment.endOffset - segment.startOffset);
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null || buffer.capacity() < length) {
+            buffer = ByteBuffer.allocateDirect(Math.max(length, segmentSize));
+        }
+        try {
+            return analyze(segment, buffer, length);
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    private static PartialAggregate analyze(final Segment segment, final ByteBuffer buffer, final int length) throws IOException {
+        final PartialAggregate aggregate = new PartialAggregate();
+        buffer.clear().limit(length);
+
+        try (FileChannel fileChannel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+            readFully(fileChannel, buffer, segment.startOffset);
+        }
+        buffer.flip();
+        aggregate.numberOfBytes = length;
+
+        final long filePosition = (long) segment.fileIndex << OFFSET_BITS;
+        while (buffer.remaining() >= JournalReader.BATCH_HEADER_SIZE) {
+            final long position = filePosition | (segment.startOffset + buffer.position());
+            final int batchEnd = buffer.position() + JournalReader.BATCH_HEADER_SIZE + buffer.getInt();
+            buffer.getInt(); // number of entries
+            while (buffer.position() + JournalReader.ENTRY_HEADER_SIZE <= batchEnd) {
+                final long gameId = buffer.getLong();
+                final int entryEnd = buffer.getInt() + buffer.position();
+                fold(aggregate, position, gameId, buffer);
+                buffer.position(entryEnd);
+            }
+            buffer.position(batchEnd);
+        }
+        return aggregate;
+    }
+
+    /**
+     * Fold one event (see EventCodec for the format) into the aggregate, straight from the buffer.
+     */
+    private static void fold(final PartialAggregate aggregate, final long position, final long gameId, final ByteBuffer buffer) {
+        aggregate.numberOfEvents++;
+        final int player = buffer.get();
+        final int pitIndex = buffer.get();
+        if (pitIndex < 0) {
+            // skip the origin identifier (UTF) of events that don't originate from a pit
+            final int identifierLength = buffer.getShort() & 0xFFFF;
+            buffer.position(buffer.position() + identifierLength);
+        }
+        final int eventType = buffer.get();
+
+        if (eventType == INITIAL_MOVE) {
+            aggregate.gameSummaryOf(gameId).move(position, pitIndex, player);
+        } else if (eventType == CAPTURE_SEEDS && pitIndex >= 0) {
+            aggregate.gameSummaryOf(gameId).capture(position, pitIndex);
+        } else if (eventType == WINS) {
+            aggregate.gameSummaryOf(gameId).result(position, player);
+        } else if (eventType == TIE_GAME) {
+            aggregate.gameSummaryOf(gameId).result(position, GameSummary.TIE);
+        } else if (eventType == UNDO_MOVE) {
+            aggregate.gameSummaryOf(gameId).undo(position);
+        } else if (eventType == REDO_MOVE) {
+            aggregate.gameSummaryOf(gameId).redo(position);
+        } else if (eventType == MOVES_APPLIED) {
+            // number of seeds: the number of moves
+            aggregate.gameSummaryOf(gameId).movesApplied(position, buffer.getInt());
+        }
+    }
+
+    private static void readFully(final FileChannel fileChannel, final ByteBuffer buffer, final long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            final int read = fileChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of game log at offset " + position);
+            }
+            position += read;
+        }
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final int fileIndex;
+        private final long startOffset;
+        private final long endOffset;
+
+        private Segment(final Path file, final int fileIndex, final long startOffset, final long endOffset) {
+            this.file = file;
+            this.fileIndex = fileIndex;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+        }
+    }
+
+    private static final class SegmentsTask extends RecursiveTask<PartialAggregate> {
+        // never serialized, tasks only live in the pool that runs them
+        private static final long serialVersionUID = 1L;
+
+        private final List<Segment> segments;
+        private final int from;
+        private final int to;
+        private final int segmentSize;
+        private final Queue<ByteBuffer> buffers;
+
+        private SegmentsTask(final List<Segment> segments, final int from, final int to, final int segmentSize, final Queue<ByteBuffer> buffers) {
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.segmentSize = segmentSize;
+            this.buffers = buffers;
+        }
+
+        @Override
+        protected PartialAggregate compute() {
+            if (to - from <= 1) {
+                try {
+                    return from < to ? analyze(segments.get(from), segmentSize, buffers) : new PartialAggregate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            final int middle = (from + to) >>> 1;
+            final SegmentsTask left = new SegmentsTask(segments, from, middle, segmentSize, buffers);
+            left.fork();
+            final PartialAggregate right = new SegmentsTask(segments, middle, to, segmentSize, buffers).compute();
+            return left.join().merge(right);
+        }
+    }
+}
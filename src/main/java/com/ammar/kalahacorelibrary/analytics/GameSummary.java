@@ -0,0 +1,165 @@
+package com.ammar.kalahacorelibrary.analytics;
+
+import java.util.Arrays;
+
+/**
+ * What one or more segments of a game log know about one game: its moves, captures, take backs and result, in order.
+ * The events of one game can be spread over many segments, the summaries of all segments are merged.
+ * <p>
+ * Every event is one int (see the op types below), which keeps a game small compared to its events in the log. Moves that are
+ * taken back (UNDO_MOVE) and re-applied (REDO_MOVE) depend on everything before them, so the opening move, number of moves,
+ * captures and result are only known after the merged summary is replayed in order (see replay(..)).
+ * <p>
+ * Positions are (file index, batch offset) combined into one long. Merged summaries always come from adjacent ranges of segments,
+ * so the summary with the smallest first position goes first.
+ */
+final class GameSummary {
+    static final int NO_RESULT = -1;
+    static final int TIE = 2;
+
+    // op: type in the low OP_TYPE_BITS bits, argument in the other bits
+    private static final int OP_TYPE_BITS = 3;
+    private static final int OP_TYPE_MASK = (1 << OP_TYPE_BITS) - 1;
+    private static final int MOVE = 0;
+    private static final int MOVES_APPLIED = 1;
+    private static final int CAPTURE = 2;
+    private static final int RESULT = 3;
+    private static final int UNDO = 4;
+    private static final int REDO = 5;
+
+    final long gameId;
+    private long firstPosition = Long.MAX_VALUE;
+    private int[] ops = new int[8];
+    private int numberOfOps;
+
+    // outcome of replay(..)
+    int openingPitIndex = -1;
+    int openingPlayer = -1;
+    int numberOfMoves;
+    // winner (player ordinal), TIE or NO_RESULT
+    int result = NO_RESULT;
+
+    GameSummary(final long gameId) {
+        this.gameId = gameId;
+    }
+
+    void move(final long position, final int pitIndex, final int player) {
+        add(position, MOVE, pitIndex << 1 | player);
+    }
+
+    void movesApplied(final long position, final int numberOfMoves) {
+        add(position, MOVES_APPLIED, numberOfMoves);
+    }
+
+    void capture(final long position, final int pitIndex) {
+        add(position, CAPTURE, pitIndex);
+    }
+
+    void result(final long position, final int result) {
+        add(position, RESULT, result);
+    }
+
+    void undo(final long position) {
+        add(position, UNDO, 0);
+    }
+
+    void redo(final long position) {
+        add(position, REDO, 0);
+    }
+
+    /**
+     * Merge the events of the other summary (from an adjacent range of segments) into this one.
+     */
+    void merge(final GameSummary other) {
+        final int[] merged = new int[numberOfOps + other.numberOfOps];
+        final GameSummary first = other.firstPosition < firstPosition ? other : this;
+        final GameSummary second = first == this ? other : this;
+        System.arraycopy(first.ops, 0, merged, 0, first.numberOfOps);
+        System.arraycopy(second.ops, 0, merged, first.numberOfOps, second.numberOfOps);
+        ops = merged;
+        numberOfOps = merged.length;
+        firstPosition = Math.min(firstPosition, other.firstPosition);
+    }
+
+    /**
+     * Replay all events in order: the opening move, number of moves and result of the game are set, and the captures of the moves
+     * that are not taken back are added to capturesPerPit.
+     * <p>
+     * Like the referee, only the first result counts (unless the move that decided it is taken back). The opening move is unknown
+     * (-1) when the game starts with moves applied at once.
+     */
+    void replay(final long[] capturesPerPit) {
+        // the moves on the board: op of the move, pit of its capture and the result it decided
+        final int[] moves = new int[numberOfOps];
+        final int[] captures = new int[numberOfOps];
+        final int[] results = new int[numberOfOps];
+        int numberOfAppliedMoves = 0;
+        int numberOfRedoableMoves = 0;
+        int resultWithoutMoves = NO_RESULT;
+
+        for (int i = 0; i < numberOfOps; i++) {
+            final int op = ops[i];
+            final int argument = op >>> OP_TYPE_BITS;
+            switch (op & OP_TYPE_MASK) {
+                case MOVE:
+                case MOVES_APPLIED:
+                    moves[numberOfAppliedMoves] = op;
+                    captures[numberOfAppliedMoves] = -1;
+                    results[numberOfAppliedMoves] = NO_RESULT;
+                    numberOfRedoableMoves = ++numberOfAppliedMoves;
+                    break;
+                case CAPTURE:
+                    if (numberOfAppliedMoves > 0) {
+                        captures[numberOfAppliedMoves - 1] = argument;
+                    }
+                    break;
+                case RESULT:
+                    if (numberOfAppliedMoves > 0) {
+                        results[numberOfAppliedMoves - 1] = argument;
+                    } else if (resultWithoutMoves == NO_RESULT) {
+                        resultWithoutMoves = argument;
+                    }
+                    break;
+                case UNDO:
+                    if (numberOfAppliedMoves > 0) {
+                        numberOfAppliedMoves--;
+                    }
+                    break;
+                case REDO:
+                    if (numberOfAppliedMoves < numberOfRedoableMoves) {
+                        numberOfAppliedMoves++;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown op: " + op);
+            }
+        }
+
+        numberOfMoves = 0;
+        result = resultWithoutMoves;
+        for (int i = 0; i < numberOfAppliedMoves; i++) {
+            final int argument = moves[i] >>> OP_TYPE_BITS;
+            numberOfMoves += (moves[i] & OP_TYPE_MASK) == MOVE ? 1 : argument;
+            if (captures[i] >= 0) {
+                capturesPerPit[captures[i]]++;
+            }
+            if (result == NO_RESULT) {
+                result = results[i];
+            }
+        }
+        if (numberOfAppliedMoves > 0 && (moves[0] & OP_TYPE_MASK) == MOVE) {
+            openingPitIndex = moves[0] >>> (OP_TYPE_BITS + 1);
+            openingPlayer = (moves[0] >>> OP_TYPE_BITS) & 1;
+        }
+    }
+
+    private void add(final long position, final int type, final int argument) {
+        if (numberOfOps == ops.length) {
+            ops = Arrays.copyOf(ops, ops.length * 2);
+        }
+        ops[numberOfOps++] = argument << OP_TYPE_BITS | type;
+        if (position < firstPosition) {
+            firstPosition = position;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ammar.kalahacorelibrary.analytics;
+
+import java.util.function.Consumer;
+
+/**
+ * Open addressing map of game summaries by game id (no boxing of the game id for every event).
+ * <p>
+ * Note: not thread-safe.
+ */
+final class GameSummaryMap {
+    // null is used for empty slots, the game id is part of the summary
+    private GameSummary[] slots;
+    private int size;
+
+    GameSummaryMap() {
+        this.slots = new GameSummary[64];
+    }
+
+    GameSummary getOrCreate(final long gameId) {
+        final int slot = slotOf(slots, gameId);
+        if (slots[slot] != null) {
+            return slots[slot];
+        }
+
+        final GameSummary gameSummary = new GameSummary(gameId);
+        put(gameSummary);
+        return gameSummary;
+    }
+
+    /**
+     * @return summary of the game, null when there is none
+     */
+    GameSummary get(final long gameId) {
+        return slots[slotOf(slots, gameId)];
+    }
+
+    /**
+     * Add a summary of a game that is not in the map yet.
+     */
+    void put(final GameSummary gameSummary) {
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+        }
+        slots[slotOf(slots, gameSummary.gameId)] = gameSummary;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(final Consumer<GameSummary> consumer) {
+        for (GameSummary gameSummary : slots) {
+            if (gameSummary != null) {
+                consumer.accept(gameSummary);
+            }
+        }
+    }
+
+    /**
+     * @return slot of the game, or the empty slot where it belongs
+     */
+    private static int slotOf(final GameSummary[] slots, final long gameId) {
+        final int mask = slots.length - 1;
+        // game ids are mostly sequential, spread them over the slots
+        final long hash = gameId * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (slots[slot] != null && slots[slot].gameId != gameId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        final GameSummary[] newSlots = new GameSummary[slots.length << 1];
+        for (GameSummary gameSummary : slots) {
+            if (gameSummary != null) {
+                newSlots[slotOf(newSlots, gameSummary.gameId)] = gameSummary;
+            }
+        }
+        slots = newSlots;
+    }
+}
@@ -0,0 +1,34 @@
+package com.ammar.kalahacorelibrary.analytics;
+
+/**
+ * Mergeable aggregate of one or more segments of game logs.
+ */
+final class PartialAggregate {
+    final GameSummaryMap games = new GameSummaryMap();
+    long numberOfEvents;
+    long numberOfBytes;
+
+    GameSummary gameSummaryOf(final long gameId) {
+        return games.getOrCreate(gameId);
+    }
+
+    /**
+     * Merge the other aggregate into this one (the bigger map is kept, to merge as few games as possible).
+     */
+    PartialAggregate merge(final PartialAggregate other) {
+        final PartialAggregate bigger = games.size() >= other.games.size() ? this : other;
+        final PartialAggregate smaller = bigger == this ? other : this;
+
+        bigger.numberOfEvents += smaller.numberOfEvents;
+        bigger.numberOfBytes += smaller.numberOfBytes;
+        smaller.games.forEach(game -> {
+            final GameSummary gameSummary = bigger.games.get(game.gameId);
+            if (gameSummary == null) {
+                bigger.games.put(game);
+            } else {
+                gameSummary.merge(game);
+            }
+        });
+        return bigger;
+    }
+}
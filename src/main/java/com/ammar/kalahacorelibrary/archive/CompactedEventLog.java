@@ -0,0 +1,133 @@
+package com.ammar.kalahacorelibrary.archive;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventCodec;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compacted event log of one game: every move is kept as one MoveRecord, events that are not part of a move are kept as they are.
+ * The log can be expanded back to the exact original sequence of events.
+ * <p>
+ * <pre>
+ *
+ * Binary format:
+ *
+ *     initial number of seeds (int) | with setup events (boolean) | number of records (int) | records
+ *
+ *     event record:  0 (byte) | event (see EventCodec)
+ *     move record:   1 (byte) | origin pit index (byte) | player type (byte) | resulting player turn (byte, -1 when none) | capture (boolean)
+ *
+ * </pre>
+ */
+public class CompactedEventLog {
+    private static final byte EVENT_RECORD = 0;
+    private static final byte MOVE_RECORD = 1;
+
+    private final int initialNumberOfSeeds;
+    private final boolean withSetupEvents;
+    // either MoveRecord or Event
+    private final List<Object> records;
+
+    CompactedEventLog(final int initialNumberOfSeeds, final boolean withSetupEvents, final List<Object> records) {
+        this.initialNumberOfSeeds = initialNumberOfSeeds;
+        this.withSetupEvents = withSetupEvents;
+        this.records = records;
+    }
+
+    /**
+     * Expand the compacted log back to the original sequence of events, by replaying the moves on a Kalaha board.
+     */
+    public List<Event> expand() {
+        final List<Event> events = new ArrayList<>();
+        if (withSetupEvents) {
+            events.addAll(ShadowBoard.setupEventsOf(initialNumberOfSeeds));
+        }
+
+        final ShadowBoard shadowBoard = new ShadowBoard(initialNumberOfSeeds);
+        for (Object record : records) {
+            if (record instanceof MoveRecord) {
+                final MoveRecord moveRecord = (MoveRecord) record;
+                events.addAll(shadowBoard.move(moveRecord.getOriginPitId()));
+
+                if (shadowBoard.getKalahaBoard().getReferee().getCurrentPlayerTurn() != moveRecord.getResultingPlayerTurn()) {
+                    throw new IllegalStateException("Compacted event log is corrupt, move doesn't result in the recorded player turn: " + moveRecord);
+                }
+            } else {
+                final Event event = (Event) record;
+                shadowBoard.apply(event);
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    public List<MoveRecord> getMoveRecords() {
+        return Collections.unmodifiableList(records.stream()
+                .filter(record -> record instanceof MoveRecord)
+                .map(record -> (MoveRecord) record)
+                .collect(Collectors.toList()));
+    }
+
+    public int getNumberOfRecords() {
+        return records.size();
+    }
+
+    public int getInitialNumberOfSeeds() {
+        return initialNumberOfSeeds;
+    }
+
+    public void writeTo(final DataOutput output) throws IOException {
+        output.writeInt(initialNumberOfSeeds);
+        output.writeBoolean(withSetupEvents);
+        output.writeInt(records.size());
+        for (Object record : records) {
+            if (record instanceof MoveRecord) {
+                final MoveRecord moveRecord = (MoveRecord) record;
+                output.writeByte(MOVE_RECORD);
+                output.writeByte(moveRecord.getOriginPitId().getIndex());
+                output.writeByte(moveRecord.getPlayerType().ordinal());
+                output.writeByte(moveRecord.getResultingPlayerTurn() == null ? -1 : moveRecord.getResultingPlayerTurn().ordinal());
+                output.writeBoolean(moveRecord.isCapture());
+            } else {
+                output.writeByte(EVENT_RECORD);
+                EventCodec.write(output, (Event) record);
+            }
+        }
+    }
+
+    public static CompactedEventLog readFrom(final DataInput input) throws IOException {
+        final int initialNumberOfSeeds = input.readInt();
+        final boolean withSetupEvents = input.readBoolean();
+        final int numberOfRecords = input.readInt();
+
+        final List<Object> records = new ArrayList<>(numberOfRecords);
+        for (int i = 0; i < numberOfRecords; i++) {
+            final byte recordType = input.readByte();
+            switch (recordType) {
+                case MOVE_RECORD:
+                    final PitId originPitId = PitId.of(input.readByte());
+                    final PlayerType playerType = PlayerType.values()[input.readByte()];
+                    final byte resultingPlayerTurn = input.readByte();
+                    final boolean capture = input.readBoolean();
+                    records.add(new MoveRecord(originPitId, playerType, resultingPlayerTurn < 0 ? null : PlayerType.values()[resultingPlayerTurn], capture));
+                    break;
+                case EVENT_RECORD:
+                    records.add(EventCodec.read(input));
+                    break;
+                default:
+                    throw new IOException("Unknown record type: " + recordType);
+            }
+        }
+
+        return new CompactedEventLog(initialNumberOfSeeds, withSetupEvents, records);
+    }
+}
@@ -0,0 +1,102 @@
+package com.ammar.kalahacorelibrary.archive;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compaction stage for archived event streams of one game.
+ * <p>
+ * A move publishes a long run of events (EMPTY, INITIAL_MOVE, MOVE, NOT_EMPTY, .., CHANGE_TURN), where every event can be derived
+ * from the position before the move. The compactor replays every move on a Kalaha board and when the board publishes exactly the
+ * same run of events, the run is replaced by one MoveRecord. Anything else is kept as it is, so the compacted log can always be
+ * expanded back to the original events.
+ */
+public class EventLogCompactor {
+
+    /**
+     * Compact events of a game that starts with the board setup (NOT_EMPTY event for all normal pits).
+     */
+    public CompactedEventLog compact(final List<Event> events) {
+        if (events.isEmpty() || events.get(0).getEventType() != EventType.NOT_EMPTY) {
+            throw new IllegalArgumentException("Events should start with the board setup, otherwise provide the initial number of seeds");
+        }
+        return compact(events.get(0).getNumberOfSeeds(), events);
+    }
+
+    /**
+     * Compact events of a game that started with the given number of seeds.
+     */
+    public CompactedEventLog compact(final int initialNumberOfSeeds, final List<Event> events) {
+        final List<Event> setupEvents = ShadowBoard.setupEventsOf(initialNumberOfSeeds);
+        final boolean withSetupEvents = events.size() >= setupEvents.size() && events.subList(0, setupEvents.size()).equals(setupEvents);
+
+        final ShadowBoard shadowBoard = new ShadowBoard(initialNumberOfSeeds);
+        final List<Object> records = new ArrayList<>();
+        int i = withSetupEvents ? setupEvents.size() : 0;
+        while (i < events.size()) {
+            final int numberOfEventsInMove = replayMove(shadowBoard, events, i);
+            if (numberOfEventsInMove > 0) {
+                final Event initialMove = events.get(i + 1);
+                records.add(new MoveRecord(initialMove.getOriginPitId(), initialMove.getPlayerType(),
+                        shadowBoard.getKalahaBoard().getReferee().getCurrentPlayerTurn(), containsCapture(events, i, numberOfEventsInMove)));
+                i += numberOfEventsInMove;
+            } else {
+                final Event event = events.get(i);
+                shadowBoard.apply(event);
+                records.add(event);
+                i++;
+            }
+        }
+
+        return new CompactedEventLog(initialNumberOfSeeds, withSetupEvents, records);
+    }
+
+    /**
+     * A move starts with EMPTY followed by INITIAL_MOVE of the same pit.
+     *
+     * @return number of events of the move when the board publishes exactly the same events, otherwise 0 (and the move is taken back)
+     */
+    private int replayMove(final ShadowBoard shadowBoard, final List<Event> events, final int from) {
+        if (from + 1 >= events.size()) {
+            return 0;
+        }
+
+        final Event empty = events.get(from);
+        final Event initialMove = events.get(from + 1);
+        final PitId originPitId = initialMove.getOriginPitId();
+        if (empty.getEventType() != EventType.EMPTY || initialMove.getEventType() != EventType.INITIAL_MOVE
+                || originPitId == null || originPitId != empty.getOriginPitId() || originPitId.isKalahaPit()
+                || shadowBoard.getNumberOfSeeds(originPitId) != initialMove.getNumberOfSeeds()) {
+            return 0;
+        }
+
+        final List<Event> replayedEvents;
+        try {
+            replayedEvents = shadowBoard.move(originPitId);
+        } catch (RuntimeException e) {
+            // the board doesn't accept this move, keep the original events
+            return 0;
+        }
+
+        final int to = from + replayedEvents.size();
+        if (to <= events.size() && events.subList(from, to).equals(replayedEvents)) {
+            return replayedEvents.size();
+        }
+
+        shadowBoard.undo();
+        return 0;
+    }
+
+    private boolean containsCapture(final List<Event> events, final int from, final int numberOfEvents) {
+        for (int i = from; i < from + numberOfEvents; i++) {
+            if (events.get(i).getEventType() == EventType.CAPTURE_SEEDS) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
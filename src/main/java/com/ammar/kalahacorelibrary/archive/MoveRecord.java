@@ -0,0 +1,70 @@
+package com.ammar.kalahacorelibrary.archive;
+
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+/**
+ * One move in a compacted event log, replacing the whole run of events published by that move
+ * (INITIAL_MOVE, MOVE, .., NOT_EMPTY, CHANGE_TURN, etc).
+ */
+public class MoveRecord {
+    private final PitId originPitId;
+    private final PlayerType playerType;
+    private final PlayerType resultingPlayerTurn;
+    private final boolean capture;
+
+    public MoveRecord(final PitId originPitId, final PlayerType playerType, final PlayerType resultingPlayerTurn, final boolean capture) {
+        this.originPitId = originPitId;
+        this.playerType = playerType;
+        this.resultingPlayerTurn = resultingPlayerTurn;
+        this.capture = capture;
+    }
+
+    public PitId getOriginPitId() {
+        return originPitId;
+    }
+
+    public PlayerType getPlayerType() {
+        return playerType;
+    }
+
+    public PlayerType getResultingPlayerTurn() {
+        return resultingPlayerTurn;
+    }
+
+    public boolean isCapture() {
+        return capture;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        MoveRecord that = (MoveRecord) o;
+
+        if (capture != that.capture) return false;
+        if (originPitId != that.originPitId) return false;
+        if (playerType != that.playerType) return false;
+        return resultingPlayerTurn == that.resultingPlayerTurn;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = originPitId != null ? originPitId.hashCode() : 0;
+        result = 31 * result + (playerType != null ? playerType.hashCode() : 0);
+        result = 31 * result + (resultingPlayerTurn != null ? resultingPlayerTurn.hashCode() : 0);
+        result = 31 * result + (capture ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MoveRecord {" +
+                "originPitId=" + originPitId +
+                ", playerType=" + playerType +
+                ", resultingPlayerTurn=" + resultingPlayerTurn +
+                ", capture=" + capture +
+                '}';
+    }
+}
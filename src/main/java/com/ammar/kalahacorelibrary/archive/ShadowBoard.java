@@ -0,0 +1,95 @@
+package com.ammar.kalahacorelibrary.archive;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import com.ammar.kalahacorelibrary.pubsub.pit.impl.NormalPit;
+
+import java.util.*;
+
+/**
+ * Kalaha board used to re-generate the events of an archived game, it keeps all events published by the board.
+ */
+final class ShadowBoard {
+    private final KalahaBoard kalahaBoard;
+    private final List<Event> publishedEvents;
+
+    ShadowBoard(final int initialNumberOfSeeds) {
+        kalahaBoard = new KalahaBoard(initialNumberOfSeeds);
+        publishedEvents = new ArrayList<>();
+        kalahaBoard.getReplayableEventPublisher().addObserver(
+                new LinkedHashSet<>(Arrays.asList(EventType.values())),
+                (observable, event) -> publishedEvents.add(event)
+        );
+    }
+
+    /**
+     * Events published by the board while it was set up (NOT_EMPTY for all normal pits).
+     * These are published before anyone can observe the board, therefore they are re-created here.
+     */
+    static List<Event> setupEventsOf(final int initialNumberOfSeeds) {
+        final List<Event> setupEvents = new ArrayList<>();
+        new KalahaBoard(initialNumberOfSeeds).getAllPits().values().stream()
+                .filter(pit -> pit instanceof NormalPit)
+                .forEach(pit -> setupEvents.add(Event.of(pit.getPlayerType(), pit.getPitId(), EventType.NOT_EMPTY, initialNumberOfSeeds)));
+        return setupEvents;
+    }
+
+    /**
+     * Make a move on the board.
+     *
+     * @return events published by the move
+     */
+    List<Event> move(final PitId pitId) {
+        publishedEvents.clear();
+        kalahaBoard.initialMove(pitId);
+        return publishedEvents;
+    }
+
+    /**
+     * Take back the last move (the events of taking back the move are ignored).
+     */
+    void undo() {
+        kalahaBoard.undo();
+        publishedEvents.clear();
+    }
+
+    /**
+     * Bring the board in the same state as described by an event that was not part of a move
+     * (e.g. a pit that got restored), the events published by the board itself are ignored.
+     * <p>
+     * Moves applied at once are preceded by the events of the changed pits, MOVES_APPLIED hands the turn to the referee
+     * (which decides the winner, like the referee of the original board).
+     */
+    void apply(final Event event) {
+        final PitId pitId = event.getOriginPitId();
+        switch (event.getEventType()) {
+            case EMPTY:
+            case NOT_EMPTY:
+            case STORED:
+                if (Objects.nonNull(pitId) && kalahaBoard.getPit(pitId).getNumberOfSeeds() != event.getNumberOfSeeds()) {
+                    kalahaBoard.getPit(pitId).restoreNumberOfSeeds(event.getNumberOfSeeds());
+                }
+                break;
+            case UNDO_MOVE:
+            case REDO_MOVE:
+                kalahaBoard.getReferee().restore(event.getPlayerType(), kalahaBoard.getReferee().getWinner(), event.getEventType());
+                break;
+            case MOVES_APPLIED:
+                kalahaBoard.getReferee().movesApplied(event.getPlayerType(), event.getNumberOfSeeds());
+                break;
+            default:
+                break;
+        }
+        publishedEvents.clear();
+    }
+
+    int getNumberOfSeeds(final PitId pitId) {
+        return kalahaBoard.getPit(pitId).getNumberOfSeeds();
+    }
+
+    KalahaBoard getKalahaBoard() {
+        return kalahaBoard;
+    }
+}
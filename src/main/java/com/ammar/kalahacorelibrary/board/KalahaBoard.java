@@ -1,9 +1,14 @@
 package com.ammar.kalahacorelibrary.board;
 
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.engine.RuleSet;
 import com.ammar.kalahacorelibrary.event.EventType;
 import com.ammar.kalahacorelibrary.player.PlayerType;
 import com.ammar.kalahacorelibrary.pubsub.audit.ReplayableEventPublisher;
 import com.ammar.kalahacorelibrary.pubsub.pit.Pit;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import com.ammar.kalahacorelibrary.pubsub.pit.impl.KalahaPit;
+import com.ammar.kalahacorelibrary.pubsub.pit.impl.NormalPit;
 import com.ammar.kalahacorelibrary.pubsub.referee.Referee;
 
 import java.util.*;
@@ -29,6 +34,9 @@ import java.util.*;
  *
  * </pre>
  * <p>
+ * The pits and the referee play by the rule set of the board (capture, extra turn and end-game sweep), RuleSet.STANDARD by default.
+ * The pie rule is not played by the board: swapping sides is up to the caller, see RuleSet.swapSides(..).
+ * <p>
  * Created by amhamid on 7/23/15.
  */
 public class KalahaBoard {
@@ -37,11 +45,25 @@ public class KalahaBoard {
     private final Referee referee;
     private final ReplayableEventPublisher replayableEventPublisher;
     private final Map<String, Pit> allPits;
+    private final Pit[] pitsByIndex;
+    private final Deque<MoveDelta> undoMoves;
+    private final Deque<MoveDelta> redoMoves;
+    private final int[] positionBeforeMove;
+    private final int[] positionAfterMove;
+    private final RuleSet ruleSet;
 
     public KalahaBoard(final int initialNumberOfSeeds) {
+        this(initialNumberOfSeeds, RuleSet.STANDARD);
+    }
+
+    public KalahaBoard(final int initialNumberOfSeeds, final RuleSet ruleSet) {
         if (initialNumberOfSeeds <= 0) {
             throw new IllegalArgumentException("initial number of seeds should be bigger than 0");
         }
+        if (Objects.isNull(ruleSet)) {
+            throw new IllegalArgumentException("rule set should not be null");
+        }
+        this.ruleSet = ruleSet;
 
         // setup pits for Players
         player1 = new PlayerPits(PlayerType.PLAYER_1, initialNumberOfSeeds);
@@ -53,6 +75,13 @@ public class KalahaBoard {
         allPits = new LinkedHashMap<>();
         allPits.putAll(pitsForPlayer1);
         allPits.putAll(pitsForPlayer2);
+        pitsByIndex = allPits.values().toArray(new Pit[allPits.size()]);
+
+        // move history (for undo/redo)
+        undoMoves = new ArrayDeque<>();
+        redoMoves = new ArrayDeque<>();
+        positionBeforeMove = new int[KalahaRules.POSITION_SIZE];
+        positionAfterMove = new int[KalahaRules.POSITION_SIZE];
 
         // initialize observers
         referee = new Referee(pitsForPlayer1, pitsForPlayer2);
@@ -68,6 +97,7 @@ public class KalahaBoard {
      * - register pit neighbors
      * - register pit opposites
      * - register referee
+     * - register game rules
      * - register publisher for not empty pit
      */
     private void configureBoard() {
@@ -77,6 +107,7 @@ public class KalahaBoard {
         registerNeighbors();
         registerOpposites();
         registerReferee();
+        registerGameRules();
 
         // this is to tell observers that all pits are ready and filled with seeds (except the 2 Kalaha pits)
         publishNotEmptyEventForAllPits();
@@ -196,6 +227,27 @@ public class KalahaBoard {
         allPits.values().stream().forEach(
                 pit -> pit.addObserver(eventTypes, referee)
         );
+
+        // the referee rejects moves out of turn, from an empty pit, or after the game is over
+        allPits.values().stream()
+                .filter(pit -> pit instanceof NormalPit)
+                .forEach(pit -> ((NormalPit) pit).setMoveValidator(referee));
+    }
+
+    /**
+     * Register the rule set of the board to the pits (capture and extra turn) and the referee (end-game sweep).
+     * A normal pit checks a capture with the seeds of its opposite pit.
+     */
+    private void registerGameRules() {
+        for (int pitIndex = 0; pitIndex < pitsByIndex.length; pitIndex++) {
+            final Pit pit = pitsByIndex[pitIndex];
+            if (pit instanceof NormalPit) {
+                ((NormalPit) pit).setGameRules(ruleSet, pitsByIndex[KalahaRules.oppositeOf(pitIndex)]);
+            } else {
+                ((KalahaPit) pit).setGameRules(ruleSet);
+            }
+        }
+        referee.setGameRules(ruleSet);
     }
 
     /**
@@ -216,6 +268,155 @@ public class KalahaBoard {
         allPits.values().forEach(Pit::publishNotEmptyEvent);
     }
 
+    /**
+     * Initial move from the given pit, see initialMove(int).
+     */
+    public void initialMove(final PitId pitId) {
+        initialMove(pitId.getIndex());
+    }
+
+    /**
+     * Initial move from the pit with the given index (see PitId for the pit indices).
+     * The move is recorded as a compact delta (only the changed pits, player turn and winner), so it can be taken back.
+     * <p>
+     * Note: calling initialMove() directly on a pit is still possible, but such a move can't be taken back.
+     */
+    public void initialMove(final int pitIndex) {
+        final Pit pit = getPit(pitIndex);
+
+        KalahaRules.copyOf(this, positionBeforeMove);
+        pit.initialMove();
+        KalahaRules.copyOf(this, positionAfterMove);
+
+        final MoveDelta moveDelta = MoveDelta.between(positionBeforeMove, positionAfterMove);
+        if (Objects.nonNull(moveDelta)) {
+            undoMoves.push(moveDelta);
+            redoMoves.clear();
+        }
+    }
+
+    /**
+     * Apply a sequence of moves at once (e.g. when a client reconnects, or when a game is imported), see initialMove(int).
+     * <p>
+     * All moves are validated before anything changes: when one of them is illegal (not a normal pit, out of turn, an empty pit, or a
+     * move after the game is over) an exception is thrown and the board is left untouched.
+     * <p>
+     * The moves don't publish events per move, but the sequence isn't a single event either: like undo(), every changed pit publishes
+     * one EMPTY/NOT_EMPTY (normal pit) or STORED (Kalaha pit) event with its new number of seeds, followed by one MOVES_APPLIED event
+     * from the referee, so N changed pits give N + 1 events (and WINS or TIE_GAME follows when the moves decided the game).
+     * The whole sequence is recorded as one delta, so undo() takes it back at once.
+     *
+     * @param pitIndices pit index of every move, in order (see PitId for the pit indices)
+     */
+    public void applyMoves(final int[] pitIndices) {
+        if (pitIndices.length == 0) {
+            return;
+        }
+
+        KalahaRules.copyOf(this, positionBeforeMove);
+        System.arraycopy(positionBeforeMove, 0, positionAfterMove, 0, KalahaRules.POSITION_SIZE);
+        for (int i = 0; i < pitIndices.length; i++) {
+            final int pitIndex = pitIndices[i];
+            if (pitIndex < 0 || pitIndex >= KalahaRules.NUMBER_OF_PITS) {
+                throw new IllegalArgumentException("Move " + i + ": pit index should be between 0 and 13: " + pitIndex);
+            }
+            if (KalahaRules.isKalahaPit(pitIndex)) {
+                throw new IllegalStateException("Move " + i + ": Kalaha Pit should never have an initial move: " + PitId.of(pitIndex).getDisplayName());
+            }
+            if (positionAfterMove[KalahaRules.WINNER] != KalahaRules.NONE
+                    || KalahaRules.isSideEmpty(positionAfterMove, 0) || KalahaRules.isSideEmpty(positionAfterMove, 1)) {
+                throw new IllegalStateException("Move " + i + ": game is already over");
+            }
+            if (positionAfterMove[KalahaRules.TURN] != KalahaRules.NONE && positionAfterMove[KalahaRules.TURN] != KalahaRules.ownerOf(pitIndex)) {
+                throw new IllegalStateException("Move " + i + ": it is the turn of " + KalahaRules.toPlayerType(positionAfterMove[KalahaRules.TURN]));
+            }
+            if (positionAfterMove[pitIndex] == 0) {
+                throw new IllegalStateException("Move " + i + ": pit is empty: " + PitId.of(pitIndex).getDisplayName());
+            }
+            ruleSet.move(positionAfterMove, pitIndex);
+        }
+
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            if (positionAfterMove[pitIndex] != positionBeforeMove[pitIndex]) {
+                pitsByIndex[pitIndex].restoreNumberOfSeeds(positionAfterMove[pitIndex]);
+            }
+        }
+        referee.movesApplied(KalahaRules.toPlayerType(positionAfterMove[KalahaRules.TURN]), pitIndices.length);
+
+        final MoveDelta moveDelta = MoveDelta.between(positionBeforeMove, positionAfterMove);
+        if (Objects.nonNull(moveDelta)) {
+            undoMoves.push(moveDelta);
+            redoMoves.clear();
+        }
+    }
+
+    /**
+     * Take back the last move. Restored pits publish EMPTY/NOT_EMPTY (normal pit) or STORED (Kalaha pit) events,
+     * followed by an UNDO_MOVE event from the referee.
+     *
+     * @return false when there is no move to take back
+     */
+    public boolean undo() {
+        final MoveDelta moveDelta = undoMoves.poll();
+        if (Objects.isNull(moveDelta)) {
+            return false;
+        }
+
+        for (int i = 0; i < moveDelta.getNumberOfChangedPits(); i++) {
+            pitsByIndex[moveDelta.getPitIndex(i)].restoreNumberOfSeeds(moveDelta.getSeedsBefore(i));
+        }
+        referee.restore(KalahaRules.toPlayerType(moveDelta.getTurnBefore()), KalahaRules.toPlayerType(moveDelta.getWinnerBefore()), EventType.UNDO_MOVE);
+
+        redoMoves.push(moveDelta);
+        return true;
+    }
+
+    /**
+     * Re-apply the last move that has been taken back, followed by a REDO_MOVE event from the referee.
+     *
+     * @return false when there is no move to re-apply
+     */
+    public boolean redo() {
+        final MoveDelta moveDelta = redoMoves.poll();
+        if (Objects.isNull(moveDelta)) {
+            return false;
+        }
+
+        for (int i = 0; i < moveDelta.getNumberOfChangedPits(); i++) {
+            pitsByIndex[moveDelta.getPitIndex(i)].restoreNumberOfSeeds(moveDelta.getSeedsAfter(i));
+        }
+        referee.restore(KalahaRules.toPlayerType(moveDelta.getTurnAfter()), KalahaRules.toPlayerType(moveDelta.getWinnerAfter()), EventType.REDO_MOVE);
+
+        undoMoves.push(moveDelta);
+        return true;
+    }
+
+    public boolean canUndo() {
+        return !undoMoves.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoMoves.isEmpty();
+    }
+
+    public Pit getPit(final PitId pitId) {
+        return pitsByIndex[pitId.getIndex()];
+    }
+
+    /**
+     * @param pitIndex index of the pit, see PitId for the pit indices
+     */
+    public Pit getPit(final int pitIndex) {
+        if (pitIndex < 0 || pitIndex >= pitsByIndex.length) {
+            throw new IllegalArgumentException("Pit index should be between 0 and 13: " + pitIndex);
+        }
+        return pitsByIndex[pitIndex];
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
     public PlayerPits getPlayer1() {
         return player1;
     }
@@ -228,6 +429,9 @@ public class KalahaBoard {
         return referee;
     }
 
+    /**
+     * @return all pits of the board, with the display name of the pit as key
+     */
     public Map<String, Pit> getAllPits() {
         return Collections.unmodifiableMap(allPits);
     }
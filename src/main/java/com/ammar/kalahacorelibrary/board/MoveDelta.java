@@ -0,0 +1,92 @@
+package com.ammar.kalahacorelibrary.board;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+
+/**
+ * Compact record of what one move changed on the board: only the changed pits (index, seeds before and after),
+ * together with player turn and winner before and after the move.
+ */
+final class MoveDelta {
+    private final byte[] pitIndices;
+    private final int[] seedsBefore;
+    private final int[] seedsAfter;
+    private final int turnBefore;
+    private final int turnAfter;
+    private final int winnerBefore;
+    private final int winnerAfter;
+
+    private MoveDelta(final byte[] pitIndices, final int[] seedsBefore, final int[] seedsAfter, final int[] positionBefore, final int[] positionAfter) {
+        this.pitIndices = pitIndices;
+        this.seedsBefore = seedsBefore;
+        this.seedsAfter = seedsAfter;
+        this.turnBefore = positionBefore[KalahaRules.TURN];
+        this.turnAfter = positionAfter[KalahaRules.TURN];
+        this.winnerBefore = positionBefore[KalahaRules.WINNER];
+        this.winnerAfter = positionAfter[KalahaRules.WINNER];
+    }
+
+    /**
+     * @return delta between both positions, or null when nothing has changed
+     */
+    static MoveDelta between(final int[] positionBefore, final int[] positionAfter) {
+        int numberOfChangedPits = 0;
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            if (positionBefore[pitIndex] != positionAfter[pitIndex]) {
+                numberOfChangedPits++;
+            }
+        }
+
+        if (numberOfChangedPits == 0
+                && positionBefore[KalahaRules.TURN] == positionAfter[KalahaRules.TURN]
+                && positionBefore[KalahaRules.WINNER] == positionAfter[KalahaRules.WINNER]) {
+            return null;
+        }
+
+        final byte[] pitIndices = new byte[numberOfChangedPits];
+        final int[] seedsBefore = new int[numberOfChangedPits];
+        final int[] seedsAfter = new int[numberOfChangedPits];
+        int i = 0;
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            if (positionBefore[pitIndex] != positionAfter[pitIndex]) {
+                pitIndices[i] = (byte) pitIndex;
+                seedsBefore[i] = positionBefore[pitIndex];
+                seedsAfter[i] = positionAfter[pitIndex];
+                i++;
+            }
+        }
+
+        return new MoveDelta(pitIndices, seedsBefore, seedsAfter, positionBefore, positionAfter);
+    }
+
+    int getNumberOfChangedPits() {
+        return pitIndices.length;
+    }
+
+    int getPitIndex(final int i) {
+        return pitIndices[i];
+    }
+
+    int getSeedsBefore(final int i) {
+        return seedsBefore[i];
+    }
+
+    int getSeedsAfter(final int i) {
+        return seedsAfter[i];
+    }
+
+    int getTurnBefore() {
+        return turnBefore;
+    }
+
+    int getTurnAfter() {
+        return turnAfter;
+    }
+
+    int getWinnerBefore() {
+        return winnerBefore;
+    }
+
+    int getWinnerAfter() {
+        return winnerAfter;
+    }
+}
@@ -2,6 +2,7 @@ package com.ammar.kalahacorelibrary.board;
 
 import com.ammar.kalahacorelibrary.player.PlayerType;
 import com.ammar.kalahacorelibrary.pubsub.pit.Pit;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
 import com.ammar.kalahacorelibrary.pubsub.pit.impl.KalahaPit;
 import com.ammar.kalahacorelibrary.pubsub.pit.impl.NormalPit;
 
@@ -24,14 +25,14 @@ public class PlayerPits {
     private final Map<String, Pit> allPits;
 
     public PlayerPits(final PlayerType playerType, final int initialNumberOfSeeds) {
-        final List<String> playerPitNames = getPlayerPitNames(playerType);
-        pit1 = new NormalPit(playerType, playerPitNames.get(0), initialNumberOfSeeds);
-        pit2 = new NormalPit(playerType, playerPitNames.get(1), initialNumberOfSeeds);
-        pit3 = new NormalPit(playerType, playerPitNames.get(2), initialNumberOfSeeds);
-        pit4 = new NormalPit(playerType, playerPitNames.get(3), initialNumberOfSeeds);
-        pit5 = new NormalPit(playerType, playerPitNames.get(4), initialNumberOfSeeds);
-        pit6 = new NormalPit(playerType, playerPitNames.get(5), initialNumberOfSeeds);
-        kalahaPit = new KalahaPit(playerType, playerPitNames.get(6), 0);
+        final List<PitId> playerPitIds = getPlayerPitIds(playerType);
+        pit1 = new NormalPit(playerPitIds.get(0), initialNumberOfSeeds);
+        pit2 = new NormalPit(playerPitIds.get(1), initialNumberOfSeeds);
+        pit3 = new NormalPit(playerPitIds.get(2), initialNumberOfSeeds);
+        pit4 = new NormalPit(playerPitIds.get(3), initialNumberOfSeeds);
+        pit5 = new NormalPit(playerPitIds.get(4), initialNumberOfSeeds);
+        pit6 = new NormalPit(playerPitIds.get(5), initialNumberOfSeeds);
+        kalahaPit = new KalahaPit(playerPitIds.get(6), 0);
 
         allPits = new LinkedHashMap<>();
         allPits.put(pit1.getPitIdentifier(), pit1);
@@ -71,36 +72,39 @@ public class PlayerPits {
         return kalahaPit;
     }
 
+    /**
+     * @return all pits of the player, with the display name of the pit as key
+     */
     public Map<String, Pit> getAllPits() {
         return Collections.unmodifiableMap(allPits);
     }
 
-    private List<String> getPlayerPitNames(final PlayerType playerType) {
-        final List<String> pitNames = new ArrayList<>(7);
+    private List<PitId> getPlayerPitIds(final PlayerType playerType) {
+        final List<PitId> pitIds = new ArrayList<>(7);
         switch (playerType) {
             case PLAYER_1:
-                pitNames.add("Pit 1");
-                pitNames.add("Pit 2");
-                pitNames.add("Pit 3");
-                pitNames.add("Pit 4");
-                pitNames.add("Pit 5");
-                pitNames.add("Pit 6");
-                pitNames.add("KalahaPit 1");
+                pitIds.add(PitId.PIT_1);
+                pitIds.add(PitId.PIT_2);
+                pitIds.add(PitId.PIT_3);
+                pitIds.add(PitId.PIT_4);
+                pitIds.add(PitId.PIT_5);
+                pitIds.add(PitId.PIT_6);
+                pitIds.add(PitId.KALAHA_PIT_1);
                 break;
             case PLAYER_2:
-                pitNames.add("Pit 7");
-                pitNames.add("Pit 8");
-                pitNames.add("Pit 9");
-                pitNames.add("Pit 10");
-                pitNames.add("Pit 11");
-                pitNames.add("Pit 12");
-                pitNames.add("KalahaPit 2");
+                pitIds.add(PitId.PIT_7);
+                pitIds.add(PitId.PIT_8);
+                pitIds.add(PitId.PIT_9);
+                pitIds.add(PitId.PIT_10);
+                pitIds.add(PitId.PIT_11);
+                pitIds.add(PitId.PIT_12);
+                pitIds.add(PitId.KALAHA_PIT_2);
                 break;
             default:
                 throw new IllegalArgumentException("Player type is not supported");
         }
 
-        return pitNames;
+        return pitIds;
     }
 
 }
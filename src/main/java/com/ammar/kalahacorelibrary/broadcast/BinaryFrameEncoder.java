@@ -0,0 +1,53 @@
+package com.ammar.kalahacorelibrary.broadcast;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Binary spectator frames.
+ * <p>
+ * <pre>
+ *
+ *     event frame    : EVENT (byte) | sequence (long) | event (see EventCodec)
+ *     snapshot frame : SNAPSHOT (byte) | sequence (long) | position (16 ints, see KalahaRules)
+ *
+ * </pre>
+ */
+public class BinaryFrameEncoder implements FrameEncoder {
+    public static final byte EVENT = 1;
+    public static final byte SNAPSHOT = 2;
+
+    @Override
+    public byte[] encodeEvent(final long sequence, final Event event) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(EVENT);
+            output.writeLong(sequence);
+            EventCodec.write(output, event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public byte[] encodeSnapshot(final long sequence, final int[] position) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(9 + 4 * KalahaRules.POSITION_SIZE);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(SNAPSHOT);
+            output.writeLong(sequence);
+            for (int i = 0; i < KalahaRules.POSITION_SIZE; i++) {
+                output.writeInt(position[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,49 @@
+package com.ammar.kalahacorelibrary.broadcast;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Immutable, pre-serialized frame: one event (or one board snapshot) serialized once and shared by all spectators.
+ */
+public final class EventFrame {
+    private final long sequence;
+    private final boolean snapshot;
+    private final byte[] bytes;
+
+    EventFrame(final long sequence, final boolean snapshot, final byte[] bytes) {
+        this.sequence = sequence;
+        this.snapshot = snapshot;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return sequence number of the event, a snapshot has the sequence number of the last event it contains
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return true when this frame contains the whole board instead of one event
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        outputStream.write(bytes);
+    }
+
+    /**
+     * @return read-only view of the frame (no copy)
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,16 @@
+package com.ammar.kalahacorelibrary.broadcast;
+
+import com.ammar.kalahacorelibrary.event.Event;
+
+/**
+ * Serializes events and board snapshots into spectator frames (e.g. binary, or text for a browser).
+ */
+public interface FrameEncoder {
+
+    byte[] encodeEvent(long sequence, Event event);
+
+    /**
+     * @param position board position, see KalahaRules for the layout
+     */
+    byte[] encodeSnapshot(long sequence, int[] position);
+}
@@ -0,0 +1,80 @@
+package com.ammar.kalahacorelibrary.broadcast;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Text spectator frames in the Server-Sent Events format (text/event-stream), ready to be written to a browser as they are.
+ * <p>
+ * <pre>
+ *
+ *     event frame    : id: 12
+ *                      event: NOT_EMPTY
+ *                      data: {"sequence":12,"player":"PLAYER_2","pit":"Pit 7","seeds":7}
+ *
+ *     snapshot frame : id: 12
+ *                      event: SNAPSHOT
+ *                      data: {"sequence":12,"pits":[6,6,6,6,6,6,0,6,6,6,6,6,6,0],"turn":null,"winner":null}
+ *
+ *     pit is the display name of the origin pit (e.g. "Referee" for events of the referee), pits are in KalahaRules order
+ *
+ * </pre>
+ */
+public class ServerSentEventFrameEncoder implements FrameEncoder {
+    public static final String SNAPSHOT = "SNAPSHOT";
+
+    @Override
+    public byte[] encodeEvent(final long sequence, final Event event) {
+        final StringBuilder frame = new StringBuilder(128);
+        frame.append("id: ").append(sequence).append('\n')
+                .append("event: ").append(event.getEventType()).append('\n')
+                .append("data: {\"sequence\":").append(sequence)
+                .append(",\"player\":");
+        appendPlayer(frame, event.getPlayerType());
+        frame.append(",\"pit\":\"").append(event.getOriginPitIdentifier()).append('"')
+                .append(",\"seeds\":").append(event.getNumberOfSeeds())
+                .append("}\n\n");
+        return frame.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] encodeSnapshot(final long sequence, final int[] position) {
+        final StringBuilder frame = new StringBuilder(128);
+        frame.append("id: ").append(sequence).append('\n')
+                .append("event: ").append(SNAPSHOT).append('\n')
+                .append("data: {\"sequence\":").append(sequence)
+                .append(',');
+        appendPosition(frame, position);
+        frame.append("}\n\n");
+        return frame.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Append the pits, player turn and winner of the position as JSON fields: "pits":[..],"turn":..,"winner":..
+     * (also the state of a game in the KalahaGameServer).
+     */
+    public static void appendPosition(final StringBuilder json, final int[] position) {
+        json.append("\"pits\":[");
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            if (pitIndex > 0) {
+                json.append(',');
+            }
+            json.append(position[pitIndex]);
+        }
+        json.append("],\"turn\":");
+        appendPlayer(json, KalahaRules.toPlayerType(position[KalahaRules.TURN]));
+        json.append(",\"winner\":");
+        appendPlayer(json, KalahaRules.toPlayerType(position[KalahaRules.WINNER]));
+    }
+
+    private static void appendPlayer(final StringBuilder json, final PlayerType playerType) {
+        if (playerType == null) {
+            json.append("null");
+        } else {
+            json.append('"').append(playerType).append('"');
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ammar.kalahacorelibrary.broadcast;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound queue of one spectator, filled by the SpectatorBroadcaster and drained by the connection of the spectator.
+ * <p>
+ * When the queue is full, the spectator is too slow: the frames in the queue are dropped and replaced by a snapshot of the board,
+ * so the spectator skips forward to the latest situation.
+ */
+public final class Spectator implements Closeable {
+    private final SpectatorBroadcaster broadcaster;
+    private final BlockingQueue<EventFrame> frames;
+    private final AtomicLong numberOfSkippedFrames;
+    private volatile boolean closed;
+
+    Spectator(final SpectatorBroadcaster broadcaster, final int queueCapacity) {
+        this.broadcaster = broadcaster;
+        this.frames = new ArrayBlockingQueue<>(queueCapacity);
+        this.numberOfSkippedFrames = new AtomicLong();
+    }
+
+    /**
+     * @return next frame, or null when there is no frame within the given time
+     */
+    public EventFrame poll(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        return frames.poll(timeout, timeUnit);
+    }
+
+    /**
+     * @return next frame, or null when there is no frame
+     */
+    public EventFrame poll() {
+        return frames.poll();
+    }
+
+    /**
+     * @return number of frames this spectator missed because it was too slow
+     */
+    public long getNumberOfSkippedFrames() {
+        return numberOfSkippedFrames.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        broadcaster.unsubscribe(this);
+    }
+
+    /**
+     * @return false when the queue is full
+     */
+    boolean offer(final EventFrame frame) {
+        return frames.offer(frame);
+    }
+
+    /**
+     * Drop all queued frames and continue from the given snapshot.
+     */
+    void skipTo(final EventFrame snapshot) {
+        numberOfSkippedFrames.addAndGet(frames.size() + 1);
+        frames.clear();
+        frames.offer(snapshot);
+    }
+}
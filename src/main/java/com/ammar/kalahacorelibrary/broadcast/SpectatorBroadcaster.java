@@ -0,0 +1,118 @@
+package com.ammar.kalahacorelibrary.broadcast;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.Observer;
+import com.ammar.kalahacorelibrary.pubsub.Subscription;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+
+/**
+ * Fan-out of the events of one game to many spectators.
+ * <p>
+ * The broadcaster is one observer of the ReplayableEventPublisher of the board: every event is serialized once into an immutable
+ * frame, and that same frame is handed to the outbound queue of every spectator. A spectator that can't keep up (its queue is full)
+ * skips forward to a snapshot of the board, which is also serialized once per event for all slow spectators.
+ * <p>
+ * Note: events are broadcast on the thread making the moves, spectators should be subscribed from that same thread or while holding
+ * the monitor of the KalahaBoard (the new spectator starts with a snapshot of the board).
+ */
+public class SpectatorBroadcaster implements Observer, Closeable {
+    private static final Spectator[] NO_SPECTATORS = new Spectator[0];
+
+    private final KalahaBoard kalahaBoard;
+    private final FrameEncoder frameEncoder;
+    private final int queueCapacity;
+    private final int[] position;
+    private final Subscription subscription;
+    private volatile Spectator[] spectators;
+    // only written by the thread making the moves, volatile so a snapshot taken on another thread sees the latest sequence
+    private volatile long sequence;
+
+    public SpectatorBroadcaster(final KalahaBoard kalahaBoard, final FrameEncoder frameEncoder, final int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queue capacity should be bigger than 0");
+        }
+
+        this.kalahaBoard = kalahaBoard;
+        this.frameEncoder = frameEncoder;
+        this.queueCapacity = queueCapacity;
+        this.position = new int[KalahaRules.POSITION_SIZE];
+        this.spectators = NO_SPECTATORS;
+
+        this.subscription = kalahaBoard.getReplayableEventPublisher().subscribe(new LinkedHashSet<>(Arrays.asList(EventType.values())), this);
+    }
+
+    /**
+     * Subscribe a new spectator, its first frame is a snapshot of the board.
+     */
+    public Spectator subscribe() {
+        final Spectator spectator = new Spectator(this, queueCapacity);
+        spectator.offer(snapshot());
+        synchronized (this) {
+            final Spectator[] newSpectators = Arrays.copyOf(spectators, spectators.length + 1);
+            newSpectators[spectators.length] = spectator;
+            spectators = newSpectators;
+        }
+        return spectator;
+    }
+
+    synchronized void unsubscribe(final Spectator spectator) {
+        final Spectator[] currentSpectators = spectators;
+        for (int i = 0; i < currentSpectators.length; i++) {
+            if (currentSpectators[i] == spectator) {
+                final Spectator[] newSpectators = new Spectator[currentSpectators.length - 1];
+                System.arraycopy(currentSpectators, 0, newSpectators, 0, i);
+                System.arraycopy(currentSpectators, i + 1, newSpectators, i, currentSpectators.length - i - 1);
+                spectators = newSpectators;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stop broadcasting (e.g. game is finished), spectators can still drain their queues.
+     */
+    @Override
+    public void close() {
+        subscription.cancel();
+    }
+
+    public int getNumberOfSpectators() {
+        return spectators.length;
+    }
+
+    @Override
+    public void update(final Observable observable, final Event event) {
+        sequence++;
+        final Spectator[] currentSpectators = spectators;
+        if (currentSpectators.length == 0) {
+            return;
+        }
+
+        // moves applied at once have no events per move, spectators get the new state of the board instead
+        final EventFrame frame = event.getEventType() == EventType.MOVES_APPLIED ? snapshot()
+                : new EventFrame(sequence, false, frameEncoder.encodeEvent(sequence, event));
+        EventFrame snapshot = null;
+        for (Spectator spectator : currentSpectators) {
+            if (!spectator.offer(frame)) {
+                if (Objects.isNull(snapshot)) {
+                    snapshot = snapshot();
+                }
+                spectator.skipTo(snapshot);
+            }
+        }
+    }
+
+    // the board already contains all changes described by the events up to the current sequence
+    private EventFrame snapshot() {
+        KalahaRules.copyOf(kalahaBoard, position);
+        return new EventFrame(sequence, true, frameEncoder.encodeSnapshot(sequence, position));
+    }
+}
@@ -0,0 +1,292 @@
+package com.ammar.kalahacorelibrary.bus;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.Subscription;
+import com.ammar.kalahacorelibrary.pubsub.SubscriptionFilter;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide event bus: the events of all games, tagged with their game id, delivered to global consumers.
+ * <p>
+ * Games are attached with their ReplayableEventPublisher, global consumers subscribe once on the bus. Events are partitioned by
+ * the hash of the game id onto N partitions, every partition has a bounded queue and one worker thread, so the events of one game
+ * are consumed in order. When the queue of a partition is full, the game thread waits (back pressure, no events are lost).
+ * <p>
+ * Note: a consumer runs on a partition thread, when it publishes on the bus itself it could wait for a full queue that only
+ * partition threads can empty. Publishing on its own partition with a full queue is therefore rejected (IllegalStateException),
+ * consumers should not publish on other partitions either, unless the queues are large enough to never fill up.
+ */
+public class GameEventBus implements Closeable {
+    private static final GlobalSubscription[] NO_SUBSCRIPTIONS = new GlobalSubscription[0];
+    // stop marker put on every partition by close()
+    private static final GameEvent STOP = new GameEvent(0, null, 0);
+
+    private final Logger logger = Logger.getLogger(GameEventBus.class);
+    private final Partition[] partitions;
+    private volatile GlobalSubscription[] subscriptions;
+    private volatile boolean running;
+
+    /**
+     * @param numberOfPartitions number of worker threads
+     * @param queueCapacity      maximum number of events waiting per partition
+     */
+    public GameEventBus(final int numberOfPartitions, final int queueCapacity) {
+        if (numberOfPartitions <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("number of partitions and queue capacity should be bigger than 0");
+        }
+
+        this.subscriptions = NO_SUBSCRIPTIONS;
+        this.running = true;
+        this.partitions = new Partition[numberOfPartitions];
+        for (int i = 0; i < numberOfPartitions; i++) {
+            partitions[i] = new Partition(i, queueCapacity);
+            partitions[i].worker.start();
+        }
+    }
+
+    /**
+     * Publish all events of the game on the bus.
+     *
+     * @return subscription on the publisher of the game, cancel it to detach the game
+     */
+    public Subscription attach(final long gameId, final Observable replayableEventPublisher) {
+        return replayableEventPublisher.subscribe(new LinkedHashSet<>(Arrays.asList(EventType.values())), (observable, event) -> publish(gameId, event));
+    }
+
+    /**
+     * Publish an event of a game, waits when the queue of the partition of the game is full.
+     *
+     * @throws IllegalStateException when the bus is closed (the event is not consumed)
+     */
+    public void publish(final long gameId, final Event event) {
+        if (!running) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+
+        partitions[partitionOf(gameId)].publish(new GameEvent(gameId, event, System.nanoTime()));
+    }
+
+    /**
+     * Subscribe a consumer for the events of all games.
+     */
+    public Subscription subscribe(final GameEventConsumer consumer) {
+        return subscribe(SubscriptionFilter.ALL, consumer);
+    }
+
+    /**
+     * Subscribe a consumer for the events of all games, matching the filter.
+     */
+    public synchronized Subscription subscribe(final SubscriptionFilter subscriptionFilter, final GameEventConsumer consumer) {
+        final GlobalSubscription subscription = new GlobalSubscription(subscriptionFilter, consumer);
+        final GlobalSubscription[] newSubscriptions = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        newSubscriptions[subscriptions.length] = subscription;
+        subscriptions = newSubscriptions;
+        return subscription;
+    }
+
+    public int getNumberOfPartitions() {
+        return partitions.length;
+    }
+
+    public int partitionOf(final long gameId) {
+        // spread the bits of sequential game ids
+        long hash = gameId * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int) ((hash & Long.MAX_VALUE) % partitions.length);
+    }
+
+    public PartitionMetrics getMetrics(final int partition) {
+        return partitions[partition].metrics();
+    }
+
+    public List<PartitionMetrics> getMetrics() {
+        final List<PartitionMetrics> metrics = new ArrayList<>();
+        for (Partition partition : partitions) {
+            metrics.add(partition.metrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Stop the worker threads once all published events are consumed.
+     * <p>
+     * Every partition gets a stop marker behind its published events, the workers aren't interrupted: a consumer busy with an event
+     * (e.g. writing it through a FileChannel) finishes it undisturbed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+
+        for (Partition partition : partitions) {
+            try {
+                partition.queue.put(STOP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized void unsubscribe(final GlobalSubscription subscription) {
+        final List<GlobalSubscription> newSubscriptions = new ArrayList<>(Arrays.asList(subscriptions));
+        if (newSubscriptions.remove(subscription)) {
+            subscriptions = newSubscriptions.toArray(new GlobalSubscription[newSubscriptions.size()]);
+        }
+    }
+
+    private final class Partition {
+        private final int index;
+        private final BlockingQueue<GameEvent> queue;
+        private final Thread worker;
+        private final AtomicLong numberOfPublishedEvents;
+        private final AtomicLong numberOfTimesFull;
+        // only written by the worker thread
+        private volatile long numberOfConsumedEvents;
+        private volatile long numberOfFailedDeliveries;
+        private volatile long lastDeliveryLatencyNanos;
+        private volatile long maxDeliveryLatencyNanos;
+
+        private Partition(final int index, final int queueCapacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.numberOfPublishedEvents = new AtomicLong();
+            this.numberOfTimesFull = new AtomicLong();
+            this.worker = new Thread(this::consumeEvents, "kalaha-event-bus-" + index);
+            this.worker.setDaemon(true);
+        }
+
+        private void publish(final GameEvent gameEvent) {
+            numberOfPublishedEvents.incrementAndGet();
+            if (!queue.offer(gameEvent)) {
+                if (Thread.currentThread() == worker) {
+                    numberOfPublishedEvents.decrementAndGet();
+                    throw new IllegalStateException("A consumer can't publish on its own partition " + index + " while its queue is full");
+                }
+
+                numberOfTimesFull.incrementAndGet();
+                try {
+                    queue.put(gameEvent);
+                } catch (InterruptedException e) {
+                    numberOfPublishedEvents.decrementAndGet();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for partition " + index + " of the event bus", e);
+                }
+            }
+
+            // closed in the meantime: the worker may have stopped before it saw the event, take it back unless it has been taken
+            if (!running && queue.remove(gameEvent)) {
+                numberOfPublishedEvents.decrementAndGet();
+                throw new IllegalStateException("Event bus is closed");
+            }
+        }
+
+        private void consumeEvents() {
+            final List<GameEvent> batch = new ArrayList<>();
+            boolean stopped = false;
+            while (!stopped) {
+                try {
+                    if (queue.drainTo(batch) == 0) {
+                        batch.add(queue.take());
+                    }
+                } catch (InterruptedException e) {
+                    // only the stop marker stops the worker
+                    continue;
+                }
+
+                // events behind the stop marker were published while closing, their publisher could not take them back anymore
+                for (GameEvent gameEvent : batch) {
+                    if (gameEvent == STOP) {
+                        stopped = true;
+                    } else {
+                        deliver(gameEvent);
+                    }
+                }
+                batch.clear();
+            }
+        }
+
+        private void deliver(final GameEvent gameEvent) {
+            for (GlobalSubscription subscription : subscriptions) {
+                if (subscription.active && subscription.subscriptionFilter.matches(gameEvent.event)) {
+                    try {
+                        subscription.consumer.accept(gameEvent.gameId, gameEvent.event);
+                    } catch (RuntimeException e) {
+                        // a failing consumer doesn't stop the partition
+                        numberOfFailedDeliveries++;
+                        logger.error("Event of game " + gameEvent.gameId + " could not be delivered: " + gameEvent.event, e);
+                    }
+                }
+            }
+
+            final long latencyNanos = System.nanoTime() - gameEvent.publishedAtNanos;
+            lastDeliveryLatencyNanos = latencyNanos;
+            if (latencyNanos > maxDeliveryLatencyNanos) {
+                maxDeliveryLatencyNanos = latencyNanos;
+            }
+            numberOfConsumedEvents++;
+        }
+
+        private PartitionMetrics metrics() {
+            // consumed first: the lag is never negative
+            final long consumed = numberOfConsumedEvents;
+            return new PartitionMetrics(index, numberOfPublishedEvents.get(), consumed, numberOfTimesFull.get(),
+                    numberOfFailedDeliveries, lastDeliveryLatencyNanos, maxDeliveryLatencyNanos);
+        }
+    }
+
+    private static final class GameEvent {
+        private final long gameId;
+        private final Event event;
+        private final long publishedAtNanos;
+
+        private GameEvent(final long gameId, final Event event, final long publishedAtNanos) {
+            this.gameId = gameId;
+            this.event = event;
+            this.publishedAtNanos = publishedAtNanos;
+        }
+    }
+
+    private final class GlobalSubscription implements Subscription {
+        private final SubscriptionFilter subscriptionFilter;
+        private final GameEventConsumer consumer;
+        private volatile boolean active;
+
+        private GlobalSubscription(final SubscriptionFilter subscriptionFilter, final GameEventConsumer consumer) {
+            this.subscriptionFilter = subscriptionFilter;
+            this.consumer = consumer;
+            this.active = true;
+        }
+
+        @Override
+        public void cancel() {
+            active = false;
+            unsubscribe(this);
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
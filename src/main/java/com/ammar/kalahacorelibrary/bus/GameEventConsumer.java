@@ -0,0 +1,20 @@
+package com.ammar.kalahacorelibrary.bus;
+
+import com.ammar.kalahacorelibrary.event.Event;
+
+/**
+ * Global consumer of the events of all games on the GameEventBus.
+ * <p>
+ * Note: events of one game are always consumed in order by the same partition thread, but events of different games are consumed
+ * concurrently by different partition threads.
+ */
+@FunctionalInterface
+public interface GameEventConsumer {
+
+    /**
+     * @param gameId game that published the event
+     * @param event  published event
+     */
+    void accept(long gameId, Event event);
+
+}
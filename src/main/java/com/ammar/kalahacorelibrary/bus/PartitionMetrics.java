@@ -0,0 +1,83 @@
+package com.ammar.kalahacorelibrary.bus;
+
+/**
+ * Snapshot of the metrics of one partition of the GameEventBus.
+ */
+public final class PartitionMetrics {
+    private final int partition;
+    private final long numberOfPublishedEvents;
+    private final long numberOfConsumedEvents;
+    private final long numberOfTimesFull;
+    private final long numberOfFailedDeliveries;
+    private final long lastDeliveryLatencyNanos;
+    private final long maxDeliveryLatencyNanos;
+
+    PartitionMetrics(final int partition, final long numberOfPublishedEvents, final long numberOfConsumedEvents, final long numberOfTimesFull,
+                     final long numberOfFailedDeliveries, final long lastDeliveryLatencyNanos, final long maxDeliveryLatencyNanos) {
+        this.partition = partition;
+        this.numberOfPublishedEvents = numberOfPublishedEvents;
+        this.numberOfConsumedEvents = numberOfConsumedEvents;
+        this.numberOfTimesFull = numberOfTimesFull;
+        this.numberOfFailedDeliveries = numberOfFailedDeliveries;
+        this.lastDeliveryLatencyNanos = lastDeliveryLatencyNanos;
+        this.maxDeliveryLatencyNanos = maxDeliveryLatencyNanos;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getNumberOfPublishedEvents() {
+        return numberOfPublishedEvents;
+    }
+
+    public long getNumberOfConsumedEvents() {
+        return numberOfConsumedEvents;
+    }
+
+    /**
+     * @return number of events published but not consumed yet
+     */
+    public long getLag() {
+        return numberOfPublishedEvents - numberOfConsumedEvents;
+    }
+
+    /**
+     * @return number of times a game thread had to wait, because the queue of the partition was full
+     */
+    public long getNumberOfTimesFull() {
+        return numberOfTimesFull;
+    }
+
+    /**
+     * @return number of times a consumer threw an exception
+     */
+    public long getNumberOfFailedDeliveries() {
+        return numberOfFailedDeliveries;
+    }
+
+    /**
+     * @return time between publishing and consuming the last consumed event
+     */
+    public long getLastDeliveryLatencyNanos() {
+        return lastDeliveryLatencyNanos;
+    }
+
+    public long getMaxDeliveryLatencyNanos() {
+        return maxDeliveryLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionMetrics {" +
+                "partition=" + partition +
+                ", lag=" + getLag() +
+                ", numberOfPublishedEvents=" + numberOfPublishedEvents +
+                ", numberOfConsumedEvents=" + numberOfConsumedEvents +
+                ", numberOfTimesFull=" + numberOfTimesFull +
+                ", numberOfFailedDeliveries=" + numberOfFailedDeliveries +
+                ", lastDeliveryLatencyNanos=" + lastDeliveryLatencyNanos +
+                ", maxDeliveryLatencyNanos=" + maxDeliveryLatencyNanos +
+                '}';
+    }
+}
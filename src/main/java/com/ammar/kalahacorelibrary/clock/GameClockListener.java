@@ -0,0 +1,21 @@
+package com.ammar.kalahacorelibrary.clock;
+
+import com.ammar.kalahacorelibrary.player.PlayerType;
+
+/**
+ * Gets notified (on the clock thread) about games that timed out or are abandoned.
+ */
+public interface GameClockListener {
+
+    /**
+     * The player ran out of time for his move, the referee has already flagged the timeout.
+     */
+    default void timedOut(final long gameId, final PlayerType playerType) {
+    }
+
+    /**
+     * Nothing has happened in the game for the configured abandonment time, the game has been detached from the clocks.
+     */
+    default void abandoned(final long gameId) {
+    }
+}
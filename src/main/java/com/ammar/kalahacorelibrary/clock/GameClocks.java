@@ -0,0 +1,228 @@
+package com.ammar.kalahacorelibrary.clock;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.Observer;
+import com.ammar.kalahacorelibrary.pubsub.Subscription;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Move clocks and abandonment detection for many concurrent games, driven by one timing wheel and one clock thread.
+ * <p>
+ * Per game there are 2 timers:
+ * - move timer: armed for the player on turn on every CHANGE_TURN (UNDO_MOVE/REDO_MOVE/MOVES_APPLIED restore it), cancelled when the game is
+ * decided. When it expires, the referee flags a TIMEOUT for that player.
+ * - abandonment timer: re-armed on every event of the game. When it expires, the game is detached and reported as abandoned.
+ * <p>
+ * Expired timers are collected per tick and handled as one batch, outside the lock of the wheel.
+ * <p>
+ * Note: a timeout is flagged while holding the monitor of the KalahaBoard, moves made concurrently with the clocks should be made
+ * while holding that same monitor.
+ */
+public class GameClocks implements Closeable {
+    private final Logger logger = Logger.getLogger(GameClocks.class);
+
+    private final TimingWheel<Deadline> timingWheel;
+    private final GameClockListener listener;
+    private final Map<Long, GameClock> gameClocks;
+    private final ScheduledExecutorService clockThread;
+    private final List<Deadline> expiredDeadlines;
+    private final long startNanos;
+
+    /**
+     * @param tick resolution of the clocks
+     */
+    public GameClocks(final long tick, final TimeUnit timeUnit, final GameClockListener listener) {
+        final long tickMillis = timeUnit.toMillis(tick);
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tick should be at least 1 millisecond");
+        }
+
+        this.startNanos = System.nanoTime();
+        this.timingWheel = new TimingWheel<>(tickMillis, 0);
+        this.listener = listener;
+        this.gameClocks = new ConcurrentHashMap<>();
+        this.expiredDeadlines = new ArrayList<>();
+        this.clockThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "kalaha-game-clocks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.clockThread.scheduleAtFixedRate(this::expireTimers, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start the clocks of a game, the move clock starts on the next change of turn.
+     *
+     * @param moveTime    time a player has for one move
+     * @param abandonTime time without any event after which the game is abandoned
+     */
+    public void attach(final long gameId, final KalahaBoard kalahaBoard, final long moveTime, final long abandonTime, final TimeUnit timeUnit) {
+        if (moveTime <= 0 || abandonTime <= 0) {
+            throw new IllegalArgumentException("move time and abandon time should be bigger than 0");
+        }
+
+        final GameClock gameClock = new GameClock(gameId, kalahaBoard, timeUnit.toMillis(moveTime), timeUnit.toMillis(abandonTime));
+        if (Objects.nonNull(gameClocks.putIfAbsent(gameId, gameClock))) {
+            throw new IllegalStateException("Game is already attached: " + gameId);
+        }
+
+        gameClock.subscription = kalahaBoard.getReplayableEventPublisher().subscribe(new LinkedHashSet<>(Arrays.asList(EventType.values())), gameClock);
+        synchronized (timingWheel) {
+            final long now = now();
+            final PlayerType currentPlayerTurn = kalahaBoard.getReferee().getCurrentPlayerTurn();
+            if (Objects.nonNull(currentPlayerTurn) && Objects.isNull(kalahaBoard.getReferee().getWinner())) {
+                gameClock.playerOnTurn = currentPlayerTurn;
+                timingWheel.schedule(gameClock.moveTimer, now + gameClock.moveTimeMillis);
+            }
+            timingWheel.schedule(gameClock.abandonTimer, now + gameClock.abandonTimeMillis);
+        }
+    }
+
+    /**
+     * Stop the clocks of a game (e.g. game is finished).
+     */
+    public void detach(final long gameId) {
+        final GameClock gameClock = gameClocks.remove(gameId);
+        if (Objects.nonNull(gameClock)) {
+            synchronized (timingWheel) {
+                gameClock.detached = true;
+                gameClock.subscription.cancel();
+                timingWheel.cancel(gameClock.moveTimer);
+                timingWheel.cancel(gameClock.abandonTimer);
+            }
+        }
+    }
+
+    public int getNumberOfGames() {
+        return gameClocks.size();
+    }
+
+    @Override
+    public void close() {
+        clockThread.shutdownNow();
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private void expireTimers() {
+        try {
+            synchronized (timingWheel) {
+                timingWheel.advanceTo(now(), expiredDeadlines);
+            }
+
+            for (Deadline deadline : expiredDeadlines) {
+                if (deadline.abandonment) {
+                    abandon(deadline.gameClock);
+                } else {
+                    flagTimeout(deadline.gameClock);
+                }
+            }
+        } catch (RuntimeException e) {
+            // keep the clock ticking for the other games
+            logger.error("Game clocks could not handle expired timers", e);
+        } finally {
+            expiredDeadlines.clear();
+        }
+    }
+
+    private void flagTimeout(final GameClock gameClock) {
+        final PlayerType playerType;
+        synchronized (gameClock.kalahaBoard) {
+            synchronized (timingWheel) {
+                // the player might have moved after the timer expired, or the game might be detached
+                if (gameClock.detached || gameClock.moveTimer.isScheduled() || Objects.isNull(gameClock.playerOnTurn)) {
+                    return;
+                }
+                playerType = gameClock.playerOnTurn;
+            }
+            if (!gameClock.kalahaBoard.getReferee().flagTimeout(playerType)) {
+                return;
+            }
+        }
+        listener.timedOut(gameClock.gameId, playerType);
+    }
+
+    private void abandon(final GameClock gameClock) {
+        synchronized (timingWheel) {
+            if (gameClock.detached || gameClock.abandonTimer.isScheduled()) {
+                return;
+            }
+        }
+        detach(gameClock.gameId);
+        listener.abandoned(gameClock.gameId);
+    }
+
+    private final class GameClock implements Observer {
+        private final long gameId;
+        private final KalahaBoard kalahaBoard;
+        private final long moveTimeMillis;
+        private final long abandonTimeMillis;
+        private final TimingWheel.Timer<Deadline> moveTimer;
+        private final TimingWheel.Timer<Deadline> abandonTimer;
+        // guarded by the timing wheel
+        private Subscription subscription;
+        private PlayerType playerOnTurn;
+        private boolean detached;
+
+        private GameClock(final long gameId, final KalahaBoard kalahaBoard, final long moveTimeMillis, final long abandonTimeMillis) {
+            this.gameId = gameId;
+            this.kalahaBoard = kalahaBoard;
+            this.moveTimeMillis = moveTimeMillis;
+            this.abandonTimeMillis = abandonTimeMillis;
+            this.moveTimer = new TimingWheel.Timer<>(new Deadline(this, false));
+            this.abandonTimer = new TimingWheel.Timer<>(new Deadline(this, true));
+        }
+
+        @Override
+        public void update(final Observable observable, final Event event) {
+            synchronized (timingWheel) {
+                if (detached) {
+                    return;
+                }
+
+                final long now = now();
+                switch (event.getEventType()) {
+                    case CHANGE_TURN:
+                    case UNDO_MOVE:
+                    case REDO_MOVE:
+                    case MOVES_APPLIED:
+                        playerOnTurn = event.getPlayerType();
+                        if (Objects.nonNull(playerOnTurn) && Objects.isNull(kalahaBoard.getReferee().getWinner())) {
+                            timingWheel.schedule(moveTimer, now + moveTimeMillis);
+                        } else {
+                            timingWheel.cancel(moveTimer);
+                        }
+                        break;
+                    case WINS:
+                    case TIE_GAME:
+                    case TIMEOUT:
+                        timingWheel.cancel(moveTimer);
+                        break;
+                    default:
+                        break;
+                }
+                timingWheel.schedule(abandonTimer, now + abandonTimeMillis);
+            }
+        }
+    }
+
+    private static final class Deadline {
+        private final GameClock gameClock;
+        private final boolean abandonment;
+
+        private Deadline(final GameClock gameClock, final boolean abandonment) {
+            this.gameClock = gameClock;
+            this.abandonment = abandonment;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.ammar.kalahacorelibrary.clock;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hierarchical timing wheel: arming and cancelling a timer is O(1), whatever the number of timers.
+ * <p>
+ * <pre>
+ *
+ *     level 0 :  64 slots of 1 tick
+ *     level 1 :  64 slots of 64 ticks
+ *     level 2 :  64 slots of 64^2 ticks
+ *     level 3 :  64 slots of 64^3 ticks
+ *
+ *     a timer is put in the lowest level that can hold its deadline, when the wheel reaches a slot of a higher level
+ *     all timers of that slot are cascaded to the lower levels. Deadlines beyond the highest level wait in the last slot
+ *     of the highest level and are cascaded until they fit.
+ *
+ * </pre>
+ * Every slot is a circular doubly linked list of timers, timers are owned by the caller and can be re-armed without any allocation.
+ * <p>
+ * Note: not thread-safe, callers should synchronize.
+ */
+public final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int NUMBER_OF_SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = NUMBER_OF_SLOTS - 1;
+    private static final int NUMBER_OF_LEVELS = 4;
+    private static final long MAX_TICKS = 1L << (SLOT_BITS * NUMBER_OF_LEVELS);
+
+    private final long tickMillis;
+    // [level][slot] sentinel of the circular list of timers
+    private final Timer<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis resolution of the wheel, deadlines are rounded up to the next tick
+     * @param nowMillis  current time (in the same time base as the deadlines)
+     */
+    // a generic array can't be created, the raw array only ever holds Timer<T> instances
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(final long tickMillis, final long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tick should be bigger than 0");
+        }
+
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        this.slots = new Timer[NUMBER_OF_LEVELS][NUMBER_OF_SLOTS];
+        for (int level = 0; level < NUMBER_OF_LEVELS; level++) {
+            for (int slot = 0; slot < NUMBER_OF_SLOTS; slot++) {
+                final Timer<T> sentinel = new Timer<>(null);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Arm (or re-arm) the timer, it expires on the first advanceTo(..) at or after the deadline.
+     */
+    public void schedule(final Timer<T> timer, final long deadlineMillis) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+
+        // round up, a timer never expires before its deadline
+        timer.deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        // the slot of the current tick has been expired already
+        place(timer, currentTick + 1);
+        size++;
+    }
+
+    /**
+     * @return false when the timer was not scheduled (already expired or cancelled)
+     */
+    public boolean cancel(final Timer<T> timer) {
+        if (!timer.isScheduled()) {
+            return false;
+        }
+
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Move the wheel forward to the given time, the payloads of all expired timers are added to the given batch.
+     *
+     * @return number of expired timers
+     */
+    public int advanceTo(final long nowMillis, final List<T> expired) {
+        final long targetTick = nowMillis / tickMillis;
+        int numberOfExpiredTimers = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                // nothing to expire or cascade
+                currentTick = targetTick;
+                break;
+            }
+
+            currentTick++;
+            for (int level = NUMBER_OF_LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(slots[level][(int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK]);
+                }
+            }
+
+            final Timer<T> sentinel = slots[0][(int) currentTick & SLOT_MASK];
+            while (sentinel.next != sentinel) {
+                final Timer<T> timer = sentinel.next;
+                unlink(timer);
+                expired.add(timer.payload);
+                numberOfExpiredTimers++;
+            }
+        }
+        return numberOfExpiredTimers;
+    }
+
+    /**
+     * @return number of scheduled timers
+     */
+    public int size() {
+        return size;
+    }
+
+    private void cascade(final Timer<T> sentinel) {
+        Timer<T> timer = sentinel.next;
+        // detach the whole slot first, timers are placed again in (lower) slots
+        sentinel.next = sentinel;
+        sentinel.previous = sentinel;
+        while (timer != sentinel) {
+            final Timer<T> next = timer.next;
+            // cascading happens before the slot of the current tick expires
+            place(timer, currentTick);
+            timer = next;
+        }
+    }
+
+    private void place(final Timer<T> timer, final long earliestTick) {
+        long placementTick = Math.max(timer.deadlineTick, earliestTick);
+        long ticksToGo = placementTick - currentTick;
+        if (ticksToGo >= MAX_TICKS) {
+            placementTick = currentTick + MAX_TICKS - 1;
+            ticksToGo = MAX_TICKS - 1;
+        }
+
+        int level = 0;
+        while (ticksToGo >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+
+        final Timer<T> sentinel = slots[level][(int) (placementTick >>> (SLOT_BITS * level)) & SLOT_MASK];
+        timer.previous = sentinel.previous;
+        timer.next = sentinel;
+        sentinel.previous.next = timer;
+        sentinel.previous = timer;
+    }
+
+    private void unlink(final Timer<T> timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+        size--;
+    }
+
+    /**
+     * Timer that can be armed on a timing wheel, it carries a payload that is handed over when the timer expires.
+     */
+    public static final class Timer<T> {
+        private final T payload;
+        private Timer<T> previous;
+        private Timer<T> next;
+        private long deadlineTick;
+
+        public Timer(final T payload) {
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isScheduled() {
+            return Objects.nonNull(next);
+        }
+    }
+}
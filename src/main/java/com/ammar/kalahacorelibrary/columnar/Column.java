@@ -0,0 +1,45 @@
+package com.ammar.kalahacorelibrary.columnar;
+
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+/**
+ * Columns of the columnar position file: one column per pit count, the side to move, the move played and the final result.
+ * The first 14 columns have the same ordinal as the PitId of the pit.
+ */
+public enum Column {
+    PIT_1,
+    PIT_2,
+    PIT_3,
+    PIT_4,
+    PIT_5,
+    PIT_6,
+    KALAHA_PIT_1,
+    PIT_7,
+    PIT_8,
+    PIT_9,
+    PIT_10,
+    PIT_11,
+    PIT_12,
+    KALAHA_PIT_2,
+    /**
+     * Player (ordinal) making the move
+     */
+    SIDE_TO_MOVE,
+    /**
+     * Pit index of the move played in the position
+     */
+    MOVE,
+    /**
+     * Final result of the game: winner (player ordinal), TIE or UNDECIDED
+     */
+    RESULT;
+
+    public static final int TIE = 2;
+    public static final int UNDECIDED = -1;
+
+    private static final Column[] COLUMNS = values();
+
+    public static Column of(final PitId pitId) {
+        return COLUMNS[pitId.ordinal()];
+    }
+}
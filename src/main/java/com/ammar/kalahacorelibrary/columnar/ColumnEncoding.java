@@ -0,0 +1,140 @@
+package com.ammar.kalahacorelibrary.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compression of one column chunk, the smallest of both encodings is used per chunk.
+ * <p>
+ * <pre>
+ *
+ *     RUN_LENGTH  : number of runs (int) | runs: value (int) | run length (int)
+ *     BIT_PACKED  : minimum value (int) | bit width (byte) | (value - minimum) packed in bit width bits, in longs
+ *
+ * </pre>
+ */
+enum ColumnEncoding {
+    RUN_LENGTH,
+    BIT_PACKED;
+
+    private static final ColumnEncoding[] ENCODINGS = values();
+
+    static ColumnEncoding of(final int ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= ENCODINGS.length) {
+            throw new IOException("Unknown column encoding: " + ordinal);
+        }
+        return ENCODINGS[ordinal];
+    }
+
+    /**
+     * @return encoding (first byte) followed by the encoded values
+     */
+    static byte[] encode(final int[] values, final int numberOfValues) throws IOException {
+        int numberOfRuns = 0;
+        int minimum = Integer.MAX_VALUE;
+        int maximum = Integer.MIN_VALUE;
+        for (int i = 0; i < numberOfValues; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                numberOfRuns++;
+            }
+            minimum = Math.min(minimum, values[i]);
+            maximum = Math.max(maximum, values[i]);
+        }
+
+        final int bitWidth = numberOfValues == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(maximum - minimum);
+        final long runLengthSize = 4 + 8L * numberOfRuns;
+        final long bitPackedSize = 5 + 8L * ((numberOfValues * (long) bitWidth + 63) / 64);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        if (runLengthSize <= bitPackedSize) {
+            output.writeByte(RUN_LENGTH.ordinal());
+            output.writeInt(numberOfRuns);
+            int i = 0;
+            while (i < numberOfValues) {
+                int runEnd = i + 1;
+                while (runEnd < numberOfValues && values[runEnd] == values[i]) {
+                    runEnd++;
+                }
+                output.writeInt(values[i]);
+                output.writeInt(runEnd - i);
+                i = runEnd;
+            }
+        } else {
+            output.writeByte(BIT_PACKED.ordinal());
+            output.writeInt(minimum);
+            output.writeByte(bitWidth);
+            long word = 0;
+            int bitsInWord = 0;
+            for (int i = 0; i < numberOfValues; i++) {
+                final long value = (values[i] - minimum) & 0xFFFFFFFFL;
+                word |= value << bitsInWord;
+                if (bitsInWord + bitWidth >= 64) {
+                    output.writeLong(word);
+                    final int bitsWritten = 64 - bitsInWord;
+                    // the remaining bits of the value go to the next word
+                    word = bitsWritten == 64 ? 0 : value >>> bitsWritten;
+                    bitsInWord = bitsInWord + bitWidth - 64;
+                } else {
+                    bitsInWord += bitWidth;
+                }
+            }
+            if (bitsInWord > 0) {
+                output.writeLong(word);
+            }
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a column chunk into the given values.
+     */
+    static void decode(final ByteBuffer chunk, final int[] values, final int numberOfValues) throws IOException {
+        switch (of(chunk.get())) {
+            case RUN_LENGTH:
+                final int numberOfRuns = chunk.getInt();
+                int i = 0;
+                for (int run = 0; run < numberOfRuns; run++) {
+                    final int value = chunk.getInt();
+                    final int runLength = chunk.getInt();
+                    if (i + runLength > numberOfValues) {
+                        throw new IOException("Run length exceeds the number of rows");
+                    }
+                    for (int end = i + runLength; i < end; i++) {
+                        values[i] = value;
+                    }
+                }
+                break;
+            case BIT_PACKED:
+                final int minimum = chunk.getInt();
+                final int bitWidth = chunk.get();
+                final long mask = bitWidth == 64 ? -1L : (1L << bitWidth) - 1;
+                long word = 0;
+                int bitsInWord = 0;
+                for (int j = 0; j < numberOfValues; j++) {
+                    long value;
+                    if (bitWidth == 0) {
+                        value = 0;
+                    } else if (bitsInWord >= bitWidth) {
+                        value = word & mask;
+                        word >>>= bitWidth;
+                        bitsInWord -= bitWidth;
+                    } else {
+                        // low bits from the current word, high bits from the next word
+                        final long nextWord = chunk.getLong();
+                        value = (word | (nextWord << bitsInWord)) & mask;
+                        final int bitsTaken = bitWidth - bitsInWord;
+                        word = bitsTaken == 64 ? 0 : nextWord >>> bitsTaken;
+                        bitsInWord = 64 - bitsTaken;
+                    }
+                    values[j] = (int) (value + minimum);
+                }
+                break;
+            default:
+                throw new IOException("Unknown column encoding");
+        }
+    }
+}
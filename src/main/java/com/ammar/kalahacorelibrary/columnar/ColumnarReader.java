@@ -0,0 +1,110 @@
+package com.ammar.kalahacorelibrary.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Reads a columnar position file (see ColumnarWriter), only the chunks of the projected columns are read from disk.
+ */
+public class ColumnarReader implements Closeable {
+    private final FileChannel fileChannel;
+    private final int[] rowsPerGroup;
+    private final long[][] chunkOffsets;
+    private final int[][] chunkLengths;
+    private final long numberOfRows;
+    private long numberOfBytesRead;
+
+    public ColumnarReader(final Path file) throws IOException {
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final long fileSize = fileChannel.size();
+            if (fileSize < 4 + ColumnarWriter.TRAILER_SIZE) {
+                throw new IOException("Not a columnar position file: " + file);
+            }
+
+            final ByteBuffer trailer = read(fileSize - ColumnarWriter.TRAILER_SIZE, ColumnarWriter.TRAILER_SIZE);
+            final long footerOffset = trailer.getLong();
+            if (trailer.getInt() != ColumnarWriter.MAGIC || footerOffset < 4 || footerOffset > fileSize - ColumnarWriter.TRAILER_SIZE) {
+                throw new IOException("Not a columnar position file (or it is not closed properly): " + file);
+            }
+
+            final ByteBuffer footer = read(footerOffset, (int) (fileSize - ColumnarWriter.TRAILER_SIZE - footerOffset));
+            final int numberOfRowGroups = footer.getInt();
+            rowsPerGroup = new int[numberOfRowGroups];
+            chunkOffsets = new long[numberOfRowGroups][ColumnarWriter.NUMBER_OF_COLUMNS];
+            chunkLengths = new int[numberOfRowGroups][ColumnarWriter.NUMBER_OF_COLUMNS];
+            long rows = 0;
+            for (int rowGroup = 0; rowGroup < numberOfRowGroups; rowGroup++) {
+                rowsPerGroup[rowGroup] = footer.getInt();
+                rows += rowsPerGroup[rowGroup];
+                for (int column = 0; column < ColumnarWriter.NUMBER_OF_COLUMNS; column++) {
+                    chunkOffsets[rowGroup][column] = footer.getLong();
+                    chunkLengths[rowGroup][column] = footer.getInt();
+                }
+            }
+            numberOfRows = rows;
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    public long getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Read the given columns of all rows, one row group at a time.
+     */
+    public void scan(final Set<Column> projectedColumns, final RowGroupConsumer consumer) throws IOException {
+        int maxRowsPerGroup = 0;
+        for (int rows : rowsPerGroup) {
+            maxRowsPerGroup = Math.max(maxRowsPerGroup, rows);
+        }
+
+        final int[][] columns = new int[ColumnarWriter.NUMBER_OF_COLUMNS][];
+        for (Column column : projectedColumns) {
+            columns[column.ordinal()] = new int[maxRowsPerGroup];
+        }
+
+        for (int rowGroup = 0; rowGroup < rowsPerGroup.length; rowGroup++) {
+            for (Column column : projectedColumns) {
+                final ByteBuffer chunk = read(chunkOffsets[rowGroup][column.ordinal()], chunkLengths[rowGroup][column.ordinal()]);
+                ColumnEncoding.decode(chunk, columns[column.ordinal()], rowsPerGroup[rowGroup]);
+            }
+            consumer.accept(rowsPerGroup[rowGroup], columns);
+        }
+    }
+
+    /**
+     * @return number of bytes read from the file so far (footer included)
+     */
+    public long getNumberOfBytesRead() {
+        return numberOfBytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    private ByteBuffer read(final long offset, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            final int read = fileChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of columnar file at offset " + position);
+            }
+            position += read;
+        }
+        numberOfBytesRead += length;
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,133 @@
+package com.ammar.kalahacorelibrary.columnar;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes positions (one row per position) into a columnar file: rows are grouped, and every row group stores each column as a
+ * separate compressed chunk (see ColumnEncoding), so a reader only reads the columns it needs.
+ * <p>
+ * <pre>
+ *
+ * File format:
+ *
+ *     MAGIC (int) | column chunks of all row groups | footer | footer offset (long) | MAGIC (int)
+ *
+ *     footer: number of row groups (int) | per row group: number of rows (int) | per column: chunk offset (long) | chunk length (int)
+ *
+ * </pre>
+ */
+public class ColumnarWriter implements Closeable {
+    static final int MAGIC = 0x4B434F4C;
+    static final int NUMBER_OF_COLUMNS = Column.values().length;
+    static final int TRAILER_SIZE = 12;
+
+    private final FileChannel fileChannel;
+    private final int rowsPerGroup;
+    private final int[][] columns;
+    private final List<RowGroup> rowGroups;
+    private int numberOfRows;
+    private long offset;
+
+    /**
+     * @param rowsPerGroup number of rows in one row group (compressed together per column)
+     */
+    public ColumnarWriter(final Path file, final int rowsPerGroup) throws IOException {
+        if (rowsPerGroup <= 0) {
+            throw new IllegalArgumentException("rows per group should be bigger than 0");
+        }
+
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.rowsPerGroup = rowsPerGroup;
+        this.columns = new int[NUMBER_OF_COLUMNS][rowsPerGroup];
+        this.rowGroups = new ArrayList<>();
+        write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+    }
+
+    /**
+     * Add one row.
+     *
+     * @param position   position before the move (see KalahaRules for the layout)
+     * @param sideToMove player (ordinal) making the move
+     * @param move       pit index of the move
+     * @param result     final result of the game: winner (player ordinal), Column.TIE or Column.UNDECIDED
+     */
+    public void add(final int[] position, final int sideToMove, final int move, final int result) throws IOException {
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            columns[pitIndex][numberOfRows] = position[pitIndex];
+        }
+        columns[Column.SIDE_TO_MOVE.ordinal()][numberOfRows] = sideToMove;
+        columns[Column.MOVE.ordinal()][numberOfRows] = move;
+        columns[Column.RESULT.ordinal()][numberOfRows] = result;
+
+        numberOfRows++;
+        if (numberOfRows == rowsPerGroup) {
+            flushRowGroup();
+        }
+    }
+
+    /**
+     * Write the remaining rows and the footer.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (numberOfRows > 0) {
+                flushRowGroup();
+            }
+
+            final long footerOffset = offset;
+            final ByteBuffer footer = ByteBuffer.allocate(4 + rowGroups.size() * (4 + NUMBER_OF_COLUMNS * 12) + TRAILER_SIZE);
+            footer.putInt(rowGroups.size());
+            for (RowGroup rowGroup : rowGroups) {
+                footer.putInt(rowGroup.numberOfRows);
+                for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+                    footer.putLong(rowGroup.chunkOffsets[column]);
+                    footer.putInt(rowGroup.chunkLengths[column]);
+                }
+            }
+            footer.putLong(footerOffset);
+            footer.putInt(MAGIC);
+            footer.flip();
+            write(footer);
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        final RowGroup rowGroup = new RowGroup(numberOfRows);
+        for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+            final byte[] chunk = ColumnEncoding.encode(columns[column], numberOfRows);
+            rowGroup.chunkOffsets[column] = offset;
+            rowGroup.chunkLengths[column] = chunk.length;
+            write(ByteBuffer.wrap(chunk));
+        }
+        rowGroups.add(rowGroup);
+        numberOfRows = 0;
+    }
+
+    private void write(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            offset += fileChannel.write(buffer, offset);
+        }
+    }
+
+    private static final class RowGroup {
+        private final int numberOfRows;
+        private final long[] chunkOffsets = new long[NUMBER_OF_COLUMNS];
+        private final int[] chunkLengths = new int[NUMBER_OF_COLUMNS];
+
+        private RowGroup(final int numberOfRows) {
+            this.numberOfRows = numberOfRows;
+        }
+    }
+}
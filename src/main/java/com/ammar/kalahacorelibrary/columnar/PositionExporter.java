@@ -0,0 +1,131 @@
+package com.ammar.kalahacorelibrary.columnar;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.Event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Turns game histories (the events of a game, e.g. read from the journal) into rows of a columnar file: one row per move, with
+ * the position before the move, the side to move, the move played and the final result of the game.
+ * <p>
+ * Positions are re-created with KalahaRules from the moves (INITIAL_MOVE events, taking UNDO_MOVE/REDO_MOVE and MOVES_APPLIED into
+ * account), no KalahaBoard is needed.
+ */
+public class PositionExporter implements Closeable {
+    private final ColumnarWriter columnarWriter;
+    private final int[] position;
+    private long numberOfExportedPositions;
+
+    public PositionExporter(final ColumnarWriter columnarWriter) {
+        this.columnarWriter = columnarWriter;
+        this.position = new int[KalahaRules.POSITION_SIZE];
+    }
+
+    /**
+     * Export all moves of one game.
+     * <p>
+     * Moves applied at once (MOVES_APPLIED) are not exported, there are no events per move. The game continues from the position
+     * after those moves: the pits changed by them (the EMPTY/NOT_EMPTY/STORED events before MOVES_APPLIED) and the player on turn.
+     */
+    public void export(final int initialNumberOfSeeds, final List<Event> events) throws IOException {
+        final List<Step> steps = new ArrayList<>();
+        final Deque<Step> takenBackSteps = new ArrayDeque<>();
+        // number of seeds per pit as published since the last step, NONE when the pit didn't publish
+        final int[] publishedSeeds = new int[KalahaRules.NUMBER_OF_PITS];
+        Arrays.fill(publishedSeeds, KalahaRules.NONE);
+        System.arraycopy(KalahaRules.newPosition(initialNumberOfSeeds), 0, position, 0, KalahaRules.POSITION_SIZE);
+        int result = Column.UNDECIDED;
+        for (Event event : events) {
+            final Step step;
+            switch (event.getEventType()) {
+                case EMPTY:
+                case NOT_EMPTY:
+                case STORED:
+                    if (Objects.nonNull(event.getOriginPitId())) {
+                        publishedSeeds[event.getOriginPitId().getIndex()] = event.getNumberOfSeeds();
+                    }
+                    continue;
+                case INITIAL_MOVE:
+                    step = new Step(event.getOriginPitId().getIndex(), position);
+                    KalahaRules.move(position, step.move);
+                    step.positionAfter = position.clone();
+                    steps.add(step);
+                    takenBackSteps.clear();
+                    break;
+                case MOVES_APPLIED:
+                    step = new Step(KalahaRules.NONE, position);
+                    for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+                        if (publishedSeeds[pitIndex] != KalahaRules.NONE) {
+                            position[pitIndex] = publishedSeeds[pitIndex];
+                        }
+                    }
+                    position[KalahaRules.TURN] = KalahaRules.toOrdinal(event.getPlayerType());
+                    step.positionAfter = position.clone();
+                    steps.add(step);
+                    takenBackSteps.clear();
+                    break;
+                case UNDO_MOVE:
+                    if (!steps.isEmpty()) {
+                        step = steps.remove(steps.size() - 1);
+                        System.arraycopy(step.positionBefore, 0, position, 0, KalahaRules.POSITION_SIZE);
+                        takenBackSteps.push(step);
+                    }
+                    break;
+                case REDO_MOVE:
+                    if (!takenBackSteps.isEmpty()) {
+                        step = takenBackSteps.pop();
+                        System.arraycopy(step.positionAfter, 0, position, 0, KalahaRules.POSITION_SIZE);
+                        steps.add(step);
+                    }
+                    break;
+                case WINS:
+                    result = event.getPlayerType().ordinal();
+                    break;
+                case TIE_GAME:
+                    result = Column.TIE;
+                    break;
+                default:
+                    break;
+            }
+            Arrays.fill(publishedSeeds, KalahaRules.NONE);
+        }
+
+        for (Step step : steps) {
+            if (step.move != KalahaRules.NONE) {
+                columnarWriter.add(step.positionBefore, KalahaRules.ownerOf(step.move), step.move, result);
+                numberOfExportedPositions++;
+            }
+        }
+    }
+
+    public long getNumberOfExportedPositions() {
+        return numberOfExportedPositions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        columnarWriter.close();
+    }
+
+    /**
+     * A move, or moves applied at once (move is NONE), with the positions before and after it.
+     */
+    private static final class Step {
+        private final int move;
+        private final int[] positionBefore;
+        private int[] positionAfter;
+
+        private Step(final int move, final int[] positionBefore) {
+            this.move = move;
+            this.positionBefore = positionBefore.clone();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ammar.kalahacorelibrary.columnar;
+
+/**
+ * Consumer of the rows of a columnar file, one row group at a time.
+ */
+@FunctionalInterface
+public interface RowGroupConsumer {
+
+    /**
+     * @param numberOfRows number of rows in this row group
+     * @param columns      values per column (indexed by Column ordinal), only the projected columns are filled in (others are null);
+     *                     the arrays are reused for the next row group
+     */
+    void accept(int numberOfRows, int[][] columns);
+
+}
@@ -0,0 +1,72 @@
+package com.ammar.kalahacorelibrary.concurrency;
+
+import java.lang.reflect.Method;
+
+/**
+ * Threads to run blocking work on:
+ * - PLATFORM_THREADS : platform (daemon) threads, the caller bounds or pools them
+ * - VIRTUAL_THREADS  : virtual threads, cheap enough for one per task, only available on a JVM with virtual threads (Java 21+)
+ * <p>
+ * The LoadGenerator runs its games with these (a fixed number of platform threads, or one virtual thread per game), the
+ * KalahaGameServer its requests (a thread pool, or one virtual thread per request).
+ * <p>
+ * The library is built for Java 8, virtual threads are therefore created through reflection.
+ */
+public enum ConcurrencyModel {
+    PLATFORM_THREADS,
+    VIRTUAL_THREADS;
+
+    private static final Method OF_VIRTUAL = methodOrNull(Thread.class, "ofVirtual");
+    private static final Method UNSTARTED = OF_VIRTUAL == null ? null : methodOrNull(OF_VIRTUAL.getReturnType(), "unstarted", Runnable.class);
+    private static final Method NAME = OF_VIRTUAL == null ? null : methodOrNull(OF_VIRTUAL.getReturnType(), "name", String.class);
+    private static final boolean VIRTUAL_THREADS_SUPPORTED = canCreateVirtualThread();
+
+    public boolean isSupported() {
+        return this == PLATFORM_THREADS || VIRTUAL_THREADS_SUPPORTED;
+    }
+
+    /**
+     * @return new (not started) thread of this model
+     */
+    public Thread newThread(final Runnable runnable, final String name) {
+        if (this == PLATFORM_THREADS) {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        }
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads are not supported by this JVM: " + System.getProperty("java.version"));
+        }
+
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) UNSTARTED.invoke(builder, runnable);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual thread could not be created", e);
+        }
+    }
+
+    /**
+     * Virtual threads may exist but still be disabled (preview feature on Java 19 and 20)
+     */
+    private static boolean canCreateVirtualThread() {
+        if (UNSTARTED == null || NAME == null) {
+            return false;
+        }
+        try {
+            UNSTARTED.invoke(OF_VIRTUAL.invoke(null), (Runnable) () -> {
+            });
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Method methodOrNull(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.ammar.kalahacorelibrary.engine;
+
+import java.util.Arrays;
+
+/**
+ * Applies moves to many independent boards in lockstep, e.g. for self-play and playouts.
+ * The boards are stored as structure of arrays: one int[] per pit (index = board), instead of one int[] or pit object graph per board.
+ * <p>
+ * A move is computed with lap arithmetic instead of sowing seed by seed: with s seeds, every pit on the way (13 pits, the Kalaha pit of
+ * the opponent is skipped) receives s / 13 seeds, and the first s % 13 pits after the moved pit receive one more. The pits are then
+ * updated one pit array at a time over all boards, with conditional expressions instead of branches, so the inner loops are simple
+ * enough for the JIT to unroll and vectorize.
+ * <p>
+ * The results are identical to RuleSet.move() of the same rule set (for RuleSet.STANDARD: KalahaRules.move(), NormalPit, KalahaPit and
+ * Referee), including the player turn and the winner.
+ */
+public final class BatchMoveEngine {
+
+    /**
+     * Move for a board that should not move (e.g. a finished playout)
+     */
+    public static final int NO_MOVE = -1;
+
+    private static final int LAP = KalahaRules.NUMBER_OF_PITS - 1;
+
+    private final RuleSet ruleSet;
+    private final int numberOfBoards;
+    private final int[][] pits;
+    private final int[] turns;
+    private final int[] winners;
+
+    /**
+     * Scratch arrays of one batch move, per board
+     */
+    private final int[] origins;
+    private final int[] opponentKalahaPits;
+    private final int[] laps;
+    private final int[] remainders;
+    private final int[] distancesToOpponentKalahaPit;
+
+    public BatchMoveEngine(final int numberOfBoards) {
+        this(numberOfBoards, RuleSet.STANDARD);
+    }
+
+    public BatchMoveEngine(final int numberOfBoards, final RuleSet ruleSet) {
+        if (numberOfBoards <= 0) {
+            throw new IllegalArgumentException("number of boards should be bigger than 0");
+        }
+
+        this.ruleSet = ruleSet;
+        this.numberOfBoards = numberOfBoards;
+        this.pits = new int[KalahaRules.NUMBER_OF_PITS][numberOfBoards];
+        this.turns = new int[numberOfBoards];
+        this.winners = new int[numberOfBoards];
+        this.origins = new int[numberOfBoards];
+        this.opponentKalahaPits = new int[numberOfBoards];
+        this.laps = new int[numberOfBoards];
+        this.remainders = new int[numberOfBoards];
+        this.distancesToOpponentKalahaPit = new int[numberOfBoards];
+    }
+
+    /**
+     * Put every board in the initial position.
+     */
+    public void reset(final int initialNumberOfSeeds) {
+        final int[] initialPosition = KalahaRules.newPosition(initialNumberOfSeeds);
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            Arrays.fill(pits[pitIndex], initialPosition[pitIndex]);
+        }
+        Arrays.fill(turns, KalahaRules.NONE);
+        Arrays.fill(winners, KalahaRules.NONE);
+    }
+
+    public void setPosition(final int board, final int[] position) {
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            pits[pitIndex][board] = position[pitIndex];
+        }
+        turns[board] = position[KalahaRules.TURN];
+        winners[board] = position[KalahaRules.WINNER];
+    }
+
+    /**
+     * Copy the position of one board (KalahaRules layout) into the given position.
+     */
+    public int[] getPosition(final int board, final int[] position) {
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            position[pitIndex] = pits[pitIndex][board];
+        }
+        position[KalahaRules.TURN] = turns[board];
+        position[KalahaRules.WINNER] = winners[board];
+        return position;
+    }
+
+    public int getNumberOfSeeds(final int board, final int pitIndex) {
+        return pits[pitIndex][board];
+    }
+
+    public int getTurn(final int board) {
+        return turns[board];
+    }
+
+    public int getWinner(final int board) {
+        return winners[board];
+    }
+
+    public int getNumberOfBoards() {
+        return numberOfBoards;
+    }
+
+    /**
+     * Apply one move on every board.
+     *
+     * @param pitIndices pit index to move per board, or NO_MOVE to leave the board untouched
+     * @param flags      receives the KalahaRules flags (MOVED, CAPTURE, EXTRA_TURN and GAME_OVER) per board, 0 when nothing moved
+     */
+    public void move(final int[] pitIndices, final int[] flags) {
+        if (pitIndices.length < numberOfBoards || flags.length < numberOfBoards) {
+            throw new IllegalArgumentException("There should be a move and flags for each of the " + numberOfBoards + " boards");
+        }
+
+        // 1. per board: origin, number of full laps and remaining seeds
+        for (int board = 0; board < numberOfBoards; board++) {
+            final int pitIndex = pitIndices[board];
+            if (pitIndex == NO_MOVE) {
+                origins[board] = NO_MOVE;
+                opponentKalahaPits[board] = NO_MOVE;
+                laps[board] = 0;
+                remainders[board] = 0;
+                distancesToOpponentKalahaPit[board] = KalahaRules.NUMBER_OF_PITS;
+                continue;
+            }
+            if (pitIndex < 0 || pitIndex >= KalahaRules.NUMBER_OF_PITS) {
+                throw new IllegalArgumentException("Pit index should be between 0 and 13: " + pitIndex);
+            }
+            if (KalahaRules.isKalahaPit(pitIndex)) {
+                throw new IllegalStateException("Kalaha Pit should never have an initial move, it only be able to receive seeds but never be able to move them");
+            }
+
+            final int numberOfSeeds = pits[pitIndex][board];
+            final int opponentKalahaPit = KalahaRules.ownerOf(pitIndex) == 0 ? KalahaRules.KALAHA_PIT_2 : KalahaRules.KALAHA_PIT_1;
+            origins[board] = pitIndex;
+            opponentKalahaPits[board] = opponentKalahaPit;
+            laps[board] = numberOfSeeds / LAP;
+            remainders[board] = numberOfSeeds % LAP;
+            distancesToOpponentKalahaPit[board] = opponentKalahaPit - pitIndex + (opponentKalahaPit < pitIndex ? KalahaRules.NUMBER_OF_PITS : 0);
+        }
+
+        // 2. per pit, over all boards: distance from the origin along the sowing path (the moved pit itself is the 13th pit)
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            final int[] seeds = pits[pitIndex];
+            for (int board = 0; board < numberOfBoards; board++) {
+                final int origin = origins[board];
+                final int distance = pitIndex > origin ? pitIndex - origin : pitIndex - origin + KalahaRules.NUMBER_OF_PITS;
+                final int pathDistance = distance > distancesToOpponentKalahaPit[board] ? distance - 1 : distance;
+                final int received = pitIndex == opponentKalahaPits[board] ? 0 : laps[board] + (pathDistance <= remainders[board] ? 1 : 0);
+                seeds[board] = (pitIndex == origin ? 0 : seeds[board]) + received;
+            }
+        }
+
+        // 3. per board: capture, player turn and winner
+        for (int board = 0; board < numberOfBoards; board++) {
+            final int origin = origins[board];
+            if (origin == NO_MOVE || laps[board] + remainders[board] == 0) {
+                flags[board] = 0;
+                continue;
+            }
+
+            final int mover = KalahaRules.ownerOf(origin);
+            final int lastDistance = remainders[board] == 0 ? LAP : remainders[board];
+            final int lastPit = (origin + lastDistance + (lastDistance >= distancesToOpponentKalahaPit[board] ? 1 : 0)) % KalahaRules.NUMBER_OF_PITS;
+            final int kalahaPit = ruleSet.captureKalahaPitOf(mover, lastPit);
+
+            int boardFlags = KalahaRules.MOVED;
+            if (kalahaPit != KalahaRules.NONE && pits[lastPit][board] == 1
+                    && pits[KalahaRules.oppositeOf(lastPit)][board] >= ruleSet.getMinimumNumberOfCapturedSeeds()) {
+                // last seed ended in an empty pit owned by the mover: capture it together with the seeds from the opposite pit
+                final int oppositePit = KalahaRules.oppositeOf(lastPit);
+                pits[kalahaPit][board] += pits[oppositePit][board] + 1;
+                pits[oppositePit][board] = 0;
+                pits[lastPit][board] = 0;
+                boardFlags |= KalahaRules.CAPTURE;
+            }
+
+            turns[board] = ruleSet.turnAfter(mover, lastPit);
+            if (turns[board] == mover) {
+                boardFlags |= KalahaRules.EXTRA_TURN;
+            }
+
+            if (decideTheWinnerIfPossible(board)) {
+                boardFlags |= KalahaRules.GAME_OVER;
+            }
+            flags[board] = boardFlags;
+        }
+    }
+
+    /**
+     * Same rule as RuleSet.decideTheWinnerIfPossible(), for one board.
+     */
+    private boolean decideTheWinnerIfPossible(final int board) {
+        int normalSeedsPlayer1 = 0;
+        int normalSeedsPlayer2 = 0;
+        for (int pitIndex = 0; pitIndex < KalahaRules.KALAHA_PIT_1; pitIndex++) {
+            normalSeedsPlayer1 += pits[pitIndex][board];
+            normalSeedsPlayer2 += pits[pitIndex + KalahaRules.KALAHA_PIT_1 + 1][board];
+        }
+        if (normalSeedsPlayer1 != 0 && normalSeedsPlayer2 != 0) {
+            return false;
+        }
+
+        final int emptySide = normalSeedsPlayer1 == 0 ? 0 : 1;
+        final int totalSeedPlayer1 = ruleSet.totalSeedsOf(0, emptySide, pits[KalahaRules.KALAHA_PIT_1][board], normalSeedsPlayer1, normalSeedsPlayer2);
+        final int totalSeedPlayer2 = ruleSet.totalSeedsOf(1, emptySide, pits[KalahaRules.KALAHA_PIT_2][board], normalSeedsPlayer1, normalSeedsPlayer2);
+        if (totalSeedPlayer1 > totalSeedPlayer2) {
+            winners[board] = 0;
+        } else if (totalSeedPlayer2 > totalSeedPlayer1) {
+            winners[board] = 1;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ammar.kalahacorelibrary.engine;
+
+/**
+ * What happens when the last seed of a move ends in an empty normal pit of the mover.
+ */
+public enum CaptureRule {
+    /**
+     * The last seed and the seeds of the opposite pit go to the Kalaha pit of the mover, also when the opposite pit is empty
+     * (the rule of NormalPit)
+     */
+    EMPTY_CAPTURE,
+
+    /**
+     * Like EMPTY_CAPTURE, but only when the opposite pit has seeds (otherwise the last seed simply stays in the pit)
+     */
+    NON_EMPTY_CAPTURE,
+
+    /**
+     * Seeds are never captured
+     */
+    NO_CAPTURE
+}
@@ -0,0 +1,180 @@
+package com.ammar.kalahacorelibrary.engine;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+
+/**
+ * Compact Kalaha rules engine working on a flat int[] position instead of the pit object graph.
+ * The results are identical to the ones produced by NormalPit, KalahaPit and Referee, but without any events or allocation.
+ * The moves are made by RuleSet.STANDARD, other variants are played with their own RuleSet.
+ * <p>
+ * <pre>
+ *
+ * Position layout (index in the int[]):
+ *
+ *     -------------------------------------------------------------------------
+ *     |              12      11      10      9       8       7                |
+ *     |                                                                       |
+ *     |    13                                                          6      |
+ *     |                                                                       |
+ *     |              0       1       2       3       4       5                |
+ *     -------------------------------------------------------------------------
+ *
+ *     index 0 .. 5   : Pit 1 .. 6     (player 1)
+ *     index 6        : KalahaPit 1    (player 1)
+ *     index 7 .. 12  : Pit 7 .. 12    (player 2)
+ *     index 13       : KalahaPit 2    (player 2)
+ *     index 14       : current player turn (player ordinal, or NONE)
+ *     index 15       : winner (player ordinal, or NONE)
+ *
+ *     the pit index is the same as the ordinal of its PitId
+ *
+ * </pre>
+ */
+public final class KalahaRules {
+
+    public static final int NUMBER_OF_PITS = 14;
+    public static final int KALAHA_PIT_1 = 6;
+    public static final int KALAHA_PIT_2 = 13;
+    public static final int TURN = 14;
+    public static final int WINNER = 15;
+    public static final int POSITION_SIZE = 16;
+
+    /**
+     * Value for TURN and WINNER when there is no player (game not started yet, or no winner yet)
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Move result flags
+     */
+    public static final int MOVED = 1;
+    public static final int CAPTURE = 1 << 1;
+    public static final int EXTRA_TURN = 1 << 2;
+    public static final int GAME_OVER = 1 << 3;
+
+    private KalahaRules() {
+    }
+
+    /**
+     * Create a new position with the given number of seeds in every normal pit.
+     */
+    public static int[] newPosition(final int initialNumberOfSeeds) {
+        if (initialNumberOfSeeds <= 0) {
+            throw new IllegalArgumentException("initial number of seeds should be bigger than 0");
+        }
+
+        final int[] position = new int[POSITION_SIZE];
+        for (int pitIndex = 0; pitIndex < NUMBER_OF_PITS; pitIndex++) {
+            position[pitIndex] = isKalahaPit(pitIndex) ? 0 : initialNumberOfSeeds;
+        }
+        position[TURN] = NONE;
+        position[WINNER] = NONE;
+        return position;
+    }
+
+    /**
+     * Copy the current position of a Kalaha board (pit seeds, player turn and winner) into the given position.
+     */
+    public static int[] copyOf(final KalahaBoard kalahaBoard, final int[] position) {
+        for (int pitIndex = 0; pitIndex < NUMBER_OF_PITS; pitIndex++) {
+            position[pitIndex] = kalahaBoard.getPit(pitIndex).getNumberOfSeeds();
+        }
+        position[TURN] = toOrdinal(kalahaBoard.getReferee().getCurrentPlayerTurn());
+        position[WINNER] = toOrdinal(kalahaBoard.getReferee().getWinner());
+        return position;
+    }
+
+    /**
+     * Apply an initial move on the given pit, the same way NormalPit.initialMove() does on the board.
+     * <p>
+     * Note:
+     * - like on the board, the move is made by the owner of the pit and player turn is not enforced
+     * - moving an empty pit changes nothing (not even the player turn)
+     *
+     * @return combination of MOVED, CAPTURE, EXTRA_TURN and GAME_OVER flags (0 when the pit was empty)
+     */
+    public static int move(final int[] position, final int pitIndex) {
+        return RuleSet.STANDARD.move(position, pitIndex);
+    }
+
+    /**
+     * Same rule as Referee: when all pits of one player are empty, compare his Kalaha pit with all seeds of the other player.
+     * In case of a tie, the winner remains untouched.
+     *
+     * @return true when one of the players has no seeds left in his normal pits
+     */
+    public static boolean decideTheWinnerIfPossible(final int[] position) {
+        return RuleSet.STANDARD.decideTheWinnerIfPossible(position);
+    }
+
+    public static boolean isSideEmpty(final int[] position, final int player) {
+        final int firstPit = player == 0 ? 0 : KALAHA_PIT_1 + 1;
+        for (int pitIndex = firstPit; pitIndex < firstPit + 6; pitIndex++) {
+            if (position[pitIndex] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int sumOfSide(final int[] position, final int player) {
+        final int firstPit = player == 0 ? 0 : KALAHA_PIT_1 + 1;
+        int total = 0;
+        for (int pitIndex = firstPit; pitIndex <= firstPit + 6; pitIndex++) {
+            total += position[pitIndex];
+        }
+        return total;
+    }
+
+    /**
+     * 64 bit hash of the pits and the player turn (the winner is not part of the hash), e.g. to recognize duplicate positions.
+     */
+    public static long hashOf(final int[] position) {
+        long hash = position[TURN] + 1;
+        for (int pitIndex = 0; pitIndex < NUMBER_OF_PITS; pitIndex++) {
+            hash = hash * 0x100000001B3L + position[pitIndex];
+        }
+        // final mix (MurmurHash3), spreads the bits of small pit counts over the whole hash
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public static boolean isKalahaPit(final int pitIndex) {
+        return pitIndex == KALAHA_PIT_1 || pitIndex == KALAHA_PIT_2;
+    }
+
+    /**
+     * @return player ordinal (0 for player 1, 1 for player 2) owning the given pit
+     */
+    public static int ownerOf(final int pitIndex) {
+        return pitIndex <= KALAHA_PIT_1 ? 0 : 1;
+    }
+
+    public static int kalahaPitOf(final int player) {
+        return player == 0 ? KALAHA_PIT_1 : KALAHA_PIT_2;
+    }
+
+    /**
+     * Opposite pit of a normal pit, e.g. Pit 1 (index 0) is opposite of Pit 12 (index 12).
+     */
+    public static int oppositeOf(final int pitIndex) {
+        return 12 - pitIndex;
+    }
+
+    public static int nextPit(final int pitIndex) {
+        return pitIndex == KALAHA_PIT_2 ? 0 : pitIndex + 1;
+    }
+
+    public static int toOrdinal(final PlayerType playerType) {
+        return playerType == null ? NONE : playerType.ordinal();
+    }
+
+    public static PlayerType toPlayerType(final int ordinal) {
+        return ordinal == NONE ? null : PlayerType.values()[ordinal];
+    }
+}
@@ -0,0 +1,197 @@
+package com.ammar.kalahacorelibrary.engine;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Alpha-beta search over KalahaRules positions, with iterative deepening.
+ * <p>
+ * The value of a position is the difference between the seeds in both Kalaha pits (from the perspective of the player to move),
+ * a finished game is valued with the final result as decided by the rule set (far above any heuristic value), by default RuleSet.STANDARD.
+ * An extra turn is searched as another move of the same player.
+ * <p>
+ * Note: a search instance keeps its own position stack and is therefore not thread-safe, use one instance per thread.
+ */
+public class KalahaSearch {
+    public static final int NO_MOVE = -1;
+
+    private static final int WIN = 10_000;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    // extra turns can make a line longer than its depth
+    private static final int MAX_PLIES = 256;
+
+    private final RuleSet ruleSet;
+    private final int[][] positions;
+    private BooleanSupplier stopCondition;
+    private boolean stopped;
+
+    public KalahaSearch() {
+        this(RuleSet.STANDARD);
+    }
+
+    public KalahaSearch(final RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+        this.positions = new int[MAX_PLIES][KalahaRules.POSITION_SIZE];
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Search until the maximum depth is searched completely, or the stop condition becomes true.
+     *
+     * @param player        player to move (ordinal)
+     * @param stopCondition checked regularly, e.g. deadline or cancellation
+     * @return result of the deepest completed iteration, or null when not even depth 1 could be completed
+     */
+    public SearchResult search(final int[] position, final int player, final int maxDepth, final BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+        this.stopped = false;
+
+        SearchResult searchResult = null;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            final SearchResult iterationResult = searchRoot(position, player, depth);
+            if (stopped) {
+                break;
+            }
+            searchResult = iterationResult;
+            if (isDecided(searchResult)) {
+                // nothing left to search
+                break;
+            }
+        }
+        return searchResult;
+    }
+
+    /**
+     * Search the given depth only, without iterative deepening (e.g. to deepen several positions breadth-first).
+     *
+     * @param player        player to move (ordinal)
+     * @param stopCondition checked regularly, e.g. deadline or cancellation
+     * @return result of the search, or null when the stop condition became true before the depth was searched completely
+     */
+    public SearchResult searchDepth(final int[] position, final int player, final int depth, final BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+        this.stopped = false;
+
+        final SearchResult searchResult = searchRoot(position, player, depth);
+        return stopped ? null : searchResult;
+    }
+
+    /**
+     * @return true when a deeper search can't change the result: the player has no move, or the result of the game is known
+     */
+    public static boolean isDecided(final SearchResult searchResult) {
+        return searchResult.getBestMove() == NO_MOVE || Math.abs(searchResult.getValue()) >= WIN;
+    }
+
+    private SearchResult searchRoot(final int[] position, final int player, final int depth) {
+        int bestMove = NO_MOVE;
+        int bestValue = -INFINITY;
+        int alpha = -INFINITY;
+
+        final int firstPit = firstPitOf(player);
+        for (int pitIndex = firstPit; pitIndex < firstPit + 6; pitIndex++) {
+            if (position[pitIndex] == 0) {
+                continue;
+            }
+
+            final int[] child = positions[0];
+            System.arraycopy(position, 0, child, 0, KalahaRules.POSITION_SIZE);
+            final int flags = ruleSet.move(child, pitIndex);
+            final int value = valueAfterMove(child, flags, player, depth - 1, 1, alpha, INFINITY);
+            if (stopped) {
+                return null;
+            }
+
+            if (value > bestValue) {
+                bestValue = value;
+                bestMove = pitIndex;
+            }
+            alpha = Math.max(alpha, value);
+        }
+
+        return new SearchResult(bestMove, bestMove == NO_MOVE ? evaluate(position, player, ruleSet) : bestValue, depth);
+    }
+
+    private int alphaBeta(final int[] position, final int player, final int depth, final int ply, int alpha, final int beta) {
+        if (stopCondition.getAsBoolean()) {
+            stopped = true;
+            return 0;
+        }
+        if (depth == 0 || ply >= MAX_PLIES) {
+            return evaluate(position, player, ruleSet);
+        }
+
+        int bestValue = -INFINITY;
+        final int firstPit = firstPitOf(player);
+        for (int pitIndex = firstPit; pitIndex < firstPit + 6; pitIndex++) {
+            if (position[pitIndex] == 0) {
+                continue;
+            }
+
+            final int[] child = positions[ply];
+            System.arraycopy(position, 0, child, 0, KalahaRules.POSITION_SIZE);
+            final int flags = ruleSet.move(child, pitIndex);
+            final int value = valueAfterMove(child, flags, player, depth - 1, ply + 1, alpha, beta);
+            if (stopped) {
+                return 0;
+            }
+
+            bestValue = Math.max(bestValue, value);
+            alpha = Math.max(alpha, value);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        // no move: side is empty, which is a finished game
+        return bestValue == -INFINITY ? evaluate(position, player, ruleSet) : bestValue;
+    }
+
+    // value of the position after a move of the given player, from his perspective
+    private int valueAfterMove(final int[] position, final int flags, final int player, final int depth, final int ply, final int alpha, final int beta) {
+        if ((flags & KalahaRules.GAME_OVER) != 0) {
+            return evaluate(position, player, ruleSet);
+        }
+        if ((flags & KalahaRules.EXTRA_TURN) != 0) {
+            return alphaBeta(position, player, depth, ply, alpha, beta);
+        }
+        return -alphaBeta(position, 1 - player, depth, ply, -beta, -alpha);
+    }
+
+    /**
+     * @return value of the position from the perspective of the given player
+     */
+    public static int evaluate(final int[] position, final int player) {
+        return evaluate(position, player, RuleSet.STANDARD);
+    }
+
+    /**
+     * @return value of the position from the perspective of the given player, a finished game is valued with the sweep rule of the rule set
+     */
+    public static int evaluate(final int[] position, final int player, final RuleSet ruleSet) {
+        final int kalahaSeedsPlayer1 = position[KalahaRules.KALAHA_PIT_1];
+        final int kalahaSeedsPlayer2 = position[KalahaRules.KALAHA_PIT_2];
+        final int normalSeedsPlayer1 = KalahaRules.sumOfSide(position, 0) - kalahaSeedsPlayer1;
+        final int normalSeedsPlayer2 = KalahaRules.sumOfSide(position, 1) - kalahaSeedsPlayer2;
+
+        final int value;
+        if (normalSeedsPlayer1 == 0 || normalSeedsPlayer2 == 0) {
+            final int emptySide = normalSeedsPlayer1 == 0 ? 0 : 1;
+            value = result(ruleSet.totalSeedsOf(0, emptySide, kalahaSeedsPlayer1, normalSeedsPlayer1, normalSeedsPlayer2)
+                    - ruleSet.totalSeedsOf(1, emptySide, kalahaSeedsPlayer2, normalSeedsPlayer1, normalSeedsPlayer2));
+        } else {
+            value = kalahaSeedsPlayer1 - kalahaSeedsPlayer2;
+        }
+        return player == 0 ? value : -value;
+    }
+
+    private static int result(final int difference) {
+        return difference == 0 ? 0 : Integer.signum(difference) * WIN + difference;
+    }
+
+    private static int firstPitOf(final int player) {
+        return player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+    }
+}
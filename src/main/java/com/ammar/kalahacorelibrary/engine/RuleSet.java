@@ -0,0 +1,249 @@
+package com.ammar.kalahacorelibrary.engine;
+
+import com.ammar.kalahacorelibrary.pubsub.pit.GameRules;
+
+/**
+ * Definition of a Kalaha variant (capture, extra turn, end-game sweep and pie rule), compiled once into lookup tables that drive the
+ * moves on a KalahaRules position.
+ * <p>
+ * The tables replace the rule checks of a move, so a variant runs the same code (and at the same speed) as the standard rules:
+ * <pre>
+ *
+ *     index = mover * 14 + pit index
+ *
+ *     nextPit[index]          : next pit to sow into (the Kalaha pit of the opponent is skipped)
+ *     captureKalahaPit[index] : Kalaha pit receiving a capture when the last seed ends in this (empty) pit, or NONE
+ *     turnAfter[index]        : player on turn when the last seed ends in this pit
+ *
+ *     sweepWeights[emptySide * 4 + owner * 2 + player] : 1 when the remaining seeds of owner count for player, otherwise 0
+ *
+ * </pre>
+ * As GameRules, a rule set also drives the pits and the referee of a KalahaBoard. STANDARD is the default rule set of a board.
+ */
+public final class RuleSet implements GameRules {
+
+    public static final RuleSet STANDARD = new RuleSet(CaptureRule.EMPTY_CAPTURE, true, SweepRule.REMAINING_TO_OWNER, false);
+
+    private final CaptureRule captureRule;
+    private final boolean extraTurn;
+    private final SweepRule sweepRule;
+    private final boolean pieRule;
+
+    private final int[] nextPit;
+    private final int[] captureKalahaPit;
+    private final int[] turnAfter;
+    private final int[] sweepWeights;
+    private final int minimumNumberOfCapturedSeeds;
+
+    /**
+     * @param extraTurn whether the last seed in the own Kalaha pit gives the mover another turn
+     * @param pieRule   whether the second player may swap sides instead of answering the first move (see swapSides(..))
+     */
+    public RuleSet(final CaptureRule captureRule, final boolean extraTurn, final SweepRule sweepRule, final boolean pieRule) {
+        this.captureRule = captureRule;
+        this.extraTurn = extraTurn;
+        this.sweepRule = sweepRule;
+        this.pieRule = pieRule;
+
+        nextPit = new int[2 * KalahaRules.NUMBER_OF_PITS];
+        captureKalahaPit = new int[2 * KalahaRules.NUMBER_OF_PITS];
+        turnAfter = new int[2 * KalahaRules.NUMBER_OF_PITS];
+        for (int mover = 0; mover < 2; mover++) {
+            final int opponentKalahaPit = KalahaRules.kalahaPitOf(1 - mover);
+            for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+                final int index = mover * KalahaRules.NUMBER_OF_PITS + pitIndex;
+                final int next = KalahaRules.nextPit(pitIndex);
+                nextPit[index] = next == opponentKalahaPit ? KalahaRules.nextPit(next) : next;
+
+                final boolean ownNormalPit = !KalahaRules.isKalahaPit(pitIndex) && KalahaRules.ownerOf(pitIndex) == mover;
+                captureKalahaPit[index] = ownNormalPit && captureRule != CaptureRule.NO_CAPTURE ? KalahaRules.kalahaPitOf(mover) : KalahaRules.NONE;
+
+                turnAfter[index] = extraTurn && pitIndex == KalahaRules.kalahaPitOf(mover) ? mover : 1 - mover;
+            }
+        }
+        minimumNumberOfCapturedSeeds = captureRule == CaptureRule.NON_EMPTY_CAPTURE ? 1 : 0;
+
+        sweepWeights = new int[8];
+        for (int emptySide = 0; emptySide < 2; emptySide++) {
+            for (int owner = 0; owner < 2; owner++) {
+                for (int player = 0; player < 2; player++) {
+                    final boolean counts;
+                    switch (sweepRule) {
+                        case REMAINING_TO_OWNER:
+                            counts = owner == player;
+                            break;
+                        case REMAINING_TO_EMPTY_SIDE:
+                            counts = emptySide == player;
+                            break;
+                        default:
+                            counts = false;
+                            break;
+                    }
+                    sweepWeights[emptySide * 4 + owner * 2 + player] = counts ? 1 : 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply an initial move on the given pit, see KalahaRules.move().
+     *
+     * @return combination of MOVED, CAPTURE, EXTRA_TURN and GAME_OVER flags (0 when the pit was empty)
+     */
+    public int move(final int[] position, final int pitIndex) {
+        if (pitIndex < 0 || pitIndex >= KalahaRules.NUMBER_OF_PITS) {
+            throw new IllegalArgumentException("Pit index should be between 0 and 13: " + pitIndex);
+        }
+        if (KalahaRules.isKalahaPit(pitIndex)) {
+            throw new IllegalStateException("Kalaha Pit should never have an initial move, it only be able to receive seeds but never be able to move them");
+        }
+
+        int numberOfSeeds = position[pitIndex];
+        if (numberOfSeeds == 0) {
+            return 0;
+        }
+
+        final int mover = KalahaRules.ownerOf(pitIndex);
+        final int tableOffset = mover * KalahaRules.NUMBER_OF_PITS;
+        position[pitIndex] = 0;
+
+        int currentPit = pitIndex;
+        while (numberOfSeeds > 1) {
+            currentPit = nextPit[tableOffset + currentPit];
+            position[currentPit]++;
+            numberOfSeeds--;
+        }
+        currentPit = nextPit[tableOffset + currentPit];
+
+        int flags = KalahaRules.MOVED;
+        final int kalahaPit = captureKalahaPit[tableOffset + currentPit];
+        if (kalahaPit != KalahaRules.NONE && position[currentPit] == 0
+                && position[KalahaRules.oppositeOf(currentPit)] >= minimumNumberOfCapturedSeeds) {
+            // last seed ends in an empty pit owned by the mover: capture it together with the seeds from the opposite pit
+            final int oppositePit = KalahaRules.oppositeOf(currentPit);
+            position[kalahaPit] += position[oppositePit] + 1;
+            position[oppositePit] = 0;
+            flags |= KalahaRules.CAPTURE;
+        } else {
+            position[currentPit]++;
+        }
+
+        position[KalahaRules.TURN] = turnAfter[tableOffset + currentPit];
+        if (position[KalahaRules.TURN] == mover) {
+            flags |= KalahaRules.EXTRA_TURN;
+        }
+
+        if (decideTheWinnerIfPossible(position)) {
+            flags |= KalahaRules.GAME_OVER;
+        }
+        return flags;
+    }
+
+    /**
+     * When all normal pits of one player are empty, compare the totals of both players (Kalaha pit plus the remaining seeds
+     * according to the sweep rule). In case of a tie, the winner remains untouched.
+     *
+     * @return true when one of the players has no seeds left in his normal pits
+     */
+    public boolean decideTheWinnerIfPossible(final int[] position) {
+        final int normalSeedsPlayer1 = KalahaRules.sumOfSide(position, 0) - position[KalahaRules.KALAHA_PIT_1];
+        final int normalSeedsPlayer2 = KalahaRules.sumOfSide(position, 1) - position[KalahaRules.KALAHA_PIT_2];
+        if (normalSeedsPlayer1 != 0 && normalSeedsPlayer2 != 0) {
+            return false;
+        }
+
+        final int emptySide = normalSeedsPlayer1 == 0 ? 0 : 1;
+        final int totalSeedPlayer1 = totalSeedsOf(0, emptySide, position[KalahaRules.KALAHA_PIT_1], normalSeedsPlayer1, normalSeedsPlayer2);
+        final int totalSeedPlayer2 = totalSeedsOf(1, emptySide, position[KalahaRules.KALAHA_PIT_2], normalSeedsPlayer1, normalSeedsPlayer2);
+        if (totalSeedPlayer1 > totalSeedPlayer2) {
+            position[KalahaRules.WINNER] = 0;
+        } else if (totalSeedPlayer2 > totalSeedPlayer1) {
+            position[KalahaRules.WINNER] = 1;
+        }
+        return true;
+    }
+
+    /**
+     * Pie rule: instead of answering the first move, the second player takes over the position of the first player.
+     * Both sides (normal pits and Kalaha pit) are exchanged and the first player, now owning the other side, is on turn.
+     * <p>
+     * The position doesn't know the move number, so the caller tells how many moves have been made: sides can only be swapped
+     * after exactly one move.
+     */
+    public void swapSides(final int[] position, final int numberOfMovesMade) {
+        if (!pieRule) {
+            throw new IllegalStateException("Pie rule is not part of this rule set");
+        }
+        if (numberOfMovesMade != 1) {
+            throw new IllegalStateException("Sides can only be swapped after exactly one move, moves made: " + numberOfMovesMade);
+        }
+        if (position[KalahaRules.TURN] != 1) {
+            throw new IllegalStateException("Sides can only be swapped by the second player, when he is on turn");
+        }
+
+        for (int pitIndex = 0; pitIndex <= KalahaRules.KALAHA_PIT_1; pitIndex++) {
+            final int otherPitIndex = pitIndex + KalahaRules.KALAHA_PIT_1 + 1;
+            final int numberOfSeeds = position[pitIndex];
+            position[pitIndex] = position[otherPitIndex];
+            position[otherPitIndex] = numberOfSeeds;
+        }
+        position[KalahaRules.TURN] = 0;
+    }
+
+    /**
+     * @return Kalaha pit receiving a capture when the last seed of the mover ends in the given (empty) pit, or NONE
+     */
+    int captureKalahaPitOf(final int mover, final int pitIndex) {
+        return captureKalahaPit[mover * KalahaRules.NUMBER_OF_PITS + pitIndex];
+    }
+
+    int getMinimumNumberOfCapturedSeeds() {
+        return minimumNumberOfCapturedSeeds;
+    }
+
+    /**
+     * @return player on turn when the last seed of the mover ends in the given pit
+     */
+    int turnAfter(final int mover, final int pitIndex) {
+        return turnAfter[mover * KalahaRules.NUMBER_OF_PITS + pitIndex];
+    }
+
+    @Override
+    public boolean isCapture(final int seedsInOppositePit) {
+        return captureRule != CaptureRule.NO_CAPTURE && seedsInOppositePit >= minimumNumberOfCapturedSeeds;
+    }
+
+    @Override
+    public int totalSeedsOf(final int player, final int emptySide, final int kalahaSeeds, final int normalSeedsPlayer1, final int normalSeedsPlayer2) {
+        return kalahaSeeds
+                + normalSeedsPlayer1 * sweepWeights[emptySide * 4 + player]
+                + normalSeedsPlayer2 * sweepWeights[emptySide * 4 + 2 + player];
+    }
+
+    public CaptureRule getCaptureRule() {
+        return captureRule;
+    }
+
+    @Override
+    public boolean isExtraTurn() {
+        return extraTurn;
+    }
+
+    public SweepRule getSweepRule() {
+        return sweepRule;
+    }
+
+    public boolean isPieRule() {
+        return pieRule;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleSet {" +
+                "captureRule=" + captureRule +
+                ", extraTurn=" + extraTurn +
+                ", sweepRule=" + sweepRule +
+                ", pieRule=" + pieRule +
+                '}';
+    }
+}
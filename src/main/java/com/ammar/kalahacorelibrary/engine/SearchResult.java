@@ -0,0 +1,43 @@
+package com.ammar.kalahacorelibrary.engine;
+
+/**
+ * Result of a search: best move (pit index) for the player to move, its value and the depth that has been searched completely.
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int value;
+    private final int depth;
+
+    public SearchResult(final int bestMove, final int value, final int depth) {
+        this.bestMove = bestMove;
+        this.value = value;
+        this.depth = depth;
+    }
+
+    /**
+     * @return pit index of the best move, or KalahaSearch.NO_MOVE when the player has no move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return value of the best move, from the perspective of the player to move (positive is good)
+     */
+    public int getValue() {
+        return value;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult {" +
+                "bestMove=" + bestMove +
+                ", value=" + value +
+                ", depth=" + depth +
+                '}';
+    }
+}
@@ -0,0 +1,21 @@
+package com.ammar.kalahacorelibrary.engine;
+
+/**
+ * Who gets the seeds left in the normal pits, once all normal pits of one of the players are empty.
+ */
+public enum SweepRule {
+    /**
+     * The remaining seeds count for the owner of the pits (the rule of Referee)
+     */
+    REMAINING_TO_OWNER,
+
+    /**
+     * The remaining seeds count for the player whose normal pits are empty
+     */
+    REMAINING_TO_EMPTY_SIDE,
+
+    /**
+     * The remaining seeds are not counted, only the Kalaha pits decide the game
+     */
+    NO_SWEEP
+}
@@ -1,29 +1,88 @@
 package com.ammar.kalahacorelibrary.event;
 
 import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
 
 /**
  * Represent an immutable Event object being sent around, containing information like origin pit, number of seed, event type, etc.
+ * <p>
+ * The origin pit is identified by its PitId, so events can be routed and compared without hashing strings.
+ * The origin pit identifier (e.g. "Pit 7" or "Referee") is only kept as display name.
+ * <p>
+ * Events published by pits should be created thru Event.of(..), which returns canonical (cached) instances for the usual number of
+ * seeds, so publishing events doesn't create any garbage.
  * <p/>
  * Created by amhamid on 7/23/15.
  */
 public class Event {
+
+    /**
+     * Events with a number of seeds from 0 up to (excluding) this number are cached
+     */
+    public static final int CACHED_NUMBER_OF_SEEDS = 128;
+
+    private static final int NUMBER_OF_PLAYER_TYPES = PlayerType.values().length + 1; // + no player
+    private static final int NUMBER_OF_PITS = PitId.values().length;
+    private static final int NUMBER_OF_EVENT_TYPES = EventType.values().length;
+    private static final Event[] CACHED_EVENTS = new Event[NUMBER_OF_PLAYER_TYPES * NUMBER_OF_PITS * NUMBER_OF_EVENT_TYPES * CACHED_NUMBER_OF_SEEDS];
+
     private final PlayerType playerType;
+    private final PitId originPitId;
     private final String originPitIdentifier;
     private final EventType eventType;
     private final int numberOfSeeds;
 
+    public Event(final PlayerType playerType, final PitId originPitId, final EventType eventType, final int numberOfSeeds) {
+        this.playerType = playerType;
+        this.originPitId = originPitId;
+        this.originPitIdentifier = originPitId.getDisplayName();
+        this.eventType = eventType;
+        this.numberOfSeeds = numberOfSeeds;
+    }
+
+    /**
+     * Event that may not originate from a pit (e.g. from the Referee).
+     */
     public Event(final PlayerType playerType, final String originPitIdentifier, final EventType eventType, final int numberOfSeeds) {
         this.playerType = playerType;
+        this.originPitId = PitId.fromDisplayName(originPitIdentifier);
         this.originPitIdentifier = originPitIdentifier;
         this.eventType = eventType;
         this.numberOfSeeds = numberOfSeeds;
     }
 
+    /**
+     * Canonical event instance: events are immutable, so the same instance is re-used for the same player, pit, event type and
+     * number of seeds. Only events with more seeds than CACHED_NUMBER_OF_SEEDS (or negative) are allocated every time.
+     */
+    public static Event of(final PlayerType playerType, final PitId originPitId, final EventType eventType, final int numberOfSeeds) {
+        if (numberOfSeeds < 0 || numberOfSeeds >= CACHED_NUMBER_OF_SEEDS) {
+            return new Event(playerType, originPitId, eventType, numberOfSeeds);
+        }
+
+        final int player = playerType == null ? 0 : playerType.ordinal() + 1;
+        final int index = ((player * NUMBER_OF_PITS + originPitId.ordinal()) * NUMBER_OF_EVENT_TYPES + eventType.ordinal()) * CACHED_NUMBER_OF_SEEDS + numberOfSeeds;
+
+        // a race between threads only results in a duplicate (equal) instance, since events are immutable
+        Event event = CACHED_EVENTS[index];
+        if (event == null) {
+            event = new Event(playerType, originPitId, eventType, numberOfSeeds);
+            CACHED_EVENTS[index] = event;
+        }
+        return event;
+    }
+
     public PlayerType getPlayerType() {
         return playerType;
     }
 
+    /**
+     * @return origin pit, or null when the event doesn't originate from a pit (e.g. from the Referee)
+     */
+    public PitId getOriginPitId() {
+        return originPitId;
+    }
+
     public String getOriginPitIdentifier() {
         return originPitIdentifier;
     }
@@ -45,17 +104,17 @@ public class Event {
 
         if (numberOfSeeds != event.numberOfSeeds) return false;
         if (playerType != event.playerType) return false;
-        if (originPitIdentifier != null ? !originPitIdentifier.equals(event.originPitIdentifier) : event.originPitIdentifier != null)
-            return false;
-        return eventType == event.eventType;
-
+        if (eventType != event.eventType) return false;
+        if (originPitId != event.originPitId) return false;
+        // only events that don't originate from a pit need to compare the identifier
+        return originPitId != null || (originPitIdentifier != null ? originPitIdentifier.equals(event.originPitIdentifier) : event.originPitIdentifier == null);
     }
 
     @Override
     public int hashCode() {
-        int result = playerType != null ? playerType.hashCode() : 0;
-        result = 31 * result + (originPitIdentifier != null ? originPitIdentifier.hashCode() : 0);
-        result = 31 * result + (eventType != null ? eventType.hashCode() : 0);
+        int result = playerType != null ? playerType.ordinal() + 1 : 0;
+        result = 31 * result + (originPitId != null ? originPitId.ordinal() : (originPitIdentifier != null ? originPitIdentifier.hashCode() : 0));
+        result = 31 * result + (eventType != null ? eventType.ordinal() : 0);
         result = 31 * result + numberOfSeeds;
         return result;
     }
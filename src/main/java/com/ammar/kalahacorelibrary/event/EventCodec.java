@@ -0,0 +1,57 @@
+package com.ammar.kalahacorelibrary.event;
+
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary format of an Event, used to archive and ship events around.
+ * <p>
+ * <pre>
+ *
+ *     player type (byte, -1 when there is no player) | origin pit (byte) | event type (byte) | number of seeds (int)
+ *
+ *     origin pit is the index of the pit, or -1 followed by the origin pit identifier (UTF) when the event doesn't originate
+ *     from a pit (e.g. from the Referee)
+ *
+ * </pre>
+ */
+public final class EventCodec {
+
+    private static final PlayerType[] PLAYER_TYPES = PlayerType.values();
+    private static final EventType[] EVENT_TYPES = EventType.values();
+
+    private EventCodec() {
+    }
+
+    public static void write(final DataOutput output, final Event event) throws IOException {
+        output.writeByte(event.getPlayerType() == null ? -1 : event.getPlayerType().ordinal());
+        if (event.getOriginPitId() == null) {
+            output.writeByte(-1);
+            output.writeUTF(event.getOriginPitIdentifier());
+        } else {
+            output.writeByte(event.getOriginPitId().ordinal());
+        }
+        output.writeByte(event.getEventType().ordinal());
+        output.writeInt(event.getNumberOfSeeds());
+    }
+
+    public static Event read(final DataInput input) throws IOException {
+        final byte playerType = input.readByte();
+        final byte originPit = input.readByte();
+        final String originPitIdentifier = originPit < 0 ? input.readUTF() : null;
+        final byte eventType = input.readByte();
+        final int numberOfSeeds = input.readInt();
+
+        if (eventType < 0 || eventType >= EVENT_TYPES.length) {
+            throw new IOException("Unknown event type: " + eventType);
+        }
+        if (originPit >= 0) {
+            return Event.of(playerType < 0 ? null : PLAYER_TYPES[playerType], PitId.of(originPit), EVENT_TYPES[eventType], numberOfSeeds);
+        }
+        return new Event(playerType < 0 ? null : PLAYER_TYPES[playerType], originPitIdentifier, EVENT_TYPES[eventType], numberOfSeeds);
+    }
+}
@@ -49,5 +49,24 @@ public enum EventType {
     /**
      * To indicate tie game
      */
-    TIE_GAME
+    TIE_GAME,
+    /**
+     * Last move has been taken back (pits, player turn and winner are restored)
+     */
+    UNDO_MOVE,
+    /**
+     * Taken back move has been re-applied
+     */
+    REDO_MOVE,
+    /**
+     * Player ran out of time for his move (the other player wins)
+     */
+    TIMEOUT,
+    /**
+     * A sequence of moves has been applied at once, without events per move (number of seeds is the number of moves, player is the
+     * player on turn). It is not the only event of the sequence: like UNDO_MOVE and REDO_MOVE, it follows one EMPTY/NOT_EMPTY/STORED
+     * event per pit changed by the moves (N events for N changed pits, N + 1 in total), and is followed by WINS or TIE_GAME when the
+     * moves decided the game.
+     */
+    MOVES_APPLIED
 }
@@ -0,0 +1,231 @@
+package com.ammar.kalahacorelibrary.index;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Immutable, sorted segment of the position index.
+ * <p>
+ * <pre>
+ *
+ * Segment file format:
+ *
+ *     MAGIC (int) | number of entries (long) | entries | fence
+ *
+ *     entry : position hash (long) | game id (long) | move number (int) | result (byte)     sorted by position hash
+ *     fence : position hash of every BLOCK_SIZE-th entry (long), kept in memory to find the block of a hash without searching the file
+ *
+ * </pre>
+ */
+final class IndexSegment implements Closeable {
+    static final int BLOCK_SIZE = 1024;
+
+    private static final int MAGIC = 0x4B504958;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 21;
+
+    private final Path file;
+    private final FileChannel fileChannel;
+    private final long numberOfEntries;
+    private final long[] fence;
+
+    private IndexSegment(final Path file) throws IOException {
+        this.file = file;
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer header = read(0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a position index segment: " + file);
+            }
+            numberOfEntries = header.getLong();
+
+            final int fenceSize = (int) ((numberOfEntries + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            final ByteBuffer fenceBuffer = read(HEADER_SIZE + numberOfEntries * ENTRY_SIZE, fenceSize * 8);
+            fence = new long[fenceSize];
+            for (int i = 0; i < fenceSize; i++) {
+                fence[i] = fenceBuffer.getLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    static IndexSegment open(final Path file) throws IOException {
+        return new IndexSegment(file);
+    }
+
+    /**
+     * Write a segment from sorted entries (temporary file, atomically moved into place).
+     */
+    static IndexSegment write(final Path file, final long numberOfEntries, final EntryIterator entries) throws IOException {
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        final long[] fence = new long[(int) ((numberOfEntries + BLOCK_SIZE - 1) / BLOCK_SIZE)];
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeLong(numberOfEntries);
+            long previousHash = Long.MIN_VALUE;
+            for (long i = 0; i < numberOfEntries; i++) {
+                if (!entries.next()) {
+                    throw new IllegalStateException("Less entries than expected: " + i + " instead of " + numberOfEntries);
+                }
+                if (entries.hash() < previousHash) {
+                    throw new IllegalStateException("Entries of a segment should be sorted by position hash");
+                }
+                previousHash = entries.hash();
+                if (i % BLOCK_SIZE == 0) {
+                    fence[(int) (i / BLOCK_SIZE)] = entries.hash();
+                }
+                output.writeLong(entries.hash());
+                output.writeLong(entries.gameId());
+                output.writeInt(entries.moveNumber());
+                output.writeByte(entries.result());
+            }
+            for (long hash : fence) {
+                output.writeLong(hash);
+            }
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    /**
+     * Add all occurrences of the position hash in this segment to the given list.
+     */
+    void find(final long hash, final List<PositionOccurrence> occurrences) throws IOException {
+        // first block that may contain the hash: the block before the first block starting with a hash >= the given hash
+        int low = 0;
+        int high = fence.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (fence[middle] < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        for (int block = Math.max(0, low - 1); block < fence.length; block++) {
+            if (fence[block] > hash) {
+                return;
+            }
+            final long firstEntry = (long) block * BLOCK_SIZE;
+            final int entriesInBlock = (int) Math.min(BLOCK_SIZE, numberOfEntries - firstEntry);
+            final ByteBuffer entries = read(HEADER_SIZE + firstEntry * ENTRY_SIZE, entriesInBlock * ENTRY_SIZE);
+            for (int i = 0; i < entriesInBlock; i++) {
+                final long entryHash = entries.getLong();
+                if (entryHash > hash) {
+                    return;
+                }
+                final long gameId = entries.getLong();
+                final int moveNumber = entries.getInt();
+                final int result = entries.get();
+                if (entryHash == hash) {
+                    occurrences.add(new PositionOccurrence(gameId, moveNumber, result));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all entries in order, read sequentially (e.g. to merge segments)
+     */
+    EntryIterator iterator() throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ).position(HEADER_SIZE)), 1 << 16));
+        return new EntryIterator() {
+            private long remaining = numberOfEntries;
+            private long hash;
+            private long gameId;
+            private int moveNumber;
+            private int result;
+
+            @Override
+            public boolean next() throws IOException {
+                if (remaining == 0) {
+                    input.close();
+                    return false;
+                }
+                remaining--;
+                hash = input.readLong();
+                gameId = input.readLong();
+                moveNumber = input.readInt();
+                result = input.readByte();
+                return true;
+            }
+
+            @Override
+            public long hash() {
+                return hash;
+            }
+
+            @Override
+            public long gameId() {
+                return gameId;
+            }
+
+            @Override
+            public int moveNumber() {
+                return moveNumber;
+            }
+
+            @Override
+            public int result() {
+                return result;
+            }
+        };
+    }
+
+    long getNumberOfEntries() {
+        return numberOfEntries;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    private ByteBuffer read(final long offset, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            final int read = fileChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment " + file + " at offset " + position);
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Cursor over sorted index entries.
+     */
+    interface EntryIterator {
+
+        /**
+         * @return false when there are no more entries
+         */
+        boolean next() throws IOException;
+
+        long hash();
+
+        long gameId();
+
+        int moveNumber();
+
+        int result();
+    }
+}
@@ -0,0 +1,602 @@
+package com.ammar.kalahacorelibrary.index;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.engine.RuleSet;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.Observer;
+import com.ammar.kalahacorelibrary.pubsub.Subscription;
+import com.ammar.kalahacorelibrary.pubsub.SubscriptionFilter;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * On-disk index of the positions played in finished games: position hash (KalahaRules.hashOf) to (game id, move number, result),
+ * to answer "which games passed through this position, and how did they end?".
+ * <p>
+ * The index is built incrementally:
+ * - attached games are followed through their ReplayableEventPublisher, the positions are re-created with KalahaRules from the moves
+ * (taking UNDO_MOVE/REDO_MOVE into account) with the rule set of the board and added once the game is decided. Moves applied at once (MOVES_APPLIED) have no events
+ * per move: the positions in between are not indexed, the game continues from the position on the board after those moves
+ * - added positions are kept in memory, once there are flushThreshold of them they are written (by a background thread) as an
+ * immutable segment sorted by position hash
+ * - when there are more than maxNumberOfSegments segments, adjacent segments are merged into one
+ * <p>
+ * A lookup searches the in-memory positions and every segment (an in-memory fence per segment, then one or two blocks read from disk),
+ * the number of reads is bounded by the number of segments and not by the number of games.
+ * <p>
+ * A segment covers a range of generations (segment-[first]-[last].idx), a segment fully covered by another one (e.g. left behind by a
+ * merge that was interrupted) is removed when the index is opened.
+ */
+public class PositionIndex implements Closeable {
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("segment-(\\d+)-(\\d+)\\.idx");
+
+    private final Logger logger = Logger.getLogger(PositionIndex.class);
+
+    private final Path directory;
+    private final int flushThreshold;
+    private final int maxNumberOfSegments;
+    private final ExecutorService indexThread;
+    private final ReadWriteLock segmentLock;
+    private final Map<Long, Subscription> subscriptions;
+
+    /**
+     * Positions not written yet, guarded by this
+     */
+    private MemoryTable memoryTable;
+    private long nextGeneration;
+
+    /**
+     * Positions being written, and the segments on disk ordered by generation, guarded by segmentLock
+     */
+    private final List<MemoryTable> flushingMemoryTables;
+    private final List<IndexSegment> segments;
+    private final List<Range> segmentRanges;
+
+    public PositionIndex(final Path directory, final int flushThreshold, final int maxNumberOfSegments) throws IOException {
+        if (flushThreshold <= 0) {
+            throw new IllegalArgumentException("flush threshold should be bigger than 0");
+        }
+        if (maxNumberOfSegments < 1) {
+            throw new IllegalArgumentException("max number of segments should be at least 1");
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.flushThreshold = flushThreshold;
+        this.maxNumberOfSegments = maxNumberOfSegments;
+        this.segmentLock = new ReentrantReadWriteLock();
+        this.subscriptions = new HashMap<>();
+        this.flushingMemoryTables = new ArrayList<>();
+        this.segments = new ArrayList<>();
+        this.segmentRanges = new ArrayList<>();
+        this.memoryTable = new MemoryTable();
+        openSegments();
+        this.indexThread = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "kalaha-position-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Follow a game from its current position, its positions are added once the game is decided.
+     */
+    public Subscription attach(final long gameId, final KalahaBoard kalahaBoard) {
+        final GameRecorder gameRecorder = new GameRecorder(gameId, kalahaBoard);
+        final Subscription subscription = kalahaBoard.getReplayableEventPublisher().subscribe(
+                SubscriptionFilter.ALL.eventTypes(EventType.INITIAL_MOVE, EventType.UNDO_MOVE, EventType.REDO_MOVE, EventType.MOVES_APPLIED,
+                        EventType.WINS, EventType.TIE_GAME),
+                gameRecorder);
+        synchronized (this) {
+            if (Objects.nonNull(subscriptions.putIfAbsent(gameId, subscription))) {
+                subscription.cancel();
+                throw new IllegalStateException("Game is already attached: " + gameId);
+            }
+        }
+        return subscription;
+    }
+
+    /**
+     * Stop following a game, nothing is added for it.
+     */
+    public void detach(final long gameId) {
+        final Subscription subscription;
+        synchronized (this) {
+            subscription = subscriptions.remove(gameId);
+        }
+        if (Objects.nonNull(subscription)) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Add all positions of a finished game played with the standard rules, see addGame(long, RuleSet, int[], List, int).
+     */
+    public void addGame(final long gameId, final int[] initialPosition, final List<Integer> moves, final int result) {
+        addGame(gameId, RuleSet.STANDARD, initialPosition, moves, result);
+    }
+
+    /**
+     * Add all positions of a finished game, e.g. when (re-)building the index from archived games.
+     *
+     * @param ruleSet rules the game was played with
+     * @param moves   pit index of every move played, in order
+     * @param result  winner (player ordinal), PositionOccurrence.TIE or PositionOccurrence.UNDECIDED
+     */
+    public void addGame(final long gameId, final RuleSet ruleSet, final int[] initialPosition, final List<Integer> moves, final int result) {
+        addPositions(gameId, ruleSet, initialPosition, 0, moves, result);
+    }
+
+    private void addPositions(final long gameId, final RuleSet ruleSet, final int[] initialPosition, final int firstMoveNumber,
+                              final List<Integer> moves, final int result) {
+        final int[] position = Arrays.copyOf(initialPosition, KalahaRules.POSITION_SIZE);
+        final long[] hashes = new long[moves.size() + 1];
+        hashes[0] = KalahaRules.hashOf(position);
+        for (int moveNumber = 0; moveNumber < moves.size(); moveNumber++) {
+            ruleSet.move(position, moves.get(moveNumber));
+            hashes[moveNumber + 1] = KalahaRules.hashOf(position);
+        }
+
+        synchronized (this) {
+            for (int moveNumber = 0; moveNumber < hashes.length; moveNumber++) {
+                memoryTable.add(hashes[moveNumber], new PositionOccurrence(gameId, firstMoveNumber + moveNumber, result));
+            }
+            if (memoryTable.size() >= flushThreshold) {
+                scheduleFlush();
+            }
+        }
+    }
+
+    /**
+     * @return all games that passed through the given position (pits and player turn)
+     */
+    public List<PositionOccurrence> find(final int[] position) throws IOException {
+        return find(KalahaRules.hashOf(position));
+    }
+
+    /**
+     * @return all games that passed through the position with the given hash
+     */
+    public List<PositionOccurrence> find(final long positionHash) throws IOException {
+        final List<PositionOccurrence> occurrences = new ArrayList<>();
+        synchronized (this) {
+            memoryTable.find(positionHash, occurrences);
+        }
+
+        segmentLock.readLock().lock();
+        try {
+            for (MemoryTable flushingMemoryTable : flushingMemoryTables) {
+                flushingMemoryTable.find(positionHash, occurrences);
+            }
+            for (IndexSegment segment : segments) {
+                segment.find(positionHash, occurrences);
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        return occurrences;
+    }
+
+    /**
+     * Write all positions kept in memory to a segment, and wait until it is written.
+     */
+    public void flush() throws IOException {
+        final Future<?> flushed;
+        synchronized (this) {
+            flushed = scheduleFlush();
+        }
+        await(flushed);
+    }
+
+    public int getNumberOfSegments() {
+        segmentLock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        final List<Subscription> cancelled;
+        synchronized (this) {
+            cancelled = new ArrayList<>(subscriptions.values());
+            subscriptions.clear();
+        }
+        cancelled.forEach(Subscription::cancel);
+
+        try {
+            flush();
+        } finally {
+            indexThread.shutdown();
+            try {
+                indexThread.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            segmentLock.writeLock().lock();
+            try {
+                for (IndexSegment segment : segments) {
+                    segment.close();
+                }
+                segments.clear();
+                segmentRanges.clear();
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Hand the memory table over to the index thread, called while holding the monitor of this index.
+     */
+    private Future<?> scheduleFlush() {
+        final MemoryTable flushing = memoryTable;
+        final long generation = nextGeneration++;
+        memoryTable = new MemoryTable();
+
+        segmentLock.writeLock().lock();
+        try {
+            flushingMemoryTables.add(flushing);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        return indexThread.submit(() -> {
+            try {
+                writeSegment(flushing, generation);
+                mergeSegmentsIfNeeded();
+            } catch (IOException e) {
+                logger.error("Failed to write position index segment " + generation, e);
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeSegment(final MemoryTable flushing, final long generation) throws IOException {
+        final Range range = new Range(generation, generation);
+        final IndexSegment segment = flushing.size() == 0 ? null
+                : IndexSegment.write(range.fileIn(directory), flushing.size(), flushing.sortedEntries());
+
+        segmentLock.writeLock().lock();
+        try {
+            flushingMemoryTables.remove(flushing);
+            if (Objects.nonNull(segment)) {
+                segments.add(segment);
+                segmentRanges.add(range);
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merge the adjacent segments with the least entries, until there are at most maxNumberOfSegments segments.
+     * Only the index thread changes the segments, so they can be read here without the lock.
+     */
+    private void mergeSegmentsIfNeeded() throws IOException {
+        final int numberOfSegmentsToMerge = segments.size() - maxNumberOfSegments + 1;
+        if (numberOfSegmentsToMerge < 2) {
+            return;
+        }
+
+        int first = 0;
+        long leastEntries = Long.MAX_VALUE;
+        for (int start = 0; start + numberOfSegmentsToMerge <= segments.size(); start++) {
+            long entries = 0;
+            for (int i = start; i < start + numberOfSegmentsToMerge; i++) {
+                entries += segments.get(i).getNumberOfEntries();
+            }
+            if (entries < leastEntries) {
+                leastEntries = entries;
+                first = start;
+            }
+        }
+
+        final List<IndexSegment> merged = new ArrayList<>(segments.subList(first, first + numberOfSegmentsToMerge));
+        final Range range = new Range(segmentRanges.get(first).first, segmentRanges.get(first + numberOfSegmentsToMerge - 1).last);
+        final IndexSegment mergedSegment = IndexSegment.write(range.fileIn(directory), leastEntries, mergeOf(merged));
+
+        segmentLock.writeLock().lock();
+        try {
+            for (int i = 0; i < numberOfSegmentsToMerge; i++) {
+                segments.remove(first);
+                segmentRanges.remove(first);
+            }
+            segments.add(first, mergedSegment);
+            segmentRanges.add(first, range);
+            for (IndexSegment segment : merged) {
+                segment.close();
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+
+        for (IndexSegment segment : merged) {
+            Files.deleteIfExists(segment.getFile());
+        }
+        logger.info("Merged " + numberOfSegmentsToMerge + " position index segments into " + mergedSegment.getFile().getFileName());
+    }
+
+    /**
+     * k-way merge of sorted segments
+     */
+    private static IndexSegment.EntryIterator mergeOf(final List<IndexSegment> segments) throws IOException {
+        final PriorityQueue<IndexSegment.EntryIterator> queue = new PriorityQueue<>(segments.size(), Comparator.comparingLong(IndexSegment.EntryIterator::hash));
+        for (IndexSegment segment : segments) {
+            final IndexSegment.EntryIterator iterator = segment.iterator();
+            if (iterator.next()) {
+                queue.add(iterator);
+            }
+        }
+
+        return new IndexSegment.EntryIterator() {
+            private IndexSegment.EntryIterator current;
+
+            @Override
+            public boolean next() throws IOException {
+                if (Objects.nonNull(current) && current.next()) {
+                    queue.add(current);
+                }
+                current = queue.poll();
+                return Objects.nonNull(current);
+            }
+
+            @Override
+            public long hash() {
+                return current.hash();
+            }
+
+            @Override
+            public long gameId() {
+                return current.gameId();
+            }
+
+            @Override
+            public int moveNumber() {
+                return current.moveNumber();
+            }
+
+            @Override
+            public int result() {
+                return current.result();
+            }
+        };
+    }
+
+    private void openSegments() throws IOException {
+        final List<Range> ranges = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                final String fileName = file.getFileName().toString();
+                final Matcher matcher = SEGMENT_FILE_NAME.matcher(fileName);
+                if (matcher.matches()) {
+                    ranges.add(new Range(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))));
+                } else if (fileName.endsWith(".idx.tmp")) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        // oldest first, and a merged segment before the segments it covers
+        ranges.sort(Comparator.comparingLong((Range range) -> range.first).thenComparing(Comparator.comparingLong((Range range) -> range.last).reversed()));
+        long lastCoveredGeneration = -1;
+        for (Range range : ranges) {
+            if (range.last <= lastCoveredGeneration) {
+                Files.delete(range.fileIn(directory));
+                continue;
+            }
+            segments.add(IndexSegment.open(range.fileIn(directory)));
+            segmentRanges.add(range);
+            lastCoveredGeneration = range.last;
+        }
+        nextGeneration = lastCoveredGeneration + 1;
+    }
+
+    private static void await(final Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing a position index segment", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Positions of finished games that are not written to a segment yet.
+     */
+    private static final class MemoryTable {
+        private final Map<Long, List<PositionOccurrence>> occurrencesByHash = new HashMap<>();
+        private int size;
+
+        void add(final long hash, final PositionOccurrence occurrence) {
+            occurrencesByHash.computeIfAbsent(hash, key -> new ArrayList<>(1)).add(occurrence);
+            size++;
+        }
+
+        void find(final long hash, final List<PositionOccurrence> occurrences) {
+            final List<PositionOccurrence> found = occurrencesByHash.get(hash);
+            if (Objects.nonNull(found)) {
+                occurrences.addAll(found);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        IndexSegment.EntryIterator sortedEntries() {
+            final long[] hashes = occurrencesByHash.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            return new IndexSegment.EntryIterator() {
+                private int hashIndex = -1;
+                private List<PositionOccurrence> occurrences = Collections.emptyList();
+                private int occurrenceIndex;
+
+                @Override
+                public boolean next() {
+                    occurrenceIndex++;
+                    while (occurrenceIndex >= occurrences.size()) {
+                        if (++hashIndex >= hashes.length) {
+                            return false;
+                        }
+                        occurrences = occurrencesByHash.get(hashes[hashIndex]);
+                        occurrenceIndex = 0;
+                    }
+                    return true;
+                }
+
+                @Override
+                public long hash() {
+                    return hashes[hashIndex];
+                }
+
+                @Override
+                public long gameId() {
+                    return occurrences.get(occurrenceIndex).getGameId();
+                }
+
+                @Override
+                public int moveNumber() {
+                    return occurrences.get(occurrenceIndex).getMoveNumber();
+                }
+
+                @Override
+                public int result() {
+                    return occurrences.get(occurrenceIndex).getResult();
+                }
+            };
+        }
+    }
+
+    /**
+     * Generations covered by a segment.
+     */
+    private static final class Range {
+        private final long first;
+        private final long last;
+
+        Range(final long first, final long last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        Path fileIn(final Path directory) {
+            return directory.resolve(String.format("segment-%016d-%016d.idx", first, last));
+        }
+    }
+
+    /**
+     * Follows the moves of one attached game, and adds its positions to the index once the game is decided.
+     */
+    private final class GameRecorder implements Observer {
+        private static final int APPLIED_MOVES = -1;
+
+        private final long gameId;
+        private final KalahaBoard kalahaBoard;
+        private final List<Line> lines;
+        // taken back moves (pit index), or APPLIED_MOVES for a taken back line of moves applied at once
+        private final Deque<Integer> takenBackMoves;
+        private final Deque<Line> takenBackLines;
+
+        GameRecorder(final long gameId, final KalahaBoard kalahaBoard) {
+            this.gameId = gameId;
+            this.kalahaBoard = kalahaBoard;
+            this.lines = new ArrayList<>();
+            this.takenBackMoves = new ArrayDeque<>();
+            this.takenBackLines = new ArrayDeque<>();
+            lines.add(new Line(KalahaRules.copyOf(kalahaBoard, new int[KalahaRules.POSITION_SIZE]), 0));
+        }
+
+        @Override
+        public void update(final Observable observable, final Event event) {
+            final Line line = lines.get(lines.size() - 1);
+            switch (event.getEventType()) {
+                case INITIAL_MOVE:
+                    line.moves.add(event.getOriginPitId().getIndex());
+                    takenBackMoves.clear();
+                    takenBackLines.clear();
+                    break;
+                case MOVES_APPLIED:
+                    lines.add(new Line(KalahaRules.copyOf(kalahaBoard, new int[KalahaRules.POSITION_SIZE]), line.getLastMoveNumber() + event.getNumberOfSeeds()));
+                    takenBackMoves.clear();
+                    takenBackLines.clear();
+                    break;
+                case UNDO_MOVE:
+                    if (!line.moves.isEmpty()) {
+                        takenBackMoves.push(line.moves.remove(line.moves.size() - 1));
+                    } else if (lines.size() > 1) {
+                        takenBackMoves.push(APPLIED_MOVES);
+                        takenBackLines.push(lines.remove(lines.size() - 1));
+                    }
+                    break;
+                case REDO_MOVE:
+                    if (!takenBackMoves.isEmpty()) {
+                        final int move = takenBackMoves.pop();
+                        if (move == APPLIED_MOVES) {
+                            lines.add(takenBackLines.pop());
+                        } else {
+                            line.moves.add(move);
+                        }
+                    }
+                    break;
+                case WINS:
+                    finish(event.getPlayerType().ordinal());
+                    break;
+                case TIE_GAME:
+                    finish(PositionOccurrence.TIE);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void finish(final int result) {
+            detach(gameId);
+            for (Line line : lines) {
+                addPositions(gameId, kalahaBoard.getRuleSet(), line.startPosition, line.firstMoveNumber, line.moves, result);
+            }
+        }
+    }
+
+    /**
+     * Moves played one by one from a known position.
+     */
+    private static final class Line {
+        private final int[] startPosition;
+        private final int firstMoveNumber;
+        private final List<Integer> moves;
+
+        Line(final int[] startPosition, final int firstMoveNumber) {
+            this.startPosition = startPosition;
+            this.firstMoveNumber = firstMoveNumber;
+            this.moves = new ArrayList<>();
+        }
+
+        int getLastMoveNumber() {
+            return firstMoveNumber + moves.size();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ammar.kalahacorelibrary.index;
+
+import java.util.Objects;
+
+/**
+ * One game passing through a position: the game, the number of moves played to reach the position, and how the game ended.
+ */
+public final class PositionOccurrence {
+    public static final int TIE = 2;
+    public static final int UNDECIDED = -1;
+
+    private final long gameId;
+    private final int moveNumber;
+    private final int result;
+
+    public PositionOccurrence(final long gameId, final int moveNumber, final int result) {
+        this.gameId = gameId;
+        this.moveNumber = moveNumber;
+        this.result = result;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * @return number of moves played before the game reached the position
+     */
+    public int getMoveNumber() {
+        return moveNumber;
+    }
+
+    /**
+     * @return winner (player ordinal), TIE or UNDECIDED
+     */
+    public int getResult() {
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PositionOccurrence that = (PositionOccurrence) o;
+        return gameId == that.gameId &&
+                moveNumber == that.moveNumber &&
+                result == that.result;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameId, moveNumber, result);
+    }
+
+    @Override
+    public String toString() {
+        return "PositionOccurrence {" +
+                "gameId=" + gameId +
+                ", moveNumber=" + moveNumber +
+                ", result=" + result +
+                '}';
+    }
+}
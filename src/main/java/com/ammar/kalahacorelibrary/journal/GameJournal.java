@@ -0,0 +1,110 @@
+package com.ammar.kalahacorelibrary.journal;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.Observer;
+import com.ammar.kalahacorelibrary.pubsub.Subscription;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Journal of one game: observes the ReplayableEventPublisher of the game and hands every event over to the shared journal.
+ * <p>
+ * Note: a game (board) is played from one thread at a time, events of one game are therefore journaled in order.
+ */
+public class GameJournal implements Observer {
+    private final SharedEventJournal sharedEventJournal;
+    private final long gameId;
+    private final List<Acknowledgement> acknowledgements;
+    private Subscription subscription;
+    private long numberOfAppendedEvents;
+    private volatile long numberOfDurableEvents;
+
+    GameJournal(final SharedEventJournal sharedEventJournal, final long gameId) {
+        this.sharedEventJournal = sharedEventJournal;
+        this.gameId = gameId;
+        this.acknowledgements = new ArrayList<>();
+    }
+
+    @Override
+    public void update(final Observable observable, final Event event) {
+        numberOfAppendedEvents++;
+        sharedEventJournal.append(this, numberOfAppendedEvents, event);
+    }
+
+    /**
+     * Acknowledge a move: the returned future completes as soon as all events published so far are durable (on disk).
+     * It completes exceptionally when those events won't be written anymore (journal closed, or a write failed).
+     */
+    public CompletableFuture<Void> acknowledge() {
+        final long numberOfEventsToWaitFor = numberOfAppendedEvents;
+        if (numberOfDurableEvents >= numberOfEventsToWaitFor) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final CompletableFuture<Void> acknowledgement = new CompletableFuture<>();
+        synchronized (acknowledgements) {
+            acknowledgements.add(new Acknowledgement(numberOfEventsToWaitFor, acknowledgement));
+        }
+        // the batch could have been committed in the meantime
+        durableUntil(numberOfDurableEvents);
+        // or the journal could have stopped in the meantime
+        final Throwable stopCause = sharedEventJournal.getStopCause();
+        if (Objects.nonNull(stopCause)) {
+            failed(stopCause);
+        }
+        return acknowledgement;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    void setSubscription(final Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    Subscription getSubscription() {
+        return subscription;
+    }
+
+    // called by the journal writer after each group commit
+    void durableUntil(final long numberOfEvents) {
+        if (numberOfEvents > numberOfDurableEvents) {
+            numberOfDurableEvents = numberOfEvents;
+        }
+
+        synchronized (acknowledgements) {
+            final Iterator<Acknowledgement> iterator = acknowledgements.iterator();
+            while (iterator.hasNext()) {
+                final Acknowledgement acknowledgement = iterator.next();
+                if (acknowledgement.numberOfEvents <= numberOfDurableEvents) {
+                    acknowledgement.future.complete(null);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    // called by the journal writer when the journal can't be written anymore
+    void failed(final Throwable cause) {
+        synchronized (acknowledgements) {
+            acknowledgements.forEach(acknowledgement -> acknowledgement.future.completeExceptionally(cause));
+            acknowledgements.clear();
+        }
+    }
+
+    private static final class Acknowledgement {
+        private final long numberOfEvents;
+        private final CompletableFuture<Void> future;
+
+        private Acknowledgement(final long numberOfEvents, final CompletableFuture<Void> future) {
+            this.numberOfEvents = numberOfEvents;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ammar.kalahacorelibrary.journal;
+
+import com.ammar.kalahacorelibrary.event.Event;
+
+/**
+ * Consumer of journal entries while reading a journal file.
+ */
+@FunctionalInterface
+public interface JournalEntryConsumer {
+
+    /**
+     * @param batchOffset file offset of the batch containing the entry
+     * @param gameId      game that published the event
+     * @param event       journaled event
+     */
+    void accept(long batchOffset, long gameId, Event event);
+
+}
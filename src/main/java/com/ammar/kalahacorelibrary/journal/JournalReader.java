@@ -0,0 +1,108 @@
+package com.ammar.kalahacorelibrary.journal;
+
+import com.ammar.kalahacorelibrary.event.EventCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads batches written by the SharedEventJournal.
+ * <p>
+ * <pre>
+ *
+ * Journal file format:
+ *
+ *     batch:   batch length (int, excluding this header) | number of entries (int) | entries
+ *     entry:   game id (long) | entry length (int) | event (see EventCodec)
+ *
+ * </pre>
+ */
+public final class JournalReader {
+
+    /**
+     * Size of the batch length and the number of entries in front of every batch
+     */
+    public static final int BATCH_HEADER_SIZE = 8;
+    /**
+     * Size of the game id and the entry length in front of every event
+     */
+    public static final int ENTRY_HEADER_SIZE = 12;
+
+    private JournalReader() {
+    }
+
+    /**
+     * Read all complete batches from the given offset.
+     *
+     * @return offset right after the last complete batch, to continue reading later on
+     */
+    public static long read(final Path journalFile, final long fromOffset, final JournalEntryConsumer consumer) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            return read(fileChannel, fromOffset, fileChannel.size(), consumer);
+        }
+    }
+
+    static long read(final FileChannel fileChannel, final long fromOffset, final long toOffset, final JournalEntryConsumer consumer) throws IOException {
+        long offset = fromOffset;
+        while (true) {
+            final byte[] batch = readBatch(fileChannel, offset, toOffset);
+            if (batch == null) {
+                return offset;
+            }
+            readEntries(offset, batch, Long.MIN_VALUE, consumer);
+            offset += BATCH_HEADER_SIZE + batch.length;
+        }
+    }
+
+    /**
+     * Read one batch (without its header), or null when there is no complete batch at the given offset.
+     */
+    static byte[] readBatch(final FileChannel fileChannel, final long offset, final long toOffset) throws IOException {
+        if (offset + BATCH_HEADER_SIZE > toOffset) {
+            return null;
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(BATCH_HEADER_SIZE);
+        readFully(fileChannel, header, offset);
+        final int batchLength = header.getInt(0);
+        if (batchLength <= 0 || offset + BATCH_HEADER_SIZE + batchLength > toOffset) {
+            return null;
+        }
+
+        final ByteBuffer batch = ByteBuffer.allocate(batchLength);
+        readFully(fileChannel, batch, offset + BATCH_HEADER_SIZE);
+        return batch.array();
+    }
+
+    /**
+     * @param gameId only entries of this game, or Long.MIN_VALUE for all entries
+     */
+    static void readEntries(final long batchOffset, final byte[] batch, final long gameId, final JournalEntryConsumer consumer) throws IOException {
+        final ByteBuffer entries = ByteBuffer.wrap(batch);
+        while (entries.remaining() >= ENTRY_HEADER_SIZE) {
+            final long entryGameId = entries.getLong();
+            final int entryLength = entries.getInt();
+            if (gameId == Long.MIN_VALUE || gameId == entryGameId) {
+                final DataInputStream input = new DataInputStream(new ByteArrayInputStream(batch, entries.position(), entryLength));
+                consumer.accept(batchOffset, entryGameId, EventCodec.read(input));
+            }
+            entries.position(entries.position() + entryLength);
+        }
+    }
+
+    private static void readFully(final FileChannel fileChannel, final ByteBuffer buffer, final long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            final int read = fileChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal at offset " + position);
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.ammar.kalahacorelibrary.journal;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventCodec;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.pubsub.audit.ReplayableEventPublisher;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One event journal shared by many concurrent games.
+ * <p>
+ * Games hand their events over through a lock-free queue, one writer thread collects them into large sequential batches and
+ * group-commits every batch with one fsync. A batch is written as soon as it is full, or when the oldest event in the batch
+ * has waited for the configured maximum latency.
+ * <p>
+ * A sparse index (per game: the offsets of the batches that contain events of that game) makes it possible to read one game back
+ * without scanning the whole journal. The index is rebuilt when an existing journal is opened.
+ */
+public class SharedEventJournal implements Closeable {
+    private final Logger logger = Logger.getLogger(SharedEventJournal.class);
+
+    private final FileChannel fileChannel;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final ConcurrentLinkedQueue<Entry> queue;
+    private final Map<Long, GameJournal> gameJournals;
+    private final Map<Long, List<Long>> batchOffsetsPerGame;
+    private final Thread writer;
+    private volatile boolean running;
+    private volatile Throwable failure;
+    private volatile Throwable closed;
+    private long endOfJournal;
+
+    /**
+     * @param maxBatchSize  maximum number of events in one batch
+     * @param maxLatency    maximum time an event waits before its batch is committed
+     */
+    public SharedEventJournal(final Path journalFile, final int maxBatchSize, final long maxLatency, final TimeUnit timeUnit) throws IOException {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("max batch size should be bigger than 0");
+        }
+
+        this.fileChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = timeUnit.toNanos(maxLatency);
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.gameJournals = new ConcurrentHashMap<>();
+        this.batchOffsetsPerGame = new ConcurrentHashMap<>();
+
+        recover();
+
+        this.running = true;
+        this.writer = new Thread(this::writeBatches, "kalaha-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Journal all events of a game.
+     *
+     * @return journal of the game, to acknowledge moves once they are durable
+     */
+    public GameJournal attach(final long gameId, final ReplayableEventPublisher replayableEventPublisher) {
+        final GameJournal gameJournal = new GameJournal(this, gameId);
+        if (Objects.nonNull(gameJournals.putIfAbsent(gameId, gameJournal))) {
+            throw new IllegalArgumentException("Game is already attached to the journal: " + gameId);
+        }
+
+        gameJournal.setSubscription(replayableEventPublisher.subscribe(new LinkedHashSet<>(Arrays.asList(EventType.values())), gameJournal));
+        return gameJournal;
+    }
+
+    /**
+     * Stop journaling a game (events that are already handed over are still written).
+     */
+    public void detach(final long gameId) {
+        final GameJournal gameJournal = gameJournals.remove(gameId);
+        if (Objects.nonNull(gameJournal)) {
+            gameJournal.getSubscription().cancel();
+        }
+    }
+
+    /**
+     * Read all durable events of one game, using the sparse index.
+     */
+    public List<Event> readGame(final long gameId) throws IOException {
+        final List<Event> events = new ArrayList<>();
+        final List<Long> batchOffsets = batchOffsetsPerGame.getOrDefault(gameId, Collections.emptyList());
+        final long[] offsets;
+        synchronized (batchOffsets) {
+            offsets = batchOffsets.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        for (long batchOffset : offsets) {
+            final byte[] batch = JournalReader.readBatch(fileChannel, batchOffset, Long.MAX_VALUE);
+            JournalReader.readEntries(batchOffset, batch, gameId, (offset, entryGameId, event) -> events.add(event));
+        }
+        return events;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // events handed over while the writer was stopping are never written, their acknowledgements fail instead
+        closed = new IllegalStateException("Journal is closed");
+        failQueuedEntries(closed);
+        gameJournals.values().forEach(gameJournal -> gameJournal.failed(closed));
+        fileChannel.close();
+    }
+
+    /**
+     * @return why the journal doesn't write events anymore (closed, or a write failed), null while it is running
+     */
+    Throwable getStopCause() {
+        return Objects.nonNull(failure) ? failure : closed;
+    }
+
+    void append(final GameJournal gameJournal, final long numberOfEventsInGame, final Event event) {
+        if (Objects.nonNull(failure)) {
+            throw new IllegalStateException("Journal can't be written anymore", failure);
+        }
+        if (!running) {
+            throw new IllegalStateException("Journal is closed");
+        }
+
+        queue.offer(new Entry(gameJournal, numberOfEventsInGame, event));
+        LockSupport.unpark(writer);
+
+        // closed between the check above and the offer: the writer may have stopped before it saw the entry
+        final Throwable stopCause = getStopCause();
+        if (Objects.nonNull(stopCause)) {
+            failQueuedEntries(stopCause);
+            throw new IllegalStateException("Journal is closed", stopCause);
+        }
+    }
+
+    private void failQueuedEntries(final Throwable cause) {
+        Entry entry;
+        while (Objects.nonNull(entry = queue.poll())) {
+            entry.gameJournal.failed(cause);
+        }
+    }
+
+    private void writeBatches() {
+        final ByteArrayOutputStream batchBytes = new ByteArrayOutputStream(64 * 1024);
+        final ByteArrayOutputStream eventBytes = new ByteArrayOutputStream(64);
+        final DataOutputStream eventOutput = new DataOutputStream(eventBytes);
+        final List<Entry> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            Entry entry = queue.poll();
+            if (Objects.isNull(entry)) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+                continue;
+            }
+
+            // collect entries until the batch is full, or the first entry in the batch has waited long enough
+            final long deadline = System.nanoTime() + maxLatencyNanos;
+            while (Objects.nonNull(entry)) {
+                batch.add(entry);
+                if (batch.size() == maxBatchSize) {
+                    break;
+                }
+
+                entry = queue.poll();
+                while (Objects.isNull(entry) && running && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(this, Math.max(0, deadline - System.nanoTime()));
+                    entry = queue.poll();
+                }
+            }
+
+            try {
+                commit(batch, batchBytes, eventBytes, eventOutput);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Journal can't be written anymore", e);
+                failure = e;
+                running = false;
+                batch.forEach(failedEntry -> failedEntry.gameJournal.failed(e));
+                failQueuedEntries(e);
+                gameJournals.values().forEach(gameJournal -> gameJournal.failed(e));
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(final List<Entry> batch, final ByteArrayOutputStream batchBytes, final ByteArrayOutputStream eventBytes, final DataOutputStream eventOutput) throws IOException {
+        batchBytes.reset();
+        final DataOutputStream batchOutput = new DataOutputStream(batchBytes);
+        batchOutput.writeInt(0); // batch length, filled in below
+        batchOutput.writeInt(batch.size());
+        for (Entry entry : batch) {
+            eventBytes.reset();
+            EventCodec.write(eventOutput, entry.event);
+            batchOutput.writeLong(entry.gameJournal.getGameId());
+            batchOutput.writeInt(eventBytes.size());
+            eventBytes.writeTo(batchOutput);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(batchBytes.toByteArray());
+        buffer.putInt(0, buffer.capacity() - JournalReader.BATCH_HEADER_SIZE);
+
+        final long batchOffset = endOfJournal;
+        long position = batchOffset;
+        while (buffer.hasRemaining()) {
+            position += fileChannel.write(buffer, position);
+        }
+        fileChannel.force(false);
+        endOfJournal = position;
+
+        // batch is durable: update index and acknowledge moves
+        final Map<GameJournal, Long> durableEventsPerGame = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            durableEventsPerGame.put(entry.gameJournal, entry.numberOfEventsInGame);
+        }
+        durableEventsPerGame.forEach((gameJournal, numberOfEvents) -> {
+            addToIndex(gameJournal.getGameId(), batchOffset);
+            gameJournal.durableUntil(numberOfEvents);
+        });
+    }
+
+    private void addToIndex(final long gameId, final long batchOffset) {
+        final List<Long> batchOffsets = batchOffsetsPerGame.computeIfAbsent(gameId, id -> new ArrayList<>());
+        synchronized (batchOffsets) {
+            if (batchOffsets.isEmpty() || batchOffsets.get(batchOffsets.size() - 1) != batchOffset) {
+                batchOffsets.add(batchOffset);
+            }
+        }
+    }
+
+    /**
+     * Rebuild the sparse index from an existing journal and cut off an incomplete batch (e.g. after a crash during a write).
+     */
+    private void recover() throws IOException {
+        endOfJournal = JournalReader.read(fileChannel, 0, fileChannel.size(), (batchOffset, gameId, event) -> addToIndex(gameId, batchOffset));
+        if (endOfJournal < fileChannel.size()) {
+            logger.warn("Incomplete batch at the end of the journal is removed, offset: " + endOfJournal);
+            fileChannel.truncate(endOfJournal);
+        }
+    }
+
+    private static final class Entry {
+        private final GameJournal gameJournal;
+        private final long numberOfEventsInGame;
+        private final Event event;
+
+        private Entry(final GameJournal gameJournal, final long numberOfEventsInGame, final Event event) {
+            this.gameJournal = gameJournal;
+            this.numberOfEventsInGame = numberOfEventsInGame;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ammar.kalahacorelibrary.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency versus throughput: one load step per offered load, from the lowest to the highest load.
+ */
+public final class LatencyCurve {
+    private final List<LoadStep> loadSteps;
+
+    LatencyCurve(final List<LoadStep> loadSteps) {
+        this.loadSteps = Collections.unmodifiableList(new ArrayList<>(loadSteps));
+    }
+
+    public List<LoadStep> getLoadSteps() {
+        return loadSteps;
+    }
+
+    /**
+     * Write the curve as a table, latencies in microseconds.
+     */
+    public void writeTo(final Appendable output) throws IOException {
+        output.append(String.format("%-17s %8s %14s %14s %10s %10s %10s %10s%n",
+                "model", "games", "offered/s", "achieved/s", "p50 us", "p99 us", "p999 us", "max us"));
+        for (LoadStep loadStep : loadSteps) {
+            output.append(String.format("%-17s %8d %14.0f %14.0f %10d %10d %10d %10d%n",
+                    loadStep.getConcurrencyModel(),
+                    loadStep.getNumberOfGames(),
+                    loadStep.getOfferedMovesPerSecond(),
+                    loadStep.getAchievedMovesPerSecond(),
+                    TimeUnit.NANOSECONDS.toMicros(loadStep.getLatencyAtPercentile(50)),
+                    TimeUnit.NANOSECONDS.toMicros(loadStep.getLatencyAtPercentile(99)),
+                    TimeUnit.NANOSECONDS.toMicros(loadStep.getLatencyAtPercentile(99.9)),
+                    TimeUnit.NANOSECONDS.toMicros(loadStep.getLatencyHistogram().getMaxValue())));
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder table = new StringBuilder();
+        try {
+            writeTo(table);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ammar.kalahacorelibrary.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, with a relative error below 1% (128 sub-buckets per power of 2).
+ * <p>
+ * <pre>
+ *
+ *     value < 256             : bucket index = value
+ *     value >= 256            : shift = floor(log2(value)) - 7, bucket index = 128 * shift + (value >>> shift)
+ *
+ * </pre>
+ * Values above MAX_VALUE (about 2.4 hours) are counted as MAX_VALUE.
+ * <p>
+ * Not thread-safe.
+ */
+public final class LatencyHistogram {
+    public static final long MAX_VALUE = (1L << 43) - 1;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts;
+    private long totalCount;
+    private long maxValue;
+
+    public LatencyHistogram() {
+        counts = new long[indexOf(MAX_VALUE) + 1];
+    }
+
+    public void recordValue(final long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value should not be negative: " + value);
+        }
+        final long recorded = Math.min(value, MAX_VALUE);
+        counts[indexOf(recorded)]++;
+        totalCount++;
+        maxValue = Math.max(maxValue, recorded);
+    }
+
+    public void add(final LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return highest value of the bucket containing the percentile, 0 when nothing is recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(highestValueOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        maxValue = 0;
+    }
+
+    private static int indexOf(final long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT * shift + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(final int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long subBucket = index - SUB_BUCKET_COUNT * shift;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
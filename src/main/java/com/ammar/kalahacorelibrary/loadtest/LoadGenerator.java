@@ -0,0 +1,238 @@
+package com.ammar.kalahacorelibrary.loadtest;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.concurrency.ConcurrencyModel;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.EventType;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Load test harness: runs many concurrent games, every game makes a (random) move once per think time, and records the latency of
+ * every move end-to-end (KalahaBoard.initialMove(), including the delivery of all events to the observers of the board).
+ * <p>
+ * Coordinated omission: every move has an intended start time (the previous intended start plus the think time, the games are spread
+ * over the first think time). Latency is measured from the intended start and not from the moment the move actually started, so a
+ * move that is delayed (busy threads, a slow previous move, a GC pause) counts the time it waited instead of hiding it.
+ * <p>
+ * Sweeping the think time from slow to fast gives the latency versus throughput curve.
+ */
+public class LoadGenerator {
+    private final Logger logger = Logger.getLogger(LoadGenerator.class);
+
+    private final int initialNumberOfSeeds;
+    private final ConcurrencyModel concurrencyModel;
+    private final int numberOfPlatformThreads;
+    private final Consumer<KalahaBoard> boardSetup;
+
+    /**
+     * @param numberOfPlatformThreads number of threads sharing the games, only used with PLATFORM_THREADS
+     * @param boardSetup              called for every new board, e.g. to attach the observers that should be part of the measurement
+     */
+    public LoadGenerator(final int initialNumberOfSeeds, final ConcurrencyModel concurrencyModel, final int numberOfPlatformThreads,
+                         final Consumer<KalahaBoard> boardSetup) {
+        if (initialNumberOfSeeds <= 0) {
+            throw new IllegalArgumentException("initial number of seeds should be bigger than 0");
+        }
+        if (numberOfPlatformThreads <= 0) {
+            throw new IllegalArgumentException("number of platform threads should be bigger than 0");
+        }
+
+        this.initialNumberOfSeeds = initialNumberOfSeeds;
+        this.numberOfPlatformThreads = numberOfPlatformThreads;
+        this.boardSetup = boardSetup;
+        if (concurrencyModel.isSupported()) {
+            this.concurrencyModel = concurrencyModel;
+        } else {
+            logger.warn(concurrencyModel + " is not supported by this JVM, " + ConcurrencyModel.PLATFORM_THREADS + " is used instead");
+            this.concurrencyModel = ConcurrencyModel.PLATFORM_THREADS;
+        }
+    }
+
+    /**
+     * Load generator with one observer (counting all events) per board.
+     */
+    public LoadGenerator(final int initialNumberOfSeeds, final ConcurrencyModel concurrencyModel, final int numberOfPlatformThreads) {
+        this(initialNumberOfSeeds, concurrencyModel, numberOfPlatformThreads, new Consumer<KalahaBoard>() {
+            private final LongAdder numberOfEvents = new LongAdder();
+
+            @Override
+            public void accept(final KalahaBoard kalahaBoard) {
+                kalahaBoard.getReplayableEventPublisher().subscribe(EnumSet.allOf(EventType.class), (observable, event) -> numberOfEvents.increment());
+            }
+        });
+    }
+
+    /**
+     * Run the games at one offered load: numberOfGames / thinkTime moves per second.
+     */
+    public LoadStep run(final int numberOfGames, final long thinkTime, final long duration, final TimeUnit timeUnit) throws InterruptedException {
+        if (numberOfGames <= 0) {
+            throw new IllegalArgumentException("number of games should be bigger than 0");
+        }
+        final long thinkTimeNanos = timeUnit.toNanos(thinkTime);
+        if (thinkTimeNanos <= 0 || duration <= 0) {
+            throw new IllegalArgumentException("think time and duration should be bigger than 0");
+        }
+
+        final int numberOfWorkers = concurrencyModel == ConcurrencyModel.PLATFORM_THREADS ? Math.min(numberOfPlatformThreads, numberOfGames) : numberOfGames;
+        final LatencyHistogram[] stripes = new LatencyHistogram[Math.min(numberOfWorkers, 2 * Runtime.getRuntime().availableProcessors())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new LatencyHistogram();
+        }
+
+        // games are spread over the workers, and their first move over the first think time
+        final List<Worker> workers = new ArrayList<>(numberOfWorkers);
+        for (int i = 0; i < numberOfWorkers; i++) {
+            workers.add(new Worker(i, thinkTimeNanos, stripes[i % stripes.length]));
+        }
+        for (int game = 0; game < numberOfGames; game++) {
+            workers.get(game % numberOfWorkers).add(new Game(thinkTimeNanos * game / numberOfGames));
+        }
+
+        // boards are created up front, the clock starts when all games are ready
+        final long startNanos = System.nanoTime();
+        final long endNanos = startNanos + timeUnit.toNanos(duration);
+        final List<Thread> threads = new ArrayList<>(numberOfWorkers);
+        for (Worker worker : workers) {
+            worker.start(startNanos, endNanos);
+            threads.add(concurrencyModel.newThread(worker, "kalaha-load-" + worker.id));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (LatencyHistogram stripe : stripes) {
+            latencyHistogram.add(stripe);
+        }
+        final LoadStep loadStep = new LoadStep(concurrencyModel, numberOfGames, thinkTimeNanos, elapsedNanos, latencyHistogram);
+        logger.info(loadStep);
+        return loadStep;
+    }
+
+    /**
+     * Run one load step per think time, from the longest to the shortest think time (increasing load).
+     */
+    public LatencyCurve sweep(final int numberOfGames, final List<Long> thinkTimes, final long durationPerStep, final TimeUnit timeUnit) throws InterruptedException {
+        final List<Long> sortedThinkTimes = new ArrayList<>(thinkTimes);
+        sortedThinkTimes.sort(Comparator.reverseOrder());
+
+        final List<LoadStep> loadSteps = new ArrayList<>(sortedThinkTimes.size());
+        for (long thinkTime : sortedThinkTimes) {
+            loadSteps.add(run(numberOfGames, thinkTime, durationPerStep, timeUnit));
+        }
+        return new LatencyCurve(loadSteps);
+    }
+
+    private KalahaBoard newBoard() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(initialNumberOfSeeds);
+        if (Objects.nonNull(boardSetup)) {
+            boardSetup.accept(kalahaBoard);
+        }
+        return kalahaBoard;
+    }
+
+    /**
+     * One game in progress: a new game is started when the previous one is over.
+     */
+    private final class Game {
+        private KalahaBoard kalahaBoard;
+        private long intendedStartNanos;
+
+        /**
+         * @param offsetNanos intended start of the first move, relative to the start of the load step
+         */
+        Game(final long offsetNanos) {
+            this.kalahaBoard = newBoard();
+            this.intendedStartNanos = offsetNanos;
+        }
+    }
+
+    /**
+     * Runs its games in order of their intended start, since all games have the same think time a queue keeps them in that order.
+     */
+    private final class Worker implements Runnable {
+        private final int id;
+        private final long thinkTimeNanos;
+        private final LatencyHistogram latencyHistogram;
+        private final Deque<Game> games;
+        private final Random random;
+        private final int[] position;
+        private long endNanos;
+
+        Worker(final int id, final long thinkTimeNanos, final LatencyHistogram latencyHistogram) {
+            this.id = id;
+            this.thinkTimeNanos = thinkTimeNanos;
+            this.latencyHistogram = latencyHistogram;
+            this.games = new ArrayDeque<>();
+            this.random = new Random(id);
+            this.position = new int[KalahaRules.POSITION_SIZE];
+        }
+
+        void add(final Game game) {
+            games.add(game);
+        }
+
+        /**
+         * Make the intended start of the games absolute, called before the thread of the worker is started.
+         */
+        void start(final long startNanos, final long endNanos) {
+            this.endNanos = endNanos;
+            games.forEach(game -> game.intendedStartNanos += startNanos);
+        }
+
+        @Override
+        public void run() {
+            while (!games.isEmpty()) {
+                final Game game = games.poll();
+                if (game.intendedStartNanos >= endNanos) {
+                    continue;
+                }
+
+                for (long now = System.nanoTime(); now < game.intendedStartNanos; now = System.nanoTime()) {
+                    LockSupport.parkNanos(game.intendedStartNanos - now);
+                }
+
+                final int pitIndex = randomPitToMove(game.kalahaBoard);
+                game.kalahaBoard.initialMove(pitIndex);
+                final long latencyNanos = System.nanoTime() - game.intendedStartNanos;
+
+                synchronized (latencyHistogram) {
+                    latencyHistogram.recordValue(latencyNanos);
+                }
+
+                KalahaRules.copyOf(game.kalahaBoard, position);
+                if (KalahaRules.isSideEmpty(position, 0) || KalahaRules.isSideEmpty(position, 1)) {
+                    game.kalahaBoard = newBoard();
+                }
+                game.intendedStartNanos += thinkTimeNanos;
+                games.add(game);
+            }
+        }
+
+        /**
+         * @return random non-empty pit of the player on turn (player 1 when the game has not started)
+         */
+        private int randomPitToMove(final KalahaBoard kalahaBoard) {
+            KalahaRules.copyOf(kalahaBoard, position);
+            final int player = position[KalahaRules.TURN] == KalahaRules.NONE ? 0 : position[KalahaRules.TURN];
+            final int firstPit = player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+            final int start = random.nextInt(6);
+            for (int i = 0; i < 6; i++) {
+                final int pitIndex = firstPit + (start + i) % 6;
+                if (position[pitIndex] != 0) {
+                    return pitIndex;
+                }
+            }
+            throw new IllegalStateException("Player " + (player + 1) + " has no seeds left, the game should be over");
+        }
+    }
+}
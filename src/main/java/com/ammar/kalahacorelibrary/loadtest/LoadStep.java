@@ -0,0 +1,81 @@
+package com.ammar.kalahacorelibrary.loadtest;
+
+import com.ammar.kalahacorelibrary.concurrency.ConcurrencyModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of running the load generator at one offered load: throughput and the latency histogram of all moves.
+ */
+public final class LoadStep {
+    private final ConcurrencyModel concurrencyModel;
+    private final int numberOfGames;
+    private final long thinkTimeNanos;
+    private final long elapsedNanos;
+    private final LatencyHistogram latencyHistogram;
+
+    LoadStep(final ConcurrencyModel concurrencyModel, final int numberOfGames, final long thinkTimeNanos, final long elapsedNanos, final LatencyHistogram latencyHistogram) {
+        this.concurrencyModel = concurrencyModel;
+        this.numberOfGames = numberOfGames;
+        this.thinkTimeNanos = thinkTimeNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    /**
+     * @return concurrency model that was actually used
+     */
+    public ConcurrencyModel getConcurrencyModel() {
+        return concurrencyModel;
+    }
+
+    public int getNumberOfGames() {
+        return numberOfGames;
+    }
+
+    public long getThinkTimeNanos() {
+        return thinkTimeNanos;
+    }
+
+    public long getNumberOfMoves() {
+        return latencyHistogram.getTotalCount();
+    }
+
+    /**
+     * @return moves per second the games intended to make
+     */
+    public double getOfferedMovesPerSecond() {
+        return numberOfGames * (double) TimeUnit.SECONDS.toNanos(1) / thinkTimeNanos;
+    }
+
+    /**
+     * @return moves per second that were made
+     */
+    public double getAchievedMovesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getNumberOfMoves() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return latency in nanoseconds, measured from the intended start of the move
+     */
+    public long getLatencyAtPercentile(final double percentile) {
+        return latencyHistogram.getValueAtPercentile(percentile);
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadStep {" +
+                "concurrencyModel=" + concurrencyModel +
+                ", numberOfGames=" + numberOfGames +
+                ", offeredMovesPerSecond=" + (long) getOfferedMovesPerSecond() +
+                ", achievedMovesPerSecond=" + (long) getAchievedMovesPerSecond() +
+                ", p50=" + getLatencyAtPercentile(50) +
+                ", p99=" + getLatencyAtPercentile(99) +
+                ", p999=" + getLatencyAtPercentile(99.9) +
+                '}';
+    }
+}
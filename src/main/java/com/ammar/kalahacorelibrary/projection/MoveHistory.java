@@ -0,0 +1,117 @@
+package com.ammar.kalahacorelibrary.projection;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Moves of one game as seen by a projection, so moves that are taken back (UNDO_MOVE) and re-applied (REDO_MOVE) can be
+ * subtracted from and added to the read model again.
+ * <p>
+ * Every move is one int record: the number of moves it stands for (1 for a normal move) in the high bits, flags of the
+ * projection in the low FLAG_BITS bits. Records above the number of applied moves have been taken back and can be re-applied,
+ * until a new move is made.
+ */
+final class MoveHistory {
+    static final int NONE = -1;
+    static final int FLAG_BITS = 8;
+    static final int FLAGS_MASK = (1 << FLAG_BITS) - 1;
+
+    private int[] records;
+    private int numberOfAppliedRecords;
+    private int numberOfRecords;
+    private int numberOfMoves;
+
+    MoveHistory() {
+        this.records = new int[8];
+    }
+
+    static int record(final int numberOfMoves, final int flags) {
+        return numberOfMoves << FLAG_BITS | flags;
+    }
+
+    static int movesOf(final int record) {
+        return record >>> FLAG_BITS;
+    }
+
+    /**
+     * Add a new move, moves that have been taken back can't be re-applied anymore.
+     */
+    void add(final int record) {
+        if (numberOfAppliedRecords == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        records[numberOfAppliedRecords++] = record;
+        numberOfRecords = numberOfAppliedRecords;
+        numberOfMoves += movesOf(record);
+    }
+
+    /**
+     * @return last applied record, NONE when there is none
+     */
+    int last() {
+        return numberOfAppliedRecords == 0 ? NONE : records[numberOfAppliedRecords - 1];
+    }
+
+    /**
+     * Add flags to the last applied record (ignored when there is none).
+     */
+    void flagLast(final int flags) {
+        if (numberOfAppliedRecords > 0) {
+            records[numberOfAppliedRecords - 1] |= flags;
+        }
+    }
+
+    /**
+     * @return record of the move that is taken back, NONE when there is none
+     */
+    int undo() {
+        if (numberOfAppliedRecords == 0) {
+            return NONE;
+        }
+        final int record = records[--numberOfAppliedRecords];
+        numberOfMoves -= movesOf(record);
+        return record;
+    }
+
+    /**
+     * @return record of the move that is re-applied, NONE when there is none
+     */
+    int redo() {
+        if (numberOfAppliedRecords == numberOfRecords) {
+            return NONE;
+        }
+        final int record = records[numberOfAppliedRecords++];
+        numberOfMoves += movesOf(record);
+        return record;
+    }
+
+    /**
+     * @return number of moves of the applied records
+     */
+    int getNumberOfMoves() {
+        return numberOfMoves;
+    }
+
+    void writeTo(final DataOutput output) throws IOException {
+        output.writeInt(numberOfRecords);
+        output.writeInt(numberOfAppliedRecords);
+        for (int i = 0; i < numberOfRecords; i++) {
+            output.writeInt(records[i]);
+        }
+    }
+
+    static MoveHistory readFrom(final DataInput input) throws IOException {
+        final MoveHistory moveHistory = new MoveHistory();
+        final int numberOfRecords = input.readInt();
+        final int numberOfAppliedRecords = input.readInt();
+        for (int i = 0; i < numberOfRecords; i++) {
+            moveHistory.add(input.readInt());
+        }
+        while (moveHistory.numberOfAppliedRecords > numberOfAppliedRecords) {
+            moveHistory.undo();
+        }
+        return moveHistory;
+    }
+}
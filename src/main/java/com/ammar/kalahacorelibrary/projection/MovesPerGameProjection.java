@@ -0,0 +1,118 @@
+package com.ammar.kalahacorelibrary.projection;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Average number of moves per finished game (a game is finished when the referee publishes WINS or TIE_GAME).
+ * <p>
+ * Moves that are taken back (UNDO_MOVE) don't count, also not when the game was already finished: the game is in progress again
+ * until it is decided again. That's why the moves of finished games are kept as well (see MoveHistory).
+ */
+public class MovesPerGameProjection implements Projection {
+    private static final int DECIDED = 1;
+
+    private final Map<Long, MoveHistory> moveHistories = new HashMap<>();
+    private long numberOfFinishedGames;
+    private long movesOfFinishedGames;
+
+    @Override
+    public String getName() {
+        return "moves-per-game";
+    }
+
+    @Override
+    public synchronized void apply(final long gameId, final Event event) {
+        final MoveHistory moveHistory;
+        switch (event.getEventType()) {
+            case INITIAL_MOVE:
+            case MOVES_APPLIED:
+                moveHistory = moveHistories.computeIfAbsent(gameId, id -> new MoveHistory());
+                finished(moveHistory, -1);
+                // moves applied at once count as the number of moves (and are taken back at once)
+                moveHistory.add(MoveHistory.record(event.getEventType() == EventType.INITIAL_MOVE ? 1 : event.getNumberOfSeeds(), 0));
+                break;
+            case WINS:
+            case TIE_GAME:
+                moveHistory = moveHistories.get(gameId);
+                if (moveHistory != null && moveHistory.last() != MoveHistory.NONE && !isDecided(moveHistory)) {
+                    moveHistory.flagLast(DECIDED);
+                    finished(moveHistory, 1);
+                }
+                break;
+            case UNDO_MOVE:
+            case REDO_MOVE:
+                moveHistory = moveHistories.get(gameId);
+                if (moveHistory != null) {
+                    finished(moveHistory, -1);
+                    if (event.getEventType() == EventType.UNDO_MOVE) {
+                        moveHistory.undo();
+                    } else {
+                        moveHistory.redo();
+                    }
+                    finished(moveHistory, 1);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public synchronized long getNumberOfFinishedGames() {
+        return numberOfFinishedGames;
+    }
+
+    public synchronized int getNumberOfGamesInProgress() {
+        return (int) (moveHistories.size() - numberOfFinishedGames);
+    }
+
+    /**
+     * @return average number of moves per finished game, 0 when no game is finished yet
+     */
+    public synchronized double getAverageMovesPerGame() {
+        return numberOfFinishedGames == 0 ? 0 : (double) movesOfFinishedGames / numberOfFinishedGames;
+    }
+
+    @Override
+    public synchronized void writeTo(final DataOutput output) throws IOException {
+        output.writeLong(numberOfFinishedGames);
+        output.writeLong(movesOfFinishedGames);
+        output.writeInt(moveHistories.size());
+        for (Map.Entry<Long, MoveHistory> moveHistory : moveHistories.entrySet()) {
+            output.writeLong(moveHistory.getKey());
+            moveHistory.getValue().writeTo(output);
+        }
+    }
+
+    @Override
+    public synchronized void readFrom(final DataInput input) throws IOException {
+        numberOfFinishedGames = input.readLong();
+        movesOfFinishedGames = input.readLong();
+        moveHistories.clear();
+        final int numberOfGames = input.readInt();
+        for (int i = 0; i < numberOfGames; i++) {
+            moveHistories.put(input.readLong(), MoveHistory.readFrom(input));
+        }
+    }
+
+    /**
+     * Add (1) or subtract (-1) the game to/from the finished games, when it is decided.
+     */
+    private void finished(final MoveHistory moveHistory, final int sign) {
+        if (isDecided(moveHistory)) {
+            numberOfFinishedGames += sign;
+            movesOfFinishedGames += sign * moveHistory.getNumberOfMoves();
+        }
+    }
+
+    private static boolean isDecided(final MoveHistory moveHistory) {
+        final int last = moveHistory.last();
+        return last != MoveHistory.NONE && (last & DECIDED) != 0;
+    }
+}
@@ -0,0 +1,183 @@
+package com.ammar.kalahacorelibrary.projection;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per player: number of wins, moves and captures (capture rate = captures per move), and the number of tie games.
+ * <p>
+ * Note: the referee publishes the result of a game once, unless moves are made after the game is decided.
+ * <p>
+ * A move that is taken back (UNDO_MOVE) is subtracted again, together with its capture and the result it decided, and added
+ * again when it is re-applied (REDO_MOVE). The moves of every game are kept for that (see MoveHistory).
+ * <p>
+ * Moves applied at once (MOVES_APPLIED) only tell their number, not who made them or what they captured: they are counted
+ * separately (see getMovesAppliedAtOnce()) and left out of the capture rate. A result they decide is counted like any other.
+ */
+public class PlayerStatisticsProjection implements Projection {
+    private static final int NUMBER_OF_PLAYERS = PlayerType.values().length;
+    // flags of a move record: the player (ordinal) in bit 0, whether the move captured, and the result it decided
+    private static final int PLAYER_MASK = 1;
+    private static final int CAPTURE = 2;
+    private static final int RESULT_SHIFT = 2;
+    private static final int RESULT_MASK = 3 << RESULT_SHIFT;
+    private static final int NO_RESULT = 0;
+    private static final int TIE_GAME = 3;
+    // a record of moves applied at once (the player bit is meaningless)
+    private static final int APPLIED_AT_ONCE = 16;
+
+    private final Map<Long, MoveHistory> moveHistories = new HashMap<>();
+
+    private final long[] wins = new long[NUMBER_OF_PLAYERS];
+    private final long[] moves = new long[NUMBER_OF_PLAYERS];
+    private final long[] captures = new long[NUMBER_OF_PLAYERS];
+    private long tieGames;
+    private long movesAppliedAtOnce;
+
+    @Override
+    public String getName() {
+        return "player-statistics";
+    }
+
+    @Override
+    public synchronized void apply(final long gameId, final Event event) {
+        final MoveHistory moveHistory;
+        switch (event.getEventType()) {
+            case WINS:
+                wins[event.getPlayerType().ordinal()]++;
+                flagLastMove(gameId, (event.getPlayerType().ordinal() + 1) << RESULT_SHIFT);
+                break;
+            case TIE_GAME:
+                tieGames++;
+                flagLastMove(gameId, TIE_GAME << RESULT_SHIFT);
+                break;
+            case INITIAL_MOVE:
+                moves[event.getPlayerType().ordinal()]++;
+                moveHistories.computeIfAbsent(gameId, id -> new MoveHistory()).add(MoveHistory.record(1, event.getPlayerType().ordinal()));
+                break;
+            case MOVES_APPLIED:
+                movesAppliedAtOnce += event.getNumberOfSeeds();
+                moveHistories.computeIfAbsent(gameId, id -> new MoveHistory()).add(MoveHistory.record(event.getNumberOfSeeds(), APPLIED_AT_ONCE));
+                break;
+            case CAPTURE_SEEDS:
+                captures[event.getPlayerType().ordinal()]++;
+                flagLastMove(gameId, CAPTURE);
+                break;
+            case UNDO_MOVE:
+                moveHistory = moveHistories.get(gameId);
+                if (moveHistory != null) {
+                    count(moveHistory.undo(), -1);
+                }
+                break;
+            case REDO_MOVE:
+                moveHistory = moveHistories.get(gameId);
+                if (moveHistory != null) {
+                    count(moveHistory.redo(), 1);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public synchronized long getWins(final PlayerType playerType) {
+        return wins[playerType.ordinal()];
+    }
+
+    public synchronized long getTieGames() {
+        return tieGames;
+    }
+
+    public synchronized long getMoves(final PlayerType playerType) {
+        return moves[playerType.ordinal()];
+    }
+
+    /**
+     * @return number of moves applied at once (of both players), these are not part of getMoves()
+     */
+    public synchronized long getMovesAppliedAtOnce() {
+        return movesAppliedAtOnce;
+    }
+
+    public synchronized long getCaptures(final PlayerType playerType) {
+        return captures[playerType.ordinal()];
+    }
+
+    /**
+     * @return captures per move of the player, 0 when the player hasn't moved yet
+     */
+    public synchronized double getCaptureRate(final PlayerType playerType) {
+        final long numberOfMoves = moves[playerType.ordinal()];
+        return numberOfMoves == 0 ? 0 : (double) captures[playerType.ordinal()] / numberOfMoves;
+    }
+
+    @Override
+    public synchronized void writeTo(final DataOutput output) throws IOException {
+        for (int player = 0; player < NUMBER_OF_PLAYERS; player++) {
+            output.writeLong(wins[player]);
+            output.writeLong(moves[player]);
+            output.writeLong(captures[player]);
+        }
+        output.writeLong(tieGames);
+        output.writeLong(movesAppliedAtOnce);
+        output.writeInt(moveHistories.size());
+        for (Map.Entry<Long, MoveHistory> moveHistory : moveHistories.entrySet()) {
+            output.writeLong(moveHistory.getKey());
+            moveHistory.getValue().writeTo(output);
+        }
+    }
+
+    @Override
+    public synchronized void readFrom(final DataInput input) throws IOException {
+        for (int player = 0; player < NUMBER_OF_PLAYERS; player++) {
+            wins[player] = input.readLong();
+            moves[player] = input.readLong();
+            captures[player] = input.readLong();
+        }
+        tieGames = input.readLong();
+        movesAppliedAtOnce = input.readLong();
+        moveHistories.clear();
+        final int numberOfGames = input.readInt();
+        for (int i = 0; i < numberOfGames; i++) {
+            moveHistories.put(input.readLong(), MoveHistory.readFrom(input));
+        }
+    }
+
+    private void flagLastMove(final long gameId, final int flags) {
+        final MoveHistory moveHistory = moveHistories.get(gameId);
+        if (moveHistory != null) {
+            moveHistory.flagLast(flags);
+        }
+    }
+
+    /**
+     * Add (1) or subtract (-1) a move record, with its capture and result.
+     */
+    private void count(final int record, final int sign) {
+        if (record == MoveHistory.NONE) {
+            return;
+        }
+
+        final int player = record & PLAYER_MASK;
+        if ((record & APPLIED_AT_ONCE) != 0) {
+            movesAppliedAtOnce += sign * MoveHistory.movesOf(record);
+        } else {
+            moves[player] += sign * MoveHistory.movesOf(record);
+        }
+        if ((record & CAPTURE) != 0) {
+            captures[player] += sign;
+        }
+        final int result = (record & RESULT_MASK) >>> RESULT_SHIFT;
+        if (result == TIE_GAME) {
+            tieGames += sign;
+        } else if (result != NO_RESULT) {
+            wins[result - 1] += sign;
+        }
+    }
+}
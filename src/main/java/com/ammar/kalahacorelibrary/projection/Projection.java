@@ -0,0 +1,32 @@
+package com.ammar.kalahacorelibrary.projection;
+
+import com.ammar.kalahacorelibrary.event.Event;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Read model maintained incrementally from the event stream of all games (see ProjectionRunner).
+ * <p>
+ * Note: a projection is updated by the projection runner thread and read by others, implementations should synchronize.
+ */
+public interface Projection {
+
+    /**
+     * @return unique name of the projection, used as the name of its checkpoint
+     */
+    String getName();
+
+    void apply(long gameId, Event event);
+
+    /**
+     * Write the current state of the read model, for the checkpoint.
+     */
+    void writeTo(DataOutput output) throws IOException;
+
+    /**
+     * Restore the state of the read model from the checkpoint.
+     */
+    void readFrom(DataInput input) throws IOException;
+}
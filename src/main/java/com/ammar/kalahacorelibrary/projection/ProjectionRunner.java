@@ -0,0 +1,147 @@
+package com.ammar.kalahacorelibrary.projection;
+
+import com.ammar.kalahacorelibrary.journal.JournalReader;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps projections up to date with the event journal (see SharedEventJournal), which is fed by the ReplayableEventPublisher of
+ * every game.
+ * <p>
+ * Only the events appended to the journal since the last run are applied. After every run, each projection is checkpointed
+ * together with its journal offset (written to a temporary file, forced to disk and atomically moved), so after a restart the projections resume
+ * from their own checkpoint instead of re-reading the whole journal.
+ * <p>
+ * <pre>
+ *
+ * Checkpoint file format (one file per projection, named after the projection):
+ *
+ *     journal offset (long) | state of the projection (see Projection.writeTo(..))
+ *
+ * </pre>
+ */
+public class ProjectionRunner implements Closeable {
+    private static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+    private final Logger logger = Logger.getLogger(ProjectionRunner.class);
+    private final Path journalFile;
+    private final Path checkpointDirectory;
+    private final List<Projection> projections;
+    private final long[] offsets;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Restores all projections from their checkpoint (when there is one).
+     */
+    public ProjectionRunner(final Path journalFile, final Path checkpointDirectory, final List<Projection> projections) throws IOException {
+        this.journalFile = journalFile;
+        this.checkpointDirectory = Files.createDirectories(checkpointDirectory);
+        this.projections = new ArrayList<>(projections);
+        this.offsets = new long[projections.size()];
+
+        final Set<String> names = new HashSet<>();
+        for (int i = 0; i < this.projections.size(); i++) {
+            final Projection projection = this.projections.get(i);
+            if (!names.add(projection.getName())) {
+                throw new IllegalArgumentException("Projection names should be unique: " + projection.getName());
+            }
+            offsets[i] = restore(projection);
+        }
+    }
+
+    /**
+     * Apply all events that are appended to the journal since the last run, and checkpoint the projections.
+     *
+     * @return journal offset up to which all projections are up to date
+     */
+    public synchronized long catchUp() throws IOException {
+        if (projections.isEmpty() || !Files.exists(journalFile)) {
+            return 0;
+        }
+
+        final long fromOffset = Arrays.stream(offsets).min().getAsLong();
+        final long toOffset = JournalReader.read(journalFile, fromOffset, (batchOffset, gameId, event) -> {
+            for (int i = 0; i < projections.size(); i++) {
+                // events before the checkpoint of the projection are already applied
+                if (batchOffset >= offsets[i]) {
+                    projections.get(i).apply(gameId, event);
+                }
+            }
+        });
+
+        for (int i = 0; i < projections.size(); i++) {
+            if (offsets[i] != toOffset) {
+                offsets[i] = toOffset;
+                checkpoint(projections.get(i), toOffset);
+            }
+        }
+        return toOffset;
+    }
+
+    /**
+     * Catch up periodically on a background thread.
+     */
+    public synchronized void start(final long interval, final TimeUnit timeUnit) {
+        if (Objects.nonNull(scheduler)) {
+            throw new IllegalStateException("Projection runner is already started");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "kalaha-projections");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                catchUp();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Projections could not catch up with journal " + journalFile, e);
+            }
+        }, 0, interval, timeUnit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (Objects.nonNull(scheduler)) {
+            scheduler.shutdown();
+        }
+    }
+
+    private long restore(final Projection projection) throws IOException {
+        final Path checkpointFile = checkpointDirectory.resolve(projection.getName() + CHECKPOINT_EXTENSION);
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            final long offset = input.readLong();
+            projection.readFrom(input);
+            return offset;
+        }
+    }
+
+    private void checkpoint(final Projection projection, final long offset) throws IOException {
+        final Path checkpointFile = checkpointDirectory.resolve(projection.getName() + CHECKPOINT_EXTENSION);
+        final Path temporaryFile = checkpointDirectory.resolve(projection.getName() + CHECKPOINT_EXTENSION + ".tmp");
+        try (FileChannel fileChannel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(fileChannel)))) {
+            output.writeLong(offset);
+            projection.writeTo(output);
+            output.flush();
+            // on disk before the move: after a crash the checkpoint is either the old or the complete new one, never empty
+            fileChannel.force(false);
+        }
+        Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
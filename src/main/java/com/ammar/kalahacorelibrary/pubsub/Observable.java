@@ -17,6 +17,32 @@ public interface Observable {
 
     void addObserver(Set<EventType> eventTypes, Observer observer);
 
+    /**
+     * Same as addObserver(..), but returns a handle to remove the observer again.
+     */
+    Subscription subscribe(Set<EventType> eventTypes, Observer observer);
+
+    /**
+     * Subscribe with a weak reference to the observer: the subscription doesn't keep the observer reachable, and it is removed
+     * automatically once the observer has been garbage collected (so the caller has to keep a reference to the observer).
+     */
+    Subscription subscribeWeakly(Set<EventType> eventTypes, Observer observer);
+
+    /**
+     * Subscribe for the events matching the filter, the observer is not invoked at all for other events.
+     */
+    Subscription subscribe(SubscriptionFilter subscriptionFilter, Observer observer);
+
+    /**
+     * Weak subscription (see subscribeWeakly(Set, Observer)) for the events matching the filter.
+     */
+    Subscription subscribeWeakly(SubscriptionFilter subscriptionFilter, Observer observer);
+
+    /**
+     * Remove the observer for all event types.
+     */
+    void removeObserver(Observer observer);
+
     void notifyObservers(Event event);
 
 }
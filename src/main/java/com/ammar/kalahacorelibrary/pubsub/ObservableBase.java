@@ -3,41 +3,232 @@ package com.ammar.kalahacorelibrary.pubsub;
 import com.ammar.kalahacorelibrary.event.Event;
 import com.ammar.kalahacorelibrary.event.EventType;
 
-import java.util.LinkedHashSet;
-import java.util.Map;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * ObservableBase  serves some common functionalities to the observable class.
  * <p>
+ * Subscriptions are kept copy-on-write: adding an observer creates a new array of subscriptions for the event type, so notifying
+ * observers only iterates over the current array (without creating any garbage).
+ * <p>
+ * Removing an observer is O(1): the subscription is only marked as cancelled and skipped while notifying. Once more than half of
+ * the subscriptions of an event type are cancelled (or their weakly referenced observer is garbage collected), the array is
+ * compacted while notifying.
+ * <p>
+ * A subscription filter (see SubscriptionFilter) is kept as bitmasks in the subscription itself, observers are only invoked for
+ * matching events.
+ * <p>
  * Created by ahamid on 3/13/16.
  */
 public abstract class ObservableBase implements Observable {
 
-    protected Map<EventType, Set<Observer>> observerMap;
+    private final AtomicReferenceArray<Entry[]> entriesPerEventType;
+    private final AtomicIntegerArray numberOfCancelledEntries;
+
+    protected ObservableBase() {
+        this.entriesPerEventType = new AtomicReferenceArray<>(EventType.values().length);
+        this.numberOfCancelledEntries = new AtomicIntegerArray(EventType.values().length);
+    }
 
     @Override
     public void addObserver(final EventType eventType, final Observer observer) {
-        final Set<Observer> observers = new LinkedHashSet<>();
-        final Set<Observer> currentObservers = this.observerMap.get(eventType);
-        if (Objects.nonNull(currentObservers)) {
-            observers.addAll(currentObservers);
-        }
-        observers.add(observer);
+        entryOf(eventType, observer, SubscriptionFilter.ALL, false);
+    }
 
-        this.observerMap.put(eventType, observers);
+    @Override
+    public Subscription subscribe(final Set<EventType> eventTypes, final Observer observer) {
+        return subscribe(SubscriptionFilter.ALL.eventTypes(eventTypes), observer, false);
+    }
+
+    @Override
+    public Subscription subscribeWeakly(final Set<EventType> eventTypes, final Observer observer) {
+        return subscribe(SubscriptionFilter.ALL.eventTypes(eventTypes), observer, true);
+    }
+
+    @Override
+    public Subscription subscribe(final SubscriptionFilter subscriptionFilter, final Observer observer) {
+        return subscribe(subscriptionFilter, observer, false);
+    }
+
+    @Override
+    public Subscription subscribeWeakly(final SubscriptionFilter subscriptionFilter, final Observer observer) {
+        return subscribe(subscriptionFilter, observer, true);
+    }
+
+    @Override
+    public synchronized void removeObserver(final Observer observer) {
+        for (int eventType = 0; eventType < entriesPerEventType.length(); eventType++) {
+            final Entry[] entries = entriesPerEventType.get(eventType);
+            if (Objects.nonNull(entries)) {
+                for (Entry entry : entries) {
+                    if (entry.observer() == observer) {
+                        entry.cancel();
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void notifyObservers(final Event event) {
-        final EventType eventType = event.getEventType();
-        final Set<Observer> observers = new LinkedHashSet<>();
-        final Set<Observer> currentObservers = this.observerMap.get(eventType);
-        if (Objects.nonNull(currentObservers)) {
-            observers.addAll(currentObservers);
+        // observers added while notifying are not notified about this event
+        final int eventType = event.getEventType().ordinal();
+        final Entry[] entries = this.entriesPerEventType.get(eventType);
+        if (Objects.isNull(entries)) {
+            return;
+        }
+
+        final int playerBit = SubscriptionFilter.playerBitOf(event.getPlayerType());
+        final int pitBit = SubscriptionFilter.pitBitOf(event.getOriginPitId());
+        final int numberOfSeeds = event.getNumberOfSeeds();
+        for (Entry entry : entries) {
+            final Observer observer = entry.observer();
+            if (Objects.nonNull(observer)) {
+                if ((entry.playerMask & playerBit) != 0 && (entry.pitMask & pitBit) != 0 && numberOfSeeds >= entry.minimumNumberOfSeeds) {
+                    observer.update(this, event);
+                }
+            } else {
+                // cancelled, or weakly referenced observer is garbage collected
+                entry.cancel();
+            }
+        }
+
+        if (numberOfCancelledEntries.get(eventType) > entries.length / 2) {
+            compact(eventType);
+        }
+    }
+
+    private Subscription subscribe(final SubscriptionFilter subscriptionFilter, final Observer observer, final boolean weak) {
+        final List<Entry> entries = new ArrayList<>();
+        for (EventType eventType : EventType.values()) {
+            if (subscriptionFilter.matches(eventType)) {
+                entries.add(entryOf(eventType, observer, subscriptionFilter, weak));
+            }
+        }
+        return entries.size() == 1 ? entries.get(0) : new MultiSubscription(entries.toArray(new Entry[entries.size()]));
+    }
+
+    /**
+     * @return subscription of the observer for the event type (an observer is only subscribed once per event type and filter)
+     */
+    private synchronized Entry entryOf(final EventType eventType, final Observer observer, final SubscriptionFilter filter, final boolean weak) {
+        // e.g. addObserver(eventType, ..) and subscribe(Set, ..) of the same observer is one subscription for that event type
+        final SubscriptionFilter subscriptionFilter = filter.forAllEventTypes();
+        final Entry[] entries = entriesPerEventType.get(eventType.ordinal());
+        final int numberOfEntries = Objects.isNull(entries) ? 0 : entries.length;
+        for (int i = 0; i < numberOfEntries; i++) {
+            if (entries[i].observer() == observer && entries[i].subscriptionFilter.equals(subscriptionFilter)) {
+                return entries[i];
+            }
+        }
+
+        final Entry entry = new Entry(eventType.ordinal(), observer, subscriptionFilter, weak);
+        final Entry[] newEntries = new Entry[numberOfEntries + 1];
+        if (numberOfEntries > 0) {
+            System.arraycopy(entries, 0, newEntries, 0, numberOfEntries);
+        }
+        newEntries[numberOfEntries] = entry;
+        entriesPerEventType.set(eventType.ordinal(), newEntries);
+        return entry;
+    }
+
+    private synchronized void compact(final int eventType) {
+        final Entry[] entries = entriesPerEventType.get(eventType);
+        final Entry[] activeEntries = new Entry[entries.length];
+        int numberOfActiveEntries = 0;
+        for (Entry entry : entries) {
+            if (entry.isActive()) {
+                activeEntries[numberOfActiveEntries++] = entry;
+            } else {
+                // also counts garbage collected observers, which are not cancelled yet
+                entry.cancel();
+            }
+        }
+
+        entriesPerEventType.set(eventType, Arrays.copyOf(activeEntries, numberOfActiveEntries));
+        numberOfCancelledEntries.addAndGet(eventType, numberOfActiveEntries - entries.length);
+    }
+
+    /**
+     * Subscription of an observer for one event type.
+     */
+    private final class Entry implements Subscription {
+        private final int eventType;
+        private final SubscriptionFilter subscriptionFilter;
+        private final int playerMask;
+        private final int pitMask;
+        private final int minimumNumberOfSeeds;
+        private final Observer observer;
+        private final WeakReference<Observer> weakObserver;
+        private final AtomicBoolean active;
+
+        private Entry(final int eventType, final Observer observer, final SubscriptionFilter subscriptionFilter, final boolean weak) {
+            this.eventType = eventType;
+            this.subscriptionFilter = subscriptionFilter;
+            this.playerMask = subscriptionFilter.getPlayerMask();
+            this.pitMask = subscriptionFilter.getPitMask();
+            this.minimumNumberOfSeeds = subscriptionFilter.getMinimumNumberOfSeeds();
+            this.observer = weak ? null : observer;
+            this.weakObserver = weak ? new WeakReference<>(observer) : null;
+            this.active = new AtomicBoolean(true);
         }
 
-        observers.stream().forEach(observer -> observer.update(this, event));
+        /**
+         * @return the observer, or null when the subscription is no longer active
+         */
+        private Observer observer() {
+            if (!active.get()) {
+                return null;
+            }
+            return Objects.isNull(weakObserver) ? observer : weakObserver.get();
+        }
+
+        @Override
+        public void cancel() {
+            if (active.compareAndSet(true, false)) {
+                numberOfCancelledEntries.incrementAndGet(eventType);
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return Objects.nonNull(observer());
+        }
+    }
+
+    /**
+     * Subscription of an observer for several event types.
+     */
+    private static final class MultiSubscription implements Subscription {
+        private final Entry[] entries;
+
+        private MultiSubscription(final Entry[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public void cancel() {
+            for (Entry entry : entries) {
+                entry.cancel();
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            for (Entry entry : entries) {
+                if (entry.isActive()) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
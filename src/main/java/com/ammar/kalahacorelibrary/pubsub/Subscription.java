@@ -0,0 +1,18 @@
+package com.ammar.kalahacorelibrary.pubsub;
+
+/**
+ * Handle of an observer subscription, returned by Observable.subscribe(..), to remove the observer again.
+ */
+public interface Subscription {
+
+    /**
+     * Remove the observer (for all event types of this subscription), the observer won't be notified anymore.
+     * Cancelling a subscription that is already cancelled has no effect.
+     */
+    void cancel();
+
+    /**
+     * @return false when the subscription is cancelled, or when a weakly referenced observer has been garbage collected
+     */
+    boolean isActive();
+}
@@ -0,0 +1,170 @@
+package com.ammar.kalahacorelibrary.pubsub;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable filter of a subscription, compiled into bitmasks: the observable checks the filter before notifying the observer,
+ * so an observer is only invoked for the events it is interested in.
+ * <p>
+ * <pre>
+ *
+ *     SubscriptionFilter.ALL.players(PlayerType.PLAYER_2).pits(PitId.PIT_7, PitId.KALAHA_PIT_2).minimumNumberOfSeeds(1)
+ *
+ * </pre>
+ */
+public final class SubscriptionFilter {
+
+    /**
+     * Bit of events that don't originate from a pit (e.g. from the Referee) in the pit mask
+     */
+    public static final int NO_PIT = 1 << PitId.values().length;
+
+    /**
+     * Bit of events without a player in the player mask
+     */
+    public static final int NO_PLAYER = 1;
+
+    private static final int ALL_PLAYERS = (1 << (PlayerType.values().length + 1)) - 1;
+    private static final int ALL_PITS = (NO_PIT << 1) - 1;
+    private static final int ALL_EVENT_TYPES = (1 << EventType.values().length) - 1;
+
+    /**
+     * Filter that matches every event
+     */
+    public static final SubscriptionFilter ALL = new SubscriptionFilter(ALL_PLAYERS, ALL_PITS, ALL_EVENT_TYPES, Integer.MIN_VALUE);
+
+    private final int playerMask;
+    private final int pitMask;
+    private final int eventTypeMask;
+    private final int minimumNumberOfSeeds;
+
+    private SubscriptionFilter(final int playerMask, final int pitMask, final int eventTypeMask, final int minimumNumberOfSeeds) {
+        this.playerMask = playerMask;
+        this.pitMask = pitMask;
+        this.eventTypeMask = eventTypeMask;
+        this.minimumNumberOfSeeds = minimumNumberOfSeeds;
+    }
+
+    /**
+     * @return filter that only matches events of the given players
+     */
+    public SubscriptionFilter players(final PlayerType... playerTypes) {
+        int mask = 0;
+        for (PlayerType playerType : playerTypes) {
+            mask |= playerBitOf(playerType);
+        }
+        return new SubscriptionFilter(mask, pitMask, eventTypeMask, minimumNumberOfSeeds);
+    }
+
+    /**
+     * @return filter that only matches events originating from the given pits
+     */
+    public SubscriptionFilter pits(final PitId... pitIds) {
+        int mask = 0;
+        for (PitId pitId : pitIds) {
+            mask |= pitId.getMask();
+        }
+        return new SubscriptionFilter(playerMask, mask, eventTypeMask, minimumNumberOfSeeds);
+    }
+
+    /**
+     * @param mask combination of PitId.getMask() and NO_PIT
+     */
+    public SubscriptionFilter pitMask(final int mask) {
+        return new SubscriptionFilter(playerMask, mask & ALL_PITS, eventTypeMask, minimumNumberOfSeeds);
+    }
+
+    public SubscriptionFilter eventTypes(final Set<EventType> eventTypes) {
+        int mask = 0;
+        for (EventType eventType : eventTypes) {
+            mask |= 1 << eventType.ordinal();
+        }
+        return new SubscriptionFilter(playerMask, pitMask, mask, minimumNumberOfSeeds);
+    }
+
+    public SubscriptionFilter eventTypes(final EventType eventType, final EventType... otherEventTypes) {
+        return eventTypes(EnumSet.of(eventType, otherEventTypes));
+    }
+
+    /**
+     * @return filter that only matches events with at least the given number of seeds
+     */
+    public SubscriptionFilter minimumNumberOfSeeds(final int numberOfSeeds) {
+        return new SubscriptionFilter(playerMask, pitMask, eventTypeMask, numberOfSeeds);
+    }
+
+    public boolean matches(final Event event) {
+        return (eventTypeMask & (1 << event.getEventType().ordinal())) != 0
+                && (playerMask & playerBitOf(event.getPlayerType())) != 0
+                && (pitMask & pitBitOf(event.getOriginPitId())) != 0
+                && event.getNumberOfSeeds() >= minimumNumberOfSeeds;
+    }
+
+    public boolean matches(final EventType eventType) {
+        return (eventTypeMask & (1 << eventType.ordinal())) != 0;
+    }
+
+    /**
+     * @return this filter for all event types: the subscription of one event type only depends on the other parts of the filter,
+     * so equal subscriptions are recognized whatever set of event types they were made for
+     */
+    SubscriptionFilter forAllEventTypes() {
+        if (eventTypeMask == ALL_EVENT_TYPES) {
+            return this;
+        }
+        return new SubscriptionFilter(playerMask, pitMask, ALL_EVENT_TYPES, minimumNumberOfSeeds);
+    }
+
+    static int playerBitOf(final PlayerType playerType) {
+        return Objects.isNull(playerType) ? NO_PLAYER : 1 << (playerType.ordinal() + 1);
+    }
+
+    static int pitBitOf(final PitId pitId) {
+        return Objects.isNull(pitId) ? NO_PIT : pitId.getMask();
+    }
+
+    int getPlayerMask() {
+        return playerMask;
+    }
+
+    int getPitMask() {
+        return pitMask;
+    }
+
+    int getMinimumNumberOfSeeds() {
+        return minimumNumberOfSeeds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SubscriptionFilter that = (SubscriptionFilter) o;
+        return playerMask == that.playerMask &&
+                pitMask == that.pitMask &&
+                eventTypeMask == that.eventTypeMask &&
+                minimumNumberOfSeeds == that.minimumNumberOfSeeds;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(playerMask, pitMask, eventTypeMask, minimumNumberOfSeeds);
+    }
+
+    @Override
+    public String toString() {
+        return "SubscriptionFilter {" +
+                "playerMask=" + Integer.toBinaryString(playerMask) +
+                ", pitMask=" + Integer.toBinaryString(pitMask) +
+                ", eventTypeMask=" + Integer.toBinaryString(eventTypeMask) +
+                ", minimumNumberOfSeeds=" + minimumNumberOfSeeds +
+                '}';
+    }
+}
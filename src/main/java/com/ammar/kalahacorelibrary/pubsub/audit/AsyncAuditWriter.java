@@ -0,0 +1,159 @@
+package com.ammar.kalahacorelibrary.pubsub.audit;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Hands audit log entries over from the game threads to one background writer thread, thru a pre-allocated ring buffer.
+ * <p>
+ * Game threads only claim a slot and store the publisher and the event in it: nothing is formatted and no garbage is created.
+ * The background thread formats the log message and writes it. When the ring buffer is full, the entry is dropped (and counted)
+ * rather than blocking the game thread, the writer thread reports dropped entries with a WARN at most once per warn interval.
+ * <p>
+ * The writer thread is parked while there is nothing to write, a game thread only unparks it when it is actually waiting.
+ */
+final class AsyncAuditWriter {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static volatile AsyncAuditWriter instance;
+
+    private final Logger logger = Logger.getLogger(ReplayableEventPublisher.class);
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong nextSequenceToClaim;
+    private final AtomicLong nextSequenceToWrite;
+    private final AtomicLong numberOfDroppedEntries;
+    private final BiConsumer<Object, Event> auditLog;
+    private final Thread writer;
+    private volatile boolean writerWaiting;
+    private long numberOfReportedDrops;
+    private long lastDropWarning;
+
+    /**
+     * @param auditLog writes one entry (publisher and event), called from the writer thread only
+     */
+    AsyncAuditWriter(final int capacity, final BiConsumer<Object, Event> auditLog) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity of the audit ring buffer should be a power of 2: " + capacity);
+        }
+
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+        nextSequenceToClaim = new AtomicLong();
+        nextSequenceToWrite = new AtomicLong();
+        numberOfDroppedEntries = new AtomicLong();
+        this.auditLog = auditLog;
+        lastDropWarning = System.nanoTime() - WARN_INTERVAL_NANOS;
+
+        writer = new Thread(this::writeEntries, "kalaha-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Process-wide writer, started on first use. The ring buffer capacity can be configured with "kalaha.audit.bufferSize".
+     */
+    static AsyncAuditWriter getInstance() {
+        AsyncAuditWriter asyncAuditWriter = instance;
+        if (asyncAuditWriter == null) {
+            synchronized (AsyncAuditWriter.class) {
+                asyncAuditWriter = instance;
+                if (asyncAuditWriter == null) {
+                    final Logger auditLogger = Logger.getLogger(ReplayableEventPublisher.class);
+                    asyncAuditWriter = new AsyncAuditWriter(Integer.getInteger("kalaha.audit.bufferSize", DEFAULT_CAPACITY),
+                            (publisher, event) -> auditLogger.info("Publisher: " + publisher + " - " + event));
+                    instance = asyncAuditWriter;
+                }
+            }
+        }
+        return asyncAuditWriter;
+    }
+
+    /**
+     * Hand over an entry to the writer thread, never blocks.
+     *
+     * @return false when the ring buffer is full and the entry is dropped
+     */
+    boolean offer(final Object publisher, final Event event) {
+        long sequence;
+        do {
+            sequence = nextSequenceToClaim.get();
+            if (sequence - nextSequenceToWrite.get() >= slots.length) {
+                numberOfDroppedEntries.incrementAndGet();
+                return false;
+            }
+        } while (!nextSequenceToClaim.compareAndSet(sequence, sequence + 1));
+
+        final Slot slot = slots[(int) (sequence & mask)];
+        slot.publisher = publisher;
+        slot.event = event;
+        slot.sequence = sequence; // publish the entry to the writer thread
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of entries dropped since the writer started (ring buffer full, or failing audit log)
+     */
+    long getNumberOfDroppedEntries() {
+        return numberOfDroppedEntries.get();
+    }
+
+    private void writeEntries() {
+        long sequence = nextSequenceToWrite.get();
+        while (true) {
+            final Slot slot = slots[(int) (sequence & mask)];
+            if (slot.sequence != sequence) {
+                reportDroppedEntries();
+                // announce the wait before checking again, so an entry published in between always unparks the writer
+                writerWaiting = true;
+                if (slot.sequence != sequence) {
+                    LockSupport.park(this);
+                }
+                writerWaiting = false;
+                continue;
+            }
+
+            final Object publisher = slot.publisher;
+            final Event event = slot.event;
+            slot.publisher = null;
+            slot.event = null;
+            sequence++;
+            nextSequenceToWrite.lazySet(sequence);
+
+            try {
+                auditLog.accept(publisher, event);
+            } catch (RuntimeException e) {
+                // never let a failing appender stop the writer thread
+                numberOfDroppedEntries.incrementAndGet();
+            }
+            reportDroppedEntries();
+        }
+    }
+
+    private void reportDroppedEntries() {
+        final long numberOfDrops = numberOfDroppedEntries.get();
+        if (numberOfDrops != numberOfReportedDrops && System.nanoTime() - lastDropWarning >= WARN_INTERVAL_NANOS) {
+            logger.warn("Audit log can't keep up, " + (numberOfDrops - numberOfReportedDrops) + " entries dropped (" + numberOfDrops + " in total)");
+            numberOfReportedDrops = numberOfDrops;
+            lastDropWarning = System.nanoTime();
+        }
+    }
+
+    private static final class Slot {
+        private volatile long sequence = -1;
+        private Object publisher;
+        private Event event;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ammar.kalahacorelibrary.pubsub.audit;
+
+/**
+ * Audit modes of the ReplayableEventPublisher.
+ */
+public enum AuditMode {
+    /**
+     * Nothing is logged
+     */
+    OFF,
+    /**
+     * Only 1 in N games logs all of its events (asynchronously), the other games only log errors
+     */
+    SAMPLED,
+    /**
+     * Only events that failed to be delivered to the observers are logged
+     */
+    ERRORS_ONLY,
+    /**
+     * All events are logged (asynchronously)
+     */
+    FULL
+}
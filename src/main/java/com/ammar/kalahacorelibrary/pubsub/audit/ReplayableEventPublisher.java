@@ -7,24 +7,72 @@ import com.ammar.kalahacorelibrary.pubsub.ObservableBase;
 import com.ammar.kalahacorelibrary.pubsub.Observer;
 import org.apache.log4j.Logger;
 
-import java.util.LinkedHashMap;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Replay-able logger, to recreate situation based on events
  * <p>
+ * The audit mode decides what is logged (see AuditMode), by default it is configured with the system properties
+ * "kalaha.audit.mode" (default FULL) and "kalaha.audit.sampleRate" (1 in N games for SAMPLED mode, default 100).
+ * Events are logged asynchronously, so the game thread never waits for the log appender.
+ * <p>
  * Created by amhamid on 7/24/15.
  */
 public class ReplayableEventPublisher extends ObservableBase implements Observer {
+    private static final AtomicLong NUMBER_OF_PUBLISHERS = new AtomicLong();
+
     private final Logger logger = Logger.getLogger(ReplayableEventPublisher.class);
+    private final AuditMode auditMode;
+    private final boolean logAllEvents;
+    private final boolean logErrors;
 
     public ReplayableEventPublisher() {
-        this.observerMap = new LinkedHashMap<>();
+        this(AuditMode.valueOf(System.getProperty("kalaha.audit.mode", AuditMode.FULL.name())));
+    }
+
+    public ReplayableEventPublisher(final AuditMode auditMode) {
+        this(auditMode, Integer.getInteger("kalaha.audit.sampleRate", 100));
+    }
+
+    /**
+     * @param sampleRate only used in SAMPLED mode: 1 in sampleRate publishers (games) logs all of its events
+     */
+    public ReplayableEventPublisher(final AuditMode auditMode, final int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate should be bigger than 0");
+        }
+
+        this.auditMode = auditMode;
+        switch (auditMode) {
+            case FULL:
+                logAllEvents = true;
+                break;
+            case SAMPLED:
+                logAllEvents = NUMBER_OF_PUBLISHERS.getAndIncrement() % sampleRate == 0;
+                break;
+            default:
+                logAllEvents = false;
+                break;
+        }
+        logErrors = auditMode != AuditMode.OFF;
     }
 
     public void update(final Observable observable, final Event event) {
-        logger.info("Publisher: " + observable + " - " + event);
-        publishEvent(event);
+        if (logAllEvents) {
+            AsyncAuditWriter.getInstance().offer(observable, event);
+        }
+
+        if (logErrors) {
+            try {
+                publishEvent(event);
+            } catch (RuntimeException e) {
+                logger.error("Publisher: " + observable + " - " + event + " could not be delivered to all observers", e);
+                throw e;
+            }
+        } else {
+            publishEvent(event);
+        }
     }
 
     @Override
@@ -32,6 +80,24 @@ public class ReplayableEventPublisher extends ObservableBase implements Observer
         eventTypes.stream().forEach(eventType -> addObserver(eventType, observer));
     }
 
+    public AuditMode getAuditMode() {
+        return auditMode;
+    }
+
+    /**
+     * @return number of audit log entries (of all publishers) dropped because the audit log couldn't keep up
+     */
+    public static long getNumberOfDroppedAuditEntries() {
+        return AsyncAuditWriter.getInstance().getNumberOfDroppedEntries();
+    }
+
+    /**
+     * @return true when all events of this publisher are logged
+     */
+    public boolean isLoggingAllEvents() {
+        return logAllEvents;
+    }
+
     private void publishEvent(final Event event) {
         notifyObservers(event);
     }
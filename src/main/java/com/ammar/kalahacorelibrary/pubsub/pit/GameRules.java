@@ -0,0 +1,23 @@
+package com.ammar.kalahacorelibrary.pubsub.pit;
+
+/**
+ * Rules of a Kalaha variant as far as the pits and the referee need them (e.g. RuleSet of the engine).
+ * Players are given by their ordinal (0 for PLAYER_1, 1 for PLAYER_2).
+ */
+public interface GameRules {
+
+    /**
+     * @return whether the last seed of the mover, ending in an empty normal pit he owns, captures the seeds of the opposite pit
+     */
+    boolean isCapture(int seedsInOppositePit);
+
+    /**
+     * @return whether the last seed in the own Kalaha pit gives the mover another turn
+     */
+    boolean isExtraTurn();
+
+    /**
+     * @return seeds counting for the given player at the end of the game, when all normal pits of emptySide are empty
+     */
+    int totalSeedsOf(int player, int emptySide, int kalahaSeeds, int normalSeedsPlayer1, int normalSeedsPlayer2);
+}
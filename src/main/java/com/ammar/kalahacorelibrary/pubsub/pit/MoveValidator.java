@@ -0,0 +1,14 @@
+package com.ammar.kalahacorelibrary.pubsub.pit;
+
+/**
+ * Decides whether an initial move from a pit is allowed, before the pit publishes anything.
+ */
+public interface MoveValidator {
+
+    boolean isLegalMove(PitId pitId);
+
+    /**
+     * @return why a move from the given pit is not allowed (only called for an illegal move)
+     */
+    String describeIllegalMove(PitId pitId);
+}
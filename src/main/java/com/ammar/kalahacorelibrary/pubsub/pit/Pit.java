@@ -6,7 +6,6 @@ import com.ammar.kalahacorelibrary.player.PlayerType;
 import com.ammar.kalahacorelibrary.pubsub.ObservableBase;
 import com.ammar.kalahacorelibrary.pubsub.Observer;
 
-import java.util.LinkedHashMap;
 import java.util.Set;
 
 /**
@@ -19,20 +18,32 @@ import java.util.Set;
 public abstract class Pit extends ObservableBase implements Observer {
 
     private final PlayerType playerType;
-    private final String pitIdentifier;
+    private final PitId pitId;
     private int numberOfSeeds;
 
-    public Pit(final PlayerType playerType, final String pitIdentifier, final int initialNumberOfSeeds) {
-        this.playerType = playerType;
-        this.pitIdentifier = pitIdentifier;
+    public Pit(final PitId pitId, final int initialNumberOfSeeds) {
+        this.playerType = pitId.getPlayerType();
+        this.pitId = pitId;
         this.numberOfSeeds = initialNumberOfSeeds;
-        this.observerMap = new LinkedHashMap<>();
     }
 
     public abstract void initialMove();
 
     public abstract void publishNotEmptyEvent();
 
+    /**
+     * Restore number of seeds (e.g. when a move is taken back) and let observers know about the new state of the pit.
+     */
+    public abstract void restoreNumberOfSeeds(int numberOfSeeds);
+
+    /**
+     * Set number of seeds without letting anyone know (e.g. when a position is set up before anyone observes the board),
+     * the caller is responsible for publishing the new state of the board.
+     */
+    public void loadNumberOfSeeds(final int numberOfSeeds) {
+        setNumberOfSeeds(numberOfSeeds);
+    }
+
     @Override
     public void addObserver(final Set<EventType> eventTypes, final Observer observer) {
         eventTypes.stream().forEach(eventType -> addObserver(eventType, observer));
@@ -42,8 +53,15 @@ public abstract class Pit extends ObservableBase implements Observer {
         return playerType;
     }
 
+    public PitId getPitId() {
+        return pitId;
+    }
+
+    /**
+     * @return display name of the pit, e.g. "Pit 7"
+     */
     public String getPitIdentifier() {
-        return pitIdentifier;
+        return pitId.getDisplayName();
     }
 
     public int getNumberOfSeeds() {
@@ -51,8 +69,7 @@ public abstract class Pit extends ObservableBase implements Observer {
     }
 
     protected void publishEvent(final PlayerType playerType, final EventType eventType, final int numberOfSeeds) {
-        final Event event = new Event(playerType, getPitIdentifier(), eventType, numberOfSeeds);
-        notifyObservers(event);
+        notifyObservers(Event.of(playerType, pitId, eventType, numberOfSeeds));
     }
 
     protected void setNumberOfSeeds(int numberOfSeeds) {
@@ -81,14 +98,14 @@ public abstract class Pit extends ObservableBase implements Observer {
 
         if (numberOfSeeds != pit.numberOfSeeds) return false;
         if (playerType != pit.playerType) return false;
-        return !(pitIdentifier != null ? !pitIdentifier.equals(pit.pitIdentifier) : pit.pitIdentifier != null);
+        return pitId == pit.pitId;
 
     }
 
     @Override
     public int hashCode() {
         int result = playerType != null ? playerType.hashCode() : 0;
-        result = 31 * result + (pitIdentifier != null ? pitIdentifier.hashCode() : 0);
+        result = 31 * result + (pitId != null ? pitId.hashCode() : 0);
         result = 31 * result + numberOfSeeds;
         return result;
     }
@@ -0,0 +1,99 @@
+package com.ammar.kalahacorelibrary.pubsub.pit;
+
+import com.ammar.kalahacorelibrary.player.PlayerType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Identifier of a pit on the board. The ordinal of a pit is its index on the board (also used by KalahaRules),
+ * the display name (e.g. "Pit 7") is only meant to be shown to players.
+ * <p>
+ * <pre>
+ *
+ *     -------------------------------------------------------------------------
+ *     |             Pit12   Pit11   Pit10   Pit9    Pit8    Pit7              |
+ *     |                                                                       |
+ *     | KalahaPit2                                                 KalahaPit1 |
+ *     |                                                                       |
+ *     |             Pit1    Pit2    Pit3    Pit4    Pit5    Pit6              |
+ *     -------------------------------------------------------------------------
+ *
+ * </pre>
+ */
+public enum PitId {
+    PIT_1("Pit 1", PlayerType.PLAYER_1),
+    PIT_2("Pit 2", PlayerType.PLAYER_1),
+    PIT_3("Pit 3", PlayerType.PLAYER_1),
+    PIT_4("Pit 4", PlayerType.PLAYER_1),
+    PIT_5("Pit 5", PlayerType.PLAYER_1),
+    PIT_6("Pit 6", PlayerType.PLAYER_1),
+    KALAHA_PIT_1("KalahaPit 1", PlayerType.PLAYER_1),
+    PIT_7("Pit 7", PlayerType.PLAYER_2),
+    PIT_8("Pit 8", PlayerType.PLAYER_2),
+    PIT_9("Pit 9", PlayerType.PLAYER_2),
+    PIT_10("Pit 10", PlayerType.PLAYER_2),
+    PIT_11("Pit 11", PlayerType.PLAYER_2),
+    PIT_12("Pit 12", PlayerType.PLAYER_2),
+    KALAHA_PIT_2("KalahaPit 2", PlayerType.PLAYER_2);
+
+    private static final PitId[] PIT_IDS = values();
+    private static final Map<String, PitId> PIT_IDS_BY_DISPLAY_NAME = new HashMap<>();
+
+    static {
+        for (PitId pitId : PIT_IDS) {
+            PIT_IDS_BY_DISPLAY_NAME.put(pitId.getDisplayName(), pitId);
+        }
+    }
+
+    private final String displayName;
+    private final PlayerType playerType;
+
+    PitId(final String displayName, final PlayerType playerType) {
+        this.displayName = displayName;
+        this.playerType = playerType;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return owner of the pit
+     */
+    public PlayerType getPlayerType() {
+        return playerType;
+    }
+
+    public boolean isKalahaPit() {
+        return this == KALAHA_PIT_1 || this == KALAHA_PIT_2;
+    }
+
+    /**
+     * @return index of the pit on the board (0 .. 13)
+     */
+    public int getIndex() {
+        return ordinal();
+    }
+
+    /**
+     * @return bit of this pit in a pit bitmask
+     */
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
+    public static PitId of(final int index) {
+        if (index < 0 || index >= PIT_IDS.length) {
+            throw new IllegalArgumentException("Pit index should be between 0 and 13: " + index);
+        }
+        return PIT_IDS[index];
+    }
+
+    /**
+     * @return pit id with the given display name, or null when it is not the name of a pit (e.g. "Referee")
+     */
+    public static PitId fromDisplayName(final String displayName) {
+        return PIT_IDS_BY_DISPLAY_NAME.get(displayName);
+    }
+}
@@ -1,11 +1,15 @@
 package com.ammar.kalahacorelibrary.pubsub.pit.impl;
 
 import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.pit.GameRules;
 import com.ammar.kalahacorelibrary.pubsub.pit.Pit;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
 import com.ammar.kalahacorelibrary.event.Event;
 import com.ammar.kalahacorelibrary.event.EventType;
 import com.ammar.kalahacorelibrary.player.PlayerType;
 
+import java.util.Objects;
+
 /**
  * Kalaha pit is representing one of one store pit for each player.
  * So total in a board, there are 2 KalahaPit objects.
@@ -14,8 +18,17 @@ import com.ammar.kalahacorelibrary.player.PlayerType;
  */
 public class KalahaPit extends Pit {
 
-    public KalahaPit(final PlayerType playerType, final String pitIdentifier, final int initialNumberOfSeeds) {
-        super(playerType, pitIdentifier, initialNumberOfSeeds);
+    private GameRules gameRules;
+
+    public KalahaPit(final PitId pitId, final int initialNumberOfSeeds) {
+        super(pitId, initialNumberOfSeeds);
+    }
+
+    /**
+     * Whether the last seed gives another turn follows the given rules. Without rules, the player can always play again (standard rules).
+     */
+    public void setGameRules(final GameRules gameRules) {
+        this.gameRules = gameRules;
     }
 
     @Override
@@ -28,6 +41,12 @@ public class KalahaPit extends Pit {
         // no need to publish NOT_EMPTY event for Kalaha pit
     }
 
+    @Override
+    public void restoreNumberOfSeeds(final int numberOfSeeds) {
+        setNumberOfSeeds(numberOfSeeds);
+        publishEvent(getPlayerType(), EventType.STORED, getNumberOfSeeds());
+    }
+
     @Override
     public void update(final Observable observable, final Event event) {
         switch (event.getEventType()) {
@@ -49,14 +68,14 @@ public class KalahaPit extends Pit {
                 } else if (numberOfSeedsInTheEventThatNeedToBePropagated > 1) {
                     publishEvent(event.getPlayerType(), EventType.MOVE, numberOfSeedsInTheEventThatNeedToBePropagated);
                 } else {
-                    publishEvent(event.getPlayerType(), EventType.CHANGE_TURN, event.getNumberOfSeeds());
+                    publishEvent(turnAfterTheLastSeed(event.getPlayerType()), EventType.CHANGE_TURN, event.getNumberOfSeeds());
                 }
                 break;
             case LAST_MOVE:
                 if (getPlayerType() == event.getPlayerType()) {
                     // for the last move in kalaha pit, the current player can play again
                     addOneSeed();
-                    publishEvent(event.getPlayerType(), EventType.CHANGE_TURN, event.getNumberOfSeeds()); // in CHANGE_TURN, number of seed is ignored
+                    publishEvent(turnAfterTheLastSeed(event.getPlayerType()), EventType.CHANGE_TURN, event.getNumberOfSeeds()); // in CHANGE_TURN, number of seed is ignored
                 } else {
                     // propagate the last move event, since player is not the owner of the kalaha pit
                     // number of seeds in the event remain untouched !!
@@ -73,6 +92,11 @@ public class KalahaPit extends Pit {
         }
     }
 
+    // player on turn when the last seed of the mover ends in this (own) Kalaha pit
+    private PlayerType turnAfterTheLastSeed(final PlayerType mover) {
+        return Objects.isNull(gameRules) || gameRules.isExtraTurn() ? mover : mover.changeTurn();
+    }
+
     // for testing purpose only !!
     // set number of seeds in Pit class has protected visibility
     public void setNumberOfSeedsForTestPurposeOnly(int numberOfSeeds) {
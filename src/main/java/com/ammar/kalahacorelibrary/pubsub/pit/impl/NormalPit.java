@@ -2,9 +2,13 @@ package com.ammar.kalahacorelibrary.pubsub.pit.impl;
 
 import com.ammar.kalahacorelibrary.event.Event;
 import com.ammar.kalahacorelibrary.event.EventType;
-import com.ammar.kalahacorelibrary.player.PlayerType;
 import com.ammar.kalahacorelibrary.pubsub.Observable;
+import com.ammar.kalahacorelibrary.pubsub.pit.GameRules;
+import com.ammar.kalahacorelibrary.pubsub.pit.MoveValidator;
 import com.ammar.kalahacorelibrary.pubsub.pit.Pit;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+
+import java.util.Objects;
 
 /**
  * Normal pit is representing one of the 6 pits for each player.
@@ -14,12 +18,37 @@ import com.ammar.kalahacorelibrary.pubsub.pit.Pit;
  */
 public class NormalPit extends Pit {
 
-    public NormalPit(final PlayerType playerType, final String pitIdentifier, final int initialNumberOfSeeds) {
-        super(playerType, pitIdentifier, initialNumberOfSeeds);
+    private MoveValidator moveValidator;
+    private GameRules gameRules;
+    private Pit oppositePit;
+
+    public NormalPit(final PitId pitId, final int initialNumberOfSeeds) {
+        super(pitId, initialNumberOfSeeds);
+    }
+
+    /**
+     * Every initial move is checked by the given validator (e.g. the Referee of the board) before anything is published,
+     * an illegal move throws an IllegalStateException. Without a validator, any move is allowed.
+     */
+    public void setMoveValidator(final MoveValidator moveValidator) {
+        this.moveValidator = moveValidator;
+    }
+
+    /**
+     * Captures follow the given rules, checked with the seeds of the opposite pit. Without rules, the last seed in an empty own pit
+     * always captures (standard rules).
+     */
+    public void setGameRules(final GameRules gameRules, final Pit oppositePit) {
+        this.gameRules = gameRules;
+        this.oppositePit = oppositePit;
     }
 
     @Override
     public void initialMove() {
+        if (Objects.nonNull(moveValidator) && !moveValidator.isLegalMove(getPitId())) {
+            throw new IllegalStateException("Illegal move from " + getPitIdentifier() + ": " + moveValidator.describeIllegalMove(getPitId()));
+        }
+
         // get number of seeds
         final int initialNumberOfSeeds = getNumberOfSeeds();
 
@@ -40,6 +69,16 @@ public class NormalPit extends Pit {
         publishEvent(getPlayerType(), EventType.NOT_EMPTY, getNumberOfSeeds());
     }
 
+    @Override
+    public void restoreNumberOfSeeds(final int numberOfSeeds) {
+        setNumberOfSeeds(numberOfSeeds);
+        if (getNumberOfSeeds() == 0) {
+            publishEvent(getPlayerType(), EventType.EMPTY, getNumberOfSeeds());
+        } else {
+            publishEvent(getPlayerType(), EventType.NOT_EMPTY, getNumberOfSeeds());
+        }
+    }
+
     @Override
     public void update(final Observable observable, final Event event) {
         switch (event.getEventType()) {
@@ -87,21 +126,17 @@ public class NormalPit extends Pit {
         }
     }
 
-    // check if current pit is empty and event has only 1 seed and current player owns the pit
+    // check if current pit is empty and event has only 1 seed and current player owns the pit (and the rules allow the capture)
     // this is as an indication whether we should send CAPTURE event
     private boolean shouldSendCaptureEvent(Event event) {
-        return getNumberOfSeeds() == 0 && event.getNumberOfSeeds() == 1 && getPlayerType() == event.getPlayerType();
+        return getNumberOfSeeds() == 0 && event.getNumberOfSeeds() == 1 && getPlayerType() == event.getPlayerType()
+                && (Objects.isNull(gameRules) || gameRules.isCapture(oppositePit.getNumberOfSeeds()));
     }
 
     // for testing purpose only !!
     // set number of seeds in Pit class has protected visibility
     public void setNumberOfSeedsForTestPurposeOnly(int numberOfSeeds) {
-        super.setNumberOfSeeds(numberOfSeeds);
-        if(getNumberOfSeeds() == 0) {
-            publishEvent(getPlayerType(), EventType.EMPTY, getNumberOfSeeds());
-        } else {
-            publishEvent(getPlayerType(), EventType.NOT_EMPTY, getNumberOfSeeds());
-        }
+        restoreNumberOfSeeds(numberOfSeeds);
     }
 
     // for testing purpose only !!
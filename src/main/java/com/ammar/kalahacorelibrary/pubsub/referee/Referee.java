@@ -4,12 +4,16 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import com.ammar.kalahacorelibrary.pubsub.Observable;
 import com.ammar.kalahacorelibrary.pubsub.ObservableBase;
 import com.ammar.kalahacorelibrary.pubsub.Observer;
+import com.ammar.kalahacorelibrary.pubsub.pit.GameRules;
+import com.ammar.kalahacorelibrary.pubsub.pit.MoveValidator;
 import com.ammar.kalahacorelibrary.pubsub.pit.Pit;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
 import com.ammar.kalahacorelibrary.event.Event;
 import com.ammar.kalahacorelibrary.event.EventType;
 import com.ammar.kalahacorelibrary.player.PlayerType;
@@ -19,95 +23,147 @@ import com.ammar.kalahacorelibrary.player.PlayerType;
  * <p>
  * Created by amhamid on 7/23/15.
  */
-public class Referee extends ObservableBase implements Observer {
+public class Referee extends ObservableBase implements Observer, MoveValidator {
 
-    private final Map<String, Pit> pitsForPlayer1;
-    private final Map<String, Pit> pitsForPlayer2;
-    private final Map<PlayerType, Set<String>> emptyPits;
-    private final Map<PlayerType, Set<String>> notEmptyPits;
+    // all 6 normal pits of a player are empty
+    private static final int ALL_PITS_EMPTY = 6;
+    private static final String REFEREE = "Referee";
+
+    // canonical referee events (per player turn, event type and number of seeds), see Event.of(..)
+    private static final Event[][][] CACHED_EVENTS = new Event[PlayerType.values().length + 1][EventType.values().length][Event.CACHED_NUMBER_OF_SEEDS];
+
+    private final Pit[] pits;
+    // per player (ordinal): bitmask of empty/not empty pits (see PitId.getMask())
+    private final int[] emptyPits;
+    private final int[] notEmptyPits;
+    // per player (ordinal): bitmask of the pits the player may move now, kept up to date with every change of the pits, turn or winner
+    private final int[] legalMoves;
     private PlayerType currentPlayerTurn;
     private PlayerType winner;
+    private GameRules gameRules;
 
     public Referee(final Map<String, Pit> pitsForPlayer1, final Map<String, Pit> pitsForPlayer2) {
-        this.pitsForPlayer1 = pitsForPlayer1;
-        this.pitsForPlayer2 = pitsForPlayer2;
+        pits = new Pit[PitId.values().length];
+        pitsForPlayer1.values().forEach(pit -> pits[pit.getPitId().ordinal()] = pit);
+        pitsForPlayer2.values().forEach(pit -> pits[pit.getPitId().ordinal()] = pit);
 
-        emptyPits = new LinkedHashMap<>();
-        emptyPits.put(PlayerType.PLAYER_1, new LinkedHashSet<>());
-        emptyPits.put(PlayerType.PLAYER_2, new LinkedHashSet<>());
-
-        notEmptyPits = new LinkedHashMap<>();
-        notEmptyPits.put(PlayerType.PLAYER_1, new LinkedHashSet<>());
-        notEmptyPits.put(PlayerType.PLAYER_2, new LinkedHashSet<>());
+        emptyPits = new int[PlayerType.values().length];
+        notEmptyPits = new int[PlayerType.values().length];
+        legalMoves = new int[PlayerType.values().length];
+    }
 
-        observerMap = new LinkedHashMap<>();
+    /**
+     * The remaining seeds at the end of the game count according to the given rules. Without rules, they count for their owner
+     * (standard rules).
+     */
+    public void setGameRules(final GameRules gameRules) {
+        this.gameRules = gameRules;
     }
 
     @Override
     public void update(final Observable observable, final Event event) {
-        final String originPitIdentifier = event.getOriginPitIdentifier();
-        final PlayerType playerType;
-        if (pitsForPlayer1.containsKey(originPitIdentifier)) {
-            playerType = PlayerType.PLAYER_1;
-        } else if (pitsForPlayer2.containsKey(originPitIdentifier)) {
-            playerType = PlayerType.PLAYER_2;
-        } else {
-            throw new IllegalArgumentException("Pit doesn't belong to any player: " + originPitIdentifier);
+        final PitId originPitId = event.getOriginPitId();
+        if (Objects.isNull(originPitId) || Objects.isNull(pits[originPitId.ordinal()])) {
+            throw new IllegalArgumentException("Pit doesn't belong to any player: " + event.getOriginPitIdentifier());
         }
 
-        final Set<String> emptyPitIdentifiers = emptyPits.get(playerType);
-        final Set<String> notEmptyPitIdentifiers = notEmptyPits.get(playerType);
+        final int player = originPitId.getPlayerType().ordinal();
+        final int pitMask = originPitId.getMask();
 
         switch (event.getEventType()) {
             case EMPTY:
-                // add to emptyPits
-                emptyPitIdentifiers.add(originPitIdentifier);
-                emptyPits.put(playerType, emptyPitIdentifiers);
-
-                // also check in the notEmptyPits map and if exists also remove it from there
-                notEmptyPitIdentifiers.remove(originPitIdentifier);
-                notEmptyPits.put(playerType, notEmptyPitIdentifiers);
+                // add to emptyPits and remove from notEmptyPits
+                emptyPits[player] |= pitMask;
+                notEmptyPits[player] &= ~pitMask;
                 break;
             case NOT_EMPTY:
-                // add to nonEmptyPits
-                notEmptyPitIdentifiers.add(originPitIdentifier);
-                notEmptyPits.put(playerType, notEmptyPitIdentifiers);
-
-                // also check in the emptyPits map and if exists also remove it from there
-                emptyPitIdentifiers.remove(originPitIdentifier);
-                emptyPits.put(playerType, emptyPitIdentifiers);
+                // add to notEmptyPits and remove from emptyPits
+                notEmptyPits[player] |= pitMask;
+                emptyPits[player] &= ~pitMask;
                 break;
             case CHANGE_TURN:
                 decideTheWinnerIfPossible();
                 this.currentPlayerTurn = event.getPlayerType();
                 break;
             default:
-                break;
+                return;
         }
+        updateLegalMoves();
     }
 
-    private void decideTheWinnerIfPossible() {
-        if (emptyPits.get(PlayerType.PLAYER_1).size() == 6) { // all pits for player 1 is empty
-            // compare Kalaha pit from player 1 with the rest of player 2
-            final int totalSeedPlayer1 = pitsForPlayer1.get("KalahaPit 1").getNumberOfSeeds();
+    @Override
+    public boolean isLegalMove(final PitId pitId) {
+        return (legalMoves[pitId.getPlayerType().ordinal()] & pitId.getMask()) != 0;
+    }
+
+    @Override
+    public String describeIllegalMove(final PitId pitId) {
+        if (isGameOver()) {
+            return "game is over";
+        }
+        if (Objects.nonNull(currentPlayerTurn) && currentPlayerTurn != pitId.getPlayerType()) {
+            return "it is the turn of " + currentPlayerTurn;
+        }
+        if (pitId.isKalahaPit()) {
+            return "a Kalaha pit can't be moved";
+        }
+        return isLegalMove(pitId) ? "move is legal" : "pit is empty";
+    }
 
-            int totalSeedPlayer2 =
-                    pitsForPlayer2.values().stream()
-                            .mapToInt(Pit::getNumberOfSeeds)
-                            .reduce(0, (total, seeds) -> total + seeds);
+    /**
+     * @return bitmask of the pits the given player may move now (see PitId.getMask()): his not empty pits when it is his turn
+     * (or when nobody has moved yet), nothing when the game is over
+     */
+    public int getLegalMoveMask(final PlayerType playerType) {
+        return legalMoves[playerType.ordinal()];
+    }
+
+    private boolean isGameOver() {
+        return Objects.nonNull(winner)
+                || Integer.bitCount(emptyPits[PlayerType.PLAYER_1.ordinal()]) == ALL_PITS_EMPTY
+                || Integer.bitCount(emptyPits[PlayerType.PLAYER_2.ordinal()]) == ALL_PITS_EMPTY;
+    }
 
-            publishWinnerEvent(totalSeedPlayer1, totalSeedPlayer2);
-        } else if (emptyPits.get(PlayerType.PLAYER_2).size() == 6) { // all pits for player 2 is empty
-            // compare Kalaha pit from player 2 with the rest of player 1
-            final int totalSeedPlayer2 = pitsForPlayer2.get("KalahaPit 2").getNumberOfSeeds();
+    private void updateLegalMoves() {
+        final boolean gameOver = isGameOver();
+        for (PlayerType playerType : PlayerType.values()) {
+            final boolean playerMayMove = !gameOver && (Objects.isNull(currentPlayerTurn) || currentPlayerTurn == playerType);
+            legalMoves[playerType.ordinal()] = playerMayMove ? notEmptyPits[playerType.ordinal()] : 0;
+        }
+    }
+
+    private void decideTheWinnerIfPossible() {
+        final PlayerType emptySide;
+        if (Integer.bitCount(emptyPits[PlayerType.PLAYER_1.ordinal()]) == ALL_PITS_EMPTY) { // all pits for player 1 is empty
+            emptySide = PlayerType.PLAYER_1;
+        } else if (Integer.bitCount(emptyPits[PlayerType.PLAYER_2.ordinal()]) == ALL_PITS_EMPTY) { // all pits for player 2 is empty
+            emptySide = PlayerType.PLAYER_2;
+        } else {
+            return;
+        }
 
-            int totalSeedPlayer1 =
-                    pitsForPlayer1.values().stream()
-                            .mapToInt(Pit::getNumberOfSeeds)
-                            .reduce(0, (total, seeds) -> total + seeds);
+        final int kalahaSeedsPlayer1 = pits[PitId.KALAHA_PIT_1.ordinal()].getNumberOfSeeds();
+        final int kalahaSeedsPlayer2 = pits[PitId.KALAHA_PIT_2.ordinal()].getNumberOfSeeds();
+        final int normalSeedsPlayer1 = totalSeedsOf(PlayerType.PLAYER_1) - kalahaSeedsPlayer1;
+        final int normalSeedsPlayer2 = totalSeedsOf(PlayerType.PLAYER_2) - kalahaSeedsPlayer2;
+        if (Objects.isNull(gameRules)) {
+            // compare Kalaha pit of the empty side with the rest of the other player
+            publishWinnerEvent(kalahaSeedsPlayer1 + normalSeedsPlayer1, kalahaSeedsPlayer2 + normalSeedsPlayer2);
+        } else {
+            publishWinnerEvent(
+                    gameRules.totalSeedsOf(0, emptySide.ordinal(), kalahaSeedsPlayer1, normalSeedsPlayer1, normalSeedsPlayer2),
+                    gameRules.totalSeedsOf(1, emptySide.ordinal(), kalahaSeedsPlayer2, normalSeedsPlayer1, normalSeedsPlayer2));
+        }
+    }
 
-            publishWinnerEvent(totalSeedPlayer1, totalSeedPlayer2);
+    private int totalSeedsOf(final PlayerType playerType) {
+        int totalSeeds = 0;
+        for (Pit pit : pits) {
+            if (Objects.nonNull(pit) && pit.getPlayerType() == playerType) {
+                totalSeeds += pit.getNumberOfSeeds();
+            }
         }
+        return totalSeeds;
     }
 
     private void publishWinnerEvent(int totalSeedPlayer1, int totalSeedPlayer2) {
@@ -123,24 +179,130 @@ public class Referee extends ObservableBase implements Observer {
         }
     }
 
+    /**
+     * Restore player turn and winner (e.g. when a move is taken back or re-applied).
+     * Empty and not empty pits are kept in sync by the EMPTY/NOT_EMPTY events of the restored pits.
+     *
+     * @param eventType UNDO_MOVE or REDO_MOVE, to let observers know about the restored situation
+     */
+    public void restore(final PlayerType currentPlayerTurn, final PlayerType winner, final EventType eventType) {
+        this.currentPlayerTurn = currentPlayerTurn;
+        this.winner = winner;
+        updateLegalMoves();
+        publishEvent(currentPlayerTurn, eventType, 0);
+    }
+
+    /**
+     * Take over the situation after a sequence of moves that has been applied without events per move (see KalahaBoard.applyMoves()):
+     * empty and not empty pits are read from the pits, the player turn is set and one MOVES_APPLIED event lets observers know
+     * about the new situation. It comes after the EMPTY/NOT_EMPTY/STORED events the changed pits have already published (one per
+     * pit), so observers see N + 1 events for N changed pits. When the moves decided the game, it is followed by WINS or TIE_GAME
+     * (like after a normal move).
+     */
+    public void movesApplied(final PlayerType currentPlayerTurn, final int numberOfMoves) {
+        for (PlayerType playerType : PlayerType.values()) {
+            emptyPits[playerType.ordinal()] = 0;
+            notEmptyPits[playerType.ordinal()] = 0;
+        }
+        for (Pit pit : pits) {
+            if (Objects.nonNull(pit) && !pit.getPitId().isKalahaPit()) {
+                if (pit.getNumberOfSeeds() == 0) {
+                    emptyPits[pit.getPlayerType().ordinal()] |= pit.getPitId().getMask();
+                } else {
+                    notEmptyPits[pit.getPlayerType().ordinal()] |= pit.getPitId().getMask();
+                }
+            }
+        }
+
+        this.currentPlayerTurn = currentPlayerTurn;
+        updateLegalMoves();
+        publishEvent(currentPlayerTurn, EventType.MOVES_APPLIED, numberOfMoves);
+        decideTheWinnerIfPossible();
+        updateLegalMoves();
+    }
+
+    /**
+     * Flag the given player: he ran out of time for his move, so the other player wins the game.
+     * Publishes TIMEOUT (for the flagged player), followed by WINS (for the other player).
+     *
+     * @return false when the game already has a winner (nothing is published)
+     */
+    public boolean flagTimeout(final PlayerType playerType) {
+        if (Objects.nonNull(winner)) {
+            return false;
+        }
+
+        final PlayerType otherPlayer = playerType.changeTurn();
+        publishEvent(playerType, EventType.TIMEOUT, 0);
+        this.winner = otherPlayer;
+        updateLegalMoves();
+        publishEvent(otherPlayer, EventType.WINS, pits[otherPlayer == PlayerType.PLAYER_1 ? PitId.KALAHA_PIT_1.ordinal() : PitId.KALAHA_PIT_2.ordinal()].getNumberOfSeeds());
+        return true;
+    }
+
     @Override
     public void addObserver(final Set<EventType> eventTypes, final Observer observer) {
         eventTypes.stream().forEach(eventType -> addObserver(eventType, observer));
     }
 
     private void publishEvent(final PlayerType playerType, final EventType eventType, final int numberOfSeeds) {
-        final Event event = new Event(playerType, "Referee", eventType, numberOfSeeds);
-        notifyObservers(event);
+        notifyObservers(eventOf(playerType, eventType, numberOfSeeds));
     }
 
-    // defensive copy on map
+    private static Event eventOf(final PlayerType playerType, final EventType eventType, final int numberOfSeeds) {
+        if (numberOfSeeds < 0 || numberOfSeeds >= Event.CACHED_NUMBER_OF_SEEDS) {
+            return new Event(playerType, REFEREE, eventType, numberOfSeeds);
+        }
+
+        final Event[] events = CACHED_EVENTS[playerType == null ? 0 : playerType.ordinal() + 1][eventType.ordinal()];
+        Event event = events[numberOfSeeds];
+        if (event == null) {
+            event = new Event(playerType, REFEREE, eventType, numberOfSeeds);
+            events[numberOfSeeds] = event;
+        }
+        return event;
+    }
+
+    /**
+     * @return display names of the empty pits per player (a snapshot, computed from the pit bitmasks)
+     */
     public Map<PlayerType, Set<String>> getEmptyPits() {
-        return Collections.unmodifiableMap(emptyPits);
+        return toPitIdentifiers(emptyPits);
     }
 
-    // defensive copy on map
+    /**
+     * @return display names of the not empty pits per player (a snapshot, computed from the pit bitmasks)
+     */
     public Map<PlayerType, Set<String>> getNotEmptyPits() {
-        return Collections.unmodifiableMap(notEmptyPits);
+        return toPitIdentifiers(notEmptyPits);
+    }
+
+    /**
+     * @return bitmask of the empty pits of the given player (see PitId.getMask())
+     */
+    public int getEmptyPitMask(final PlayerType playerType) {
+        return emptyPits[playerType.ordinal()];
+    }
+
+    /**
+     * @return bitmask of the not empty pits of the given player (see PitId.getMask())
+     */
+    public int getNotEmptyPitMask(final PlayerType playerType) {
+        return notEmptyPits[playerType.ordinal()];
+    }
+
+    private Map<PlayerType, Set<String>> toPitIdentifiers(final int[] pitMasks) {
+        final Map<PlayerType, Set<String>> pitIdentifiers = new LinkedHashMap<>();
+        for (PlayerType playerType : PlayerType.values()) {
+            final Set<String> pitIdentifiersOfPlayer = new LinkedHashSet<>();
+            for (PitId pitId : PitId.values()) {
+                if ((pitMasks[playerType.ordinal()] & pitId.getMask()) != 0) {
+                    pitIdentifiersOfPlayer.add(pitId.getDisplayName());
+                }
+            }
+            pitIdentifiers.put(playerType, Collections.unmodifiableSet(pitIdentifiersOfPlayer));
+        }
+        return Collections.unmodifiableMap(pitIdentifiers);
     }
 
     public PlayerType getCurrentPlayerTurn() {
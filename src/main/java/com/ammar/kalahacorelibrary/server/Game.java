@@ -0,0 +1,134 @@
+package com.ammar.kalahacorelibrary.server;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.broadcast.ServerSentEventFrameEncoder;
+import com.ammar.kalahacorelibrary.broadcast.Spectator;
+import com.ammar.kalahacorelibrary.broadcast.SpectatorBroadcaster;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Game hosted by the KalahaGameServer: the board, the broadcaster of its event stream and the threads streaming the events.
+ * <p>
+ * All access to the board (moves, state, new streams) holds the monitor of the board, the broadcaster publishes every event once
+ * as a pre-serialized frame to all open streams.
+ * <p>
+ * A game is idle when it has no open streams and nobody accessed it for a while (see touch() and isIdle(..)).
+ */
+final class Game {
+    private final long id;
+    private final KalahaBoard kalahaBoard;
+    private final SpectatorBroadcaster broadcaster;
+    private final Map<Spectator, Thread> streams;
+    private final int[] position;
+    private volatile long lastAccessNanos;
+
+    Game(final long id, final int initialNumberOfSeeds, final int queueCapacity) {
+        this.id = id;
+        this.kalahaBoard = new KalahaBoard(initialNumberOfSeeds);
+        this.broadcaster = new SpectatorBroadcaster(kalahaBoard, new ServerSentEventFrameEncoder(), queueCapacity);
+        this.streams = new ConcurrentHashMap<>();
+        this.position = new int[KalahaRules.POSITION_SIZE];
+        this.lastAccessNanos = System.nanoTime();
+    }
+
+    long getId() {
+        return id;
+    }
+
+    /**
+     * @return state of the game (as JSON) after the move
+     */
+    String move(final int pitIndex) {
+        synchronized (kalahaBoard) {
+            kalahaBoard.initialMove(pitIndex);
+            return state();
+        }
+    }
+
+    /**
+     * @return state of the game as JSON
+     */
+    String getState() {
+        synchronized (kalahaBoard) {
+            return state();
+        }
+    }
+
+    /**
+     * Open a new stream for the calling thread, its first frame is a snapshot of the board.
+     */
+    Spectator openStream() {
+        synchronized (kalahaBoard) {
+            final Spectator spectator = broadcaster.subscribe();
+            streams.put(spectator, Thread.currentThread());
+            return spectator;
+        }
+    }
+
+    /**
+     * Close the stream of the calling thread, after this the thread is no longer interrupted by close().
+     */
+    void closeStream(final Spectator spectator) {
+        synchronized (kalahaBoard) {
+            streams.remove(spectator);
+        }
+        spectator.close();
+        touch();
+    }
+
+    /**
+     * Remember that the game is accessed now (a request for the game, or the end of a stream).
+     */
+    void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+
+    /**
+     * @return true when the game has no open streams and was not accessed during the idle timeout
+     */
+    boolean isIdle(final long nowNanos, final long idleTimeoutNanos) {
+        return streams.isEmpty() && nowNanos - lastAccessNanos >= idleTimeoutNanos;
+    }
+
+    int getNumberOfStreams() {
+        return streams.size();
+    }
+
+    /**
+     * Stop broadcasting and wake up all threads streaming the events of this game.
+     */
+    void close() {
+        synchronized (kalahaBoard) {
+            broadcaster.close();
+            streams.forEach((spectator, thread) -> {
+                spectator.close();
+                thread.interrupt();
+            });
+        }
+    }
+
+    private String state() {
+        KalahaRules.copyOf(kalahaBoard, position);
+        final StringBuilder state = new StringBuilder(160);
+        state.append("{\"id\":").append(id).append(',');
+        ServerSentEventFrameEncoder.appendPosition(state, position);
+        state.append(",\"legalMoves\":[");
+        final int legalMoves = kalahaBoard.getReferee().getLegalMoveMask(PlayerType.PLAYER_1)
+                | kalahaBoard.getReferee().getLegalMoveMask(PlayerType.PLAYER_2);
+        boolean first = true;
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            if ((legalMoves & (1 << pitIndex)) != 0) {
+                if (!first) {
+                    state.append(',');
+                }
+                state.append(pitIndex);
+                first = false;
+            }
+        }
+        return state.append("]}").toString();
+    }
+}
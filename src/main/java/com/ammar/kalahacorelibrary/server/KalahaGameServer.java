@@ -0,0 +1,345 @@
+package com.ammar.kalahacorelibrary.server;
+
+import com.ammar.kalahacorelibrary.broadcast.EventFrame;
+import com.ammar.kalahacorelibrary.broadcast.Spectator;
+import com.ammar.kalahacorelibrary.concurrency.ConcurrencyModel;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP server (JDK HttpServer) hosting Kalaha games, without any framework.
+ * <p>
+ * <pre>
+ *
+ *     POST   /games                   create a new game                       201 + state
+ *     GET    /games/{id}              state of the game                       200 + state
+ *     POST   /games/{id}/moves?pit=N  move from the pit with index N          200 + state, 409 when the move is illegal
+ *     GET    /games/{id}/events       events of the game (text/event-stream)  starts with a snapshot, see ServerSentEventFrameEncoder
+ *     DELETE /games/{id}              remove the game, its streams are closed 204
+ *
+ *     state: {"id":1,"pits":[6,6,6,6,6,6,0,6,6,6,6,6,6,0],"turn":null,"winner":null,"legalMoves":[0,1,2,3,4,5,7,8,9,10,11,12]}
+ *
+ * </pre>
+ * <p>
+ * With VIRTUAL_THREADS every request runs on its own virtual thread, an open event stream is a virtual thread waiting on the queue
+ * of its spectator, which makes tens of thousands of open streams per server feasible (given enough file descriptors).
+ * With PLATFORM_THREADS the requests run on a cached thread pool, so every open stream holds a platform thread.
+ * <p>
+ * Every event is serialized once per game and the same frame is written to all streams, a stream that can't keep up skips forward
+ * to a snapshot of the board (see SpectatorBroadcaster). Idle streams get a comment line every heartbeat interval, which is also
+ * how closed connections are detected.
+ * <p>
+ * The number of games is limited (503 when creating one more), a game without open streams that is not accessed during the idle
+ * timeout is removed (checked every quarter of the idle timeout).
+ */
+public class KalahaGameServer implements Closeable {
+    private static final String GAMES = "/games";
+    private static final int BACKLOG = 4096;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int DEFAULT_MAX_NUMBER_OF_GAMES = 100_000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    // response code of an exchange without response headers
+    private static final int NO_RESPONSE = -1;
+
+    private final Logger logger = Logger.getLogger(KalahaGameServer.class);
+
+    private final int initialNumberOfSeeds;
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+    private final ScheduledExecutorService expiryScheduler;
+    private final Map<Long, Game> games;
+    // games in the map plus games being created, never more than maxNumberOfGames
+    private final AtomicInteger numberOfGames;
+    private final AtomicLong lastGameId;
+    private final int maxNumberOfGames;
+    private final long idleTimeoutMillis;
+    private volatile boolean closed;
+
+    /**
+     * Server with at most 100000 games, removed after 30 minutes without access.
+     *
+     * @param address use port 0 for any free port, see getAddress()
+     */
+    public KalahaGameServer(final InetSocketAddress address, final int initialNumberOfSeeds, final ConcurrencyModel concurrencyModel) throws IOException {
+        this(address, initialNumberOfSeeds, concurrencyModel, DEFAULT_MAX_NUMBER_OF_GAMES, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param address           use port 0 for any free port, see getAddress()
+     * @param maxNumberOfGames  maximum number of games at the same time
+     * @param idleTimeoutMillis a game without open streams is removed when it is not accessed for this long
+     */
+    public KalahaGameServer(final InetSocketAddress address, final int initialNumberOfSeeds, final ConcurrencyModel concurrencyModel,
+                            final int maxNumberOfGames, final long idleTimeoutMillis) throws IOException {
+        if (initialNumberOfSeeds <= 0) {
+            throw new IllegalArgumentException("initial number of seeds should be bigger than 0");
+        }
+        if (!concurrencyModel.isSupported()) {
+            throw new IllegalArgumentException("Concurrency model is not supported by this JVM: " + concurrencyModel);
+        }
+        if (maxNumberOfGames <= 0) {
+            throw new IllegalArgumentException("Maximum number of games should be bigger than 0: " + maxNumberOfGames);
+        }
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Idle timeout should be bigger than 0: " + idleTimeoutMillis);
+        }
+
+        this.initialNumberOfSeeds = initialNumberOfSeeds;
+        this.games = new ConcurrentHashMap<>();
+        this.numberOfGames = new AtomicInteger();
+        this.lastGameId = new AtomicLong();
+        this.maxNumberOfGames = maxNumberOfGames;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.expiryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "kalaha-server-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.httpServer = HttpServer.create(address, BACKLOG);
+        this.httpServer.createContext(GAMES, this::handle);
+        if (concurrencyModel == ConcurrencyModel.VIRTUAL_THREADS) {
+            this.executorService = null;
+            this.httpServer.setExecutor(runnable -> concurrencyModel.newThread(runnable, "kalaha-server").start());
+        } else {
+            this.executorService = Executors.newCachedThreadPool(runnable -> concurrencyModel.newThread(runnable, "kalaha-server"));
+            this.httpServer.setExecutor(executorService);
+        }
+    }
+
+    public void start() {
+        httpServer.start();
+        final long checkIntervalMillis = Math.max(1, idleTimeoutMillis / 4);
+        expiryScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                removeIdleGames();
+            } catch (RuntimeException e) {
+                logger.error("Idle games could not be removed", e);
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return address the server listens on (with the actual port when started on port 0)
+     */
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    public int getNumberOfGames() {
+        return games.size();
+    }
+
+    public int getNumberOfStreams() {
+        return games.values().stream().mapToInt(Game::getNumberOfStreams).sum();
+    }
+
+    /**
+     * Stop accepting requests and close all event streams.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        expiryScheduler.shutdownNow();
+        games.values().forEach(Game::close);
+        httpServer.stop(0);
+        if (Objects.nonNull(executorService)) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Not a number: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendError(exchange, 409, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+            sendError(exchange, 500, "Internal server error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(final HttpExchange exchange) throws IOException {
+        final String method = exchange.getRequestMethod();
+        // "/games/{id}/{resource}" -> ["", "games", id, resource]
+        final String[] segments = exchange.getRequestURI().getPath().split("/");
+        if (segments.length < 2 || segments.length > 4 || !GAMES.substring(1).equals(segments[1])) {
+            send(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+            return;
+        }
+        if (segments.length == 2) {
+            if ("POST".equals(method)) {
+                createGame(exchange);
+            } else {
+                send(exchange, 405, "Method not allowed: " + method);
+            }
+            return;
+        }
+
+        final Game game = games.get(Long.parseLong(segments[2]));
+        if (Objects.isNull(game)) {
+            send(exchange, 404, "Game not found: " + segments[2]);
+            return;
+        }
+        game.touch();
+
+        final String resource = segments.length == 4 ? segments[3] : "";
+        final String request = method + " " + resource;
+        switch (request) {
+            case "GET ":
+                sendJson(exchange, 200, game.getState());
+                break;
+            case "DELETE ":
+                removeGame(game);
+                exchange.sendResponseHeaders(204, -1);
+                break;
+            case "POST moves":
+                sendJson(exchange, 200, game.move(Integer.parseInt(queryParameter(exchange, "pit"))));
+                break;
+            case "GET events":
+                streamEvents(exchange, game);
+                break;
+            default:
+                send(exchange, 404, "Not found: " + request);
+                break;
+        }
+    }
+
+    private void createGame(final HttpExchange exchange) throws IOException {
+        if (numberOfGames.incrementAndGet() > maxNumberOfGames) {
+            numberOfGames.decrementAndGet();
+            send(exchange, 503, "Too many games: " + maxNumberOfGames);
+            return;
+        }
+        final Game game = new Game(lastGameId.incrementAndGet(), initialNumberOfSeeds, QUEUE_CAPACITY);
+        games.put(game.getId(), game);
+        if (closed) {
+            removeGame(game);
+            send(exchange, 503, "Server is closed");
+            return;
+        }
+        exchange.getResponseHeaders().set("Location", GAMES + "/" + game.getId());
+        sendJson(exchange, 201, game.getState());
+    }
+
+    /**
+     * Remove the game (when it is still there) and close its streams.
+     */
+    private void removeGame(final Game game) {
+        if (games.remove(game.getId(), game)) {
+            numberOfGames.decrementAndGet();
+        }
+        game.close();
+    }
+
+    private void removeIdleGames() {
+        final long nowNanos = System.nanoTime();
+        final long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        for (Game game : games.values()) {
+            if (game.isIdle(nowNanos, idleTimeoutNanos)) {
+                logger.debug("Game " + game.getId() + " removed after being idle for " + idleTimeoutMillis + " ms");
+                removeGame(game);
+            }
+        }
+    }
+
+    /**
+     * Write the frames of the game until the client disconnects, the game is removed or the server is closed.
+     * Frames that are already queued are written together, with one flush.
+     */
+    private void streamEvents(final HttpExchange exchange, final Game game) throws IOException {
+        final Spectator spectator = game.openStream();
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+
+            final OutputStream outputStream = exchange.getResponseBody();
+            while (!spectator.isClosed() && !closed) {
+                EventFrame frame = spectator.poll(HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (Objects.isNull(frame)) {
+                    outputStream.write(HEARTBEAT);
+                } else {
+                    do {
+                        frame.writeTo(outputStream);
+                        frame = spectator.poll();
+                    } while (Objects.nonNull(frame));
+                }
+                outputStream.flush();
+            }
+        } catch (InterruptedException e) {
+            // game removed or server closed, the interrupt was only meant to end this stream (the thread may be pooled)
+            logger.debug("Event stream of game " + game.getId() + " closed by the server");
+        } catch (IOException e) {
+            // client disconnected
+            logger.debug("Event stream of game " + game.getId() + " closed: " + e.getMessage());
+        } finally {
+            game.closeStream(spectator);
+            // a wake-up that arrived after the last poll
+            Thread.interrupted();
+        }
+    }
+
+    private static String queryParameter(final HttpExchange exchange, final String name) {
+        final String query = exchange.getRequestURI().getQuery();
+        if (Objects.nonNull(query)) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    return parameter.substring(name.length() + 1);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Missing query parameter: " + name);
+    }
+
+    /**
+     * Send an error, unless the response has already started (e.g. an event stream): then the exchange can only be closed.
+     */
+    private void sendError(final HttpExchange exchange, final int status, final String message) throws IOException {
+        if (exchange.getResponseCode() != NO_RESPONSE) {
+            logger.debug("Request failed after status " + exchange.getResponseCode() + " was sent: " + message);
+            return;
+        }
+        send(exchange, status, message);
+    }
+
+    private static void sendJson(final HttpExchange exchange, final int status, final String json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        write(exchange, status, json);
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final String message) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        write(exchange, status, message);
+    }
+
+    private static void write(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
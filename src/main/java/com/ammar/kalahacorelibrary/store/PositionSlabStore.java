@@ -0,0 +1,250 @@
+package com.ammar.kalahacorelibrary.store;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap store for a (very) large number of game positions.
+ * Positions are kept in fixed-size slots of a direct or memory-mapped ByteBuffer, outside of GC reach.
+ * A file-backed store survives restarts: allocated slots and the free list are part of the mapped file.
+ * <p>
+ * <pre>
+ *
+ * File layout:
+ *
+ *     header (64 bytes):  magic | capacity | high water mark | free list head
+ *     slot   (64 bytes):  14 x pit seeds (int) | turn (byte) | winner (byte) | allocated (byte)
+ *
+ * A free slot re-uses its first pit to keep the id of the next free slot (intrusive free list).
+ *
+ * </pre>
+ * <p>
+ * Note: this store is not thread-safe, callers should confine it to one thread or synchronize externally.
+ */
+public class PositionSlabStore implements Closeable {
+
+    public static final int SLOT_SIZE = 64;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x4B414C48; // "KALH"
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int HIGH_WATER_MARK_OFFSET = 8;
+    private static final int FREE_LIST_HEAD_OFFSET = 12;
+
+    private static final int TURN_OFFSET = KalahaRules.NUMBER_OF_PITS * 4;
+    private static final int WINNER_OFFSET = TURN_OFFSET + 1;
+    private static final int ALLOCATED_OFFSET = TURN_OFFSET + 2;
+
+    private static final int NO_SLOT = -1;
+
+    private final ByteBuffer buffer;
+    private final FileChannel fileChannel;
+    private final int capacity;
+    private final int[] scratchPosition = new int[KalahaRules.POSITION_SIZE];
+
+    private PositionSlabStore(final ByteBuffer buffer, final FileChannel fileChannel, final int capacity) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.fileChannel = fileChannel;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Create a store in a direct (off-heap) buffer. The content is lost when the store is garbage collected.
+     */
+    public static PositionSlabStore inMemory(final int capacity) {
+        validateCapacity(capacity);
+        final PositionSlabStore store = new PositionSlabStore(ByteBuffer.allocateDirect(sizeOf(capacity)), null, capacity);
+        store.initializeHeader();
+        return store;
+    }
+
+    /**
+     * Open (or create) a file-backed store. An existing file keeps its capacity and all allocated slots.
+     */
+    public static PositionSlabStore open(final Path file, final int capacity) throws IOException {
+        validateCapacity(capacity);
+        final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final boolean existing = fileChannel.size() >= HEADER_SIZE;
+            final int actualCapacity = existing ? readCapacity(fileChannel) : capacity;
+            final MappedByteBuffer mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, sizeOf(actualCapacity));
+            final PositionSlabStore store = new PositionSlabStore(mappedByteBuffer, fileChannel, actualCapacity);
+            if (!existing) {
+                store.initializeHeader();
+            }
+            return store;
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Allocate a slot holding the initial position of a new game.
+     *
+     * @return slot id
+     */
+    public int allocate(final int initialNumberOfSeeds) {
+        final int[] position = KalahaRules.newPosition(initialNumberOfSeeds);
+        final int slot = allocateSlot();
+        write(slot, position);
+        return slot;
+    }
+
+    /**
+     * Allocate a slot holding the current position of the given board.
+     *
+     * @return slot id
+     */
+    public int allocate(final KalahaBoard kalahaBoard) {
+        final int slot = allocateSlot();
+        write(slot, KalahaRules.copyOf(kalahaBoard, scratchPosition));
+        return slot;
+    }
+
+    public void free(final int slot) {
+        final int offset = checkAllocated(slot);
+        buffer.put(offset + ALLOCATED_OFFSET, (byte) 0);
+        buffer.putInt(offset, buffer.getInt(FREE_LIST_HEAD_OFFSET));
+        buffer.putInt(FREE_LIST_HEAD_OFFSET, slot);
+    }
+
+    /**
+     * Apply an initial move directly on the slot, following the same rules as NormalPit/KalahaPit.
+     *
+     * @return move result flags, see KalahaRules
+     */
+    public int move(final int slot, final int pitIndex) {
+        final int[] position = read(slot, scratchPosition);
+        final int flags = KalahaRules.move(position, pitIndex);
+        if (flags != 0) {
+            write(slot, position);
+        }
+        return flags;
+    }
+
+    /**
+     * Read the position of the slot into the given array (of KalahaRules.POSITION_SIZE).
+     */
+    public int[] read(final int slot, final int[] position) {
+        final int offset = checkAllocated(slot);
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            position[pitIndex] = buffer.getInt(offset + pitIndex * 4);
+        }
+        position[KalahaRules.TURN] = buffer.get(offset + TURN_OFFSET);
+        position[KalahaRules.WINNER] = buffer.get(offset + WINNER_OFFSET);
+        return position;
+    }
+
+    public void write(final int slot, final int[] position) {
+        final int offset = checkAllocated(slot);
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            buffer.putInt(offset + pitIndex * 4, position[pitIndex]);
+        }
+        buffer.put(offset + TURN_OFFSET, (byte) position[KalahaRules.TURN]);
+        buffer.put(offset + WINNER_OFFSET, (byte) position[KalahaRules.WINNER]);
+    }
+
+    public int getNumberOfSeeds(final int slot, final int pitIndex) {
+        return buffer.getInt(checkAllocated(slot) + pitIndex * 4);
+    }
+
+    public int getCurrentPlayerTurn(final int slot) {
+        return buffer.get(checkAllocated(slot) + TURN_OFFSET);
+    }
+
+    public int getWinner(final int slot) {
+        return buffer.get(checkAllocated(slot) + WINNER_OFFSET);
+    }
+
+    public boolean isAllocated(final int slot) {
+        return slot >= 0 && slot < buffer.getInt(HIGH_WATER_MARK_OFFSET) && buffer.get(offsetOf(slot) + ALLOCATED_OFFSET) == 1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Flush the content of a file-backed store to disk (no-op for in-memory store).
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileChannel != null) {
+            force();
+            fileChannel.close();
+        }
+    }
+
+    private int allocateSlot() {
+        final int slot;
+        final int freeListHead = buffer.getInt(FREE_LIST_HEAD_OFFSET);
+        if (freeListHead != NO_SLOT) {
+            slot = freeListHead;
+            buffer.putInt(FREE_LIST_HEAD_OFFSET, buffer.getInt(offsetOf(slot)));
+        } else {
+            slot = buffer.getInt(HIGH_WATER_MARK_OFFSET);
+            if (slot == capacity) {
+                throw new IllegalStateException("Position store is full, capacity: " + capacity);
+            }
+            buffer.putInt(HIGH_WATER_MARK_OFFSET, slot + 1);
+        }
+
+        buffer.put(offsetOf(slot) + ALLOCATED_OFFSET, (byte) 1);
+        return slot;
+    }
+
+    private int checkAllocated(final int slot) {
+        if (!isAllocated(slot)) {
+            throw new IllegalArgumentException("Slot is not allocated: " + slot);
+        }
+        return offsetOf(slot);
+    }
+
+    private void initializeHeader() {
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(HIGH_WATER_MARK_OFFSET, 0);
+        buffer.putInt(FREE_LIST_HEAD_OFFSET, NO_SLOT);
+    }
+
+    private static int readCapacity(final FileChannel fileChannel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        fileChannel.read(header, 0);
+        if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a Kalaha position store");
+        }
+        return header.getInt(CAPACITY_OFFSET);
+    }
+
+    private static int offsetOf(final int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int sizeOf(final int capacity) {
+        return HEADER_SIZE + capacity * SLOT_SIZE;
+    }
+
+    private static void validateCapacity(final int capacity) {
+        // one mapped buffer is limited to 2GB
+        if (capacity <= 0 || capacity > (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE) {
+            throw new IllegalArgumentException("capacity should be between 1 and " + (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ammar.kalahacorelibrary.training;
+
+/**
+ * Open addressing set of longs (no boxing), used to recognize duplicate position hashes.
+ * <p>
+ * Note: not thread-safe.
+ */
+final class LongHashSet {
+    // 0 is used for empty slots, the value 0 itself is tracked separately
+    private long[] slots;
+    private int size;
+    private boolean containsZero;
+
+    LongHashSet(final int expectedSize) {
+        slots = new long[Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1];
+    }
+
+    /**
+     * @return false when the value was already in the set
+     */
+    boolean add(final long value) {
+        if (value == 0) {
+            final boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+        }
+        if (!insert(slots, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size + (containsZero ? 1 : 0);
+    }
+
+    private static boolean insert(final long[] slots, final long value) {
+        final int mask = slots.length - 1;
+        int slot = (int) (value ^ (value >>> 32)) & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        return true;
+    }
+
+    private void grow() {
+        final long[] newSlots = new long[slots.length << 1];
+        for (long value : slots) {
+            if (value != 0) {
+                insert(newSlots, value);
+            }
+        }
+        slots = newSlots;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ammar.kalahacorelibrary.training;
+
+/**
+ * Decides how often self-play makes a random move instead of the best move, to get a variety of positions.
+ * <p>
+ * <pre>
+ *
+ *     ply < randomOpeningPlies                  : always random
+ *     then, during decayPlies                   : probability goes linearly from initialProbability to finalProbability
+ *     after that                                : finalProbability
+ *
+ * </pre>
+ */
+public final class RandomizationSchedule {
+    private final int randomOpeningPlies;
+    private final double initialProbability;
+    private final double finalProbability;
+    private final int decayPlies;
+
+    public RandomizationSchedule(final int randomOpeningPlies, final double initialProbability, final double finalProbability, final int decayPlies) {
+        if (randomOpeningPlies < 0 || decayPlies < 0) {
+            throw new IllegalArgumentException("number of plies should not be negative");
+        }
+        if (initialProbability < 0 || initialProbability > 1 || finalProbability < 0 || finalProbability > 1) {
+            throw new IllegalArgumentException("probability should be between 0 and 1");
+        }
+
+        this.randomOpeningPlies = randomOpeningPlies;
+        this.initialProbability = initialProbability;
+        this.finalProbability = finalProbability;
+        this.decayPlies = decayPlies;
+    }
+
+    /**
+     * @param ply number of moves made in the game so far
+     */
+    public double probabilityOfRandomMove(final int ply) {
+        if (ply < randomOpeningPlies) {
+            return 1;
+        }
+
+        final int pliesAfterOpening = ply - randomOpeningPlies;
+        if (pliesAfterOpening >= decayPlies) {
+            return finalProbability;
+        }
+        return initialProbability + (finalProbability - initialProbability) * pliesAfterOpening / decayPlies;
+    }
+
+    @Override
+    public String toString() {
+        return "RandomizationSchedule {" +
+                "randomOpeningPlies=" + randomOpeningPlies +
+                ", initialProbability=" + initialProbability +
+                ", finalProbability=" + finalProbability +
+                ", decayPlies=" + decayPlies +
+                '}';
+    }
+}
@@ -0,0 +1,211 @@
+package com.ammar.kalahacorelibrary.training;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.engine.KalahaSearch;
+import com.ammar.kalahacorelibrary.engine.SearchResult;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+/**
+ * Generates training data by self-play with KalahaRules and KalahaSearch, one worker per core.
+ * <p>
+ * Every worker plays its own games and writes its own shard file ("shard-N.bin", fixed-width records, see TrainingRecord).
+ * A worker is seeded with the generator seed and its index, and only skips the duplicates it has seen itself (by position hash),
+ * so the same configuration always produces the same shards.
+ */
+public class SelfPlayGenerator {
+    private static final int BUFFER_SIZE = TrainingRecord.SIZE * 4096;
+
+    private final Logger logger = Logger.getLogger(SelfPlayGenerator.class);
+    private final Path outputDirectory;
+    private final int numberOfWorkers;
+    private final int initialNumberOfSeeds;
+    private final int searchDepth;
+    private final long seed;
+    private final RandomizationSchedule randomizationSchedule;
+
+    /**
+     * Uses one worker per available core.
+     */
+    public SelfPlayGenerator(final Path outputDirectory, final int initialNumberOfSeeds, final int searchDepth, final long seed,
+                             final RandomizationSchedule randomizationSchedule) {
+        this(outputDirectory, Runtime.getRuntime().availableProcessors(), initialNumberOfSeeds, searchDepth, seed, randomizationSchedule);
+    }
+
+    public SelfPlayGenerator(final Path outputDirectory, final int numberOfWorkers, final int initialNumberOfSeeds, final int searchDepth,
+                             final long seed, final RandomizationSchedule randomizationSchedule) {
+        if (numberOfWorkers <= 0 || searchDepth <= 0) {
+            throw new IllegalArgumentException("number of workers and search depth should be bigger than 0");
+        }
+
+        this.outputDirectory = outputDirectory;
+        this.numberOfWorkers = numberOfWorkers;
+        this.initialNumberOfSeeds = initialNumberOfSeeds;
+        this.searchDepth = searchDepth;
+        this.seed = seed;
+        this.randomizationSchedule = randomizationSchedule;
+    }
+
+    /**
+     * Play the given number of games per worker, and write the shards (existing shards are overwritten).
+     */
+    public SelfPlayReport generate(final int gamesPerWorker) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory);
+        final ExecutorService executorService = Executors.newFixedThreadPool(numberOfWorkers);
+        try {
+            final long startNanos = System.nanoTime();
+            final List<Future<Worker>> futures = new ArrayList<>();
+            for (int workerIndex = 0; workerIndex < numberOfWorkers; workerIndex++) {
+                final Worker worker = new Worker(workerIndex);
+                futures.add(executorService.submit(() -> worker.play(gamesPerWorker)));
+            }
+
+            long numberOfGames = 0;
+            long numberOfPositions = 0;
+            long numberOfDuplicatePositions = 0;
+            for (Future<Worker> future : futures) {
+                final Worker worker = get(future);
+                numberOfGames += worker.numberOfGames;
+                numberOfPositions += worker.numberOfPositions;
+                numberOfDuplicatePositions += worker.numberOfDuplicatePositions;
+            }
+
+            final SelfPlayReport report = new SelfPlayReport(numberOfWorkers, numberOfGames, numberOfPositions, numberOfDuplicatePositions,
+                    System.nanoTime() - startNanos);
+            logger.info("Self-play finished: " + report);
+            return report;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    public Path shardOf(final int workerIndex) {
+        return outputDirectory.resolve("shard-" + workerIndex + ".bin");
+    }
+
+    private static Worker get(final Future<Worker> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Self-play worker failed", e.getCause());
+        }
+    }
+
+    private final class Worker {
+        private final int workerIndex;
+        private final SplittableRandom random;
+        private final KalahaSearch search;
+        private final LongHashSet seenPositions;
+        private final int[] position;
+        // positions of the current game: pits and player turn per ply, followed by the search value
+        private int[] plies;
+        private long numberOfGames;
+        private long numberOfPositions;
+        private long numberOfDuplicatePositions;
+
+        private Worker(final int workerIndex) {
+            this.workerIndex = workerIndex;
+            this.random = new SplittableRandom(seed + workerIndex * 0x9E3779B97F4A7C15L);
+            this.search = new KalahaSearch();
+            this.seenPositions = new LongHashSet(1 << 16);
+            this.position = new int[KalahaRules.POSITION_SIZE];
+            this.plies = new int[KalahaRules.POSITION_SIZE * 256];
+        }
+
+        private Worker play(final int numberOfGamesToPlay) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try (FileChannel shard = FileChannel.open(shardOf(workerIndex),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (int game = 0; game < numberOfGamesToPlay; game++) {
+                    final int numberOfPlies = playGame();
+                    writeGame(numberOfPlies, shard, buffer);
+                    numberOfGames++;
+                }
+                flush(shard, buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        /**
+         * @return number of (not duplicate) positions recorded for this game
+         */
+        private int playGame() {
+            System.arraycopy(KalahaRules.newPosition(initialNumberOfSeeds), 0, position, 0, KalahaRules.POSITION_SIZE);
+            position[KalahaRules.TURN] = random.nextInt(2);
+
+            int numberOfPlies = 0;
+            int flags = 0;
+            for (int ply = 0; (flags & KalahaRules.GAME_OVER) == 0; ply++) {
+                final int player = position[KalahaRules.TURN];
+                final SearchResult searchResult = search.search(position, player, searchDepth, () -> false);
+
+                if (seenPositions.add(KalahaRules.hashOf(position))) {
+                    if ((numberOfPlies + 1) * KalahaRules.POSITION_SIZE > plies.length) {
+                        plies = Arrays.copyOf(plies, plies.length * 2);
+                    }
+                    final int offset = numberOfPlies * KalahaRules.POSITION_SIZE;
+                    System.arraycopy(position, 0, plies, offset, KalahaRules.NUMBER_OF_PITS);
+                    plies[offset + KalahaRules.TURN] = player;
+                    plies[offset + KalahaRules.WINNER] = searchResult.getValue();
+                    numberOfPlies++;
+                } else {
+                    numberOfDuplicatePositions++;
+                }
+
+                final int move = random.nextDouble() < randomizationSchedule.probabilityOfRandomMove(ply)
+                        ? randomMove(player) : searchResult.getBestMove();
+                flags = KalahaRules.move(position, move);
+            }
+            return numberOfPlies;
+        }
+
+        private int randomMove(final int player) {
+            final int firstPit = player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+            int move;
+            do {
+                move = firstPit + random.nextInt(6);
+            } while (position[move] == 0);
+            return move;
+        }
+
+        private void writeGame(final int numberOfPlies, final FileChannel shard, final ByteBuffer buffer) throws IOException {
+            final int winner = position[KalahaRules.WINNER];
+            for (int ply = 0; ply < numberOfPlies; ply++) {
+                final int offset = ply * KalahaRules.POSITION_SIZE;
+                final int sideToMove = plies[offset + KalahaRules.TURN];
+                final int outcome = winner == KalahaRules.NONE ? 0 : (winner == sideToMove ? 1 : -1);
+
+                if (buffer.remaining() < TrainingRecord.SIZE) {
+                    flush(shard, buffer);
+                }
+                TrainingRecord.write(buffer, plies, offset, sideToMove, outcome, plies[offset + KalahaRules.WINNER]);
+            }
+            numberOfPositions += numberOfPlies;
+        }
+
+        private void flush(final FileChannel shard, final ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                shard.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
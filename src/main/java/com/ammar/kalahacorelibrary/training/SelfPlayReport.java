@@ -0,0 +1,65 @@
+package com.ammar.kalahacorelibrary.training;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a self-play run.
+ */
+public final class SelfPlayReport {
+    private final int numberOfWorkers;
+    private final long numberOfGames;
+    private final long numberOfPositions;
+    private final long numberOfDuplicatePositions;
+    private final long elapsedNanos;
+
+    SelfPlayReport(final int numberOfWorkers, final long numberOfGames, final long numberOfPositions, final long numberOfDuplicatePositions, final long elapsedNanos) {
+        this.numberOfWorkers = numberOfWorkers;
+        this.numberOfGames = numberOfGames;
+        this.numberOfPositions = numberOfPositions;
+        this.numberOfDuplicatePositions = numberOfDuplicatePositions;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+
+    public long getNumberOfGames() {
+        return numberOfGames;
+    }
+
+    /**
+     * @return number of written positions (duplicates excluded)
+     */
+    public long getNumberOfPositions() {
+        return numberOfPositions;
+    }
+
+    public long getNumberOfDuplicatePositions() {
+        return numberOfDuplicatePositions;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getPositionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : numberOfPositions * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public double getPositionsPerSecondPerCore() {
+        return getPositionsPerSecond() / numberOfWorkers;
+    }
+
+    @Override
+    public String toString() {
+        return "SelfPlayReport {" +
+                "numberOfWorkers=" + numberOfWorkers +
+                ", numberOfGames=" + numberOfGames +
+                ", numberOfPositions=" + numberOfPositions +
+                ", numberOfDuplicatePositions=" + numberOfDuplicatePositions +
+                ", elapsedMillis=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) +
+                ", positionsPerSecondPerCore=" + Math.round(getPositionsPerSecondPerCore()) +
+                '}';
+    }
+}
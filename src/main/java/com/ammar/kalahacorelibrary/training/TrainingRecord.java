@@ -0,0 +1,34 @@
+package com.ammar.kalahacorelibrary.training;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width binary record of a self-play shard file, record N starts at N * SIZE (big endian, no header).
+ * <p>
+ * <pre>
+ *
+ *     pits (14 shorts, see KalahaRules for the order) | side to move (byte) | outcome (byte) | search value (int)
+ *
+ *     side to move : player ordinal
+ *     outcome      : final result from the perspective of the side to move: 1 (win), 0 (tie), -1 (loss)
+ *     search value : value of the position according to the search, from the perspective of the side to move
+ *
+ * </pre>
+ */
+public final class TrainingRecord {
+    public static final int SIZE = 2 * KalahaRules.NUMBER_OF_PITS + 1 + 1 + 4;
+
+    private TrainingRecord() {
+    }
+
+    static void write(final ByteBuffer buffer, final int[] positions, final int offset, final int sideToMove, final int outcome, final int value) {
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            buffer.putShort((short) positions[offset + pitIndex]);
+        }
+        buffer.put((byte) sideToMove);
+        buffer.put((byte) outcome);
+        buffer.putInt(value);
+    }
+}
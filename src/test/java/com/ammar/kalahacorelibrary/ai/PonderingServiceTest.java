@@ -0,0 +1,134 @@
+package com.ammar.kalahacorelibrary.ai;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.CaptureRule;
+import com.ammar.kalahacorelibrary.engine.KalahaSearch;
+import com.ammar.kalahacorelibrary.engine.RuleSet;
+import com.ammar.kalahacorelibrary.engine.SearchResult;
+import com.ammar.kalahacorelibrary.engine.SweepRule;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Pondering service tests.
+ */
+public class PonderingServiceTest {
+    private PonderingService ponderingService;
+
+    @Before
+    public void setUp() {
+        ponderingService = new PonderingService(1, 5, TimeUnit.SECONDS, 8);
+    }
+
+    @After
+    public void tearDown() {
+        ponderingService.close();
+    }
+
+    @Test
+    public void decidedReplyShouldNotStopPonderingOfTheOtherCandidates() throws Exception {
+        // Player 1 (human) can move Pit 1 or Pit 3, Player 2 (AI) only has one seed left in Pit 12
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final int[] seeds = {1, 0, 8, 0, 0, 0, 20, 0, 0, 0, 0, 0, 1, 30};
+        for (int pitIndex = 0; pitIndex < seeds.length; pitIndex++) {
+            kalahaBoard.getPit(pitIndex).loadNumberOfSeeds(seeds[pitIndex]);
+        }
+
+        ponderingService.startPondering(1, kalahaBoard, PlayerType.PLAYER_2);
+        assertThat(ponderingService.awaitPondering(1, 5, TimeUnit.SECONDS), is(true));
+
+        // after Pit 1 the only reply ends the game, so that search returns below the maximum depth,
+        // after Pit 3 (sowing into the side of the AI) the reply should still be searched deeper than depth 1
+        final SearchResult replyToPit3 = ponderingService.replyTo(1, 2);
+        assertThat("Reply to Pit 3 should be searched after the decided reply to Pit 1", replyToPit3, notNullValue());
+        assertThat(replyToPit3.getDepth() > 1, is(true));
+    }
+
+    @Test
+    public void allCandidatesShouldHaveAReply() throws Exception {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        kalahaBoard.initialMove(1);
+        kalahaBoard.initialMove(8);
+
+        for (int pitIndex = 0; pitIndex < 6; pitIndex++) {
+            if (kalahaBoard.getPit(pitIndex).getNumberOfSeeds() == 0) {
+                continue;
+            }
+            ponderingService.startPondering(1, kalahaBoard, PlayerType.PLAYER_2);
+            assertThat(ponderingService.awaitPondering(1, 10, TimeUnit.SECONDS), is(true));
+            assertThat("Reply to pit " + pitIndex + " should be searched", ponderingService.replyTo(1, pitIndex), notNullValue());
+        }
+    }
+
+    @Test
+    public void humanMoveWithExtraTurnShouldHaveNoReply() throws Exception {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+
+        ponderingService.startPondering(1, kalahaBoard, PlayerType.PLAYER_2);
+        assertThat(ponderingService.awaitPondering(1, 10, TimeUnit.SECONDS), is(true));
+
+        // Pit 1 (6 seeds) ends in KalahaPit 1
+        assertThat(ponderingService.replyTo(1, 0).getBestMove(), is(KalahaSearch.NO_MOVE));
+        assertThat("Pondering should be gone after the reply", ponderingService.replyTo(1, 0), nullValue());
+    }
+
+    @Test
+    public void humanMoveShouldBePonderedWithTheRulesOfTheBoard() throws Exception {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6, new RuleSet(CaptureRule.NO_CAPTURE, false, SweepRule.REMAINING_TO_OWNER, false));
+
+        ponderingService.startPondering(1, kalahaBoard, PlayerType.PLAYER_2);
+        assertThat(ponderingService.awaitPondering(1, 10, TimeUnit.SECONDS), is(true));
+
+        // without extra turns, Pit 1 (6 seeds ends in KalahaPit 1) gives the turn to the AI
+        final SearchResult replyToPit1 = ponderingService.replyTo(1, 0);
+        assertThat(replyToPit1, notNullValue());
+        assertThat(replyToPit1.getBestMove() != KalahaSearch.NO_MOVE, is(true));
+    }
+
+    @Test
+    public void everyCandidateShouldHaveAReplyWhenTheHumanMovesRightAway() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        kalahaBoard.initialMove(1);
+        kalahaBoard.initialMove(8);
+
+        for (int pitIndex = 0; pitIndex < 6; pitIndex++) {
+            if (kalahaBoard.getPit(pitIndex).getNumberOfSeeds() == 0) {
+                continue;
+            }
+            ponderingService.startPondering(1, kalahaBoard, PlayerType.PLAYER_2);
+            assertThat("Reply to pit " + pitIndex + " should be there without waiting", ponderingService.replyTo(1, pitIndex), notNullValue());
+        }
+    }
+
+    @Test
+    public void attachedGameShouldPonderWhenTheTurnPassesToTheHuman() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        ponderingService.attach(1, kalahaBoard, PlayerType.PLAYER_2);
+
+        // Pit 2 gives the turn to the AI, Pit 9 gives it back to the human
+        kalahaBoard.initialMove(1);
+        assertThat(ponderingService.replyTo(1, 0), nullValue());
+        kalahaBoard.initialMove(8);
+        assertThat(ponderingService.replyTo(1, 0), notNullValue());
+
+        // taking back the AI move gives the turn to the AI again
+        kalahaBoard.undo();
+        assertThat(ponderingService.replyTo(1, 0), nullValue());
+        kalahaBoard.redo();
+        assertThat(ponderingService.replyTo(1, 0), notNullValue());
+
+        ponderingService.detach(1);
+        kalahaBoard.undo();
+        kalahaBoard.redo();
+        assertThat("Detached game should not ponder", ponderingService.replyTo(1, 0), nullValue());
+    }
+}
@@ -0,0 +1,174 @@
+package com.ammar.kalahacorelibrary.analytics;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.journal.GameJournal;
+import com.ammar.kalahacorelibrary.journal.SharedEventJournal;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Game log analytics tests.
+ */
+public class GameLogAnalyticsTest {
+    private static final int NUMBER_OF_GAMES = 40;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Random games with take backs and moves applied at once, written to a journal. The report (read in small segments, by
+     * several threads) should match what the games themselves tell.
+     */
+    @Test
+    public void reportShouldMatchAReplayOfTheGames() throws Exception {
+        final Path journalFile = temporaryFolder.newFolder().toPath().resolve("events.journal");
+        final Random random = new Random(11);
+        final List<PlayedGame> playedGames = new ArrayList<>();
+        try (SharedEventJournal journal = new SharedEventJournal(journalFile, 16, 1, TimeUnit.MILLISECONDS)) {
+            for (int gameId = 1; gameId <= NUMBER_OF_GAMES; gameId++) {
+                final KalahaBoard kalahaBoard = new KalahaBoard(3);
+                final GameJournal gameJournal = journal.attach(gameId, kalahaBoard.getReplayableEventPublisher());
+                playedGames.add(play(kalahaBoard, random, gameId % 5 == 0));
+                gameJournal.acknowledge().get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        final AnalyticsReport report;
+        try {
+            report = GameLogAnalytics.analyze(Collections.singletonList(journalFile), forkJoinPool, 512);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+
+        final long[] openingMoveGames = new long[KalahaRules.NUMBER_OF_PITS];
+        final long[] openingMoveWins = new long[KalahaRules.NUMBER_OF_PITS];
+        final long[] captures = new long[KalahaRules.NUMBER_OF_PITS];
+        final long[] gameLengths = new long[AnalyticsReport.MAX_GAME_LENGTH + 1];
+        long numberOfFinishedGames = 0;
+        for (PlayedGame playedGame : playedGames) {
+            int numberOfMoves = 0;
+            for (PlayedMove move : playedGame.moves) {
+                numberOfMoves += move.numberOfMoves;
+                if (move.capturePitIndex >= 0) {
+                    captures[move.capturePitIndex]++;
+                }
+            }
+            if (playedGame.result == GameSummary.NO_RESULT) {
+                continue;
+            }
+            numberOfFinishedGames++;
+            gameLengths[numberOfMoves]++;
+            final PlayedMove openingMove = playedGame.moves.get(0);
+            if (openingMove.pitIndex >= 0) {
+                openingMoveGames[openingMove.pitIndex]++;
+                if (playedGame.result == KalahaRules.ownerOf(openingMove.pitIndex)) {
+                    openingMoveWins[openingMove.pitIndex]++;
+                }
+            }
+        }
+
+        // the games should cover what is compared
+        assertThat(numberOfFinishedGames > 0 && numberOfFinishedGames < NUMBER_OF_GAMES, is(true));
+        assertThat(Arrays.stream(captures).sum() > 0, is(true));
+
+        assertThat(report.getNumberOfGames(), is((long) NUMBER_OF_GAMES));
+        assertThat(report.getNumberOfFinishedGames(), is(numberOfFinishedGames));
+        for (int numberOfMoves = 0; numberOfMoves <= AnalyticsReport.MAX_GAME_LENGTH; numberOfMoves++) {
+            assertThat("Games with " + numberOfMoves + " moves", report.getNumberOfGamesWithLength(numberOfMoves), is(gameLengths[numberOfMoves]));
+        }
+        for (int pitIndex = 0; pitIndex < KalahaRules.NUMBER_OF_PITS; pitIndex++) {
+            final PitId pitId = PitId.of(pitIndex);
+            assertThat("Captures in " + pitId, report.getCaptures(pitId), is(captures[pitIndex]));
+            assertThat("Games opened with " + pitId, report.getOpeningMoveGames(pitId), is(openingMoveGames[pitIndex]));
+            final double winRate = openingMoveGames[pitIndex] == 0 ? 0 : (double) openingMoveWins[pitIndex] / openingMoveGames[pitIndex];
+            assertThat("Win rate of " + pitId, report.getOpeningMoveWinRate(pitId), is(winRate));
+        }
+    }
+
+    /**
+     * Play random moves, take backs (UNDO_MOVE) and re-applied moves (REDO_MOVE) until the game is over, and keep track of the
+     * moves that are left on the board. Some games start with moves applied at once, some take back the move that decided them.
+     */
+    private static PlayedGame play(final KalahaBoard kalahaBoard, final Random random, final boolean applyOpeningMoves) {
+        final PlayedGame playedGame = new PlayedGame();
+        final Deque<PlayedMove> takenBackMoves = new ArrayDeque<>();
+        final int[] capturePitIndex = {-1};
+        kalahaBoard.getReplayableEventPublisher().addObserver(EventType.CAPTURE_SEEDS, (observable, event) -> capturePitIndex[0] = event.getOriginPitId().getIndex());
+
+        final int[] position = new int[KalahaRules.POSITION_SIZE];
+        if (applyOpeningMoves) {
+            kalahaBoard.applyMoves(new int[]{2, 8});
+            playedGame.moves.add(new PlayedMove(-1, -1, 2));
+        }
+        for (int step = 0; step < 300 && !isGameOver(KalahaRules.copyOf(kalahaBoard, position)); step++) {
+            final int action = random.nextInt(10);
+            if (action == 0 && kalahaBoard.undo()) {
+                takenBackMoves.push(playedGame.moves.remove(playedGame.moves.size() - 1));
+            } else if (action == 1 && kalahaBoard.redo()) {
+                playedGame.moves.add(takenBackMoves.pop());
+            } else {
+                final int player = position[KalahaRules.TURN] == KalahaRules.NONE ? 0 : position[KalahaRules.TURN];
+                final int pitIndex = (player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1) + random.nextInt(6);
+                if (position[pitIndex] > 0) {
+                    capturePitIndex[0] = -1;
+                    kalahaBoard.initialMove(pitIndex);
+                    playedGame.moves.add(new PlayedMove(pitIndex, capturePitIndex[0], 1));
+                    takenBackMoves.clear();
+                }
+            }
+        }
+
+        // take back the move that decided the game: no result anymore
+        if (random.nextInt(4) == 0 && kalahaBoard.undo()) {
+            playedGame.moves.remove(playedGame.moves.size() - 1);
+        }
+        KalahaRules.copyOf(kalahaBoard, position);
+        if (position[KalahaRules.WINNER] != KalahaRules.NONE) {
+            playedGame.result = position[KalahaRules.WINNER];
+        } else if (isGameOver(position)) {
+            playedGame.result = GameSummary.TIE;
+        }
+        return playedGame;
+    }
+
+    private static boolean isGameOver(final int[] position) {
+        return position[KalahaRules.WINNER] != KalahaRules.NONE || KalahaRules.isSideEmpty(position, 0) || KalahaRules.isSideEmpty(position, 1);
+    }
+
+    private static final class PlayedGame {
+        private final List<PlayedMove> moves = new ArrayList<>();
+        private int result = GameSummary.NO_RESULT;
+    }
+
+    private static final class PlayedMove {
+        // -1 for moves applied at once
+        private final int pitIndex;
+        private final int capturePitIndex;
+        private final int numberOfMoves;
+
+        private PlayedMove(final int pitIndex, final int capturePitIndex, final int numberOfMoves) {
+            this.pitIndex = pitIndex;
+            this.capturePitIndex = capturePitIndex;
+            this.numberOfMoves = numberOfMoves;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ammar.kalahacorelibrary.archive;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Event log compaction tests.
+ */
+public class EventLogCompactorTest {
+
+    @Test
+    public void compactedLogShouldExpandToTheOriginalEvents() throws IOException {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> events = new ArrayList<>(ShadowBoard.setupEventsOf(6));
+        kalahaBoard.getReplayableEventPublisher().addObserver(new LinkedHashSet<>(Arrays.asList(EventType.values())), (observable, event) -> events.add(event));
+
+        // play a game, moving a random non empty pit of the player to move
+        final Random random = new Random(7);
+        final int[] position = new int[KalahaRules.POSITION_SIZE];
+        int numberOfMoves = 0;
+        // the board doesn't accept moves once the game is over (also a tie game, which has no winner)
+        while (!isGameOver(KalahaRules.copyOf(kalahaBoard, position)) && numberOfMoves < 200) {
+            final int player = kalahaBoard.getReferee().getCurrentPlayerTurn() == null ? 0 : kalahaBoard.getReferee().getCurrentPlayerTurn().ordinal();
+            final int firstPit = player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+            final int pitIndex = firstPit + random.nextInt(6);
+            if (kalahaBoard.getPit(pitIndex).getNumberOfSeeds() > 0) {
+                kalahaBoard.initialMove(pitIndex);
+                numberOfMoves++;
+            }
+        }
+
+        final CompactedEventLog compactedEventLog = new EventLogCompactor().compact(events);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        compactedEventLog.writeTo(new DataOutputStream(bytes));
+        final CompactedEventLog readCompactedEventLog = CompactedEventLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat("Every move should be compacted into one record", compactedEventLog.getMoveRecords().size(), is(numberOfMoves));
+        assertTrue("Compacted log should be at least 10 times smaller", compactedEventLog.getNumberOfRecords() * 10 <= events.size());
+        assertThat("Compacted log should expand to the original events", readCompactedEventLog.expand(), is(events));
+    }
+
+    @Test
+    public void movesAfterMovesAppliedAtOnceShouldBeCompacted() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> events = new ArrayList<>(ShadowBoard.setupEventsOf(6));
+        kalahaBoard.getReplayableEventPublisher().addObserver(new LinkedHashSet<>(Arrays.asList(EventType.values())), (observable, event) -> events.add(event));
+
+        // Pit 3 passes the turn to player 2, the moves applied at once pass it back to player 1
+        kalahaBoard.initialMove(2);
+        kalahaBoard.applyMoves(new int[]{8, 0, 9});
+        assertThat(kalahaBoard.getReferee().getCurrentPlayerTurn().ordinal(), is(0));
+        final Random random = new Random(3);
+        final int[] position = new int[KalahaRules.POSITION_SIZE];
+        int numberOfMoves = 1;
+        while (!isGameOver(KalahaRules.copyOf(kalahaBoard, position))) {
+            final int pitIndex = (position[KalahaRules.TURN] == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1) + random.nextInt(6);
+            if (position[pitIndex] > 0) {
+                kalahaBoard.initialMove(pitIndex);
+                numberOfMoves++;
+            }
+        }
+
+        final CompactedEventLog compactedEventLog = new EventLogCompactor().compact(events);
+
+        assertThat("Every move should be compacted into one record", compactedEventLog.getMoveRecords().size(), is(numberOfMoves));
+        assertThat("Compacted log should expand to the original events", compactedEventLog.expand(), is(events));
+    }
+
+    private static boolean isGameOver(final int[] position) {
+        return position[KalahaRules.WINNER] != KalahaRules.NONE || KalahaRules.isSideEmpty(position, 0) || KalahaRules.isSideEmpty(position, 1);
+    }
+}
@@ -1,17 +1,23 @@
 package com.ammar.kalahacorelibrary.board;
 
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
 import com.ammar.kalahacorelibrary.player.PlayerType;
 import com.ammar.kalahacorelibrary.pubsub.pit.impl.KalahaPit;
 import com.ammar.kalahacorelibrary.pubsub.pit.impl.NormalPit;
 import com.ammar.kalahacorelibrary.pubsub.referee.Referee;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * Kalaha Core Library Acceptance Tests
@@ -678,4 +684,130 @@ public class KalahaCoreLibraryAcceptanceTest {
         assertThat("Current player should switch to player 2", currentPlayerTurn, is(PlayerType.PLAYER_2));
     }
 
+    /**
+     * Scenario 16:
+     * Player 1: Moving 6 seeds from Pit 1, then Player 1 moves 7 seeds from Pit 2, then both moves are taken back and re-applied
+     * <p>
+     * Expectations:
+     * - After taking back both moves, the board is back to its initial situation (and no player turn)
+     * - After re-applying the first move, the board is the same as in scenario 1
+     */
+    @Test
+    public void scenario16() {
+        System.out.printf("\nStart test scenario 16\n");
+
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+
+        kalahaBoard.initialMove(0);
+        kalahaBoard.initialMove(1);
+
+        assertThat("Pit 2 should have 0 seeds", kalahaBoard.getPlayer1().getPit2().getNumberOfSeeds(), is(0));
+        assertThat("Current player should switch to player 2", kalahaBoard.getReferee().getCurrentPlayerTurn(), is(PlayerType.PLAYER_2));
+
+        assertThat("Second move should be taken back", kalahaBoard.undo(), is(true));
+        assertThat("First move should be taken back", kalahaBoard.undo(), is(true));
+        assertThat("There should be no move left to take back", kalahaBoard.undo(), is(false));
+
+        kalahaBoard.getAllPits().values().stream()
+                .filter(pit -> pit instanceof NormalPit)
+                .forEach(pit -> assertThat(pit + " should have 6 seeds", pit.getNumberOfSeeds(), is(6)));
+        assertThat("Kalaha Pit Player 1 should have 0 seeds", kalahaBoard.getPlayer1().getKalahaPit().getNumberOfSeeds(), is(0));
+        assertThat("There should be no empty pit for player 1", kalahaBoard.getReferee().getEmptyPits().get(PlayerType.PLAYER_1).size(), is(0));
+        assertThat("There should be no player turn", kalahaBoard.getReferee().getCurrentPlayerTurn(), is(nullValue()));
+
+        assertThat("First move should be re-applied", kalahaBoard.redo(), is(true));
+
+        assertThat("Pit 1 should have 0 seeds", kalahaBoard.getPlayer1().getPit1().getNumberOfSeeds(), is(0));
+        assertThat("Pit 2 should have 7 seeds", kalahaBoard.getPlayer1().getPit2().getNumberOfSeeds(), is(7));
+        assertThat("Kalaha Pit Player 1 should have 1 seed", kalahaBoard.getPlayer1().getKalahaPit().getNumberOfSeeds(), is(1));
+        assertThat("Pit 1 should be empty pit for player 1", kalahaBoard.getReferee().getEmptyPits().get(PlayerType.PLAYER_1).contains("Pit 1"), is(true));
+        assertThat("Current player should be player 1", kalahaBoard.getReferee().getCurrentPlayerTurn(), is(PlayerType.PLAYER_1));
+        assertThat("Second move can still be re-applied", kalahaBoard.canRedo(), is(true));
+    }
+
+    /**
+     * Scenario 17:
+     * The moves of scenario 16 (Pit 1, then Pit 2) are applied at once, then the same moves with an illegal third move
+     * <p>
+     * Expectations:
+     * - The board is the same as after moving one by one, observers only receive the events of the changed pits and one MOVES_APPLIED event
+     * - Both moves are taken back at once
+     * - A sequence with an illegal move (empty Pit 1) leaves the board untouched
+     */
+    @Test
+    public void scenario17() {
+        System.out.printf("\nStart test scenario 17\n");
+
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> events = new ArrayList<>();
+        kalahaBoard.getReplayableEventPublisher().subscribe(EnumSet.allOf(EventType.class), (observable, event) -> events.add(event));
+
+        kalahaBoard.applyMoves(new int[]{0, 1});
+
+        // Pit 1 .. 6, Kalaha Pit Player 1, Pit 7 and Pit 8 changed
+        assertThat("Observers should receive an event per changed pit and one MOVES_APPLIED event", events.size(), is(10));
+        for (Event event : events.subList(0, 9)) {
+            assertThat("Changed pit should publish its number of seeds", event.getNumberOfSeeds(), is(kalahaBoard.getPit(event.getOriginPitId()).getNumberOfSeeds()));
+        }
+        assertThat("Last event should be MOVES_APPLIED for 2 moves", events.get(9).getEventType(), is(EventType.MOVES_APPLIED));
+        assertThat("Last event should be MOVES_APPLIED for 2 moves", events.get(9).getNumberOfSeeds(), is(2));
+        assertThat("Pit 2 should have 0 seeds", kalahaBoard.getPlayer1().getPit2().getNumberOfSeeds(), is(0));
+        assertThat("Kalaha Pit Player 1 should have 2 seeds", kalahaBoard.getPlayer1().getKalahaPit().getNumberOfSeeds(), is(2));
+        assertThat("Pit 2 should be empty pit for player 1", kalahaBoard.getReferee().getEmptyPits().get(PlayerType.PLAYER_1).contains("Pit 2"), is(true));
+        assertThat("Current player should switch to player 2", kalahaBoard.getReferee().getCurrentPlayerTurn(), is(PlayerType.PLAYER_2));
+
+        assertThat("Both moves should be taken back at once", kalahaBoard.undo(), is(true));
+        assertThat("Pit 1 should have 6 seeds", kalahaBoard.getPlayer1().getPit1().getNumberOfSeeds(), is(6));
+        assertThat("There should be no move left to take back", kalahaBoard.canUndo(), is(false));
+
+        try {
+            kalahaBoard.applyMoves(new int[]{0, 1, 0});
+            fail("Moving the empty Pit 1 should not be possible");
+        } catch (IllegalStateException e) {
+            assertThat("Pit 1 should still have 6 seeds", kalahaBoard.getPlayer1().getPit1().getNumberOfSeeds(), is(6));
+            assertThat("Kalaha Pit Player 1 should still have 0 seeds", kalahaBoard.getPlayer1().getKalahaPit().getNumberOfSeeds(), is(0));
+            assertThat("There should still be no move to take back", kalahaBoard.canUndo(), is(false));
+        }
+    }
+
+    /**
+     * Scenario 18:
+     * Player 1: Moving 6 seeds from Pit 2, then Player 1 tries to move again (Pit 1), Player 2 moves Pit 7 (ending in Pit 1),
+     * then Player 1 tries to move the empty Pit 2
+     * <p>
+     * Expectations:
+     * - Moves out of turn and moves from an empty pit are rejected, without publishing any event
+     * - Only the pits of the player on turn are legal moves
+     */
+    @Test
+    public void scenario18() {
+        System.out.printf("\nStart test scenario 18\n");
+
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> events = new ArrayList<>();
+        kalahaBoard.getReplayableEventPublisher().subscribe(EnumSet.allOf(EventType.class), (observable, event) -> events.add(event));
+
+        kalahaBoard.initialMove(1);
+        assertThat("Player 1 should have no legal moves", kalahaBoard.getReferee().getLegalMoveMask(PlayerType.PLAYER_1), is(0));
+        assertThat("All pits of player 2 should be legal moves", Integer.bitCount(kalahaBoard.getReferee().getLegalMoveMask(PlayerType.PLAYER_2)), is(6));
+
+        events.clear();
+        try {
+            kalahaBoard.initialMove(0);
+            fail("Player 1 should not be able to move out of turn");
+        } catch (IllegalStateException e) {
+            assertThat("No events should be published", events.size(), is(0));
+            assertThat("Pit 1 should still have 6 seeds", kalahaBoard.getPlayer1().getPit1().getNumberOfSeeds(), is(6));
+        }
+
+        // Pit 7 (7 seeds) ends in Pit 1, so it is the turn of player 1 again
+        kalahaBoard.initialMove(7);
+        events.clear();
+        try {
+            kalahaBoard.initialMove(1);
+            fail("Player 1 should not be able to move an empty pit");
+        } catch (IllegalStateException e) {
+            assertThat("No events should be published", events.size(), is(0));
+        }
+    }
 }
@@ -0,0 +1,199 @@
+package com.ammar.kalahacorelibrary.board;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.pubsub.Subscription;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Allocation budgets of the move path: bytes allocated by one KalahaBoard.initialMove() (including the delivery of its events to an
+ * observer), measured with the per-thread allocation counter of the JVM.
+ * <p>
+ * The move path is warmed up once with random games, until the JIT has settled. Every scenario is a scripted game: the setup moves
+ * are not measured, only the last move is. The 95th percentile of the measured repetitions is compared with the budget of the
+ * scenario, so a regression on a small part of the moves fails as well (a few outliers are tolerated, e.g. a deoptimization).
+ * The JIT may still recompile the scenario while it is measured, so a round over budget is measured again (up to MEASUREMENT_ROUNDS),
+ * a real regression allocates in every round.
+ * <p>
+ * The budgets include the MoveDelta that is kept per move to be able to take it back, everything else on the move path (events,
+ * referee) should not allocate. The delivery of the events to an observer is measured on its own: every repetition plays the move
+ * with and without an observer, the difference should be 0 bytes.
+ */
+public class MoveAllocationTest {
+    private static final int WARM_UP_GAMES = 500;
+    private static final int WARM_UP_REPETITIONS = 100;
+    private static final int MEASURED_REPETITIONS = 200;
+    private static final int MEASUREMENT_ROUNDS = 5;
+    private static final double PERCENTILE = 0.95;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+    private static long measurementOverhead;
+
+    @BeforeClass
+    public static void setUpAllocationCounter() {
+        assumeTrue("Per-thread allocation counters are not available on this JVM",
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue("Per-thread allocation counters are not available on this JVM", threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        // reading the counter itself may allocate, measure it without anything in between
+        final long[] overhead = new long[MEASURED_REPETITIONS];
+        for (int i = 0; i < 10 * MEASURED_REPETITIONS; i++) {
+            overhead[i % MEASURED_REPETITIONS] = -allocatedBytes() + allocatedBytes();
+        }
+        measurementOverhead = percentile(overhead, 0.5);
+
+        // warm up the move path: random games, with an observer
+        final Random random = new Random(1);
+        final int[] position = new int[KalahaRules.POSITION_SIZE];
+        final int[] numberOfEvents = new int[1];
+        for (int game = 0; game < WARM_UP_GAMES; game++) {
+            final KalahaBoard kalahaBoard = new KalahaBoard(1 + game % 6);
+            kalahaBoard.getReplayableEventPublisher().subscribe(EnumSet.allOf(EventType.class), (observable, event) -> numberOfEvents[0]++);
+            while (!isGameOver(KalahaRules.copyOf(kalahaBoard, position))) {
+                final int player = position[KalahaRules.TURN] == KalahaRules.NONE ? 0 : position[KalahaRules.TURN];
+                final int pitIndex = (player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1) + random.nextInt(6);
+                if (position[pitIndex] > 0) {
+                    kalahaBoard.initialMove(pitIndex);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void normalMoveShouldStayWithinBudget() {
+        // Pit 2: last seed ends in Pit 7
+        assertWithinBudget("normal move", 6, new int[]{}, 1, KalahaRules.MOVED, 192);
+    }
+
+    @Test
+    public void extraTurnShouldStayWithinBudget() {
+        // Pit 1: last seed ends in KalahaPit 1
+        assertWithinBudget("extra turn", 6, new int[]{}, 0, KalahaRules.MOVED | KalahaRules.EXTRA_TURN, 192);
+    }
+
+    @Test
+    public void captureShouldStayWithinBudget() {
+        // Pit 6 ends in KalahaPit 1 (extra turn), then Pit 5 ends in the empty Pit 6 and captures Pit 7
+        assertWithinBudget("capture", 1, new int[]{5}, 4, KalahaRules.MOVED | KalahaRules.CAPTURE, 160);
+    }
+
+    @Test
+    public void gameEndShouldStayWithinBudget() {
+        // both players play their first non-empty pit, until the last move decides the game
+        final int[] position = KalahaRules.newPosition(1);
+        int[] setupMoves = new int[0];
+        int lastMove;
+        while (true) {
+            lastMove = firstNonEmptyPitOf(position, position[KalahaRules.TURN] == KalahaRules.NONE ? 0 : position[KalahaRules.TURN]);
+            if ((KalahaRules.move(position, lastMove) & KalahaRules.GAME_OVER) != 0) {
+                break;
+            }
+            setupMoves = Arrays.copyOf(setupMoves, setupMoves.length + 1);
+            setupMoves[setupMoves.length - 1] = lastMove;
+        }
+
+        assertWithinBudget("game end", 1, setupMoves, lastMove, -1, 160);
+    }
+
+    /**
+     * @param expectedFlags KalahaRules flags the measured move should have (to make sure the scenario is what it claims to be),
+     *                      -1 when only GAME_OVER matters
+     */
+    private void assertWithinBudget(final String scenario, final int initialNumberOfSeeds, final int[] setupMoves, final int measuredMove,
+                                    final int expectedFlags, final long bytesPerMoveBudget) {
+        final int[] position = KalahaRules.newPosition(initialNumberOfSeeds);
+        for (int setupMove : setupMoves) {
+            KalahaRules.move(position, setupMove);
+        }
+        final int flags = KalahaRules.move(position, measuredMove);
+        if (expectedFlags < 0) {
+            assertThat(scenario + " should end the game", (flags & KalahaRules.GAME_OVER) != 0, is(true));
+        } else {
+            assertThat(scenario + " flags", flags, is(expectedFlags));
+        }
+
+        final int[] numberOfEvents = new int[1];
+        final long[] allocated = new long[MEASURED_REPETITIONS];
+        final long[] allocatedWithoutObserver = new long[MEASURED_REPETITIONS];
+        long bytesPerMove = Long.MAX_VALUE;
+        long bytesOfDelivery = Long.MAX_VALUE;
+        for (int round = 0; round < MEASUREMENT_ROUNDS && (bytesPerMove > bytesPerMoveBudget || bytesOfDelivery > 0); round++) {
+            for (int repetition = 0; repetition < WARM_UP_REPETITIONS + MEASURED_REPETITIONS; repetition++) {
+                final long bytes = allocatedBytesOfMove(initialNumberOfSeeds, setupMoves, measuredMove, numberOfEvents);
+                final long bytesWithoutObserver = allocatedBytesOfMove(initialNumberOfSeeds, setupMoves, measuredMove, null);
+                if (repetition >= WARM_UP_REPETITIONS) {
+                    allocated[repetition - WARM_UP_REPETITIONS] = bytes;
+                    allocatedWithoutObserver[repetition - WARM_UP_REPETITIONS] = bytesWithoutObserver;
+                }
+            }
+
+            final long roundBytesPerMove = percentile(allocated, PERCENTILE);
+            bytesPerMove = Math.min(bytesPerMove, roundBytesPerMove);
+            bytesOfDelivery = Math.min(bytesOfDelivery, Math.max(0, roundBytesPerMove - percentile(allocatedWithoutObserver, PERCENTILE)));
+        }
+
+        assertThat(scenario + ": " + bytesPerMove + " bytes allocated per move (p95), budget " + bytesPerMoveBudget,
+                bytesPerMove <= bytesPerMoveBudget, is(true));
+        assertThat(scenario + ": " + bytesOfDelivery + " bytes allocated to deliver " + numberOfEvents[0] + " events to an observer",
+                bytesOfDelivery, is(0L));
+    }
+
+    /**
+     * @param numberOfEvents counts the events delivered to an observer, null to play the move without an observer
+     * @return bytes allocated by the move
+     */
+    private static long allocatedBytesOfMove(final int initialNumberOfSeeds, final int[] setupMoves, final int measuredMove, final int[] numberOfEvents) {
+        final KalahaBoard kalahaBoard = new KalahaBoard(initialNumberOfSeeds);
+        for (int setupMove : setupMoves) {
+            kalahaBoard.initialMove(setupMove);
+        }
+        Subscription subscription = null;
+        if (numberOfEvents != null) {
+            subscription = kalahaBoard.getReplayableEventPublisher().subscribe(EnumSet.allOf(EventType.class), (observable, event) -> numberOfEvents[0]++);
+            numberOfEvents[0] = 0;
+        }
+
+        final long before = allocatedBytes();
+        kalahaBoard.initialMove(measuredMove);
+        final long after = allocatedBytes();
+
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        return Math.max(0, after - before - measurementOverhead);
+    }
+
+    private static boolean isGameOver(final int[] position) {
+        return position[KalahaRules.WINNER] != KalahaRules.NONE || KalahaRules.isSideEmpty(position, 0) || KalahaRules.isSideEmpty(position, 1);
+    }
+
+    private static int firstNonEmptyPitOf(final int[] position, final int player) {
+        int pitIndex = player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+        while (position[pitIndex] == 0) {
+            pitIndex++;
+        }
+        return pitIndex;
+    }
+
+    private static long allocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long percentile(final long[] values, final double percentile) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+}
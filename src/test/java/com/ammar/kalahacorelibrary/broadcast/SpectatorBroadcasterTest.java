@@ -0,0 +1,88 @@
+package com.ammar.kalahacorelibrary.broadcast;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Spectator broadcaster tests.
+ */
+public class SpectatorBroadcasterTest {
+
+    @Test
+    public void everyEventShouldBeSerializedOnceForAllSpectators() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(kalahaBoard, new BinaryFrameEncoder(), 1024);
+        final Spectator spectator1 = broadcaster.subscribe();
+        final Spectator spectator2 = broadcaster.subscribe();
+
+        kalahaBoard.initialMove(1);
+
+        final List<EventFrame> frames1 = drain(spectator1);
+        final List<EventFrame> frames2 = drain(spectator2);
+        assertThat(frames1.size(), is(frames2.size()));
+        assertThat("First frame should be a snapshot", frames1.get(0).isSnapshot(), is(true));
+        for (int i = 1; i < frames1.size(); i++) {
+            assertThat("Frame " + i + " should be shared", frames1.get(i), sameInstance(frames2.get(i)));
+            assertThat(frames1.get(i).getSequence(), is((long) i));
+        }
+    }
+
+    @Test
+    public void slowSpectatorShouldSkipToASnapshot() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(kalahaBoard, new BinaryFrameEncoder(), 4);
+        final Spectator spectator = broadcaster.subscribe();
+
+        // one move publishes more than 4 events
+        kalahaBoard.initialMove(1);
+
+        final List<EventFrame> frames = drain(spectator);
+        assertThat(spectator.getNumberOfSkippedFrames() > 0, is(true));
+        assertThat("Spectator should have skipped forward to a snapshot", frames.stream().anyMatch(frame -> frame.isSnapshot() && frame.getSequence() > 0), is(true));
+        // a snapshot contains all events up to its sequence, the spectator continues from there without gaps or duplicates
+        for (int i = 1; i < frames.size(); i++) {
+            final long previousSequence = frames.get(i - 1).getSequence();
+            final EventFrame frame = frames.get(i);
+            assertThat(frame.isSnapshot() ? frame.getSequence() > previousSequence : frame.getSequence() == previousSequence + 1, is(true));
+        }
+        // the move publishes 13 events
+        assertThat(frames.get(frames.size() - 1).getSequence(), is(13L));
+    }
+
+    @Test
+    public void closedSpectatorsAndBroadcasterShouldGetNoFrames() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(kalahaBoard, new BinaryFrameEncoder(), 1024);
+        final Spectator closedSpectator = broadcaster.subscribe();
+        final Spectator spectator = broadcaster.subscribe();
+        drain(closedSpectator);
+        drain(spectator);
+
+        closedSpectator.close();
+        assertThat(broadcaster.getNumberOfSpectators(), is(1));
+        kalahaBoard.initialMove(1);
+        assertThat(closedSpectator.poll(), nullValue());
+
+        broadcaster.close();
+        drain(spectator);
+        kalahaBoard.initialMove(8);
+        assertThat("Broadcaster should not publish after close", spectator.poll(), nullValue());
+    }
+
+    private static List<EventFrame> drain(final Spectator spectator) {
+        final List<EventFrame> frames = new ArrayList<>();
+        EventFrame frame;
+        while ((frame = spectator.poll()) != null) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,213 @@
+package com.ammar.kalahacorelibrary.bus;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Game event bus tests.
+ */
+public class GameEventBusTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private GameEventBus gameEventBus;
+
+    @After
+    public void tearDown() {
+        if (gameEventBus != null) {
+            gameEventBus.close();
+        }
+    }
+
+    @Test
+    public void eventsOfOneGameShouldBeConsumedInOrder() throws Exception {
+        gameEventBus = new GameEventBus(4, 16);
+        final Map<Long, List<Integer>> consumed = new ConcurrentHashMap<>();
+        gameEventBus.subscribe((gameId, event) -> consumed.computeIfAbsent(gameId, id -> Collections.synchronizedList(new ArrayList<>())).add(event.getNumberOfSeeds()));
+
+        // every game publishes from its own thread, the games share the partitions
+        final int numberOfGames = 8;
+        final int numberOfEvents = 1000;
+        final List<Thread> games = new ArrayList<>();
+        for (long gameId = 0; gameId < numberOfGames; gameId++) {
+            final long id = gameId;
+            games.add(new Thread(() -> {
+                for (int i = 0; i < numberOfEvents; i++) {
+                    gameEventBus.publish(id, event(i));
+                }
+            }));
+        }
+        games.forEach(Thread::start);
+        for (Thread game : games) {
+            game.join(TIMEOUT_MILLIS);
+        }
+        gameEventBus.close();
+
+        assertThat(consumed.size(), is(numberOfGames));
+        for (Map.Entry<Long, List<Integer>> entry : consumed.entrySet()) {
+            final List<Integer> sequence = entry.getValue();
+            assertThat("Events of game " + entry.getKey(), sequence.size(), is(numberOfEvents));
+            for (int i = 0; i < numberOfEvents; i++) {
+                assertThat("Event " + i + " of game " + entry.getKey(), sequence.get(i), is(i));
+            }
+        }
+    }
+
+    @Test
+    public void fullQueueShouldMakeThePublisherWaitAndReportTheLag() throws Exception {
+        gameEventBus = new GameEventBus(1, 2);
+        final CountDownLatch consuming = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger numberOfConsumedEvents = new AtomicInteger();
+        gameEventBus.subscribe((gameId, event) -> {
+            consuming.countDown();
+            await(release);
+            numberOfConsumedEvents.incrementAndGet();
+        });
+
+        // the first event blocks the consumer, the next two fill the queue, the last one waits
+        gameEventBus.publish(1, event(0));
+        assertThat(consuming.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), is(true));
+        final Thread game = new Thread(() -> {
+            for (int i = 1; i < 4; i++) {
+                gameEventBus.publish(1, event(i));
+            }
+        });
+        game.start();
+        waitUntil(() -> gameEventBus.getMetrics(0).getNumberOfTimesFull() == 1);
+        assertThat("Publisher should wait for the full queue", game.isAlive(), is(true));
+
+        final PartitionMetrics metrics = gameEventBus.getMetrics(0);
+        assertThat(metrics.getNumberOfPublishedEvents(), is(4L));
+        assertThat(metrics.getNumberOfConsumedEvents(), is(0L));
+        assertThat(metrics.getLag(), is(4L));
+
+        release.countDown();
+        game.join(TIMEOUT_MILLIS);
+        waitUntil(() -> gameEventBus.getMetrics(0).getLag() == 0);
+        assertThat(numberOfConsumedEvents.get(), is(4));
+        assertThat(gameEventBus.getMetrics(0).getNumberOfConsumedEvents(), is(4L));
+    }
+
+    @Test
+    public void closeShouldConsumeQueuedEventsAndRejectLaterEvents() throws Exception {
+        gameEventBus = new GameEventBus(2, 16);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger numberOfConsumedEvents = new AtomicInteger();
+        gameEventBus.subscribe((gameId, event) -> {
+            await(release);
+            numberOfConsumedEvents.incrementAndGet();
+        });
+        for (int i = 0; i < 10; i++) {
+            gameEventBus.publish(i, event(i));
+        }
+        release.countDown();
+
+        gameEventBus.close();
+        assertThat(numberOfConsumedEvents.get(), is(10));
+
+        try {
+            gameEventBus.publish(1, event(10));
+            fail("Events published after close should be rejected");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("Event bus is closed"));
+        }
+        assertThat(gameEventBus.getMetrics(0).getLag() + gameEventBus.getMetrics(1).getLag(), is(0L));
+    }
+
+    @Test
+    public void closeShouldNotInterruptABusyConsumer() throws Exception {
+        gameEventBus = new GameEventBus(2, 16);
+        final AtomicInteger numberOfConsumedEvents = new AtomicInteger();
+        final AtomicInteger numberOfInterruptions = new AtomicInteger();
+        gameEventBus.subscribe((gameId, event) -> {
+            // e.g. a write through a FileChannel, which an interrupt would close
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                numberOfInterruptions.incrementAndGet();
+            }
+            numberOfConsumedEvents.incrementAndGet();
+        });
+        for (int i = 0; i < 20; i++) {
+            gameEventBus.publish(i, event(i));
+        }
+
+        gameEventBus.close();
+        assertThat(numberOfConsumedEvents.get(), is(20));
+        assertThat(numberOfInterruptions.get(), is(0));
+    }
+
+    @Test
+    public void consumerPublishingOnItsOwnFullPartitionShouldFailInsteadOfDeadlocking() throws Exception {
+        gameEventBus = new GameEventBus(1, 1);
+        final CountDownLatch consuming = new CountDownLatch(1);
+        final CountDownLatch queueFull = new CountDownLatch(1);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        gameEventBus.subscribe((gameId, event) -> {
+            if (gameId == 1) {
+                consuming.countDown();
+                await(queueFull);
+                try {
+                    gameEventBus.publish(2, event(0));
+                } catch (RuntimeException e) {
+                    failure.set(e);
+                }
+            }
+        });
+
+        gameEventBus.publish(1, event(0));
+        assertThat(consuming.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), is(true));
+        gameEventBus.publish(3, event(0));
+        queueFull.countDown();
+
+        waitUntil(() -> gameEventBus.getMetrics(0).getLag() == 0);
+        assertThat(failure.get(), notNullValue());
+        assertThat(failure.get() instanceof IllegalStateException, is(true));
+        assertThat(gameEventBus.getMetrics(0).getNumberOfPublishedEvents(), is(2L));
+    }
+
+    private static Event event(final int sequence) {
+        return new Event(PlayerType.PLAYER_1, "Pit 1", EventType.MOVE, sequence);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(final Condition condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.isMet()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within " + TIMEOUT_MILLIS + " ms");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+        boolean isMet();
+    }
+}
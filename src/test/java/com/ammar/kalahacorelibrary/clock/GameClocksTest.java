@@ -0,0 +1,95 @@
+package com.ammar.kalahacorelibrary.clock;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Game clocks tests, with a tick of 5 ms.
+ */
+public class GameClocksTest {
+    private static final long MOVE_TIME_MILLIS = 50;
+    private static final long ABANDON_TIME_MILLIS = 10_000;
+
+    private final BlockingQueue<String> notifications = new LinkedBlockingQueue<>();
+    private GameClocks gameClocks;
+
+    @Before
+    public void setUp() {
+        gameClocks = new GameClocks(5, TimeUnit.MILLISECONDS, new GameClockListener() {
+            @Override
+            public void timedOut(final long gameId, final PlayerType playerType) {
+                notifications.add("timedOut " + gameId + " " + playerType);
+            }
+
+            @Override
+            public void abandoned(final long gameId) {
+                notifications.add("abandoned " + gameId);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        gameClocks.close();
+    }
+
+    @Test
+    public void playerOnTurnShouldTimeOut() throws Exception {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        gameClocks.attach(1, kalahaBoard, MOVE_TIME_MILLIS, ABANDON_TIME_MILLIS, TimeUnit.MILLISECONDS);
+
+        synchronized (kalahaBoard) {
+            kalahaBoard.initialMove(1);
+        }
+
+        assertThat(notifications.poll(5, TimeUnit.SECONDS), is("timedOut 1 PLAYER_2"));
+        assertThat("Other player should win", kalahaBoard.getReferee().getWinner(), is(PlayerType.PLAYER_1));
+    }
+
+    @Test
+    public void undoingTheFirstMoveShouldStopTheMoveClock() throws Exception {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        gameClocks.attach(1, kalahaBoard, MOVE_TIME_MILLIS, ABANDON_TIME_MILLIS, TimeUnit.MILLISECONDS);
+
+        synchronized (kalahaBoard) {
+            kalahaBoard.initialMove(1);
+            kalahaBoard.undo();
+        }
+
+        // nobody is on turn after undoing the first move
+        assertThat(notifications.poll(MOVE_TIME_MILLIS * 4, TimeUnit.MILLISECONDS), nullValue());
+        assertThat(kalahaBoard.getReferee().getWinner(), nullValue());
+    }
+
+    @Test
+    public void detachedGameShouldNotTimeOut() throws Exception {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        gameClocks.attach(1, kalahaBoard, MOVE_TIME_MILLIS, ABANDON_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        synchronized (kalahaBoard) {
+            kalahaBoard.initialMove(1);
+        }
+        gameClocks.detach(1);
+
+        assertThat(gameClocks.getNumberOfGames(), is(0));
+        assertThat(notifications.poll(MOVE_TIME_MILLIS * 4, TimeUnit.MILLISECONDS), nullValue());
+    }
+
+    @Test
+    public void gameWithoutEventsShouldBeAbandoned() throws Exception {
+        gameClocks.attach(1, new KalahaBoard(6), MOVE_TIME_MILLIS, 30, TimeUnit.MILLISECONDS);
+
+        assertThat(notifications.poll(5, TimeUnit.SECONDS), is("abandoned 1"));
+        assertThat("Abandoned game should be detached", gameClocks.getNumberOfGames(), is(0));
+    }
+}
@@ -0,0 +1,73 @@
+package com.ammar.kalahacorelibrary.clock;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Timing wheel tests.
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void timersShouldExpireOnTheirDeadlineThroughAllLevels() {
+        final TimingWheel<Long> timingWheel = new TimingWheel<>(10, 0);
+        final Random random = new Random(42);
+        final List<TimingWheel.Timer<Long>> timers = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // up to about 2 levels beyond the range of the wheel
+            final long deadline = 1 + (long) (random.nextDouble() * random.nextDouble() * 10L * (1L << 26));
+            final TimingWheel.Timer<Long> timer = new TimingWheel.Timer<>(deadline);
+            timingWheel.schedule(timer, deadline);
+            timers.add(timer);
+        }
+
+        // cancel every 10th timer
+        for (int i = 0; i < timers.size(); i += 10) {
+            assertThat(timingWheel.cancel(timers.get(i)), is(true));
+        }
+        assertThat(timingWheel.size(), is(1800));
+
+        final List<Long> expired = new ArrayList<>();
+        long now = 0;
+        while (timingWheel.size() > 0) {
+            final long previousNow = now;
+            now += 1 + random.nextInt(50_000);
+            expired.clear();
+            timingWheel.advanceTo(now, expired);
+            for (Long deadline : expired) {
+                // deadlines are rounded up to the next tick, and expire on the first advance at or after it
+                assertThat("Timer expired too early", (deadline + 9) / 10 * 10 <= now, is(true));
+                assertThat("Timer expired too late", (deadline + 9) / 10 * 10 > previousNow, is(true));
+            }
+        }
+
+        for (int i = 0; i < timers.size(); i++) {
+            assertThat(timers.get(i).isScheduled(), is(false));
+        }
+    }
+
+    @Test
+    public void rearmedTimerShouldOnlyExpireOnItsNewDeadline() {
+        final TimingWheel<String> timingWheel = new TimingWheel<>(1, 1000);
+        final TimingWheel.Timer<String> timer = new TimingWheel.Timer<>("game 1");
+        final List<String> expired = new ArrayList<>();
+
+        timingWheel.schedule(timer, 1100);
+        timingWheel.advanceTo(1050, expired);
+        timingWheel.schedule(timer, 1150);
+        timingWheel.advanceTo(1100, expired);
+        assertThat("Re-armed timer should not expire on the old deadline", expired.isEmpty(), is(true));
+
+        timingWheel.advanceTo(1149, expired);
+        assertThat(expired.isEmpty(), is(true));
+        timingWheel.advanceTo(1150, expired);
+        assertThat(expired.size(), is(1));
+        assertThat(timingWheel.cancel(timer), is(false));
+    }
+}
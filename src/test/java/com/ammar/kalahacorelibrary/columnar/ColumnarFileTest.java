@@ -0,0 +1,142 @@
+package com.ammar.kalahacorelibrary.columnar;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Columnar position file tests.
+ */
+public class ColumnarFileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void projectedColumnsShouldBeReadBackWithoutReadingOtherColumns() throws Exception {
+        final Path file = temporaryFolder.newFolder().toPath().resolve("positions.columnar");
+        final Random random = new Random(7);
+        final List<int[]> rows = new ArrayList<>();
+
+        try (ColumnarWriter writer = new ColumnarWriter(file, 1000)) {
+            for (int game = 0; game < 200; game++) {
+                final int[] position = KalahaRules.newPosition(6);
+                final int result = random.nextInt(3);
+                while (!KalahaRules.isSideEmpty(position, 0) && !KalahaRules.isSideEmpty(position, 1)) {
+                    final int player = position[KalahaRules.TURN] == KalahaRules.NONE ? 0 : position[KalahaRules.TURN];
+                    int move;
+                    do {
+                        move = (player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1) + random.nextInt(6);
+                    } while (position[move] == 0);
+
+                    writer.add(position, player, move, result);
+                    rows.add(new int[]{position[0], player, move, result});
+                    KalahaRules.move(position, move);
+                }
+            }
+        }
+
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            assertThat(reader.getNumberOfRows(), is((long) rows.size()));
+
+            final List<int[]> readRows = new ArrayList<>();
+            reader.scan(EnumSet.of(Column.PIT_1, Column.SIDE_TO_MOVE, Column.MOVE, Column.RESULT), (numberOfRows, columns) -> {
+                for (int row = 0; row < numberOfRows; row++) {
+                    readRows.add(new int[]{columns[Column.PIT_1.ordinal()][row], columns[Column.SIDE_TO_MOVE.ordinal()][row],
+                            columns[Column.MOVE.ordinal()][row], columns[Column.RESULT.ordinal()][row]});
+                }
+            });
+            for (int row = 0; row < rows.size(); row++) {
+                assertThat("Row " + row, readRows.get(row), is(rows.get(row)));
+            }
+        }
+
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            final long[] totalSeedsInPit1 = new long[1];
+            reader.scan(EnumSet.of(Column.PIT_1), (numberOfRows, columns) -> {
+                for (int row = 0; row < numberOfRows; row++) {
+                    totalSeedsInPit1[0] += columns[Column.PIT_1.ordinal()][row];
+                }
+            });
+            assertThat(totalSeedsInPit1[0], is(rows.stream().mapToLong(row -> row[0]).sum()));
+            assertThat("Scanning one column should only read a fraction of the file", reader.getNumberOfBytesRead() * 5 < Files.size(file), is(true));
+        }
+    }
+
+    /**
+     * A game that starts with moves applied at once (taken back and re-applied) should export the moves after them, from the
+     * position on the board.
+     */
+    @Test
+    public void exportShouldContinueFromMovesAppliedAtOnce() throws Exception {
+        final Path file = temporaryFolder.newFolder().toPath().resolve("positions.columnar");
+        final Random random = new Random(3);
+        final KalahaBoard kalahaBoard = new KalahaBoard(4);
+        final List<Event> events = new ArrayList<>();
+        kalahaBoard.getReplayableEventPublisher().addObserver(new LinkedHashSet<>(Arrays.asList(EventType.values())), (observable, event) -> events.add(event));
+
+        kalahaBoard.applyMoves(new int[]{0, 7});
+        kalahaBoard.undo();
+        kalahaBoard.redo();
+        final List<int[]> rows = new ArrayList<>();
+        final int[] position = new int[KalahaRules.POSITION_SIZE];
+        while (!isGameOver(KalahaRules.copyOf(kalahaBoard, position))) {
+            final int player = position[KalahaRules.TURN];
+            final int move = (player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1) + random.nextInt(6);
+            if (random.nextInt(8) == 0 && rows.size() > 0) {
+                kalahaBoard.undo();
+                rows.remove(rows.size() - 1);
+            } else if (position[move] > 0) {
+                final int[] row = Arrays.copyOf(position, Column.RESULT.ordinal() + 1);
+                row[Column.SIDE_TO_MOVE.ordinal()] = player;
+                row[Column.MOVE.ordinal()] = move;
+                rows.add(row);
+                kalahaBoard.initialMove(move);
+            }
+        }
+        final int result = position[KalahaRules.WINNER] == KalahaRules.NONE ? Column.TIE : position[KalahaRules.WINNER];
+        rows.forEach(row -> row[Column.RESULT.ordinal()] = result);
+
+        try (PositionExporter exporter = new PositionExporter(new ColumnarWriter(file, 16))) {
+            exporter.export(4, events);
+            assertThat(exporter.getNumberOfExportedPositions(), is((long) rows.size()));
+        }
+
+        final List<int[]> readRows = new ArrayList<>();
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            reader.scan(EnumSet.allOf(Column.class), (numberOfRows, columns) -> {
+                for (int row = 0; row < numberOfRows; row++) {
+                    final int[] readRow = new int[columns.length];
+                    for (int column = 0; column < columns.length; column++) {
+                        readRow[column] = columns[column][row];
+                    }
+                    readRows.add(readRow);
+                }
+            });
+        }
+        assertThat(readRows.size(), is(rows.size()));
+        for (int row = 0; row < rows.size(); row++) {
+            assertThat("Row " + row, Arrays.toString(readRows.get(row)), is(Arrays.toString(rows.get(row))));
+        }
+    }
+
+    private static boolean isGameOver(final int[] position) {
+        return position[KalahaRules.WINNER] != KalahaRules.NONE || KalahaRules.isSideEmpty(position, 0) || KalahaRules.isSideEmpty(position, 1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ammar.kalahacorelibrary.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Make sure that the batch engine always ends up in the same positions as the compact rules engine (for every variant).
+ */
+public class BatchMoveEngineTest {
+
+    @Test
+    public void randomMovesShouldEndUpInTheSamePositionsAsKalahaRules() {
+        assertSamePositionsAsRuleSet(RuleSet.STANDARD, new Random(7));
+    }
+
+    @Test
+    public void randomMovesShouldEndUpInTheSamePositionsAsTheRuleSetOfTheVariant() {
+        final Random random = new Random(11);
+        for (CaptureRule captureRule : CaptureRule.values()) {
+            for (SweepRule sweepRule : SweepRule.values()) {
+                assertSamePositionsAsRuleSet(new RuleSet(captureRule, random.nextBoolean(), sweepRule, false), random);
+            }
+        }
+    }
+
+    private void assertSamePositionsAsRuleSet(final RuleSet ruleSet, final Random random) {
+        final int numberOfBoards = 64;
+        final BatchMoveEngine batchMoveEngine = new BatchMoveEngine(numberOfBoards, ruleSet);
+        final int[][] positions = new int[numberOfBoards][];
+        for (int board = 0; board < numberOfBoards; board++) {
+            // up to 20 seeds per pit, so that moves go around the board more than once
+            positions[board] = KalahaRules.newPosition(1 + random.nextInt(20));
+            batchMoveEngine.setPosition(board, positions[board]);
+        }
+
+        final int[] pitIndices = new int[numberOfBoards];
+        final int[] flags = new int[numberOfBoards];
+        for (int moveNumber = 0; moveNumber < 300; moveNumber++) {
+            for (int board = 0; board < numberOfBoards; board++) {
+                // includes empty pits and boards that don't move
+                final int pitIndex = random.nextInt(KalahaRules.NUMBER_OF_PITS + 1) - 1;
+                pitIndices[board] = KalahaRules.isKalahaPit(pitIndex) ? BatchMoveEngine.NO_MOVE : pitIndex;
+            }
+
+            batchMoveEngine.move(pitIndices, flags);
+
+            for (int board = 0; board < numberOfBoards; board++) {
+                final int expectedFlags = pitIndices[board] == BatchMoveEngine.NO_MOVE ? 0 : ruleSet.move(positions[board], pitIndices[board]);
+                final String message = ruleSet + " board " + board + " move " + moveNumber + " from pit index " + pitIndices[board];
+                assertThat(message, flags[board], is(expectedFlags));
+                assertThat(message, Arrays.toString(batchMoveEngine.getPosition(board, new int[KalahaRules.POSITION_SIZE])),
+                        is(Arrays.toString(positions[board])));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ammar.kalahacorelibrary.engine;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.Pit;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Make sure that the compact rules engine always ends up in the same position as the Kalaha board (pit object graph).
+ */
+public class KalahaRulesTest {
+
+    @Test
+    public void randomGamesShouldEndUpInTheSamePositionAsKalahaBoard() {
+        final Random random = new Random(42);
+
+        for (int game = 0; game < 50; game++) {
+            final int initialNumberOfSeeds = 1 + random.nextInt(8);
+            final KalahaBoard kalahaBoard = new KalahaBoard(initialNumberOfSeeds);
+            final List<Pit> pits = new ArrayList<>(kalahaBoard.getAllPits().values());
+            final int[] position = KalahaRules.newPosition(initialNumberOfSeeds);
+
+            // the board doesn't accept moves once the game is over (also a tie game, which has no winner)
+            for (int moveNumber = 0; moveNumber < 200 && !KalahaRules.isSideEmpty(position, 0) && !KalahaRules.isSideEmpty(position, 1); moveNumber++) {
+                final int pitIndex = randomPitToMove(random, position);
+                if (pitIndex < 0) {
+                    break;
+                }
+
+                pits.get(pitIndex).initialMove();
+                KalahaRules.move(position, pitIndex);
+
+                final int[] expectedPosition = KalahaRules.copyOf(kalahaBoard, new int[KalahaRules.POSITION_SIZE]);
+                assertThat("Game " + game + " move " + moveNumber + " from pit index " + pitIndex,
+                        Arrays.toString(position), is(Arrays.toString(expectedPosition)));
+            }
+        }
+    }
+
+    @Test
+    public void lastSeedInOwnKalahaPitShouldGiveAnExtraTurn() {
+        final int[] position = KalahaRules.newPosition(6);
+
+        final int flags = KalahaRules.move(position, 0);
+
+        assertThat("Move should give an extra turn", (flags & KalahaRules.EXTRA_TURN) != 0, is(true));
+        assertThat("Player 1 should play again", KalahaRules.toPlayerType(position[KalahaRules.TURN]), is(PlayerType.PLAYER_1));
+        assertThat("Kalaha Pit Player 1 should have 1 seed", position[KalahaRules.KALAHA_PIT_1], is(1));
+    }
+
+    private int randomPitToMove(final Random random, final int[] position) {
+        final int turn = position[KalahaRules.TURN] == KalahaRules.NONE ? random.nextInt(2) : position[KalahaRules.TURN];
+        final int firstPit = turn == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+        final List<Integer> candidates = new ArrayList<>();
+        for (int pitIndex = firstPit; pitIndex < firstPit + 6; pitIndex++) {
+            if (position[pitIndex] > 0) {
+                candidates.add(pitIndex);
+            }
+        }
+        return candidates.isEmpty() ? -1 : candidates.get(random.nextInt(candidates.size()));
+    }
+}
@@ -0,0 +1,127 @@
+package com.ammar.kalahacorelibrary.engine;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Rule variant tests.
+ */
+public class RuleSetTest {
+
+    @Test
+    public void nonEmptyCaptureShouldNotCaptureAnEmptyOppositePit() {
+        final RuleSet ruleSet = new RuleSet(CaptureRule.NON_EMPTY_CAPTURE, true, SweepRule.REMAINING_TO_OWNER, false);
+        final int[] position = KalahaRules.newPosition(1);
+        position[7] = 0;
+
+        // Pit 6 ends in KalahaPit 1, Pit 5 ends in the empty Pit 6 opposite of the empty Pit 7
+        ruleSet.move(position, 5);
+        final int flags = ruleSet.move(position, 4);
+
+        assertThat("Move should not capture", flags & KalahaRules.CAPTURE, is(0));
+        assertThat("Pit 6 should keep the last seed", position[5], is(1));
+        assertThat("KalahaPit 1 should only have the seed of the first move", position[KalahaRules.KALAHA_PIT_1], is(1));
+    }
+
+    @Test
+    public void pieRuleShouldGiveTheFirstMoveToTheSecondPlayer() {
+        final RuleSet ruleSet = new RuleSet(CaptureRule.EMPTY_CAPTURE, true, SweepRule.REMAINING_TO_OWNER, true);
+        final int[] position = KalahaRules.newPosition(6);
+        ruleSet.move(position, 1);
+        final int[] swapped = position.clone();
+
+        ruleSet.swapSides(swapped, 1);
+
+        for (int pitIndex = 0; pitIndex <= KalahaRules.KALAHA_PIT_1; pitIndex++) {
+            assertThat(swapped[pitIndex + KalahaRules.KALAHA_PIT_1 + 1], is(position[pitIndex]));
+            assertThat(swapped[pitIndex], is(position[pitIndex + KalahaRules.KALAHA_PIT_1 + 1]));
+        }
+        assertThat("Player 1 should be on turn", swapped[KalahaRules.TURN], is(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void standardRulesShouldNotAllowSwappingSides() {
+        final int[] position = KalahaRules.newPosition(6);
+        KalahaRules.move(position, 1);
+
+        RuleSet.STANDARD.swapSides(position, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void pieRuleShouldNotSwapSidesBeforeTheFirstMove() {
+        final RuleSet ruleSet = new RuleSet(CaptureRule.EMPTY_CAPTURE, true, SweepRule.REMAINING_TO_OWNER, true);
+        final int[] position = KalahaRules.newPosition(6);
+        position[KalahaRules.TURN] = 1;
+
+        ruleSet.swapSides(position, 0);
+    }
+
+    @Test
+    public void pieRuleShouldNotSwapSidesAfterAnExtraTurn() {
+        final RuleSet ruleSet = new RuleSet(CaptureRule.EMPTY_CAPTURE, true, SweepRule.REMAINING_TO_OWNER, true);
+        final int[] position = KalahaRules.newPosition(6);
+        // Pit 1 ends in KalahaPit 1 (extra turn), Pit 2 passes the turn: the second player is on turn after two moves
+        ruleSet.move(position, 0);
+        ruleSet.move(position, 1);
+        assertThat(position[KalahaRules.TURN], is(1));
+
+        try {
+            ruleSet.swapSides(position, 2);
+            throw new AssertionError("Sides should not be swapped after two moves");
+        } catch (IllegalStateException e) {
+            assertThat(position[KalahaRules.TURN], is(1));
+        }
+    }
+
+    /**
+     * Random games on a board with a variant should give the same positions as the moves of its rule set, for moves made one by one
+     * by the pits and for moves applied at once.
+     */
+    @Test
+    public void boardShouldPlayByItsRuleSet() {
+        final RuleSet[] ruleSets = {
+                RuleSet.STANDARD,
+                new RuleSet(CaptureRule.NON_EMPTY_CAPTURE, true, SweepRule.REMAINING_TO_OWNER, false),
+                new RuleSet(CaptureRule.NO_CAPTURE, true, SweepRule.REMAINING_TO_EMPTY_SIDE, false),
+                new RuleSet(CaptureRule.EMPTY_CAPTURE, false, SweepRule.NO_SWEEP, false),
+        };
+        final Random random = new Random(5);
+        final int[] expected = new int[KalahaRules.POSITION_SIZE];
+        final int[] actual = new int[KalahaRules.POSITION_SIZE];
+
+        for (RuleSet ruleSet : ruleSets) {
+            for (int game = 0; game < 50; game++) {
+                final KalahaBoard kalahaBoard = new KalahaBoard(1 + game % 4, ruleSet);
+                KalahaRules.copyOf(kalahaBoard, expected);
+                final boolean applyAtOnce = game % 2 == 0;
+                final int[] moves = new int[200];
+                int numberOfMoves = 0;
+
+                int flags = 0;
+                while ((flags & KalahaRules.GAME_OVER) == 0) {
+                    final int player = expected[KalahaRules.TURN] == KalahaRules.NONE ? random.nextInt(2) : expected[KalahaRules.TURN];
+                    final int pitIndex = player * (KalahaRules.KALAHA_PIT_1 + 1) + random.nextInt(6);
+                    if (expected[pitIndex] == 0) {
+                        continue;
+                    }
+                    flags = ruleSet.move(expected, pitIndex);
+                    moves[numberOfMoves++] = pitIndex;
+                    if (!applyAtOnce) {
+                        kalahaBoard.initialMove(pitIndex);
+                        assertThat(ruleSet + ", move " + numberOfMoves, Arrays.toString(KalahaRules.copyOf(kalahaBoard, actual)), is(Arrays.toString(expected)));
+                    }
+                }
+                if (applyAtOnce) {
+                    kalahaBoard.applyMoves(Arrays.copyOf(moves, numberOfMoves));
+                    assertThat(ruleSet + ", " + numberOfMoves + " moves", Arrays.toString(KalahaRules.copyOf(kalahaBoard, actual)), is(Arrays.toString(expected)));
+                }
+            }
+        }
+    }
+}
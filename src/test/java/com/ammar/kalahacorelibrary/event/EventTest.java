@@ -0,0 +1,50 @@
+package com.ammar.kalahacorelibrary.event;
+
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Canonical event instance tests.
+ */
+public class EventTest {
+
+    @Test
+    public void eventsWithUpToTheCachedNumberOfSeedsShouldBeTheSameInstance() {
+        for (int numberOfSeeds = 0; numberOfSeeds < Event.CACHED_NUMBER_OF_SEEDS; numberOfSeeds++) {
+            final Event event = Event.of(PlayerType.PLAYER_2, PitId.KALAHA_PIT_2, EventType.STORED, numberOfSeeds);
+            assertThat("Event with " + numberOfSeeds + " seeds", Event.of(PlayerType.PLAYER_2, PitId.KALAHA_PIT_2, EventType.STORED, numberOfSeeds),
+                    sameInstance(event));
+        }
+
+        // without a player (e.g. a tie)
+        assertThat(Event.of(null, PitId.PIT_1, EventType.TIE_GAME, 36), sameInstance(Event.of(null, PitId.PIT_1, EventType.TIE_GAME, 36)));
+    }
+
+    @Test
+    public void eventsWithOtherPlayerPitTypeOrSeedsShouldNotBeTheSameInstance() {
+        final Event event = Event.of(PlayerType.PLAYER_1, PitId.PIT_1, EventType.MOVE, 5);
+
+        assertThat(Event.of(PlayerType.PLAYER_2, PitId.PIT_1, EventType.MOVE, 5), not(sameInstance(event)));
+        assertThat(Event.of(null, PitId.PIT_1, EventType.MOVE, 5), not(sameInstance(event)));
+        assertThat(Event.of(PlayerType.PLAYER_1, PitId.PIT_2, EventType.MOVE, 5), not(sameInstance(event)));
+        assertThat(Event.of(PlayerType.PLAYER_1, PitId.PIT_1, EventType.LAST_MOVE, 5), not(sameInstance(event)));
+        assertThat(Event.of(PlayerType.PLAYER_1, PitId.PIT_1, EventType.MOVE, 6), not(sameInstance(event)));
+    }
+
+    @Test
+    public void eventsWithMoreSeedsThanCachedShouldBeNewEqualInstances() {
+        final int numberOfSeeds = Event.CACHED_NUMBER_OF_SEEDS;
+        final Event event = Event.of(PlayerType.PLAYER_1, PitId.KALAHA_PIT_1, EventType.STORED, numberOfSeeds);
+        final Event otherEvent = Event.of(PlayerType.PLAYER_1, PitId.KALAHA_PIT_1, EventType.STORED, numberOfSeeds);
+
+        assertThat(otherEvent, not(sameInstance(event)));
+        assertThat(otherEvent, is(event));
+        assertThat(otherEvent.getNumberOfSeeds(), is(numberOfSeeds));
+    }
+}
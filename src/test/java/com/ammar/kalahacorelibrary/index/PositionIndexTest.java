@@ -0,0 +1,107 @@
+package com.ammar.kalahacorelibrary.index;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.engine.CaptureRule;
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import com.ammar.kalahacorelibrary.engine.RuleSet;
+import com.ammar.kalahacorelibrary.engine.SweepRule;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Position index tests.
+ */
+public class PositionIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void finishedGameShouldBeFoundByItsPositions() throws Exception {
+        final Path directory = temporaryFolder.newFolder().toPath();
+        final int[] position = KalahaRules.newPosition(2);
+        final List<long[]> playedPositions = new ArrayList<>();
+        final int result;
+
+        try (PositionIndex positionIndex = new PositionIndex(directory, 8, 2)) {
+            final KalahaBoard kalahaBoard = new KalahaBoard(2);
+            positionIndex.attach(7, kalahaBoard);
+
+            // both players always play their first non-empty pit
+            playedPositions.add(new long[]{KalahaRules.hashOf(position), 0});
+            int flags = 0;
+            for (int moveNumber = 1; (flags & KalahaRules.GAME_OVER) == 0; moveNumber++) {
+                final int player = position[KalahaRules.TURN] == KalahaRules.NONE ? 0 : position[KalahaRules.TURN];
+                int pitIndex = player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+                while (position[pitIndex] == 0) {
+                    pitIndex++;
+                }
+                flags = KalahaRules.move(position, pitIndex);
+                kalahaBoard.initialMove(PitId.of(pitIndex));
+                playedPositions.add(new long[]{KalahaRules.hashOf(position), moveNumber});
+            }
+            result = position[KalahaRules.WINNER] == KalahaRules.NONE ? PositionOccurrence.TIE : position[KalahaRules.WINNER];
+
+            // other games, enough to be written to several segments and merged
+            for (long gameId = 100; gameId < 120; gameId++) {
+                final List<Integer> moves = new ArrayList<>();
+                moves.add((int) (gameId % 6));
+                positionIndex.addGame(gameId, KalahaRules.newPosition(3), moves, PositionOccurrence.UNDECIDED);
+            }
+            positionIndex.flush();
+            assertThat(positionIndex.getNumberOfSegments() <= 2, is(true));
+
+            for (long[] playedPosition : playedPositions) {
+                assertThat(positionIndex.find(playedPosition[0]), hasItem(new PositionOccurrence(7, (int) playedPosition[1], result)));
+            }
+        }
+
+        // reopened: everything is read from the segments
+        try (PositionIndex positionIndex = new PositionIndex(directory, 8, 2)) {
+            assertThat(positionIndex.find(KalahaRules.newPosition(3)).size(), is(20));
+            assertThat(positionIndex.find(position), hasItem(new PositionOccurrence(7, playedPositions.size() - 1, result)));
+        }
+    }
+
+    @Test
+    public void gameShouldBeIndexedWithTheRulesOfTheBoard() throws Exception {
+        final RuleSet ruleSet = new RuleSet(CaptureRule.NO_CAPTURE, false, SweepRule.REMAINING_TO_EMPTY_SIDE, false);
+        final int[] position = KalahaRules.newPosition(6);
+        final List<long[]> playedPositions = new ArrayList<>();
+
+        try (PositionIndex positionIndex = new PositionIndex(temporaryFolder.newFolder().toPath(), 1000, 2)) {
+            final KalahaBoard kalahaBoard = new KalahaBoard(6, ruleSet);
+            positionIndex.attach(7, kalahaBoard);
+
+            // both players always play their first non-empty pit, the first move ends in KalahaPit 1 (an extra turn with the standard rules)
+            playedPositions.add(new long[]{KalahaRules.hashOf(position), 0});
+            int flags = 0;
+            for (int moveNumber = 1; (flags & KalahaRules.GAME_OVER) == 0; moveNumber++) {
+                final int player = position[KalahaRules.TURN] == KalahaRules.NONE ? 0 : position[KalahaRules.TURN];
+                int pitIndex = player == 0 ? 0 : KalahaRules.KALAHA_PIT_1 + 1;
+                while (position[pitIndex] == 0) {
+                    pitIndex++;
+                }
+                flags = ruleSet.move(position, pitIndex);
+                kalahaBoard.initialMove(PitId.of(pitIndex));
+                playedPositions.add(new long[]{KalahaRules.hashOf(position), moveNumber});
+            }
+            final int result = position[KalahaRules.WINNER] == KalahaRules.NONE ? PositionOccurrence.TIE : position[KalahaRules.WINNER];
+
+            positionIndex.flush();
+            for (long[] playedPosition : playedPositions) {
+                assertThat(positionIndex.find(playedPosition[0]), hasItem(new PositionOccurrence(7, (int) playedPosition[1], result)));
+            }
+        }
+    }
+}
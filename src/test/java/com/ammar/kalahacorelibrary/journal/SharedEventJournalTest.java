@@ -0,0 +1,79 @@
+package com.ammar.kalahacorelibrary.journal;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Shared event journal tests.
+ */
+public class SharedEventJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void eventsOfOneGameShouldBeReadBackAfterRestart() throws Exception {
+        final Path journalFile = temporaryFolder.newFolder().toPath().resolve("events.journal");
+
+        final KalahaBoard game1 = new KalahaBoard(6);
+        final KalahaBoard game2 = new KalahaBoard(6);
+        final List<Event> eventsOfGame2 = new ArrayList<>();
+        game2.getReplayableEventPublisher().addObserver(new LinkedHashSet<>(Arrays.asList(EventType.values())), (observable, event) -> eventsOfGame2.add(event));
+
+        try (SharedEventJournal journal = new SharedEventJournal(journalFile, 16, 1, TimeUnit.MILLISECONDS)) {
+            final GameJournal journalOfGame1 = journal.attach(1, game1.getReplayableEventPublisher());
+            final GameJournal journalOfGame2 = journal.attach(2, game2.getReplayableEventPublisher());
+
+            game1.initialMove(0);
+            game2.initialMove(7);
+            game1.initialMove(1);
+
+            journalOfGame1.acknowledge().get(5, TimeUnit.SECONDS);
+            journalOfGame2.acknowledge().get(5, TimeUnit.SECONDS);
+
+            assertThat("Events of game 2 should be durable once the move is acknowledged", journal.readGame(2), is(eventsOfGame2));
+        }
+
+        try (SharedEventJournal journal = new SharedEventJournal(journalFile, 16, 1, TimeUnit.MILLISECONDS)) {
+            assertThat("Events of game 2 should be read back after restart", journal.readGame(2), is(eventsOfGame2));
+        }
+    }
+
+    @Test
+    public void eventsHandedOverAfterCloseShouldFailTheirAcknowledgement() throws Exception {
+        final Path journalFile = temporaryFolder.newFolder().toPath().resolve("events.journal");
+
+        final KalahaBoard game = new KalahaBoard(6);
+        final SharedEventJournal journal = new SharedEventJournal(journalFile, 16, 1, TimeUnit.MILLISECONDS);
+        final GameJournal journalOfGame = journal.attach(1, game.getReplayableEventPublisher());
+        game.initialMove(0);
+        journal.close();
+
+        assertThat("Events published before close should be durable", journalOfGame.acknowledge().isCompletedExceptionally(), is(false));
+
+        try {
+            journalOfGame.update(game.getReplayableEventPublisher(), Event.of(PlayerType.PLAYER_2, PitId.PIT_7, EventType.INITIAL_MOVE, 7));
+            fail("Journal should reject events after close");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("Journal is closed"));
+        }
+
+        final CompletableFuture<Void> acknowledgement = journalOfGame.acknowledge();
+        assertThat("Acknowledgement of an event that is never written should fail", acknowledgement.isCompletedExceptionally(), is(true));
+    }
+}
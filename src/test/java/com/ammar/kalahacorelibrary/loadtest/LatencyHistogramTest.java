@@ -0,0 +1,30 @@
+package com.ammar.kalahacorelibrary.loadtest;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Latency histogram tests.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesShouldBeWithinOnePercent() {
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            latencyHistogram.recordValue(value * 1000);
+        }
+
+        assertThat(latencyHistogram.getTotalCount(), is(100_000L));
+        assertWithinOnePercent(latencyHistogram.getValueAtPercentile(50), 50_000_000);
+        assertWithinOnePercent(latencyHistogram.getValueAtPercentile(99), 99_000_000);
+        assertWithinOnePercent(latencyHistogram.getValueAtPercentile(99.9), 99_900_000);
+        assertThat(latencyHistogram.getValueAtPercentile(100), is(100_000_000L));
+    }
+
+    private void assertWithinOnePercent(final long actual, final long expected) {
+        assertThat(actual + " should be within 1% of " + expected, Math.abs(actual - expected) <= expected / 100, is(true));
+    }
+}
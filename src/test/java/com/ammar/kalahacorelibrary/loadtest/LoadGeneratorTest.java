@@ -0,0 +1,61 @@
+package com.ammar.kalahacorelibrary.loadtest;
+
+import com.ammar.kalahacorelibrary.concurrency.ConcurrencyModel;
+import com.ammar.kalahacorelibrary.event.EventType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Load generator tests.
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void latencyShouldIncludeTheTimeAMoveWaitedForItsTurn() throws Exception {
+        // every move takes at least 20 ms (slow observer), but 2 games with a think time of 10 ms offer a move every 5 ms
+        final LoadGenerator loadGenerator = new LoadGenerator(6, ConcurrencyModel.PLATFORM_THREADS, 1,
+                kalahaBoard -> kalahaBoard.getReplayableEventPublisher().subscribe(EnumSet.of(EventType.INITIAL_MOVE), (observable, event) -> sleep(20)));
+
+        final LoadStep loadStep = loadGenerator.run(2, 10, 100, TimeUnit.MILLISECONDS);
+
+        // intended starts 0, 5, .., 95 ms: the last move starts after 19 slow moves, about 300 ms after its intended start
+        assertThat(loadStep.getNumberOfMoves(), is(20L));
+        final long maxLatencyMillis = TimeUnit.NANOSECONDS.toMillis(loadStep.getLatencyHistogram().getMaxValue());
+        assertThat("Max latency " + maxLatencyMillis + " ms should include the queueing delay", maxLatencyMillis >= 200, is(true));
+    }
+
+    @Test
+    public void sweepShouldRunOneStepPerThinkTimeFromSlowToFast() throws Exception {
+        final LoadGenerator loadGenerator = new LoadGenerator(4, ConcurrencyModel.VIRTUAL_THREADS, 2);
+
+        final List<LoadStep> loadSteps = loadGenerator.sweep(4, Arrays.asList(5L, 20L, 10L), 50, TimeUnit.MILLISECONDS).getLoadSteps();
+
+        assertThat(loadSteps.size(), is(3));
+        assertThat(loadSteps.get(0).getThinkTimeNanos(), is(TimeUnit.MILLISECONDS.toNanos(20)));
+        assertThat(loadSteps.get(1).getThinkTimeNanos(), is(TimeUnit.MILLISECONDS.toNanos(10)));
+        assertThat(loadSteps.get(2).getThinkTimeNanos(), is(TimeUnit.MILLISECONDS.toNanos(5)));
+
+        // virtual threads fall back to platform threads on a JVM without them
+        final ConcurrencyModel expectedConcurrencyModel = ConcurrencyModel.VIRTUAL_THREADS.isSupported()
+                ? ConcurrencyModel.VIRTUAL_THREADS : ConcurrencyModel.PLATFORM_THREADS;
+        for (LoadStep loadStep : loadSteps) {
+            assertThat(loadStep.getConcurrencyModel(), is(expectedConcurrencyModel));
+            assertThat(loadStep.getNumberOfMoves() > 0, is(true));
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
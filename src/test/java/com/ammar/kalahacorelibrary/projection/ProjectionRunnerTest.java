@@ -0,0 +1,202 @@
+package com.ammar.kalahacorelibrary.projection;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.journal.GameJournal;
+import com.ammar.kalahacorelibrary.journal.SharedEventJournal;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Projection runner tests.
+ */
+public class ProjectionRunnerTest {
+    private static final String REFEREE = "Referee";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void projectionShouldResumeFromItsCheckpoint() throws Exception {
+        final Path folder = temporaryFolder.newFolder().toPath();
+        final Path journalFile = folder.resolve("events.journal");
+        final Path checkpointDirectory = folder.resolve("checkpoints");
+
+        try (SharedEventJournal journal = new SharedEventJournal(journalFile, 16, 1, TimeUnit.MILLISECONDS)) {
+            final KalahaBoard kalahaBoard = new KalahaBoard(6);
+            final GameJournal gameJournal = journal.attach(1, kalahaBoard.getReplayableEventPublisher());
+
+            kalahaBoard.initialMove(PitId.PIT_1);
+            kalahaBoard.initialMove(PitId.PIT_2);
+            gameJournal.acknowledge().get(5, TimeUnit.SECONDS);
+
+            final PlayerStatisticsProjection statistics = new PlayerStatisticsProjection();
+            try (ProjectionRunner runner = new ProjectionRunner(journalFile, checkpointDirectory, Collections.singletonList(statistics))) {
+                runner.catchUp();
+            }
+            assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(2L));
+
+            kalahaBoard.initialMove(PitId.PIT_8);
+            gameJournal.acknowledge().get(5, TimeUnit.SECONDS);
+        }
+
+        // restart: the first 2 moves come from the checkpoint, only the last move is read from the journal
+        final PlayerStatisticsProjection statistics = new PlayerStatisticsProjection();
+        try (ProjectionRunner runner = new ProjectionRunner(journalFile, checkpointDirectory, Collections.singletonList(statistics))) {
+            assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(2L));
+            runner.catchUp();
+        }
+        assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(2L));
+        assertThat(statistics.getMoves(PlayerType.PLAYER_2), is(1L));
+    }
+
+    @Test
+    public void movesTakenBackShouldNotCount() {
+        final MovesPerGameProjection movesPerGame = new MovesPerGameProjection();
+        final PlayerStatisticsProjection statistics = new PlayerStatisticsProjection();
+        final List<Event> events = Arrays.asList(
+                new Event(PlayerType.PLAYER_1, PitId.PIT_3, EventType.INITIAL_MOVE, 6),
+                new Event(PlayerType.PLAYER_1, PitId.PIT_6, EventType.CAPTURE_SEEDS, 8),
+                new Event(PlayerType.PLAYER_2, PitId.PIT_9, EventType.INITIAL_MOVE, 4),
+                new Event(PlayerType.PLAYER_2, REFEREE, EventType.WINS, 40));
+        for (Event event : events) {
+            movesPerGame.apply(1, event);
+            statistics.apply(1, event);
+        }
+        assertThat(movesPerGame.getNumberOfFinishedGames(), is(1L));
+        assertThat(movesPerGame.getAverageMovesPerGame(), is(2.0));
+        assertThat(statistics.getWins(PlayerType.PLAYER_2), is(1L));
+
+        // taking back the move that decided the game puts the game in progress again
+        undo(movesPerGame, statistics);
+        assertThat(movesPerGame.getNumberOfFinishedGames(), is(0L));
+        assertThat(movesPerGame.getNumberOfGamesInProgress(), is(1));
+        assertThat(statistics.getWins(PlayerType.PLAYER_2), is(0L));
+        assertThat(statistics.getMoves(PlayerType.PLAYER_2), is(0L));
+
+        undo(movesPerGame, statistics);
+        assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(0L));
+        assertThat(statistics.getCaptures(PlayerType.PLAYER_1), is(0L));
+        // nothing left to take back
+        undo(movesPerGame, statistics);
+        assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(0L));
+
+        redo(movesPerGame, statistics);
+        redo(movesPerGame, statistics);
+        assertThat(movesPerGame.getNumberOfFinishedGames(), is(1L));
+        assertThat(movesPerGame.getAverageMovesPerGame(), is(2.0));
+        assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(1L));
+        assertThat(statistics.getCaptures(PlayerType.PLAYER_1), is(1L));
+        assertThat(statistics.getMoves(PlayerType.PLAYER_2), is(1L));
+        assertThat(statistics.getWins(PlayerType.PLAYER_2), is(1L));
+
+        // a new move after a take back: the move that was taken back can't be re-applied anymore
+        undo(movesPerGame, statistics);
+        final Event otherMove = new Event(PlayerType.PLAYER_2, PitId.PIT_10, EventType.INITIAL_MOVE, 4);
+        movesPerGame.apply(1, otherMove);
+        statistics.apply(1, otherMove);
+        redo(movesPerGame, statistics);
+        assertThat(movesPerGame.getNumberOfFinishedGames(), is(0L));
+        assertThat(statistics.getMoves(PlayerType.PLAYER_2), is(1L));
+        assertThat(statistics.getWins(PlayerType.PLAYER_2), is(0L));
+    }
+
+    @Test
+    public void movesTakenBackShouldBeRestoredFromTheCheckpoint() throws Exception {
+        final Path folder = temporaryFolder.newFolder().toPath();
+        final Path journalFile = folder.resolve("events.journal");
+        final Path checkpointDirectory = folder.resolve("checkpoints");
+
+        try (SharedEventJournal journal = new SharedEventJournal(journalFile, 16, 1, TimeUnit.MILLISECONDS)) {
+            final KalahaBoard kalahaBoard = new KalahaBoard(6);
+            final GameJournal gameJournal = journal.attach(1, kalahaBoard.getReplayableEventPublisher());
+
+            // extra turn, then the move of player 1 is taken back
+            kalahaBoard.initialMove(PitId.PIT_1);
+            kalahaBoard.initialMove(PitId.PIT_2);
+            kalahaBoard.undo();
+            gameJournal.acknowledge().get(5, TimeUnit.SECONDS);
+
+            final PlayerStatisticsProjection statistics = new PlayerStatisticsProjection();
+            try (ProjectionRunner runner = new ProjectionRunner(journalFile, checkpointDirectory, Collections.singletonList(statistics))) {
+                runner.catchUp();
+            }
+            assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(1L));
+
+            kalahaBoard.redo();
+            gameJournal.acknowledge().get(5, TimeUnit.SECONDS);
+        }
+
+        // restart: the move that was taken back comes from the checkpoint, it is re-applied by the REDO_MOVE in the journal
+        final PlayerStatisticsProjection statistics = new PlayerStatisticsProjection();
+        try (ProjectionRunner runner = new ProjectionRunner(journalFile, checkpointDirectory, Collections.singletonList(statistics))) {
+            runner.catchUp();
+        }
+        assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(2L));
+    }
+
+    @Test
+    public void movesAppliedAtOnceShouldCount() {
+        final MovesPerGameProjection movesPerGame = new MovesPerGameProjection();
+        final PlayerStatisticsProjection statistics = new PlayerStatisticsProjection();
+        final KalahaBoard kalahaBoard = new KalahaBoard(3);
+        kalahaBoard.getReplayableEventPublisher().addObserver(new LinkedHashSet<>(Arrays.asList(EventType.values())), (observable, event) -> {
+            movesPerGame.apply(1, event);
+            statistics.apply(1, event);
+        });
+
+        kalahaBoard.applyMoves(new int[]{2, 8});
+        assertThat(statistics.getMovesAppliedAtOnce(), is(2L));
+        // taken back at once
+        kalahaBoard.undo();
+        assertThat(statistics.getMovesAppliedAtOnce(), is(0L));
+        kalahaBoard.redo();
+
+        final long[] moves = new long[2];
+        int pitIndex = 0;
+        while (!isGameOver(kalahaBoard)) {
+            pitIndex = (pitIndex + 5) % 14;
+            if (kalahaBoard.getReferee().isLegalMove(PitId.of(pitIndex))) {
+                moves[PitId.of(pitIndex).getPlayerType().ordinal()]++;
+                kalahaBoard.initialMove(pitIndex);
+            }
+        }
+
+        assertThat(movesPerGame.getNumberOfFinishedGames(), is(1L));
+        assertThat(movesPerGame.getAverageMovesPerGame(), is(2.0 + moves[0] + moves[1]));
+        assertThat(statistics.getMovesAppliedAtOnce(), is(2L));
+        assertThat(statistics.getMoves(PlayerType.PLAYER_1), is(moves[0]));
+        assertThat(statistics.getMoves(PlayerType.PLAYER_2), is(moves[1]));
+    }
+
+    // no legal moves left for both players
+    private static boolean isGameOver(final KalahaBoard kalahaBoard) {
+        return kalahaBoard.getReferee().getLegalMoveMask(PlayerType.PLAYER_1) == 0 && kalahaBoard.getReferee().getLegalMoveMask(PlayerType.PLAYER_2) == 0;
+    }
+
+    private static void undo(final Projection... projections) {
+        for (Projection projection : projections) {
+            projection.apply(1, new Event(PlayerType.PLAYER_1, REFEREE, EventType.UNDO_MOVE, 0));
+        }
+    }
+
+    private static void redo(final Projection... projections) {
+        for (Projection projection : projections) {
+            projection.apply(1, new Event(PlayerType.PLAYER_1, REFEREE, EventType.REDO_MOVE, 0));
+        }
+    }
+}
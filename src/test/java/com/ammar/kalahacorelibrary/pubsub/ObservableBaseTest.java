@@ -0,0 +1,110 @@
+package com.ammar.kalahacorelibrary.pubsub;
+
+import com.ammar.kalahacorelibrary.board.KalahaBoard;
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Subscription tests (unsubscribe, filtered and weak subscriptions).
+ */
+public class ObservableBaseTest {
+
+    private static final Set<EventType> ALL_EVENT_TYPES = new LinkedHashSet<>(Arrays.asList(EventType.values()));
+
+    @Test
+    public void cancelledSubscriptionShouldNotBeNotified() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> events = new ArrayList<>();
+        final Subscription subscription = kalahaBoard.getReplayableEventPublisher().subscribe(ALL_EVENT_TYPES, (observable, event) -> events.add(event));
+
+        kalahaBoard.initialMove(PitId.PIT_1);
+        final int numberOfEvents = events.size();
+        assertThat(numberOfEvents > 0, is(true));
+
+        subscription.cancel();
+        kalahaBoard.initialMove(PitId.PIT_2);
+        kalahaBoard.initialMove(PitId.PIT_7);
+
+        assertThat(subscription.isActive(), is(false));
+        assertThat("Cancelled observer should not receive events", events.size(), is(numberOfEvents));
+    }
+
+    @Test
+    public void filteredObserverShouldOnlyReceiveMatchingEvents() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> allEvents = new ArrayList<>();
+        final List<Event> filteredEvents = new ArrayList<>();
+        final SubscriptionFilter subscriptionFilter = SubscriptionFilter.ALL
+                .players(PlayerType.PLAYER_2)
+                .pits(PitId.PIT_8, PitId.KALAHA_PIT_2)
+                .minimumNumberOfSeeds(1);
+        kalahaBoard.getReplayableEventPublisher().subscribe(ALL_EVENT_TYPES, (observable, event) -> allEvents.add(event));
+        kalahaBoard.getReplayableEventPublisher().subscribe(subscriptionFilter, (observable, event) -> filteredEvents.add(event));
+
+        // Pit 1 gives player 1 an extra turn, Pit 2 passes the turn to player 2
+        kalahaBoard.initialMove(PitId.PIT_1);
+        kalahaBoard.initialMove(PitId.PIT_2);
+        kalahaBoard.initialMove(PitId.PIT_7);
+
+        // Pit 2 ends in Pit 8, Pit 7 sows thru Pit 8 and ends in KalahaPit 2 (events of Pit 8 and KalahaPit 2 with 0 seeds are filtered)
+        final List<Event> expectedEvents = Arrays.asList(
+                Event.of(PlayerType.PLAYER_2, PitId.PIT_8, EventType.CHANGE_TURN, 7),
+                Event.of(PlayerType.PLAYER_2, PitId.PIT_8, EventType.NOT_EMPTY, 8),
+                Event.of(PlayerType.PLAYER_2, PitId.PIT_8, EventType.MOVE, 6),
+                Event.of(PlayerType.PLAYER_2, PitId.KALAHA_PIT_2, EventType.LAST_MOVE, 1)
+        );
+        assertThat(filteredEvents, is(expectedEvents));
+        assertThat(allEvents.size() > expectedEvents.size(), is(true));
+    }
+
+    @Test
+    public void observerAddedForAnEventTypeAndSubscribedForASetShouldBeNotifiedOnce() {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> events = new ArrayList<>();
+        final Observer observer = (observable, event) -> events.add(event);
+        kalahaBoard.getReplayableEventPublisher().addObserver(EventType.CHANGE_TURN, observer);
+        kalahaBoard.getReplayableEventPublisher().subscribe(EnumSet.of(EventType.CHANGE_TURN, EventType.EMPTY), observer);
+
+        kalahaBoard.initialMove(PitId.PIT_2);
+
+        assertThat(events, is(Arrays.asList(
+                Event.of(PlayerType.PLAYER_1, PitId.PIT_2, EventType.EMPTY, 0),
+                Event.of(PlayerType.PLAYER_2, PitId.PIT_7, EventType.CHANGE_TURN, 7)
+        )));
+    }
+
+    @Test
+    public void garbageCollectedObserverShouldBePruned() throws InterruptedException {
+        final KalahaBoard kalahaBoard = new KalahaBoard(6);
+        final List<Event> events = new ArrayList<>();
+        // capturing lambda: a new observer instance (a non-capturing lambda would be a reachable singleton)
+        Observer observer = (observable, event) -> events.add(event);
+        final WeakReference<Observer> weakObserver = new WeakReference<>(observer);
+        final Subscription subscription = kalahaBoard.getReplayableEventPublisher().subscribeWeakly(ALL_EVENT_TYPES, observer);
+        assertThat(subscription.isActive(), is(true));
+
+        observer = null;
+        for (int i = 0; i < 50 && weakObserver.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat("Weak subscription should not keep the observer reachable", weakObserver.get() == null, is(true));
+        kalahaBoard.initialMove(PitId.PIT_1);
+        assertThat(subscription.isActive(), is(false));
+    }
+}
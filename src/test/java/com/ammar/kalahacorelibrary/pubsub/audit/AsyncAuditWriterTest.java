@@ -0,0 +1,75 @@
+package com.ammar.kalahacorelibrary.pubsub.audit;
+
+import com.ammar.kalahacorelibrary.event.Event;
+import com.ammar.kalahacorelibrary.event.EventType;
+import com.ammar.kalahacorelibrary.player.PlayerType;
+import com.ammar.kalahacorelibrary.pubsub.pit.PitId;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Asynchronous audit writer tests.
+ */
+public class AsyncAuditWriterTest {
+
+    @Test
+    public void entriesShouldBeWrittenInOrderAndDroppedWhenTheBufferIsFull() throws Exception {
+        final CountDownLatch firstEntryTaken = new CountDownLatch(1);
+        final CountDownLatch auditLogUnblocked = new CountDownLatch(1);
+        final CountDownLatch allEntriesWritten = new CountDownLatch(5);
+        final List<Integer> writtenEntries = new ArrayList<>();
+        final AsyncAuditWriter asyncAuditWriter = new AsyncAuditWriter(4, (publisher, event) -> {
+            firstEntryTaken.countDown();
+            awaitQuietly(auditLogUnblocked);
+            synchronized (writtenEntries) {
+                writtenEntries.add(event.getNumberOfSeeds());
+            }
+            allEntriesWritten.countDown();
+        });
+
+        // the writer takes the first entry and blocks in the audit log, the ring buffer (4 slots) fills up behind it
+        assertThat(asyncAuditWriter.offer(this, eventWithSeeds(0)), is(true));
+        assertThat(firstEntryTaken.await(5, TimeUnit.SECONDS), is(true));
+        for (int i = 1; i <= 4; i++) {
+            assertThat("Entry " + i + " should fit in the ring buffer", asyncAuditWriter.offer(this, eventWithSeeds(i)), is(true));
+        }
+        assertThat("Entry should be dropped when the ring buffer is full", asyncAuditWriter.offer(this, eventWithSeeds(5)), is(false));
+        assertThat(asyncAuditWriter.getNumberOfDroppedEntries(), is(1L));
+
+        auditLogUnblocked.countDown();
+        assertThat(allEntriesWritten.await(5, TimeUnit.SECONDS), is(true));
+        synchronized (writtenEntries) {
+            assertThat(writtenEntries.toString(), is("[0, 1, 2, 3, 4]"));
+        }
+    }
+
+    @Test
+    public void parkedWriterShouldBeWokenUpByANewEntry() throws Exception {
+        final CountDownLatch entryWritten = new CountDownLatch(1);
+        final AsyncAuditWriter asyncAuditWriter = new AsyncAuditWriter(4, (publisher, event) -> entryWritten.countDown());
+
+        // give the writer time to find the buffer empty and park
+        Thread.sleep(50);
+        asyncAuditWriter.offer(this, eventWithSeeds(1));
+        assertThat(entryWritten.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    private static Event eventWithSeeds(final int numberOfSeeds) {
+        return Event.of(PlayerType.PLAYER_1, PitId.PIT_1, EventType.NOT_EMPTY, numberOfSeeds);
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.ammar.kalahacorelibrary.server;
+
+import com.ammar.kalahacorelibrary.concurrency.ConcurrencyModel;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Game server tests, over HTTP on localhost.
+ * <p>
+ * The number of streams of manyStreamsShouldReceiveTheMove() is kept small by default (one socket and, before Java 21, one server
+ * thread per stream), it can be raised to measure tens of thousands of streams, e.g. -Dkalaha.server.streams=20000 (with a file
+ * descriptor limit of at least twice that number, and VIRTUAL_THREADS on Java 21+). The timings are logged.
+ */
+public class KalahaGameServerTest {
+    private static final int NUMBER_OF_STREAMS = 50;
+    private static final int NUMBER_OF_RAW_STREAMS = Integer.getInteger("kalaha.server.streams", NUMBER_OF_STREAMS);
+
+    private static final ConcurrencyModel CONCURRENCY_MODEL = ConcurrencyModel.VIRTUAL_THREADS.isSupported()
+            ? ConcurrencyModel.VIRTUAL_THREADS : ConcurrencyModel.PLATFORM_THREADS;
+
+    private final Logger logger = Logger.getLogger(KalahaGameServerTest.class);
+
+    private KalahaGameServer kalahaGameServer;
+    private ExecutorService executorService;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        startServer(new KalahaGameServer(new InetSocketAddress("localhost", 0), 6, CONCURRENCY_MODEL));
+        executorService = Executors.newFixedThreadPool(NUMBER_OF_STREAMS);
+    }
+
+    @After
+    public void tearDown() {
+        kalahaGameServer.close();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void movesShouldBeStreamedToAllSpectators() throws Exception {
+        final HttpURLConnection createGame = request("POST", "/games");
+        assertThat(createGame.getResponseCode(), is(201));
+        assertThat(body(createGame), containsString("\"id\":1,\"pits\":[6,6,6,6,6,6,0,6,6,6,6,6,6,0]"));
+
+        // every stream waits for the referee to change the turn after the first move
+        final CountDownLatch connected = new CountDownLatch(NUMBER_OF_STREAMS);
+        final List<CompletableFuture<List<String>>> streams = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_STREAMS; i++) {
+            streams.add(CompletableFuture.supplyAsync(() -> readEventsUntil("event: CHANGE_TURN", connected), executorService));
+        }
+        assertThat(connected.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(kalahaGameServer.getNumberOfStreams(), is(NUMBER_OF_STREAMS));
+
+        final HttpURLConnection move = request("POST", "/games/1/moves?pit=1");
+        assertThat(move.getResponseCode(), is(200));
+        assertThat(body(move), containsString("\"pits\":[6,0,7,7,7,7,1,7,6,6,6,6,6,0],\"turn\":\"PLAYER_2\""));
+
+        for (CompletableFuture<List<String>> stream : streams) {
+            final List<String> lines = stream.get(10, TimeUnit.SECONDS);
+            assertThat(lines.get(0), is("id: 0"));
+            assertThat(lines.get(1), is("event: SNAPSHOT"));
+            assertThat(lines.contains("data: {\"sequence\":3,\"player\":\"PLAYER_1\",\"pit\":\"Pit 3\",\"seeds\":7}"), is(true));
+        }
+
+        // out of turn
+        final HttpURLConnection illegalMove = request("POST", "/games/1/moves?pit=2");
+        assertThat(illegalMove.getResponseCode(), is(409));
+        assertThat(request("POST", "/games/1/moves?pit=x").getResponseCode(), is(400));
+        assertThat(request("GET", "/games/2").getResponseCode(), is(404));
+
+        assertThat(request("DELETE", "/games/1").getResponseCode(), is(204));
+        assertThat(kalahaGameServer.getNumberOfGames(), is(0));
+    }
+
+    @Test
+    public void numberOfGamesShouldBeLimited() throws Exception {
+        startServer(new KalahaGameServer(new InetSocketAddress("localhost", 0), 6, CONCURRENCY_MODEL, 2, TimeUnit.MINUTES.toMillis(1)));
+
+        assertThat(request("POST", "/games").getResponseCode(), is(201));
+        assertThat(request("POST", "/games").getResponseCode(), is(201));
+        assertThat(request("POST", "/games").getResponseCode(), is(503));
+        assertThat(kalahaGameServer.getNumberOfGames(), is(2));
+
+        assertThat(request("DELETE", "/games/1").getResponseCode(), is(204));
+        assertThat(request("POST", "/games").getResponseCode(), is(201));
+    }
+
+    @Test
+    public void idleGamesShouldBeRemoved() throws Exception {
+        startServer(new KalahaGameServer(new InetSocketAddress("localhost", 0), 6, CONCURRENCY_MODEL, 10, 200));
+        assertThat(request("POST", "/games").getResponseCode(), is(201));
+        assertThat(request("POST", "/games").getResponseCode(), is(201));
+
+        // game 2 has an open stream, game 1 is not accessed anymore
+        final HttpURLConnection openStream = request("GET", "/games/2/events");
+        assertThat(openStream.getResponseCode(), is(200));
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (kalahaGameServer.getNumberOfGames() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        // a few more idle timeouts for game 2
+        Thread.sleep(600);
+        assertThat(kalahaGameServer.getNumberOfGames(), is(1));
+        assertThat(request("GET", "/games/1").getResponseCode(), is(404));
+        assertThat(request("GET", "/games/2").getResponseCode(), is(200));
+        openStream.disconnect();
+    }
+
+    /**
+     * Many streams on one game, opened over plain sockets by one thread. Reports how long it takes to open them all and to deliver
+     * one move to all of them (logged).
+     */
+    @Test
+    public void manyStreamsShouldReceiveTheMove() throws Exception {
+        assertThat(request("POST", "/games").getResponseCode(), is(201));
+        final byte[] streamRequest = "GET /games/1/events HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        final List<Socket> sockets = new ArrayList<>(NUMBER_OF_RAW_STREAMS);
+        try {
+            final long startNanos = System.nanoTime();
+            for (int i = 0; i < NUMBER_OF_RAW_STREAMS; i++) {
+                final Socket socket = new Socket("localhost", kalahaGameServer.getAddress().getPort());
+                socket.setSoTimeout(30_000);
+                socket.getOutputStream().write(streamRequest);
+                sockets.add(socket);
+            }
+            for (Socket socket : sockets) {
+                readUntil(socket.getInputStream(), "event: SNAPSHOT");
+            }
+            final long openedNanos = System.nanoTime();
+            assertThat(kalahaGameServer.getNumberOfStreams(), is(NUMBER_OF_RAW_STREAMS));
+
+            assertThat(request("POST", "/games/1/moves?pit=1").getResponseCode(), is(200));
+            for (Socket socket : sockets) {
+                readUntil(socket.getInputStream(), "event: CHANGE_TURN");
+            }
+            final long deliveredNanos = System.nanoTime();
+
+            logger.info(String.format("%s: %d streams opened in %d ms, move delivered to all streams in %d ms", CONCURRENCY_MODEL, NUMBER_OF_RAW_STREAMS,
+                    TimeUnit.NANOSECONDS.toMillis(openedNanos - startNanos), TimeUnit.NANOSECONDS.toMillis(deliveredNanos - openedNanos)));
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Read (in small chunks, there are many streams) until the text has been read.
+     */
+    private static void readUntil(final InputStream inputStream, final String text) throws IOException {
+        final byte[] buffer = new byte[256];
+        final StringBuilder read = new StringBuilder();
+        while (read.indexOf(text) < 0) {
+            final int length = inputStream.read(buffer);
+            if (length < 0) {
+                throw new EOFException("Stream ended before: " + text);
+            }
+            read.append(new String(buffer, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void startServer(final KalahaGameServer server) {
+        if (kalahaGameServer != null) {
+            kalahaGameServer.close();
+        }
+        kalahaGameServer = server;
+        kalahaGameServer.start();
+        baseUrl = "http://localhost:" + kalahaGameServer.getAddress().getPort();
+    }
+
+    private List<String> readEventsUntil(final String lastLine, final CountDownLatch connected) {
+        final List<String> lines = new ArrayList<>();
+        try {
+            final HttpURLConnection connection = request("GET", "/games/1/events");
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                connected.countDown();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                    if (line.equals(lastLine)) {
+                        break;
+                    }
+                }
+            }
+            connection.disconnect();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return lines;
+    }
+
+    private HttpURLConnection request(final String method, final String path) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setReadTimeout(10_000);
+        return connection;
+    }
+
+    private static String body(final HttpURLConnection connection) throws IOException {
+        try (InputStream inputStream = connection.getInputStream()) {
+            final StringBuilder body = new StringBuilder();
+            final byte[] buffer = new byte[1024];
+            int length;
+            while ((length = inputStream.read(buffer)) > 0) {
+                body.append(new String(buffer, 0, length, StandardCharsets.UTF_8));
+            }
+            return body.toString();
+        }
+    }
+}
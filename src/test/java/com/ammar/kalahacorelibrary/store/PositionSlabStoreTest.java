@@ -0,0 +1,53 @@
+package com.ammar.kalahacorelibrary.store;
+
+import com.ammar.kalahacorelibrary.engine.KalahaRules;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Position slab store tests.
+ */
+public class PositionSlabStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void freedSlotShouldBeReused() {
+        final PositionSlabStore store = PositionSlabStore.inMemory(2);
+
+        final int slot1 = store.allocate(6);
+        final int slot2 = store.allocate(6);
+        store.free(slot1);
+
+        assertThat("Slot 1 should be freed", store.isAllocated(slot1), is(false));
+        assertThat("Freed slot should be reused", store.allocate(4), is(slot1));
+        assertThat("Re-used slot should contain the new position", store.getNumberOfSeeds(slot1, 0), is(4));
+        assertThat("Slot 2 should be untouched", store.getNumberOfSeeds(slot2, 0), is(6));
+    }
+
+    @Test
+    public void fileBackedStoreShouldSurviveRestart() throws IOException {
+        final Path file = temporaryFolder.newFolder().toPath().resolve("positions.slab");
+
+        final int slot;
+        try (PositionSlabStore store = PositionSlabStore.open(file, 16)) {
+            slot = store.allocate(6);
+            store.move(slot, 0);
+        }
+
+        try (PositionSlabStore store = PositionSlabStore.open(file, 16)) {
+            assertThat("Slot should still be allocated", store.isAllocated(slot), is(true));
+            assertThat("Pit 1 should have 0 seeds", store.getNumberOfSeeds(slot, 0), is(0));
+            assertThat("Kalaha Pit Player 1 should have 1 seed", store.getNumberOfSeeds(slot, KalahaRules.KALAHA_PIT_1), is(1));
+            assertThat("Player 1 should play again", store.getCurrentPlayerTurn(slot), is(0));
+        }
+    }
+}
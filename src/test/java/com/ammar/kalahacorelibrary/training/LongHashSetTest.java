@@ -0,0 +1,45 @@
+package com.ammar.kalahacorelibrary.training;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Long hash set tests.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void setShouldGrowWithoutLosingValues() {
+        // far more values than the expected size, also values that collide in the low bits and 0
+        final LongHashSet longHashSet = new LongHashSet(4);
+        final Set<Long> expected = new HashSet<>();
+        final Random random = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            final long value = i % 3 == 0 ? (long) i << 32 : (i % 3 == 1 ? random.nextLong() : i);
+            assertThat("Value " + value, longHashSet.add(value), is(expected.add(value)));
+        }
+        assertThat(longHashSet.add(0), is(expected.add(0L)));
+        assertThat(longHashSet.size(), is(expected.size()));
+
+        // every value is still found after all the resizes
+        for (long value : expected) {
+            assertThat("Value " + value, longHashSet.add(value), is(false));
+        }
+        assertThat(longHashSet.size(), is(expected.size()));
+    }
+
+    @Test
+    public void zeroShouldBeAddedOnce() {
+        final LongHashSet longHashSet = new LongHashSet(16);
+        assertThat(longHashSet.add(0), is(true));
+        assertThat(longHashSet.add(0), is(false));
+        assertThat(longHashSet.add(-1), is(true));
+        assertThat(longHashSet.size(), is(2));
+    }
+}
@@ -0,0 +1,87 @@
+package com.ammar.kalahacorelibrary.training;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Self-play generator tests.
+ */
+public class SelfPlayGeneratorTest {
+    private static final int NUMBER_OF_WORKERS = 2;
+    private static final int GAMES_PER_WORKER = 20;
+    // pits and side to move
+    private static final int POSITION_BYTES = TrainingRecord.SIZE - 1 - 4;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void sameSeedShouldProduceTheSameShards() throws Exception {
+        final SelfPlayGenerator generator = generator(temporaryFolder.newFolder().toPath(), 42);
+        final SelfPlayGenerator sameSeedGenerator = generator(temporaryFolder.newFolder().toPath(), 42);
+        final SelfPlayGenerator otherSeedGenerator = generator(temporaryFolder.newFolder().toPath(), 43);
+        final SelfPlayReport report = generator.generate(GAMES_PER_WORKER);
+        final SelfPlayReport sameSeedReport = sameSeedGenerator.generate(GAMES_PER_WORKER);
+        otherSeedGenerator.generate(GAMES_PER_WORKER);
+
+        assertThat(report.getNumberOfGames(), is((long) NUMBER_OF_WORKERS * GAMES_PER_WORKER));
+        assertThat(sameSeedReport.getNumberOfPositions(), is(report.getNumberOfPositions()));
+        assertThat(sameSeedReport.getNumberOfDuplicatePositions(), is(report.getNumberOfDuplicatePositions()));
+        for (int workerIndex = 0; workerIndex < NUMBER_OF_WORKERS; workerIndex++) {
+            final byte[] shard = Files.readAllBytes(generator.shardOf(workerIndex));
+            assertThat("Shard " + workerIndex, Arrays.equals(Files.readAllBytes(sameSeedGenerator.shardOf(workerIndex)), shard), is(true));
+            assertThat("Shard " + workerIndex, Arrays.equals(Files.readAllBytes(otherSeedGenerator.shardOf(workerIndex)), shard), is(false));
+        }
+    }
+
+    @Test
+    public void duplicatePositionsShouldOnlyBeSkippedWithinAShard() throws Exception {
+        final SelfPlayGenerator generator = generator(temporaryFolder.newFolder().toPath(), 7);
+        final SelfPlayReport report = generator.generate(GAMES_PER_WORKER);
+        // every game starts from the same position
+        assertThat(report.getNumberOfDuplicatePositions() >= NUMBER_OF_WORKERS * (GAMES_PER_WORKER - 2), is(true));
+
+        long numberOfPositions = 0;
+        final Set<ByteBuffer> positionsOfFirstShard = positionsOf(generator.shardOf(0));
+        for (int workerIndex = 0; workerIndex < NUMBER_OF_WORKERS; workerIndex++) {
+            final byte[] shard = Files.readAllBytes(generator.shardOf(workerIndex));
+            assertThat(shard.length % TrainingRecord.SIZE, is(0));
+            final Set<ByteBuffer> positions = positionsOf(generator.shardOf(workerIndex));
+            assertThat("Shard " + workerIndex + " should not contain duplicate positions", positions.size(), is(shard.length / TrainingRecord.SIZE));
+            numberOfPositions += positions.size();
+
+            if (workerIndex > 0) {
+                // positions seen by another worker are still written
+                final Set<ByteBuffer> sharedPositions = new HashSet<>(positions);
+                sharedPositions.retainAll(positionsOfFirstShard);
+                assertThat(sharedPositions.size(), is(not(0)));
+            }
+        }
+        assertThat(report.getNumberOfPositions(), is(numberOfPositions));
+    }
+
+    private static SelfPlayGenerator generator(final Path outputDirectory, final long seed) {
+        return new SelfPlayGenerator(outputDirectory, NUMBER_OF_WORKERS, 4, 2, seed, new RandomizationSchedule(2, 1.0, 0.1, 10));
+    }
+
+    private static Set<ByteBuffer> positionsOf(final Path shard) throws Exception {
+        final byte[] records = Files.readAllBytes(shard);
+        final Set<ByteBuffer> positions = new HashSet<>();
+        for (int offset = 0; offset < records.length; offset += TrainingRecord.SIZE) {
+            positions.add(ByteBuffer.wrap(records, offset, POSITION_BYTES).slice());
+        }
+        return positions;
+    }
+}